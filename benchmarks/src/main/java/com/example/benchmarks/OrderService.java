@@ -0,0 +1,49 @@
+package com.example.benchmarks;
+
+import com.logging.framework.annotation.LogMethod;
+
+/**
+ * Target of {@link com.logging.framework.benchmarks.WeavingModeBenchmark}.
+ * It lives outside the framework packages, since the predefined method pointcut never
+ * matches framework classes, and is woven by AspectJ only in the forks running with the agent.
+ */
+public class OrderService {
+    
+    /**
+     * Method intercepted by the custom method logging aspect.
+     * 
+     * @param orderId The order id
+     * @return The processed value
+     */
+    @LogMethod(description = "Benchmark method")
+    public String handle(String orderId) {
+        return orderId + "-handled";
+    }
+    
+    /**
+     * Method selected for logging through the method selection configuration.
+     * 
+     * @param orderId The order id
+     * @return The processed value
+     */
+    public String process(String orderId) {
+        return orderId + "-processed";
+    }
+    
+    /**
+     * Selected method calling {@link #process(String)} on itself.
+     * A Spring proxy only intercepts the outer call; with AspectJ weaving every inner call is logged as well.
+     * 
+     * @param orderIds The order ids
+     * @return The number of processed orders
+     */
+    public int processAll(String... orderIds) {
+        int processed = 0;
+        for (String orderId : orderIds) {
+            if (process(orderId) != null) {
+                processed++;
+            }
+        }
+        return processed;
+    }
+}
@@ -0,0 +1,83 @@
+package com.logging.framework.benchmarks;
+
+import com.logging.framework.aspect.CustomMethodLoggingAspect;
+import com.logging.framework.aspect.KafkaConsumerLoggingAspect;
+import com.logging.framework.aspect.PredefinedMethodLoggingAspect;
+import com.logging.framework.config.KafkaLoggingProperties;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of a method call intercepted by each logging aspect, against the raw call.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AspectOverheadBenchmark {
+    
+    private AnnotationConfigApplicationContext context;
+    private BenchmarkService raw;
+    private BenchmarkService custom;
+    private BenchmarkService consumer;
+    private BenchmarkService predefined;
+    private ConsumerRecord<String, String> record;
+    
+    @Setup
+    public void setUp() {
+        KafkaLoggingProperties properties = new KafkaLoggingProperties();
+        properties.getMethodSelection().getIncludePatterns().add(BenchmarkService.class.getName() + ".process");
+        context = BenchmarkSupport.createContext(properties);
+        
+        raw = new BenchmarkService();
+        custom = BenchmarkSupport.advise(context, new BenchmarkService(), new CustomMethodLoggingAspect());
+        consumer = BenchmarkSupport.advise(context, new BenchmarkService(), new KafkaConsumerLoggingAspect());
+        predefined = BenchmarkSupport.advise(context, new BenchmarkService(), new PredefinedMethodLoggingAspect());
+        record = BenchmarkSupport.consumerRecord();
+    }
+    
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+    
+    @Benchmark
+    public String rawCall() {
+        return raw.handle("order");
+    }
+    
+    @Benchmark
+    public String customMethodAspect() {
+        return custom.handle("order");
+    }
+    
+    @Benchmark
+    public String rawConsumerCall() {
+        return raw.consume(record);
+    }
+    
+    @Benchmark
+    public String kafkaConsumerAspect() {
+        return consumer.consume(record);
+    }
+    
+    @Benchmark
+    public String predefinedMethodAspect() {
+        return predefined.process("order");
+    }
+}
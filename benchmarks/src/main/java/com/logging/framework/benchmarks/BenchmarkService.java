@@ -0,0 +1,56 @@
+package com.logging.framework.benchmarks;
+
+import com.logging.framework.annotation.LogMethod;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.kafka.annotation.KafkaListener;
+
+/**
+ * Target bean of the benchmarks.
+ * Each method does a small amount of work, so the measured difference between the raw
+ * and the intercepted call is the overhead added by the framework.
+ */
+public class BenchmarkService {
+    
+    /**
+     * Method intercepted by the custom method logging aspect.
+     * 
+     * @param value The input value
+     * @return The processed value
+     */
+    @LogMethod(description = "Benchmark method")
+    public String handle(String value) {
+        return value + "-handled";
+    }
+    
+    /**
+     * Method intercepted by the Kafka consumer logging aspect.
+     * The annotation is only used as a pointcut; no listener container is started.
+     * 
+     * @param record The consumer record
+     * @return The processed value
+     */
+    @KafkaListener(topics = BenchmarkSupport.TOPIC)
+    public String consume(ConsumerRecord<String, String> record) {
+        return record.value() + "-consumed";
+    }
+    
+    /**
+     * Method selected for logging through the method selection configuration.
+     * 
+     * @param value The input value
+     * @return The processed value
+     */
+    public String process(String value) {
+        return value + "-processed";
+    }
+    
+    /**
+     * Method not selected for logging, but still matched by the predefined method pointcut.
+     * 
+     * @param value The input value
+     * @return The processed value
+     */
+    public String compute(String value) {
+        return value + "-computed";
+    }
+}
@@ -0,0 +1,88 @@
+package com.logging.framework.benchmarks;
+
+import com.logging.framework.config.KafkaLoggingProperties;
+import com.logging.framework.model.KafkaMessageContext;
+import com.logging.framework.model.LoggingEvent;
+import com.logging.framework.model.MethodExecutionStatus;
+import com.logging.framework.service.LoggingServiceImpl;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+/**
+ * Shared fixtures of the benchmarks.
+ */
+final class BenchmarkSupport {
+    
+    static final String TOPIC = "benchmark-topic";
+    
+    private BenchmarkSupport() {
+    }
+    
+    /**
+     * Create a context with the logging service and the given properties.
+     * No dedicated log file appender is registered, so aspect benchmarks measure the
+     * interception itself; the file output is measured by {@link FileAppenderBenchmark}.
+     * 
+     * @param properties The Kafka logging properties
+     * @return The started context
+     */
+    static AnnotationConfigApplicationContext createContext(KafkaLoggingProperties properties) {
+        AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext();
+        context.registerBean(KafkaLoggingProperties.class, () -> properties);
+        context.registerBean(LoggingServiceImpl.class);
+        context.refresh();
+        return context;
+    }
+    
+    /**
+     * Create a proxy of the target advised by the given aspects.
+     * The aspects are autowired from the context, the same way the auto-configuration does it.
+     * Only the target is proxied, which is what a listener bean sees at runtime.
+     * 
+     * @param context The context providing the aspect dependencies
+     * @param target The target object
+     * @param aspects The aspect instances
+     * @param <T> The target type
+     * @return The proxy
+     */
+    @SuppressWarnings("unchecked")
+    static <T> T advise(AnnotationConfigApplicationContext context, T target, Object... aspects) {
+        AspectJProxyFactory factory = new AspectJProxyFactory(target);
+        factory.setProxyTargetClass(true);
+        for (Object aspect : aspects) {
+            context.getAutowireCapableBeanFactory().autowireBean(aspect);
+            factory.addAspect(aspect);
+        }
+        return (T) factory.getProxy();
+    }
+    
+    /**
+     * Create a consumer record as delivered to a listener.
+     * 
+     * @return The consumer record
+     */
+    static ConsumerRecord<String, String> consumerRecord() {
+        return new ConsumerRecord<>(TOPIC, 3, 42L, "order-42", "{\"orderId\":42,\"amount\":19.99}");
+    }
+    
+    /**
+     * Create a completed logging event similar to the ones written by the consumer aspect.
+     * 
+     * @return The logging event
+     */
+    static LoggingEvent loggingEvent() {
+        LoggingEvent event = new LoggingEvent();
+        event.setClassName("OrderListener");
+        event.setMethodName("onOrder");
+        event.setArguments(new Object[] {"order-42", 42, 19.99});
+        event.setResult("accepted");
+        event.setExecutionTimeMs(3);
+        event.setLogLevel("INFO");
+        event.setStatus(MethodExecutionStatus.PASSED);
+        KafkaMessageContext context = KafkaMessageContext.fromConsumerRecord(consumerRecord());
+        event.setKafkaMessageContext(context);
+        event.addContext("action", "kafka_consumer");
+        return event;
+    }
+}
@@ -0,0 +1,58 @@
+package com.logging.framework.benchmarks;
+
+import com.logging.framework.encoder.EncoderBuffer;
+import com.logging.framework.encoder.EventEncoder;
+import com.logging.framework.encoder.EventEncoders;
+import com.logging.framework.model.LoggingEvent;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of encoding a logging event into a reused buffer with each built-in encoder,
+ * against rendering the same event with {@link LoggingEvent#toJsonString()}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class EventEncoderBenchmark {
+    
+    @Param({"json", "ecs", "logfmt"})
+    private String format;
+    
+    private LoggingEvent event;
+    private EventEncoder encoder;
+    private EncoderBuffer buffer;
+    
+    @Setup
+    public void setUp() {
+        event = BenchmarkSupport.loggingEvent();
+        encoder = EventEncoders.forFormat(format, false);
+        buffer = new EncoderBuffer(1024);
+    }
+    
+    @Benchmark
+    public int encode() {
+        buffer.reset();
+        encoder.encode(event, buffer);
+        return buffer.size();
+    }
+    
+    @Benchmark
+    public String toJsonString() {
+        return event.toJsonString();
+    }
+}
@@ -0,0 +1,44 @@
+package com.logging.framework.benchmarks;
+
+import com.logging.framework.model.LoggingEvent;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of rendering a logging event as the JSON line written to the log file.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LoggingEventJsonBenchmark {
+    
+    private LoggingEvent event;
+    
+    @Setup
+    public void setUp() {
+        event = BenchmarkSupport.loggingEvent();
+    }
+    
+    @Benchmark
+    public String toJsonString() {
+        return event.toJsonString();
+    }
+    
+    @Benchmark
+    public String toLogString() {
+        return event.toLogString();
+    }
+}
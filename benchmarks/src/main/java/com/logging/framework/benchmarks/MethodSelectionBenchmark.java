@@ -0,0 +1,74 @@
+package com.logging.framework.benchmarks;
+
+import com.logging.framework.aspect.PredefinedMethodLoggingAspect;
+import com.logging.framework.config.KafkaLoggingProperties;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of the predefined method pointcut {@code execution(* *(..))} for selected and
+ * non-selected methods, with a growing number of configured selection patterns.
+ * The non-selected case is what every other bean method in the application pays.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MethodSelectionBenchmark {
+    
+    @Param({"1", "10", "50"})
+    private int patterns;
+    
+    private AnnotationConfigApplicationContext context;
+    private BenchmarkService raw;
+    private BenchmarkService advised;
+    
+    @Setup
+    public void setUp() {
+        KafkaLoggingProperties properties = new KafkaLoggingProperties();
+        KafkaLoggingProperties.MethodSelectionConfig selection = properties.getMethodSelection();
+        for (int i = 1; i < patterns; i++) {
+            selection.getIncludePatterns().add("com.example.service.Service" + i + ".handle*");
+        }
+        selection.getIncludePatterns().add(BenchmarkService.class.getName() + ".process");
+        context = BenchmarkSupport.createContext(properties);
+        
+        raw = new BenchmarkService();
+        advised = BenchmarkSupport.advise(context, new BenchmarkService(), new PredefinedMethodLoggingAspect());
+    }
+    
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+    
+    @Benchmark
+    public String rawCall() {
+        return raw.compute("order");
+    }
+    
+    @Benchmark
+    public String selectedMethod() {
+        return advised.process("order");
+    }
+    
+    @Benchmark
+    public String nonSelectedMethod() {
+        return advised.compute("order");
+    }
+}
@@ -0,0 +1,119 @@
+package com.logging.framework.benchmarks;
+
+import com.logging.framework.appender.KafkaLoggingFileAppender;
+import com.logging.framework.aspect.CustomMethodLoggingAspect;
+import com.logging.framework.aspect.KafkaConsumerLoggingAspect;
+import com.logging.framework.config.KafkaLoggingProperties;
+import com.logging.framework.service.LoggingServiceImpl;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * 10,000 concurrent listener invocations, each on its own virtual thread, writing to the dedicated log file.
+ * One operation is the whole batch. Requires Java 21: run the jar with a Java 21 JVM, or pass
+ * {@code -jvm /path/to/java21/bin/java}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class VirtualThreadBenchmark {
+    
+    private static final int HANDLERS = 10_000;
+    
+    @Param({"false", "true"})
+    private boolean asyncLogging;
+    
+    @Param({"false", "true"})
+    private boolean virtualThreadWriter;
+    
+    private Method newExecutor;
+    private Path directory;
+    private KafkaLoggingFileAppender appender;
+    private AnnotationConfigApplicationContext context;
+    private BenchmarkService service;
+    private ConsumerRecord<String, String> record;
+    
+    @Setup
+    public void setUp() throws IOException {
+        try {
+            newExecutor = java.util.concurrent.Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+        } catch (NoSuchMethodException e) {
+            throw new IllegalStateException("VirtualThreadBenchmark requires Java 21", e);
+        }
+        directory = Files.createTempDirectory("kafka-logging-benchmark");
+        KafkaLoggingProperties properties = new KafkaLoggingProperties();
+        properties.setAsyncLogging(asyncLogging);
+        properties.setVirtualThreadWriter(virtualThreadWriter);
+        properties.getLogFile().setPath(directory.toString());
+        properties.getLogFile().setFilename("benchmark.log");
+        properties.getLogFile().setMaxSize("1GB");
+        properties.getLogFile().setMaxHistory(1);
+        appender = new KafkaLoggingFileAppender(properties);
+        
+        context = new AnnotationConfigApplicationContext();
+        context.registerBean(KafkaLoggingProperties.class, () -> properties);
+        context.registerBean(KafkaLoggingFileAppender.class, () -> appender);
+        context.registerBean(LoggingServiceImpl.class);
+        context.refresh();
+        service = BenchmarkSupport.advise(context, new BenchmarkService(),
+                new CustomMethodLoggingAspect(), new KafkaConsumerLoggingAspect());
+        record = BenchmarkSupport.consumerRecord();
+    }
+    
+    @TearDown
+    public void tearDown() throws IOException {
+        context.close();
+        appender.destroy();
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+    
+    @Benchmark
+    public long concurrentHandlers() throws Exception {
+        ExecutorService executor = (ExecutorService) newExecutor.invoke(null);
+        CountDownLatch done = new CountDownLatch(HANDLERS);
+        for (int i = 0; i < HANDLERS; i++) {
+            executor.execute(() -> {
+                try {
+                    service.consume(record);
+                    // Keep the handlers alive at the same time, like listeners waiting on I/O
+                    Thread.sleep(1);
+                    service.handle("order");
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+        done.await();
+        executor.shutdown();
+        return done.getCount();
+    }
+}
@@ -0,0 +1,141 @@
+package com.logging.framework.benchmarks;
+
+import com.example.benchmarks.OrderService;
+import com.logging.framework.aspect.CustomMethodLoggingAspect;
+import com.logging.framework.aspect.PredefinedMethodLoggingAspect;
+import com.logging.framework.config.KafkaLoggingProperties;
+import org.aspectj.lang.Aspects;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Spring proxy against AspectJ load-time weaving of the framework aspects.
+ * The woven benchmarks fork a JVM with the benchmark jar as AspectJ agent, so the suite
+ * must be run from the benchmarks directory. The self-invocation benchmarks are not
+ * comparable one to one: the proxy logs only the outer call, the woven code logs every call.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WeavingModeBenchmark {
+    
+    private static final String[] ORDER_IDS = {"order-1", "order-2", "order-3", "order-4", "order-5"};
+    
+    /**
+     * Order service advised through a Spring AOP proxy.
+     */
+    @State(Scope.Benchmark)
+    public static class ProxyState {
+        
+        private AnnotationConfigApplicationContext context;
+        private OrderService raw;
+        private OrderService service;
+        
+        @Setup
+        public void setUp() {
+            context = BenchmarkSupport.createContext(properties());
+            raw = new OrderService();
+            service = BenchmarkSupport.advise(context, new OrderService(),
+                    new CustomMethodLoggingAspect(), new PredefinedMethodLoggingAspect());
+        }
+        
+        @TearDown
+        public void tearDown() {
+            context.close();
+        }
+    }
+    
+    /**
+     * Order service woven by the AspectJ agent.
+     */
+    @State(Scope.Benchmark)
+    public static class WovenState {
+        
+        private AnnotationConfigApplicationContext context;
+        private OrderService service;
+        
+        @Setup
+        public void setUp() {
+            if (!Aspects.hasAspect(CustomMethodLoggingAspect.class)) {
+                throw new IllegalStateException("The woven benchmarks need the AspectJ agent, "
+                        + "run them from the benchmarks directory: java -jar target/benchmarks.jar WeavingMode");
+            }
+            context = BenchmarkSupport.createContext(properties());
+            context.getAutowireCapableBeanFactory().autowireBean(Aspects.aspectOf(CustomMethodLoggingAspect.class));
+            context.getAutowireCapableBeanFactory().autowireBean(Aspects.aspectOf(PredefinedMethodLoggingAspect.class));
+            service = new OrderService();
+        }
+        
+        @TearDown
+        public void tearDown() {
+            context.close();
+        }
+    }
+    
+    private static KafkaLoggingProperties properties() {
+        KafkaLoggingProperties properties = new KafkaLoggingProperties();
+        properties.getMethodSelection().getIncludePatterns().add(OrderService.class.getName() + ".process*");
+        return properties;
+    }
+    
+    @Benchmark
+    public String rawCall(ProxyState state) {
+        return state.raw.handle("order");
+    }
+    
+    @Benchmark
+    public String proxyCustomMethod(ProxyState state) {
+        return state.service.handle("order");
+    }
+    
+    @Benchmark
+    @Fork(value = 1, jvmArgsAppend = {
+            "-javaagent:target/benchmarks.jar",
+            "-Dorg.aspectj.weaver.loadtime.configuration=META-INF/aop.xml;META-INF/aop-benchmarks.xml",
+            "-XX:+IgnoreUnrecognizedVMOptions", "--add-opens=java.base/java.lang=ALL-UNNAMED"})
+    public String wovenCustomMethod(WovenState state) {
+        return state.service.handle("order");
+    }
+    
+    @Benchmark
+    public String proxyPredefinedMethod(ProxyState state) {
+        return state.service.process("order");
+    }
+    
+    @Benchmark
+    @Fork(value = 1, jvmArgsAppend = {
+            "-javaagent:target/benchmarks.jar",
+            "-Dorg.aspectj.weaver.loadtime.configuration=META-INF/aop.xml;META-INF/aop-benchmarks.xml",
+            "-XX:+IgnoreUnrecognizedVMOptions", "--add-opens=java.base/java.lang=ALL-UNNAMED"})
+    public String wovenPredefinedMethod(WovenState state) {
+        return state.service.process("order");
+    }
+    
+    @Benchmark
+    public int proxySelfInvocation(ProxyState state) {
+        return state.service.processAll(ORDER_IDS);
+    }
+    
+    @Benchmark
+    @Fork(value = 1, jvmArgsAppend = {
+            "-javaagent:target/benchmarks.jar",
+            "-Dorg.aspectj.weaver.loadtime.configuration=META-INF/aop.xml;META-INF/aop-benchmarks.xml",
+            "-XX:+IgnoreUnrecognizedVMOptions", "--add-opens=java.base/java.lang=ALL-UNNAMED"})
+    public int wovenSelfInvocation(WovenState state) {
+        return state.service.processAll(ORDER_IDS);
+    }
+}
@@ -0,0 +1,70 @@
+package com.logging.framework.benchmarks;
+
+import com.logging.framework.appender.KafkaLoggingFileAppender;
+import com.logging.framework.config.KafkaLoggingProperties;
+import com.logging.framework.model.LoggingEvent;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Cost of {@link KafkaLoggingFileAppender#log(LoggingEvent)} with the background writer, as seen by
+ * the calling thread, with pure in-memory queueing and with the memory-mapped write-ahead spool.
+ * With the spool the event is encoded on the calling thread, which is most of the difference.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class WriteAheadBenchmark {
+    
+    @Param({"false", "true"})
+    private boolean writeAhead;
+    
+    private Path directory;
+    private KafkaLoggingFileAppender appender;
+    
+    @Setup
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("kafka-logging-benchmark");
+        KafkaLoggingProperties properties = new KafkaLoggingProperties();
+        properties.setAsyncLogging(true);
+        properties.setAsyncWriteAhead(writeAhead);
+        properties.getLogFile().setPath(directory.toString());
+        properties.getLogFile().setFilename("benchmark.log");
+        properties.getLogFile().setMaxSize("100MB");
+        properties.getLogFile().setMaxHistory(1);
+        appender = new KafkaLoggingFileAppender(properties);
+    }
+    
+    @TearDown
+    public void tearDown() throws IOException {
+        appender.destroy();
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+    
+    @Benchmark
+    public void log() {
+        appender.log(BenchmarkSupport.loggingEvent());
+    }
+}
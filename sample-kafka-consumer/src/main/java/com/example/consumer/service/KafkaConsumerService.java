@@ -4,6 +4,7 @@ import com.example.consumer.model.KafkaMessage;
 import com.logging.framework.annotation.LogMethod;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.kafka.annotation.KafkaListener;
 import org.springframework.stereotype.Service;
 
@@ -15,13 +16,18 @@ public class KafkaConsumerService {
     
     private static final Logger log = LoggerFactory.getLogger(KafkaConsumerService.class);
     
+    @Value("${sample.consumer.processing-delay-ms:100}")
+    private long processingDelayMs;
+    
     /**
      * Consume a message from the test topic.
      * This method will be automatically logged by the KafkaConsumerLoggingAspect.
      * 
      * @param message The message to consume
      */
-    @KafkaListener(topics = "test-topic", groupId = "sample-consumer-group")
+    @KafkaListener(topics = "${sample.kafka.topic:test-topic}", groupId = "sample-consumer-group",
+            concurrency = "${sample.consumer.concurrency:1}",
+            autoStartup = "${sample.consumer.auto-startup:true}")
     public void consumeMessage(KafkaMessage message) {
         log.info("Received message: {}", message);
         processMessage(message);
@@ -37,7 +43,9 @@ public class KafkaConsumerService {
         log.info("Processing message: {}", message);
         // Simulate processing
         try {
-            Thread.sleep(100);
+            if (processingDelayMs > 0) {
+                Thread.sleep(processingDelayMs);
+            }
             
             // Call additional methods to demonstrate different logging scenarios
             validateMessage(message);
@@ -4,6 +4,7 @@ import com.example.consumer.model.KafkaMessage;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.stereotype.Service;
 
@@ -20,6 +21,9 @@ public class KafkaProducerService {
     
     private final KafkaTemplate<String, Object> kafkaTemplate;
     
+    @Value("${sample.kafka.topic:test-topic}")
+    private String topic;
+    
     @Autowired
     public KafkaProducerService(KafkaTemplate<String, Object> kafkaTemplate) {
         this.kafkaTemplate = kafkaTemplate;
@@ -37,7 +41,20 @@ public class KafkaProducerService {
         KafkaMessage message = new KafkaMessage(id, content, sender, System.currentTimeMillis());
         
         log.info("Sending message to Kafka: {}", message);
-        kafkaTemplate.send("test-topic", id, message);
+        kafkaTemplate.send(topic, id, message);
+        
+        return message;
+    }
+    
+    /**
+     * Send a prepared message to Kafka, keyed by its ID.
+     * 
+     * @param message The message to send
+     * @return The message that was sent
+     */
+    public KafkaMessage sendMessage(KafkaMessage message) {
+        log.info("Sending message to Kafka: {}", message);
+        kafkaTemplate.send(topic, message.getId(), message);
         
         return message;
     }
@@ -54,7 +71,7 @@ public class KafkaProducerService {
         KafkaMessage message = new KafkaMessage(id, content, sender, System.currentTimeMillis());
         
         log.info("Sending error message to Kafka: {}", message);
-        kafkaTemplate.send("test-topic", id, message);
+        kafkaTemplate.send(topic, id, message);
         
         return message;
     }
@@ -19,7 +19,7 @@ import static org.junit.jupiter.api.Assertions.assertTrue;
  */
 @SpringBootTest
 @ActiveProfiles("test")
-@EmbeddedKafka(partitions = 1, topics = {"test-topic"})
+@EmbeddedKafka(partitions = 1, topics = {"test-topic"}, bootstrapServersProperty = "spring.kafka.bootstrap-servers")
 public class KafkaIntegrationTest {
 
     @Autowired
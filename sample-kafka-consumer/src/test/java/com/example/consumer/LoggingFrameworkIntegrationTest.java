@@ -21,7 +21,7 @@ import static org.junit.jupiter.api.Assertions.*;
  */
 @SpringBootTest
 @DirtiesContext
-@EmbeddedKafka(partitions = 1, topics = {"test-topic"})
+@EmbeddedKafka(partitions = 1, topics = {"test-topic"}, bootstrapServersProperty = "spring.kafka.bootstrap-servers")
 public class LoggingFrameworkIntegrationTest {
 
     @Autowired
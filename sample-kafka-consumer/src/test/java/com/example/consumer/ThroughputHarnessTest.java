@@ -0,0 +1,386 @@
+package com.example.consumer;
+
+import com.example.consumer.service.KafkaProducerService;
+import com.logging.framework.metrics.LatencyHistogram;
+import org.apache.kafka.clients.admin.NewTopic;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.BeansException;
+import org.springframework.beans.DirectFieldAccessor;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.beans.factory.support.BeanDefinitionRegistry;
+import org.springframework.beans.factory.support.BeanDefinitionRegistryPostProcessor;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.kafka.config.AbstractKafkaListenerContainerFactory;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.listener.CompositeRecordInterceptor;
+import org.springframework.kafka.listener.MessageListenerContainer;
+import org.springframework.kafka.listener.RecordInterceptor;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * End-to-end throughput harness for the logging framework.
+ * Produces messages through {@link KafkaProducerService} to an embedded broker and consumes
+ * them with {@code KafkaConsumerService}, once per logging mode and listener concurrency.
+ * For each run it reports messages per second, p99 listener processing latency, bytes
+ * written to the dedicated log file per message and GC time.
+ * 
+ * The harness is skipped unless enabled explicitly:
+ * <pre>
+ * mvn test -Dtest=ThroughputHarnessTest -Dthroughput.harness=true \
+ *     -Dthroughput.messages=1000000 -Dthroughput.concurrency=1,4 -Dthroughput.modes=OFF,DEFAULT,ASYNC,SPAN
+ * </pre>
+ * Results are logged and written to {@code target/throughput-harness/results.csv}.
+ */
+@EnabledIfSystemProperty(named = "throughput.harness", matches = "true")
+public class ThroughputHarnessTest {
+    
+    private static final Logger log = LoggerFactory.getLogger(ThroughputHarnessTest.class);
+    
+    private static final Path OUTPUT = Paths.get("target", "throughput-harness");
+    
+    private static final int MESSAGES = Integer.getInteger("throughput.messages", 1_000_000);
+    private static final int PARTITIONS = Integer.getInteger("throughput.partitions", 8);
+    private static final long TIMEOUT_MINUTES = Long.getLong("throughput.timeout-minutes", 30);
+    
+    private static EmbeddedKafkaBroker broker;
+    
+    /**
+     * Logging modes of the matrix.
+     */
+    enum Mode {
+        /** Framework disabled, the baseline. */
+        OFF,
+        /** Default configuration with synchronous writes to the dedicated log file. */
+        DEFAULT,
+        /** Default configuration with the background log writer. */
+        ASYNC,
+        /** Only the listener invocation is logged, as one record per message; method level aspects are removed. */
+        SPAN
+    }
+    
+    @BeforeAll
+    public static void startBroker() {
+        broker = new EmbeddedKafkaBroker(1, false, PARTITIONS);
+        broker.afterPropertiesSet();
+    }
+    
+    @AfterAll
+    public static void stopBroker() {
+        if (broker != null) {
+            broker.destroy();
+        }
+    }
+    
+    /**
+     * Run the full matrix and report the results.
+     */
+    @Test
+    public void measureThroughput() throws Exception {
+        List<Result> results = new ArrayList<>();
+        for (Mode mode : modes()) {
+            for (int concurrency : concurrencies()) {
+                Result result = run(mode, concurrency);
+                log.info("Throughput {}", result.format());
+                results.add(result);
+            }
+        }
+        report(results);
+        
+        for (Result result : results) {
+            assertTrue(result.completed, "All messages should be consumed in run " + result.mode + "/" + result.concurrency);
+        }
+    }
+    
+    private Result run(Mode mode, int concurrency) throws Exception {
+        String runName = mode.name().toLowerCase(Locale.ROOT) + "-c" + concurrency;
+        String topic = "throughput-" + runName;
+        Path logDirectory = OUTPUT.resolve(runName);
+        deleteRecursively(logDirectory);
+        broker.addTopics(new NewTopic(topic, PARTITIONS, (short) 1));
+        
+        CountingInterceptor interceptor = new CountingInterceptor(MESSAGES);
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(SampleKafkaConsumerApplication.class)
+                .web(WebApplicationType.NONE)
+                .initializers(applicationContext -> {
+                    applicationContext.getBeanFactory().addBeanPostProcessor(interceptor);
+                    if (mode == Mode.SPAN) {
+                        applicationContext.addBeanFactoryPostProcessor(new MethodAspectRemover());
+                    }
+                })
+                .run(arguments(mode, concurrency, topic, logDirectory));
+        
+        Result result;
+        try {
+            // Produce everything first, so the measurement only covers consumption
+            KafkaProducerService producerService = context.getBean(KafkaProducerService.class);
+            for (int i = 0; i < MESSAGES; i++) {
+                producerService.sendMessage("Throughput message " + i, "ThroughputHarness");
+            }
+            context.getBean(KafkaTemplate.class).flush();
+            
+            long gcBefore = gcTimeMs();
+            long start = System.nanoTime();
+            for (MessageListenerContainer container : context.getBean(KafkaListenerEndpointRegistry.class).getListenerContainers()) {
+                container.start();
+            }
+            boolean completed = interceptor.await(TIMEOUT_MINUTES);
+            long elapsedNanos = System.nanoTime() - start;
+            long gcMs = gcTimeMs() - gcBefore;
+            
+            result = new Result(mode, concurrency, completed, interceptor.count(), elapsedNanos, gcMs,
+                    interceptor.latencies.snapshot());
+        } finally {
+            // Closing the context drains the background writer before the log file is measured
+            context.close();
+        }
+        result.logBytes = directorySize(logDirectory);
+        return result;
+    }
+    
+    /**
+     * Build the run configuration as command line arguments, so it overrides application.properties.
+     */
+    private static String[] arguments(Mode mode, int concurrency, String topic, Path logDirectory) {
+        List<String> properties = new ArrayList<>();
+        properties.add("spring.kafka.bootstrap-servers=" + broker.getBrokersAsString());
+        properties.add("sample.kafka.topic=" + topic);
+        properties.add("sample.consumer.concurrency=" + concurrency);
+        properties.add("sample.consumer.processing-delay-ms=0");
+        properties.add("sample.consumer.auto-startup=false");
+        // Keep console output out of the measurement; the dedicated log file is what is measured
+        properties.add("logging.level.root=WARN");
+        properties.add("logging.level." + ThroughputHarnessTest.class.getName() + "=INFO");
+        properties.add("kafka.logging.log-file.path=" + logDirectory.toAbsolutePath());
+        properties.add("kafka.logging.log-file.max-size=10GB");
+        properties.add("kafka.logging.metrics.summary-interval-seconds=0");
+        switch (mode) {
+            case OFF:
+                properties.add("kafka.logging.enabled=false");
+                properties.add("kafka.logging.log-file.enabled=false");
+                break;
+            case DEFAULT:
+                properties.add("kafka.logging.async-logging=false");
+                break;
+            case ASYNC:
+            case SPAN:
+                properties.add("kafka.logging.async-logging=true");
+                break;
+            default:
+                break;
+        }
+        return properties.stream().map(property -> "--" + property).toArray(String[]::new);
+    }
+    
+    private static void report(List<Result> results) throws IOException {
+        Files.createDirectories(OUTPUT);
+        Path csv = OUTPUT.resolve("results.csv");
+        try (PrintWriter writer = new PrintWriter(csv.toFile(), "UTF-8")) {
+            writer.println("mode,concurrency,messages,seconds,messagesPerSecond,p50Micros,p99Micros,maxMicros,"
+                    + "logBytes,logBytesPerMessage,gcMs");
+            for (Result result : results) {
+                writer.println(result.csv());
+            }
+        }
+        StringBuilder table = new StringBuilder(String.format("%-8s %5s %12s %10s %10s %12s %8s",
+                "mode", "conc", "msg/s", "p99(us)", "max(us)", "bytes/msg", "gc(ms)"));
+        for (Result result : results) {
+            table.append(System.lineSeparator()).append(result.format());
+        }
+        log.info("Throughput results, written to {}{}{}", csv, System.lineSeparator(), table);
+    }
+    
+    private static List<Mode> modes() {
+        List<Mode> modes = new ArrayList<>();
+        for (String mode : System.getProperty("throughput.modes", "OFF,DEFAULT,ASYNC,SPAN").split(",")) {
+            modes.add(Mode.valueOf(mode.trim().toUpperCase(Locale.ROOT)));
+        }
+        return modes;
+    }
+    
+    private static List<Integer> concurrencies() {
+        List<Integer> concurrencies = new ArrayList<>();
+        for (String concurrency : System.getProperty("throughput.concurrency", "1,4").split(",")) {
+            concurrencies.add(Integer.parseInt(concurrency.trim()));
+        }
+        return concurrencies;
+    }
+    
+    private static long gcTimeMs() {
+        long total = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            total += Math.max(0, gc.getCollectionTime());
+        }
+        return total;
+    }
+    
+    private static long directorySize(Path directory) throws IOException {
+        if (!Files.exists(directory)) {
+            return 0;
+        }
+        try (Stream<Path> files = Files.walk(directory)) {
+            return files.map(Path::toFile).filter(File::isFile).mapToLong(File::length).sum();
+        }
+    }
+    
+    private static void deleteRecursively(Path directory) throws IOException {
+        if (!Files.exists(directory)) {
+            return;
+        }
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted((a, b) -> b.compareTo(a)).map(Path::toFile).forEach(File::delete);
+        }
+    }
+    
+    /**
+     * Counts consumed records and measures the listener invocation time of each one.
+     * Registered on the listener container factory next to the interceptor of the framework.
+     */
+    static class CountingInterceptor implements RecordInterceptor<Object, Object>, BeanPostProcessor {
+        
+        private final CountDownLatch remaining;
+        private final int expected;
+        private final LatencyHistogram latencies = new LatencyHistogram();
+        private final ThreadLocal<long[]> start = ThreadLocal.withInitial(() -> new long[1]);
+        
+        CountingInterceptor(int expected) {
+            this.expected = expected;
+            this.remaining = new CountDownLatch(expected);
+        }
+        
+        @Override
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        public Object postProcessAfterInitialization(Object bean, String beanName) throws BeansException {
+            if (bean instanceof AbstractKafkaListenerContainerFactory) {
+                AbstractKafkaListenerContainerFactory factory = (AbstractKafkaListenerContainerFactory) bean;
+                Object existing = new DirectFieldAccessor(factory).getPropertyValue("recordInterceptor");
+                if (existing == null) {
+                    factory.setRecordInterceptor(this);
+                } else if (existing != this) {
+                    factory.setRecordInterceptor(new CompositeRecordInterceptor((RecordInterceptor) existing, this));
+                }
+            }
+            return bean;
+        }
+        
+        @Override
+        public ConsumerRecord<Object, Object> intercept(ConsumerRecord<Object, Object> record) {
+            start.get()[0] = System.nanoTime();
+            return record;
+        }
+        
+        @Override
+        public ConsumerRecord<Object, Object> intercept(ConsumerRecord<Object, Object> record,
+                                                        Consumer<Object, Object> consumer) {
+            return intercept(record);
+        }
+        
+        @Override
+        public void afterRecord(ConsumerRecord<Object, Object> record, Consumer<Object, Object> consumer) {
+            latencies.record((System.nanoTime() - start.get()[0]) / 1000);
+            remaining.countDown();
+        }
+        
+        boolean await(long timeoutMinutes) throws InterruptedException {
+            return remaining.await(timeoutMinutes, TimeUnit.MINUTES);
+        }
+        
+        long count() {
+            return expected - remaining.getCount();
+        }
+    }
+    
+    /**
+     * Removes the method level aspects, leaving only the Kafka consumer aspect.
+     */
+    static class MethodAspectRemover implements BeanDefinitionRegistryPostProcessor {
+        
+        @Override
+        public void postProcessBeanDefinitionRegistry(BeanDefinitionRegistry registry) throws BeansException {
+        }
+        
+        @Override
+        public void postProcessBeanFactory(ConfigurableListableBeanFactory beanFactory) throws BeansException {
+            BeanDefinitionRegistry registry = (BeanDefinitionRegistry) beanFactory;
+            for (String name : new String[] {"customMethodLoggingAspect", "predefinedMethodLoggingAspect"}) {
+                if (registry.containsBeanDefinition(name)) {
+                    registry.removeBeanDefinition(name);
+                }
+            }
+        }
+    }
+    
+    /**
+     * Measurements of one run.
+     */
+    static class Result {
+        
+        private final Mode mode;
+        private final int concurrency;
+        private final boolean completed;
+        private final long messages;
+        private final long elapsedNanos;
+        private final long gcMs;
+        private final LatencyHistogram.Snapshot latencies;
+        private long logBytes;
+        
+        Result(Mode mode, int concurrency, boolean completed, long messages, long elapsedNanos, long gcMs,
+               LatencyHistogram.Snapshot latencies) {
+            this.mode = mode;
+            this.concurrency = concurrency;
+            this.completed = completed;
+            this.messages = messages;
+            this.elapsedNanos = elapsedNanos;
+            this.gcMs = gcMs;
+            this.latencies = latencies;
+        }
+        
+        double messagesPerSecond() {
+            return messages * 1_000_000_000.0 / Math.max(1, elapsedNanos);
+        }
+        
+        double logBytesPerMessage() {
+            return messages == 0 ? 0.0 : (double) logBytes / messages;
+        }
+        
+        String format() {
+            return String.format(Locale.ROOT, "%-8s %5d %12.0f %10d %10d %12.1f %8d",
+                    mode, concurrency, messagesPerSecond(), latencies.getPercentile(99), latencies.getMax(),
+                    logBytesPerMessage(), gcMs);
+        }
+        
+        String csv() {
+            return String.format(Locale.ROOT, "%s,%d,%d,%.3f,%.1f,%d,%d,%d,%d,%.1f,%d",
+                    mode, concurrency, messages, elapsedNanos / 1e9, messagesPerSecond(),
+                    latencies.getPercentile(50), latencies.getPercentile(99), latencies.getMax(),
+                    logBytes, logBytesPerMessage(), gcMs);
+        }
+    }
+}
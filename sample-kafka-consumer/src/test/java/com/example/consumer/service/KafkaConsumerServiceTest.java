@@ -54,11 +54,12 @@ public class KafkaConsumerServiceTest {
      */
     @Test
     public void testExceptionLogging() {
-        KafkaMessage message = new KafkaMessage("error-test", "Error content", "ErrorSender", System.currentTimeMillis());
+        // saveMessage fails for this ID only
+        KafkaMessage message = new KafkaMessage("error-trigger", "Error content", "ErrorSender", System.currentTimeMillis());
         Exception exception = assertThrows(RuntimeException.class, () -> {
             consumerService.saveMessage(message);
         });
-        assertTrue(exception.getMessage().contains("error-test"), "Exception message should contain the message ID");
+        assertTrue(exception.getMessage().contains("error-trigger"), "Exception message should contain the message ID");
         // The exception logging will be verified in the log output
     }
 }
@@ -37,4 +37,11 @@ public @interface LogKafkaConsumer {
      * Default is true.
      */
     boolean logProcessingTime() default true;
+    
+    /**
+     * Sampling of successful invocations, as one-in-n:N, probabilistic:P, token-bucket:PER_SECOND
+     * or adaptive:PER_SECOND. Failed and slow invocations are always logged.
+     * Default is none, unless a kafka.logging.sampling rule applies.
+     */
+    String sampling() default "";
 }
@@ -42,4 +42,11 @@ public @interface LogMethod {
      * Custom description to include in the log.
      */
     String description() default "";
+    
+    /**
+     * Sampling of successful invocations, as one-in-n:N, probabilistic:P, token-bucket:PER_SECOND
+     * or adaptive:PER_SECOND. Failed and slow invocations are always logged.
+     * Default is none, unless a kafka.logging.sampling rule applies.
+     */
+    String sampling() default "";
 }
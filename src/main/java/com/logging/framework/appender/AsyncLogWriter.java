@@ -0,0 +1,219 @@
+package com.logging.framework.appender;
+
+import com.logging.framework.encoder.EncoderBuffer;
+import com.logging.framework.encoder.EventEncoder;
+import com.logging.framework.encoder.JsonLinesEncoder;
+import com.logging.framework.model.LoggingEvent;
+import com.logging.framework.support.VirtualThreads;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * Background writer for logging events.
+ * Events are handed over through a bounded queue and encoded and written by a single
+ * daemon thread, which keeps JSON encoding, stack trace rendering and file I/O off the
+ * consumer threads. When the queue is full the event is written on the calling thread,
+ * so events are never dropped.
+ * With a {@link WriteAheadSpool}, each queued event is also appended to the spool, and committed
+ * there once written; an event the spool has no room for is written on the calling thread.
+ * The spool is closed when the writer is shut down.
+ */
+public class AsyncLogWriter {
+    
+    private static final Logger log = LoggerFactory.getLogger(AsyncLogWriter.class);
+    
+    private static final int BATCH_SIZE = 256;
+    
+    private final BlockingQueue<LoggingEvent> queue;
+    private final Consumer<LoggingEvent> sink;
+    private final Thread thread;
+    private final WriteAheadSpool writeAhead;
+    private final EventEncoder writeAheadEncoder;
+    private final ReentrantLock writeAheadLock = new ReentrantLock();
+    
+    private volatile boolean running = true;
+    
+    /**
+     * Create and start a new AsyncLogWriter on a platform thread.
+     * 
+     * @param capacity The capacity of the queue
+     * @param sink The function writing a single event
+     */
+    public AsyncLogWriter(int capacity, Consumer<LoggingEvent> sink) {
+        this(capacity, false, sink);
+    }
+    
+    /**
+     * Create and start a new AsyncLogWriter.
+     * 
+     * @param capacity The capacity of the queue
+     * @param virtualThread Whether to run the writer on a virtual thread, when the JVM supports them
+     * @param sink The function writing a single event
+     */
+    public AsyncLogWriter(int capacity, boolean virtualThread, Consumer<LoggingEvent> sink) {
+        this(capacity, virtualThread, null, null, sink);
+    }
+    
+    /**
+     * Create and start a new AsyncLogWriter.
+     * 
+     * @param capacity The capacity of the queue
+     * @param virtualThread Whether to run the writer on a virtual thread, when the JVM supports them
+     * @param writeAhead The write-ahead spool queued events are appended to, may be null
+     * @param writeAheadEncoder The encoder of the spool records, JSON lines if null
+     * @param sink The function writing a single event
+     */
+    public AsyncLogWriter(int capacity, boolean virtualThread, WriteAheadSpool writeAhead,
+                          EventEncoder writeAheadEncoder, Consumer<LoggingEvent> sink) {
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.sink = sink;
+        this.writeAhead = writeAhead;
+        this.writeAheadEncoder = writeAheadEncoder != null ? writeAheadEncoder : new JsonLinesEncoder(false);
+        if (virtualThread && !VirtualThreads.isSupported()) {
+            log.warn("Virtual threads require Java 21, the Kafka logging writer runs on a platform thread");
+        }
+        this.thread = VirtualThreads.newThread("kafka-logging-writer", this::run, virtualThread);
+        this.thread.start();
+    }
+    
+    /**
+     * Hand an event over to the writer thread.
+     * 
+     * @param event The logging event
+     */
+    public void enqueue(LoggingEvent event) {
+        if (writeAhead != null) {
+            enqueueWriteAhead(event);
+        } else if (!running || !queue.offer(event)) {
+            sink.accept(event);
+        }
+    }
+    
+    /**
+     * Append an event to the write-ahead spool and queue it.
+     * The event is encoded on the calling thread, since its record must exist before it is queued;
+     * it is encoded into the buffer of the thread, and copied from there into the mapped spool.
+     * Spool and queue are updated under one lock, so the writer commits records in append order.
+     */
+    private void enqueueWriteAhead(LoggingEvent event) {
+        if (!running || queue.remainingCapacity() == 0) {
+            sink.accept(event);
+            return;
+        }
+        EncoderBuffer payload = EncoderBuffer.forCurrentThread();
+        try {
+            writeAheadEncoder.encode(event, payload);
+        } catch (RuntimeException e) {
+            log.warn("Failed to encode event of {}#{} for the write-ahead spool",
+                    event.getClassName(), event.getMethodName(), e);
+            sink.accept(event);
+            return;
+        }
+        boolean queued = false;
+        writeAheadLock.lock();
+        try {
+            if (running && queue.remainingCapacity() > 0
+                    && writeAhead.append(payload.array(), 0, payload.size())) {
+                queued = queue.offer(event);
+            }
+        } finally {
+            writeAheadLock.unlock();
+        }
+        if (!queued) {
+            sink.accept(event);
+        }
+    }
+    
+    /**
+     * Get the number of events waiting to be written.
+     * 
+     * @return The queue size
+     */
+    public int getQueueSize() {
+        return queue.size();
+    }
+    
+    /**
+     * Stop the writer thread after writing the remaining events, and close the write-ahead spool.
+     */
+    public void shutdown() {
+        running = false;
+        thread.interrupt();
+        try {
+            thread.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        drain();
+        if (writeAhead != null) {
+            if (thread.isAlive()) {
+                // The writer may still commit, its mapping is left to the garbage collector
+                log.warn("Kafka logging writer did not stop, write-ahead spool {} is not closed",
+                        writeAhead.getFile());
+                return;
+            }
+            writeAheadLock.lock();
+            try {
+                writeAhead.close();
+            } finally {
+                writeAheadLock.unlock();
+            }
+        }
+    }
+    
+    private void run() {
+        List<LoggingEvent> batch = new ArrayList<>(BATCH_SIZE);
+        while (running) {
+            try {
+                LoggingEvent first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, BATCH_SIZE - 1);
+                for (LoggingEvent event : batch) {
+                    write(event);
+                }
+                commit(batch.size());
+                batch.clear();
+            } catch (InterruptedException e) {
+                break;
+            }
+        }
+        for (LoggingEvent event : batch) {
+            write(event);
+        }
+        commit(batch.size());
+        drain();
+    }
+    
+    private void drain() {
+        LoggingEvent event;
+        while ((event = queue.poll()) != null) {
+            write(event);
+            commit(1);
+        }
+    }
+    
+    private void commit(int count) {
+        if (writeAhead != null && count > 0) {
+            writeAhead.commit(count);
+        }
+    }
+    
+    private void write(LoggingEvent event) {
+        try {
+            sink.accept(event);
+        } catch (RuntimeException e) {
+            log.warn("Failed to write Kafka logging event", e);
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.logging.framework.appender;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.classic.spi.LoggingEvent;
+import ch.qos.logback.core.encoder.EncoderBase;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Logback encoder for lines already encoded by an {@link com.logging.framework.encoder.EventEncoder}.
+ * The bytes of the line are handed to the file as they are, so events are not formatted
+ * a second time by a layout.
+ */
+class EncodedLineEncoder extends EncoderBase<ILoggingEvent> {
+    
+    static final byte[] LINE_SEPARATOR = System.lineSeparator().getBytes(StandardCharsets.UTF_8);
+    
+    @Override
+    public byte[] headerBytes() {
+        return null;
+    }
+    
+    @Override
+    public byte[] encode(ILoggingEvent event) {
+        if (event instanceof Line) {
+            return ((Line) event).bytes;
+        }
+        // Events logged to the dedicated logger by other code
+        byte[] message = String.valueOf(event.getFormattedMessage()).getBytes(StandardCharsets.UTF_8);
+        byte[] line = new byte[message.length + LINE_SEPARATOR.length];
+        System.arraycopy(message, 0, line, 0, message.length);
+        System.arraycopy(LINE_SEPARATOR, 0, line, message.length, LINE_SEPARATOR.length);
+        return line;
+    }
+    
+    @Override
+    public byte[] footerBytes() {
+        return null;
+    }
+    
+    /**
+     * A logback event carrying its encoded line, including the line separator.
+     */
+    static class Line extends LoggingEvent {
+        
+        private final byte[] bytes;
+        
+        Line(String fqcn, Logger logger, Level level, byte[] bytes) {
+            super(fqcn, logger, level, null, null, null);
+            this.bytes = bytes;
+        }
+    }
+}
@@ -5,26 +5,81 @@ import ch.qos.logback.classic.Logger;
 import ch.qos.logback.classic.LoggerContext;
 import ch.qos.logback.classic.encoder.PatternLayoutEncoder;
 import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.Appender;
 import ch.qos.logback.core.FileAppender;
+import ch.qos.logback.core.encoder.Encoder;
+import ch.qos.logback.core.encoder.EncoderBase;
 import ch.qos.logback.core.rolling.RollingFileAppender;
 import ch.qos.logback.core.rolling.SizeAndTimeBasedRollingPolicy;
 import ch.qos.logback.core.util.FileSize;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.logging.framework.config.KafkaLoggingProperties;
+import com.logging.framework.encoder.EncoderBuffer;
+import com.logging.framework.encoder.EventEncoder;
+import com.logging.framework.encoder.EventEncoders;
+import com.logging.framework.encoder.JsonLinesEncoder;
+import com.logging.framework.exception.StackTraceRenderer;
 import com.logging.framework.model.LoggingEvent;
+import com.logging.framework.model.MethodExecutionStatus;
+import com.logging.framework.template.MessageTemplate;
 
 import org.slf4j.LoggerFactory;
-import org.slf4j.MDC;
+import org.springframework.beans.factory.DisposableBean;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * Custom log appender for writing to the dedicated Kafka logging file.
  * Formats log entries with status information and handles file creation.
+ * With asynchronous logging enabled, events are encoded and written by a background writer thread.
+ * With a {@link KafkaTopicSink}, every event written to the file is also published to a Kafka topic.
+ * With template IDs enabled, status messages are written as the ID of their template, and each
+ * template is defined by a dictionary record in every file that uses it.
+ * With an {@link EventEncoder}, each line is the output of the encoder instead of the log pattern,
+ * encoded into the buffer of the writing thread and written to the file without further formatting.
  */
-public class KafkaLoggingFileAppender {
+public class KafkaLoggingFileAppender implements DisposableBean {
+    
+    private static final org.slf4j.Logger log = LoggerFactory.getLogger(KafkaLoggingFileAppender.class);
+    
+    private static final String FQCN = KafkaLoggingFileAppender.class.getName();
+    
+    private static final ObjectMapper RECOVERY_MAPPER = new ObjectMapper();
     
     private final Logger kafkaLogger;
     private final LogFileManager logFileManager;
     private final KafkaLoggingProperties properties;
+    private final StackTraceRenderer stackTraceRenderer;
+    private final AsyncLogWriter asyncWriter;
+    private final KafkaTopicSink topicSink;
+    private final boolean templateIds;
+    private final EventEncoder encoder;
+    
+    // Templates defined in the current file, cleared when the file is rolled over
+    private final BitSet definedTemplates = new BitSet();
+    private final ReentrantLock definedTemplatesLock = new ReentrantLock();
+    
+    // Serializes the writes of events with template IDs, so no rollover comes between a template definition
+    // and its first use; a ReentrantLock rather than a monitor, so that virtual threads are not pinned
+    private final ReentrantLock writeLock = new ReentrantLock();
+    
+    // The event being written and the template definition written with it, guarded by the write lock
+    private LoggingEvent writingEvent;
+    private ILoggingEvent writingLogbackEvent;
+    private LoggingEvent writtenDefinition;
     
     /**
      * Create a new KafkaLoggingFileAppender.
@@ -32,7 +87,47 @@ public class KafkaLoggingFileAppender {
      * @param properties The Kafka logging properties
      */
     public KafkaLoggingFileAppender(KafkaLoggingProperties properties) {
+        this(properties, null);
+    }
+    
+    /**
+     * Create a new KafkaLoggingFileAppender.
+     * 
+     * @param properties The Kafka logging properties
+     * @param stackTraceRenderer The renderer for stack traces written to the file, may be null
+     */
+    public KafkaLoggingFileAppender(KafkaLoggingProperties properties, StackTraceRenderer stackTraceRenderer) {
+        this(properties, stackTraceRenderer, null);
+    }
+    
+    /**
+     * Create a new KafkaLoggingFileAppender.
+     * 
+     * @param properties The Kafka logging properties
+     * @param stackTraceRenderer The renderer for stack traces written to the file, may be null
+     * @param topicSink The sink publishing the encoded events to a Kafka topic, may be null
+     */
+    public KafkaLoggingFileAppender(KafkaLoggingProperties properties, StackTraceRenderer stackTraceRenderer,
+                                    KafkaTopicSink topicSink) {
+        this(properties, stackTraceRenderer, topicSink, EventEncoders.forFormat(
+                properties.getLogFile().getFormat(), properties.getLogFile().isTemplateIds()));
+    }
+    
+    /**
+     * Create a new KafkaLoggingFileAppender.
+     * 
+     * @param properties The Kafka logging properties
+     * @param stackTraceRenderer The renderer for stack traces written to the file, may be null
+     * @param topicSink The sink publishing the encoded events to a Kafka topic, may be null
+     * @param encoder The encoder of the log file lines, or null to write events with the log pattern
+     */
+    public KafkaLoggingFileAppender(KafkaLoggingProperties properties, StackTraceRenderer stackTraceRenderer,
+                                    KafkaTopicSink topicSink, EventEncoder encoder) {
         this.properties = properties;
+        this.stackTraceRenderer = stackTraceRenderer;
+        this.topicSink = topicSink;
+        this.encoder = encoder;
+        this.templateIds = encoder != null ? encoder.usesTemplateIds() : properties.getLogFile().isTemplateIds();
         
         // Create log file manager
         this.logFileManager = new LogFileManager(
@@ -45,6 +140,101 @@ public class KafkaLoggingFileAppender {
         
         // Configure appender
         configureAppender(loggerContext);
+        
+        // Events of a killed process are written before anything else
+        WriteAheadSpool writeAhead = properties.isAsyncLogging() && properties.isAsyncWriteAhead()
+                ? openWriteAheadSpool() : null;
+        if (writeAhead != null) {
+            recover(writeAhead);
+        }
+        
+        // Start the background writer, spool records are the lines of the encoder or the JSON of the pattern
+        this.asyncWriter = properties.isAsyncLogging()
+                ? new AsyncLogWriter(properties.getAsyncQueueCapacity(), properties.isVirtualThreadWriter(),
+                        writeAhead, encoder != null ? encoder : new JsonLinesEncoder(templateIds), this::write)
+                : null;
+    }
+    
+    /**
+     * Open the write-ahead spool next to the log file.
+     * 
+     * @return The write-ahead spool, or null if it cannot be opened
+     */
+    private WriteAheadSpool openWriteAheadSpool() {
+        File file = new File(logFileManager.getLogFile().getParentFile(),
+                properties.getLogFile().getFilename() + ".wal");
+        try {
+            return new WriteAheadSpool(file, FileSize.valueOf(properties.getAsyncWriteAheadSize()).getSize());
+        } catch (IOException | RuntimeException e) {
+            log.error("Failed to open write-ahead spool {}, queued events are not crash-safe", file, e);
+            return null;
+        }
+    }
+    
+    /**
+     * Write the events left uncommitted in a write-ahead spool to the log file.
+     * This runs before the background writer is started, so recovered events precede new ones.
+     * The spool records are the lines of the event encoder, written as they are, or the JSON of the
+     * events, written with the log pattern like any other event.
+     * 
+     * @param spool The write-ahead spool
+     * @return The number of recovered events
+     */
+    private int recover(WriteAheadSpool spool) {
+        List<byte[]> records = spool.recover();
+        if (records.isEmpty()) {
+            return 0;
+        }
+        try {
+            for (byte[] record : records) {
+                kafkaLogger.callAppenders(recoveredEvent(record));
+            }
+        } finally {
+            // Events that could not be written are not retried, the spool is reused from here
+            spool.markRecovered();
+        }
+        log.warn("Recovered {} events not written before the last shutdown from {}",
+                records.size(), spool.getFile().getAbsolutePath());
+        return records.size();
+    }
+    
+    /**
+     * Create the logback event of a recovered spool record.
+     * 
+     * @param record The spool record
+     * @return The logback event
+     */
+    private ILoggingEvent recoveredEvent(byte[] record) {
+        if (encoder != null) {
+            byte[] line = Arrays.copyOf(record, record.length + EncodedLineEncoder.LINE_SEPARATOR.length);
+            System.arraycopy(EncodedLineEncoder.LINE_SEPARATOR, 0, line, record.length,
+                    EncodedLineEncoder.LINE_SEPARATOR.length);
+            EncodedLineEncoder.Line logbackEvent = new EncodedLineEncoder.Line(FQCN, kafkaLogger, Level.INFO, line);
+            logbackEvent.setMDCPropertyMap(Collections.emptyMap());
+            return logbackEvent;
+        }
+        
+        // Values for the log pattern, taken from the JSON of the event
+        String json = new String(record, StandardCharsets.UTF_8);
+        Map<String, String> mdc = new HashMap<>(4);
+        Level level = Level.INFO;
+        long timeStamp = System.currentTimeMillis();
+        try {
+            JsonNode node = RECOVERY_MAPPER.readTree(json);
+            mdc.put("status", node.path("status").asText());
+            mdc.put("class", node.path("class").asText());
+            mdc.put("method", node.path("method").asText());
+            level = toLevel(node.path("level").asText(null));
+            timeStamp = LocalDateTime.parse(node.path("timestamp").asText())
+                    .atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        } catch (IOException | RuntimeException e) {
+            log.debug("Recovered event is not complete JSON, writing it as it is: {}", e.toString());
+        }
+        ch.qos.logback.classic.spi.LoggingEvent logbackEvent = new ch.qos.logback.classic.spi.LoggingEvent(
+                FQCN, kafkaLogger, level, json, null, null);
+        logbackEvent.setTimeStamp(timeStamp);
+        logbackEvent.setMDCPropertyMap(mdc);
+        return logbackEvent;
     }
     
     /**
@@ -53,18 +243,33 @@ public class KafkaLoggingFileAppender {
      * @param loggerContext The logger context
      */
     private void configureAppender(LoggerContext loggerContext) {
-        // Create encoder
-        PatternLayoutEncoder encoder = new PatternLayoutEncoder();
-        encoder.setContext(loggerContext);
-        encoder.setPattern(properties.getLogFile().getPattern());
-        encoder.start();
+        // Create encoder, lines of an event encoder are written as they are
+        Encoder<ILoggingEvent> lineEncoder;
+        if (encoder != null) {
+            lineEncoder = new EncodedLineEncoder();
+        } else {
+            PatternLayoutEncoder patternEncoder = new PatternLayoutEncoder();
+            patternEncoder.setPattern(properties.getLogFile().getPattern());
+            lineEncoder = patternEncoder;
+        }
+        lineEncoder.setContext(loggerContext);
+        lineEncoder.start();
+        Encoder<ILoggingEvent> fileEncoder = templateIds ? new TemplateDefiningEncoder(lineEncoder) : lineEncoder;
+        fileEncoder.setContext(loggerContext);
+        fileEncoder.start();
         
         // Create appender
-        RollingFileAppender<ILoggingEvent> appender = new RollingFileAppender<>();
+        RollingFileAppender<ILoggingEvent> appender = new RollingFileAppender<ILoggingEvent>() {
+            @Override
+            public void rollover() {
+                super.rollover();
+                clearDefinedTemplates();
+            }
+        };
         appender.setContext(loggerContext);
         appender.setName("KAFKA_FILE");
         appender.setFile(logFileManager.getLogFilePath());
-        appender.setEncoder(encoder);
+        appender.setEncoder(fileEncoder);
         
         // Configure rolling policy
         SizeAndTimeBasedRollingPolicy<ILoggingEvent> rollingPolicy = new SizeAndTimeBasedRollingPolicy<>();
@@ -87,38 +292,315 @@ public class KafkaLoggingFileAppender {
     
     /**
      * Log a message to the dedicated Kafka log file.
+     * The event must not be modified after it has been handed over.
      * 
      * @param event The logging event
      */
     public void log(LoggingEvent event) {
+        if (asyncWriter != null) {
+            asyncWriter.enqueue(event);
+        } else {
+            write(event);
+        }
+    }
+    
+    /**
+     * Check whether events of a log level are written to the log file.
+     * 
+     * @param logLevel The log level of the event
+     * @return True if the level is enabled for the dedicated logger
+     */
+    public boolean isEnabled(String logLevel) {
+        return kafkaLogger.isEnabledFor(toLevel(logLevel));
+    }
+    
+    /**
+     * Check whether stack traces are rendered into the log file.
+     * 
+     * @return True if a stack trace renderer is configured
+     */
+    public boolean rendersStackTraces() {
+        return stackTraceRenderer != null;
+    }
+    
+    /**
+     * Encode and write an event to the log file, and publish it through the topic sink.
+     * The status, class and method values of the log pattern are attached to the logback event
+     * directly instead of going through the MDC, so no thread-local state is touched when the
+     * event is written on the calling thread.
+     * 
+     * @param event The logging event
+     */
+    private void write(LoggingEvent event) {
+        Level level = toLevel(event.getLogLevel());
+        if (!kafkaLogger.isEnabledFor(level)) {
+            return;
+        }
+        
+        // Render the stack trace here, off the thread that raised the event
+        if (event.isIncludeStackTrace() && stackTraceRenderer != null
+                && event.getException() != null && event.getStackTrace() == null) {
+            event.setStackTrace(stackTraceRenderer.render(event.getException()));
+        }
+        
+        if (encoder != null) {
+            writeEncoded(event, level);
+        } else {
+            writePattern(event, level);
+        }
+    }
+    
+    /**
+     * Write an event with the log pattern, the JSON of the event being the message.
+     * 
+     * @param event The logging event
+     * @param level The logback level of the event
+     */
+    private void writePattern(LoggingEvent event, Level level) {
+        String encoded = event.toJsonString(templateIds);
+        LoggingEvent definition = append(event, patternEvent(event, level, encoded));
+        
+        if (topicSink != null) {
+            if (definition != null) {
+                topicSink.publish(definition.toJsonString(templateIds));
+            }
+            if (!event.isExcludedFromSink()) {
+                topicSink.publish(encoded);
+            }
+        }
+    }
+    
+    /**
+     * Write the line of the event encoder, which is also the record published by the topic sink.
+     * The line is encoded into the buffer of the current thread, so writing threads do not contend,
+     * and copied once into the array logback writes to the file. The topic sink gets the same
+     * array without the line separator.
+     * 
+     * @param event The logging event
+     * @param level The logback level of the event
+     */
+    private void writeEncoded(LoggingEvent event, Level level) {
+        EncoderBuffer buffer = EncoderBuffer.forCurrentThread();
         try {
-            // Set MDC values for the log pattern
-            MDC.put("status", event.getStatus().toString());
-            MDC.put("class", event.getClassName());
-            MDC.put("method", event.getMethodName());
-            
-            // Log the message with the appropriate level
-            Level level = Level.toLevel(event.getLogLevel(), Level.INFO);
-            
-            String logMsg = event.toJsonString();
-            if (level == Level.ERROR) {
-                kafkaLogger.error(logMsg);
-            } else if (level == Level.WARN) {
-                kafkaLogger.warn(logMsg);
-            } else if (level == Level.INFO) {
-                kafkaLogger.info(logMsg);
-            } else if (level == Level.DEBUG) {
-                kafkaLogger.debug(logMsg);
-            } else if (level == Level.TRACE) {
-                kafkaLogger.trace(logMsg);
-            } else {
-                kafkaLogger.info(logMsg);
+            encoder.encode(event, buffer);
+        } catch (RuntimeException e) {
+            log.warn("Failed to encode event of {}#{}, writing it as JSON",
+                    event.getClassName(), event.getMethodName(), e);
+            buffer.reset();
+            buffer.appendUtf8(event.toJsonString(templateIds));
+        }
+        buffer.write(EncodedLineEncoder.LINE_SEPARATOR, 0, EncodedLineEncoder.LINE_SEPARATOR.length);
+        byte[] line = buffer.toByteArray();
+        
+        EncodedLineEncoder.Line logbackEvent = new EncodedLineEncoder.Line(FQCN, kafkaLogger, level, line);
+        logbackEvent.setMDCPropertyMap(Collections.emptyMap());
+        LoggingEvent definition = append(event, logbackEvent);
+        
+        if (topicSink != null) {
+            if (definition != null) {
+                byte[] definitionLine = encodeLine(definition);
+                topicSink.publish(definitionLine, 0, definitionLine.length - EncodedLineEncoder.LINE_SEPARATOR.length);
+            }
+            if (!event.isExcludedFromSink()) {
+                topicSink.publish(line, 0, line.length - EncodedLineEncoder.LINE_SEPARATOR.length);
+            }
+        }
+    }
+    
+    /**
+     * Append the logback event of an event to the log file.
+     * With template IDs, the file encoder prepends the definition of the template of the event if the
+     * file does not define it yet. The encoder runs after a rollover triggered by the event, so the
+     * definition and the event land in the same file, as one write. Without template IDs events are
+     * appended without taking the write lock.
+     * 
+     * @param event The logging event
+     * @param logbackEvent The logback event of the event
+     * @return The template definition written before the event, or null
+     */
+    private LoggingEvent append(LoggingEvent event, ILoggingEvent logbackEvent) {
+        if (!templateIds) {
+            kafkaLogger.callAppenders(logbackEvent);
+            return null;
+        }
+        writeLock.lock();
+        try {
+            writingEvent = event;
+            writingLogbackEvent = logbackEvent;
+            kafkaLogger.callAppenders(logbackEvent);
+            return writtenDefinition;
+        } finally {
+            writingEvent = null;
+            writingLogbackEvent = null;
+            writtenDefinition = null;
+            writeLock.unlock();
+        }
+    }
+    
+    /**
+     * Encode the line of a template definition with the event encoder.
+     * 
+     * @param definition The template definition
+     * @return The line, including the line separator
+     */
+    private byte[] encodeLine(LoggingEvent definition) {
+        EncoderBuffer line = new EncoderBuffer(256);
+        encoder.encode(definition, line);
+        line.write(EncodedLineEncoder.LINE_SEPARATOR, 0, EncodedLineEncoder.LINE_SEPARATOR.length);
+        return line.toByteArray();
+    }
+    
+    /**
+     * Mark a template as defined in the current file.
+     * 
+     * @param template The message template
+     * @return True if the template was not defined in the current file yet
+     */
+    private boolean defineTemplate(MessageTemplate template) {
+        definedTemplatesLock.lock();
+        try {
+            if (definedTemplates.get(template.getId())) {
+                return false;
             }
+            definedTemplates.set(template.getId());
+            return true;
         } finally {
-            // Clear MDC values
-            MDC.remove("status");
-            MDC.remove("class");
-            MDC.remove("method");
+            definedTemplatesLock.unlock();
+        }
+    }
+    
+    private void clearDefinedTemplates() {
+        definedTemplatesLock.lock();
+        try {
+            definedTemplates.clear();
+        } finally {
+            definedTemplatesLock.unlock();
+        }
+    }
+    
+    /**
+     * Logback encoder of the log file prepending the definition of a template to the first line using
+     * it in a file. The definition is encoded with the line encoder, like any other event.
+     */
+    private class TemplateDefiningEncoder extends EncoderBase<ILoggingEvent> {
+        
+        private final Encoder<ILoggingEvent> lineEncoder;
+        
+        TemplateDefiningEncoder(Encoder<ILoggingEvent> lineEncoder) {
+            this.lineEncoder = lineEncoder;
+        }
+        
+        @Override
+        public byte[] headerBytes() {
+            return lineEncoder.headerBytes();
+        }
+        
+        @Override
+        public byte[] encode(ILoggingEvent logbackEvent) {
+            byte[] line = lineEncoder.encode(logbackEvent);
+            // Only the event being written under the write lock can define its template
+            if (logbackEvent != writingLogbackEvent) {
+                return line;
+            }
+            MessageTemplate template = writingEvent.getMessageTemplate();
+            if (template == null || !defineTemplate(template)) {
+                return line;
+            }
+            
+            LoggingEvent definition = templateDefinition(template, writingEvent.getLogLevel());
+            byte[] definitionLine = lineEncoder.encode(definitionEvent(definition, logbackEvent.getLevel()));
+            writtenDefinition = definition;
+            byte[] lines = Arrays.copyOf(definitionLine, definitionLine.length + line.length);
+            System.arraycopy(line, 0, lines, definitionLine.length, line.length);
+            return lines;
+        }
+        
+        @Override
+        public byte[] footerBytes() {
+            return lineEncoder.footerBytes();
+        }
+    }
+    
+    /**
+     * Create the logback event of a template definition for the line encoder.
+     * 
+     * @param definition The template definition
+     * @param level The logback level of the event using the template
+     * @return The logback event
+     */
+    private ILoggingEvent definitionEvent(LoggingEvent definition, Level level) {
+        if (encoder != null) {
+            return new EncodedLineEncoder.Line(FQCN, kafkaLogger, level, encodeLine(definition));
+        }
+        return patternEvent(definition, level, definition.toJsonString(templateIds));
+    }
+    
+    /**
+     * Create the logback event of an event for the log pattern.
+     * 
+     * @param event The logging event
+     * @param level The logback level of the event
+     * @param message The JSON of the event
+     * @return The logback event
+     */
+    private ch.qos.logback.classic.spi.LoggingEvent patternEvent(LoggingEvent event, Level level, String message) {
+        // Values for the log pattern
+        Map<String, String> mdc = new HashMap<>(4);
+        mdc.put("status", event.getStatus().toString());
+        mdc.put("class", event.getClassName());
+        mdc.put("method", event.getMethodName());
+        
+        ch.qos.logback.classic.spi.LoggingEvent logbackEvent = new ch.qos.logback.classic.spi.LoggingEvent(
+                FQCN, kafkaLogger, level, message, null, null);
+        logbackEvent.setMDCPropertyMap(mdc);
+        return logbackEvent;
+    }
+    
+    /**
+     * Create the dictionary record defining a message template.
+     * 
+     * @param template The message template
+     * @param logLevel The log level of the event using the template, so that both are written
+     * @return The dictionary record
+     */
+    private static LoggingEvent templateDefinition(MessageTemplate template, String logLevel) {
+        LoggingEvent definition = new LoggingEvent();
+        definition.setClassName("MessageTemplates");
+        definition.setMethodName("dictionary");
+        definition.setStatus(MethodExecutionStatus.PASSED);
+        definition.setLogLevel(logLevel);
+        definition.setTraceContext(null);
+        definition.addContext("action", "message_template");
+        definition.addContext("messageId", template.getId());
+        definition.addContext("template", template.getPattern());
+        return definition;
+    }
+    
+    /**
+     * Map the log level of an event, unknown levels are logged as INFO.
+     * 
+     * @param logLevel The log level of the event
+     * @return The logback level
+     */
+    private static Level toLevel(String logLevel) {
+        Level level = Level.toLevel(logLevel, Level.INFO);
+        if (level != Level.ERROR && level != Level.WARN && level != Level.DEBUG && level != Level.TRACE) {
+            level = Level.INFO;
+        }
+        return level;
+    }
+    
+    @Override
+    public void destroy() {
+        if (asyncWriter != null) {
+            asyncWriter.shutdown();
+        }
+        
+        // Release the file, the logger outlives the application context
+        Appender<ILoggingEvent> appender = kafkaLogger.getAppender("KAFKA_FILE");
+        if (appender != null) {
+            kafkaLogger.detachAppender(appender);
+            appender.stop();
         }
     }
     
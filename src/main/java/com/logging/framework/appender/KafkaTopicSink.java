@@ -0,0 +1,309 @@
+package com.logging.framework.appender;
+
+import com.logging.framework.config.KafkaLoggingProperties;
+import com.logging.framework.service.LoggingScheduler;
+import org.apache.kafka.clients.producer.Callback;
+import org.apache.kafka.clients.producer.KafkaProducer;
+import org.apache.kafka.clients.producer.Producer;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Publishes the encoded events of the dedicated log file to a Kafka topic.
+ * Events are sent by a dedicated producer tuned for throughput: large batches, a long linger
+ * and compression. When a send fails or blocks for too long because the broker is unavailable
+ * or slow, the event is appended to a local {@link LogSpool}, and later events go to the spool
+ * as well until it has been replayed, which keeps the topic roughly in log order.
+ * Replay runs on the logging scheduler thread and is at-least-once: a segment is deleted only
+ * after all of its events have been acknowledged.
+ */
+public class KafkaTopicSink implements InitializingBean, DisposableBean {
+    
+    private static final Logger log = LoggerFactory.getLogger(KafkaTopicSink.class);
+    
+    private final Producer<byte[], byte[]> producer;
+    private final String topic;
+    private final LogSpool spool;
+    private final LoggingScheduler scheduler;
+    private final long replayIntervalMs;
+    
+    private final AtomicBoolean replaying = new AtomicBoolean();
+    private final LongAdder published = new LongAdder();
+    private final LongAdder spooled = new LongAdder();
+    private final LongAdder replayed = new LongAdder();
+    
+    private volatile boolean spooling;
+    
+    /**
+     * Create a new KafkaTopicSink.
+     * 
+     * @param topic The topic the events are published to
+     * @param producerConfig The configuration of the sink producer
+     * @param spool The local spool
+     * @param scheduler The scheduler the spool is replayed on
+     * @param replayIntervalMs The replay interval in milliseconds
+     */
+    public KafkaTopicSink(String topic, Map<String, Object> producerConfig, LogSpool spool,
+                          LoggingScheduler scheduler, long replayIntervalMs) {
+        this.producer = new KafkaProducer<>(producerConfig, new ByteArraySerializer(), new ByteArraySerializer());
+        this.topic = topic;
+        this.spool = spool;
+        this.scheduler = scheduler;
+        this.replayIntervalMs = replayIntervalMs;
+        
+        // Events spooled by a previous run are replayed before new events are sent
+        this.spooling = !spool.isEmpty();
+    }
+    
+    /**
+     * Create the configuration of the sink producer.
+     * 
+     * @param config The sink configuration
+     * @param bootstrapServers The bootstrap servers
+     * @return The producer configuration
+     */
+    public static Map<String, Object> producerConfig(KafkaLoggingProperties.SinkConfig config,
+                                                     String bootstrapServers) {
+        Map<String, Object> producerConfig = new HashMap<>();
+        producerConfig.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        producerConfig.put(ProducerConfig.CLIENT_ID_CONFIG, "kafka-logging-sink");
+        producerConfig.put(ProducerConfig.ACKS_CONFIG, "1");
+        producerConfig.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, false);
+        producerConfig.put(ProducerConfig.COMPRESSION_TYPE_CONFIG, config.getCompressionType());
+        producerConfig.put(ProducerConfig.BATCH_SIZE_CONFIG, config.getBatchSize());
+        producerConfig.put(ProducerConfig.LINGER_MS_CONFIG, config.getLingerMs());
+        producerConfig.put(ProducerConfig.MAX_BLOCK_MS_CONFIG, config.getMaxBlockMs());
+        producerConfig.put(ProducerConfig.DELIVERY_TIMEOUT_MS_CONFIG, config.getDeliveryTimeoutMs());
+        // The delivery timeout must cover the linger and one request
+        producerConfig.put(ProducerConfig.REQUEST_TIMEOUT_MS_CONFIG,
+                (int) Math.max(1, Math.min(30000, config.getDeliveryTimeoutMs() - config.getLingerMs())));
+        producerConfig.putAll(config.getProducer());
+        return producerConfig;
+    }
+    
+    @Override
+    public void afterPropertiesSet() {
+        if (scheduler != null && replayIntervalMs > 0) {
+            scheduler.scheduleAtFixedRate(this::replay, replayIntervalMs);
+        }
+    }
+    
+    /**
+     * Publish an encoded event.
+     * 
+     * @param encoded The encoded event
+     */
+    public void publish(String encoded) {
+        publish(encoded.getBytes(StandardCharsets.UTF_8));
+    }
+    
+    /**
+     * Publish an encoded event.
+     * This never blocks longer than the configured maximum block time of the producer.
+     * 
+     * @param record The encoded event
+     */
+    public void publish(byte[] record) {
+        publish(record, 0, record.length);
+    }
+    
+    /**
+     * Publish an encoded event held in part of an array, such as a log file line without its separator.
+     * The producer needs a record array of its own, so the part is copied once unless it is the
+     * whole array; while spooling it is appended to the spool without a copy.
+     * The array must not be modified after the call.
+     * 
+     * @param array The array holding the encoded event
+     * @param offset The offset of the encoded event
+     * @param length The length of the encoded event
+     */
+    public void publish(byte[] array, int offset, int length) {
+        if (spooling) {
+            spool.append(array, offset, length);
+            spooled.increment();
+            return;
+        }
+        byte[] record = offset == 0 && length == array.length
+                ? array : Arrays.copyOfRange(array, offset, offset + length);
+        try {
+            producer.send(new ProducerRecord<>(topic, record), (metadata, exception) -> {
+                if (exception == null) {
+                    published.increment();
+                } else {
+                    spool(record, exception);
+                }
+            });
+        } catch (RuntimeException e) {
+            spool(record, e);
+        }
+    }
+    
+    /**
+     * Replay the spooled events, if no replay is running.
+     * This is what the periodic replay calls; it can also be called on demand.
+     */
+    public void replay() {
+        if (!spooling && spool.isEmpty()) {
+            return;
+        }
+        if (replaying.compareAndSet(false, true)) {
+            replayNext();
+        }
+    }
+    
+    /**
+     * Check whether events are currently spooled instead of sent.
+     * 
+     * @return True while the spool is being filled or replayed
+     */
+    public boolean isSpooling() {
+        return spooling;
+    }
+    
+    /**
+     * Get the number of events acknowledged by the broker when first sent.
+     * 
+     * @return The number of published events
+     */
+    public long getPublished() {
+        return published.sum();
+    }
+    
+    /**
+     * Get the number of events written to the spool.
+     * 
+     * @return The number of spooled events
+     */
+    public long getSpooled() {
+        return spooled.sum();
+    }
+    
+    /**
+     * Get the number of spooled events acknowledged by the broker on replay.
+     * 
+     * @return The number of replayed events
+     */
+    public long getReplayed() {
+        return replayed.sum();
+    }
+    
+    /**
+     * Get the local spool.
+     * 
+     * @return The spool
+     */
+    public LogSpool getSpool() {
+        return spool;
+    }
+    
+    @Override
+    public void destroy() {
+        // Events the producer cannot deliver in time fail and are spooled for the next start
+        producer.close(Duration.ofSeconds(5));
+        spool.close();
+    }
+    
+    private void spool(byte[] record, Exception exception) {
+        if (!spooling) {
+            spooling = true;
+            log.warn("Kafka logging sink cannot publish to topic {}, spooling events until it recovers: {}",
+                    topic, exception.toString());
+        }
+        spool.append(record);
+        spooled.increment();
+    }
+    
+    private void replayNext() {
+        try {
+            File segment = spool.nextSegment();
+            if (segment == null) {
+                spooling = false;
+                replaying.set(false);
+                log.info("Kafka logging sink spool replayed, publishing to topic {}", topic);
+                return;
+            }
+            List<byte[]> records;
+            try {
+                records = spool.read(segment);
+            } catch (IOException e) {
+                log.warn("Failed to read spool segment {}, dropping it", segment.getAbsolutePath(), e);
+                spool.delete(segment);
+                scheduler.execute(this::replayNext);
+                return;
+            }
+            if (records.isEmpty()) {
+                spool.delete(segment);
+                scheduler.execute(this::replayNext);
+                return;
+            }
+            
+            // Probe with the first event, so an unavailable broker costs one blocked send per replay
+            send(records.get(0), (metadata, exception) -> {
+                if (exception != null) {
+                    replaying.set(false);
+                } else {
+                    scheduler.execute(() -> replayRemaining(segment, records));
+                }
+            });
+        } catch (RuntimeException e) {
+            replaying.set(false);
+            throw e;
+        }
+    }
+    
+    private void replayRemaining(File segment, List<byte[]> records) {
+        AtomicInteger pending = new AtomicInteger(records.size() - 1);
+        AtomicBoolean failed = new AtomicBoolean();
+        Callback callback = (metadata, exception) -> {
+            if (exception != null) {
+                failed.set(true);
+            }
+            if (pending.decrementAndGet() == 0) {
+                completeSegment(segment, records.size(), failed.get());
+            }
+        };
+        if (records.size() == 1) {
+            completeSegment(segment, 1, false);
+            return;
+        }
+        for (int i = 1; i < records.size(); i++) {
+            send(records.get(i), callback);
+        }
+    }
+    
+    private void completeSegment(File segment, int count, boolean failed) {
+        if (failed) {
+            // Keep the segment and try again later; events already acknowledged are sent again
+            replaying.set(false);
+            return;
+        }
+        spool.delete(segment);
+        replayed.add(count);
+        scheduler.execute(this::replayNext);
+    }
+    
+    private void send(byte[] record, Callback callback) {
+        try {
+            producer.send(new ProducerRecord<>(topic, record), callback);
+        } catch (RuntimeException e) {
+            callback.onCompletion(null, e);
+        }
+    }
+}
@@ -0,0 +1,299 @@
+package com.logging.framework.appender;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Local disk spool of the Kafka topic sink.
+ * Encoded events are appended to segment files as length-prefixed records. A segment is closed
+ * when it reaches the segment size and becomes available for replay; replayed segments are deleted.
+ * When the total size exceeds the maximum, the oldest segments are dropped.
+ * Segments left behind by a previous run are picked up again on startup.
+ */
+public class LogSpool {
+    
+    private static final Logger log = LoggerFactory.getLogger(LogSpool.class);
+    
+    private static final String PREFIX = "kafka-logging-";
+    private static final String SUFFIX = ".spool";
+    
+    private final File directory;
+    private final long segmentBytes;
+    private final long maxBytes;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Deque<File> closedSegments = new ArrayDeque<>();
+    
+    private long nextSequence;
+    private long closedBytes;
+    private File currentSegment;
+    private DataOutputStream currentOut;
+    private long currentBytes;
+    private long droppedEvents;
+    private long droppedSegments;
+    
+    /**
+     * Create a new LogSpool.
+     * 
+     * @param directory The spool directory
+     * @param segmentBytes The size at which a segment is closed
+     * @param maxBytes The maximum total size of the spool
+     */
+    public LogSpool(File directory, long segmentBytes, long maxBytes) {
+        this.directory = directory;
+        this.segmentBytes = segmentBytes;
+        this.maxBytes = maxBytes;
+        if (!directory.exists() && !directory.mkdirs()) {
+            log.error("Failed to create spool directory: {}", directory.getAbsolutePath());
+        }
+        
+        // Segments of a previous run are replayed first, in order
+        File[] existing = directory.listFiles((dir, name) -> name.startsWith(PREFIX) && name.endsWith(SUFFIX));
+        if (existing != null) {
+            Arrays.sort(existing, (a, b) -> Long.compare(sequence(a), sequence(b)));
+            for (File segment : existing) {
+                closedSegments.add(segment);
+                closedBytes += segment.length();
+                nextSequence = Math.max(nextSequence, sequence(segment) + 1);
+            }
+        }
+    }
+    
+    /**
+     * Append an encoded event to the current segment.
+     * 
+     * @param record The encoded event
+     */
+    public void append(byte[] record) {
+        append(record, 0, record.length);
+    }
+    
+    /**
+     * Append an encoded event held in part of an array to the current segment.
+     * 
+     * @param array The array holding the encoded event
+     * @param offset The offset of the encoded event
+     * @param length The length of the encoded event
+     */
+    public void append(byte[] array, int offset, int length) {
+        lock.lock();
+        try {
+            if (currentOut == null) {
+                openSegment();
+            }
+            currentOut.writeInt(length);
+            currentOut.write(array, offset, length);
+            currentOut.flush();
+            currentBytes += 4 + length;
+            if (currentBytes >= segmentBytes) {
+                closeSegment();
+            }
+            enforceMaxSize();
+        } catch (IOException e) {
+            log.warn("Failed to spool Kafka logging event to {}", directory.getAbsolutePath(), e);
+            droppedEvents++;
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    /**
+     * Close the current segment, if it holds events, and take the oldest closed segment for replay.
+     * The segment stays on disk until it is {@link #delete(File) deleted}.
+     * 
+     * @return The oldest segment, or null if the spool is empty
+     */
+    public File nextSegment() {
+        lock.lock();
+        try {
+            if (closedSegments.isEmpty() && currentBytes > 0) {
+                closeSegment();
+            }
+            return closedSegments.peekFirst();
+        } catch (IOException e) {
+            log.warn("Failed to close spool segment {}", currentSegment.getAbsolutePath(), e);
+            return closedSegments.peekFirst();
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    /**
+     * Delete a segment after it has been replayed.
+     * 
+     * @param segment The segment
+     */
+    public void delete(File segment) {
+        lock.lock();
+        try {
+            if (closedSegments.remove(segment)) {
+                closedBytes -= segment.length();
+                if (!segment.delete()) {
+                    log.warn("Failed to delete spool segment {}", segment.getAbsolutePath());
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    /**
+     * Read the events of a segment.
+     * A record truncated by a crash ends the segment.
+     * 
+     * @param segment The segment
+     * @return The encoded events
+     * @throws IOException If the segment cannot be read
+     */
+    public List<byte[]> read(File segment) throws IOException {
+        List<byte[]> records = new ArrayList<>();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(segment)))) {
+            while (true) {
+                byte[] record;
+                try {
+                    int length = in.readInt();
+                    if (length < 0 || length > segmentBytes + maxBytes) {
+                        log.warn("Spool segment {} is corrupt after {} events", segment.getName(), records.size());
+                        break;
+                    }
+                    record = new byte[length];
+                    in.readFully(record);
+                } catch (EOFException e) {
+                    break;
+                }
+                records.add(record);
+            }
+        }
+        return records;
+    }
+    
+    /**
+     * Check whether the spool holds events.
+     * 
+     * @return True if no events are spooled
+     */
+    public boolean isEmpty() {
+        lock.lock();
+        try {
+            return closedSegments.isEmpty() && currentBytes == 0;
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    /**
+     * Get the total size of the spooled events.
+     * 
+     * @return The size in bytes
+     */
+    public long getSize() {
+        lock.lock();
+        try {
+            return closedBytes + currentBytes;
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    /**
+     * Get the number of events that could not be written to the spool.
+     * 
+     * @return The number of dropped events
+     */
+    public long getDroppedEvents() {
+        lock.lock();
+        try {
+            return droppedEvents;
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    /**
+     * Get the number of segments dropped because the spool exceeded its maximum size.
+     * 
+     * @return The number of dropped segments
+     */
+    public long getDroppedSegments() {
+        lock.lock();
+        try {
+            return droppedSegments;
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    /**
+     * Close the current segment; it is replayed on the next start.
+     */
+    public void close() {
+        lock.lock();
+        try {
+            if (currentOut != null) {
+                closeSegment();
+            }
+        } catch (IOException e) {
+            log.warn("Failed to close spool segment {}", currentSegment.getAbsolutePath(), e);
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    private void openSegment() throws IOException {
+        currentSegment = new File(directory, PREFIX + String.format("%020d", nextSequence++) + SUFFIX);
+        currentOut = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(currentSegment, true)));
+        currentBytes = 0;
+    }
+    
+    private void closeSegment() throws IOException {
+        DataOutputStream out = currentOut;
+        currentOut = null;
+        if (out != null) {
+            out.close();
+        }
+        if (currentSegment != null && currentBytes > 0) {
+            closedSegments.add(currentSegment);
+            closedBytes += currentBytes;
+        } else if (currentSegment != null && !currentSegment.delete()) {
+            log.warn("Failed to delete spool segment {}", currentSegment.getAbsolutePath());
+        }
+        currentSegment = null;
+        currentBytes = 0;
+    }
+    
+    private void enforceMaxSize() {
+        while (closedBytes + currentBytes > maxBytes && !closedSegments.isEmpty()) {
+            File oldest = closedSegments.pollFirst();
+            closedBytes -= oldest.length();
+            droppedSegments++;
+            log.warn("Kafka logging spool exceeds {} bytes, dropped segment {}", maxBytes, oldest.getName());
+            if (!oldest.delete()) {
+                log.warn("Failed to delete spool segment {}", oldest.getAbsolutePath());
+            }
+        }
+    }
+    
+    private static long sequence(File segment) {
+        String name = segment.getName();
+        try {
+            return Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+}
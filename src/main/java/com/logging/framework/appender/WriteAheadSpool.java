@@ -0,0 +1,294 @@
+package com.logging.framework.appender;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Crash-safe write-ahead spool of the asynchronous log writer.
+ * Encoded events are appended to a memory-mapped ring file when they are enqueued, and the
+ * writer thread commits them once they have been written to the log file. The pages of the
+ * mapping belong to the operating system, so events survive the process being killed without
+ * any fsync on the enqueue path. Events not committed when the process died are recovered on
+ * the next start and written to the log file before new logging begins.
+ * 
+ * The file starts with a 64 byte header holding the commit position. Records carry their
+ * logical position (inverted, so zeroed pages never look like a record) and a CRC32 of the
+ * payload, so records of earlier laps of the ring and records torn by the crash are recognized.
+ * A record never wraps around the end of the ring; the space left before the end is skipped instead.
+ * 
+ * Appends are not synchronized, the caller serializes them. Commits are made by one thread.
+ * The mapping is released by {@link #close()}, once no thread uses the spool any more.
+ */
+public class WriteAheadSpool {
+    
+    private static final Logger log = LoggerFactory.getLogger(WriteAheadSpool.class);
+    
+    private static final int MAGIC = 0x4b4c5741;
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 64;
+    private static final int CAPACITY_OFFSET = 8;
+    private static final int COMMIT_OFFSET = 16;
+    private static final int RECORD_HEADER_BYTES = 16;
+    private static final int SKIP_MARKER = -1;
+    
+    private final File file;
+    private final long capacity;
+    private final MappedByteBuffer buffer;
+    private final ByteBuffer writeView;
+    private final CRC32 crc = new CRC32();
+    
+    private long appendPosition;
+    private volatile long commitPosition;
+    private long recoveredEnd;
+    private long overflows;
+    private volatile boolean closed;
+    
+    /**
+     * Open or create a write-ahead spool.
+     * An existing file of a different size is discarded.
+     * 
+     * @param file The ring file
+     * @param capacity The size of the ring in bytes
+     * @throws IOException If the file cannot be mapped
+     */
+    public WriteAheadSpool(File file, long capacity) throws IOException {
+        if (capacity <= RECORD_HEADER_BYTES || capacity > Integer.MAX_VALUE - HEADER_BYTES) {
+            throw new IllegalArgumentException("Invalid write-ahead spool size: " + capacity);
+        }
+        this.file = file;
+        this.capacity = capacity;
+        File directory = file.getAbsoluteFile().getParentFile();
+        if (directory != null && !directory.exists() && !directory.mkdirs()) {
+            log.error("Failed to create write-ahead spool directory: {}", directory.getAbsolutePath());
+        }
+        
+        // The mapping stays valid after the channel is closed
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw"); FileChannel channel = raf.getChannel()) {
+            boolean existing = raf.length() == HEADER_BYTES + capacity;
+            if (!existing) {
+                raf.setLength(HEADER_BYTES + capacity);
+            }
+            this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_BYTES + capacity);
+            if (!existing || buffer.getInt(0) != MAGIC || buffer.getLong(CAPACITY_OFFSET) != capacity) {
+                buffer.putLong(COMMIT_OFFSET, 0);
+                buffer.putLong(CAPACITY_OFFSET, capacity);
+                buffer.putInt(4, VERSION);
+                buffer.putInt(0, MAGIC);
+            }
+        }
+        this.writeView = buffer.duplicate();
+        this.commitPosition = buffer.getLong(COMMIT_OFFSET);
+        this.appendPosition = commitPosition;
+        this.recoveredEnd = commitPosition;
+    }
+    
+    /**
+     * Read the events that were appended but not committed before the last shutdown.
+     * Call {@link #markRecovered()} once they have been written elsewhere.
+     * 
+     * @return The payloads of the uncommitted events, in append order
+     */
+    public List<byte[]> recover() {
+        List<byte[]> records = new ArrayList<>();
+        long position = commitPosition;
+        long limit = commitPosition + capacity;
+        while (position < limit) {
+            int offset = (int) (position % capacity);
+            long remaining = capacity - offset;
+            if (remaining < RECORD_HEADER_BYTES) {
+                position += remaining;
+                continue;
+            }
+            int index = HEADER_BYTES + offset;
+            int length = buffer.getInt(index);
+            if (buffer.getLong(index + 8) != ~position) {
+                break;
+            }
+            if (length == SKIP_MARKER) {
+                position += remaining;
+                continue;
+            }
+            if (length < 0 || length > remaining - RECORD_HEADER_BYTES) {
+                break;
+            }
+            byte[] payload = new byte[length];
+            ByteBuffer view = buffer.duplicate();
+            view.position(index + RECORD_HEADER_BYTES);
+            view.get(payload);
+            crc.reset();
+            crc.update(payload, 0, length);
+            if ((int) crc.getValue() != buffer.getInt(index + 4)) {
+                break;
+            }
+            records.add(payload);
+            position += RECORD_HEADER_BYTES + length;
+        }
+        recoveredEnd = position;
+        return records;
+    }
+    
+    /**
+     * Commit the events returned by {@link #recover()}.
+     */
+    public void markRecovered() {
+        appendPosition = recoveredEnd;
+        commitPosition = recoveredEnd;
+        buffer.putLong(COMMIT_OFFSET, recoveredEnd);
+    }
+    
+    /**
+     * Append an event.
+     * This is a copy into the mapped file; nothing is forced to disk.
+     * 
+     * @param payload The encoded event
+     * @return False if the ring has no room for the event, which is then not protected
+     */
+    public boolean append(byte[] payload) {
+        return append(payload, 0, payload.length);
+    }
+    
+    /**
+     * Append an event from part of an array, such as the backing array of an encoder buffer.
+     * This is a copy into the mapped file; nothing is forced to disk.
+     * 
+     * @param payload The array holding the encoded event
+     * @param off The index of the first byte of the event
+     * @param len The length of the event
+     * @return False if the ring has no room for the event or the spool is closed
+     */
+    public boolean append(byte[] payload, int off, int len) {
+        if (closed) {
+            return false;
+        }
+        int needed = RECORD_HEADER_BYTES + len;
+        int offset = (int) (appendPosition % capacity);
+        long remaining = capacity - offset;
+        long skip = needed > remaining ? remaining : 0;
+        if (appendPosition + skip + needed - commitPosition > capacity) {
+            overflows++;
+            return false;
+        }
+        if (skip > 0) {
+            if (remaining >= RECORD_HEADER_BYTES) {
+                int index = HEADER_BYTES + offset;
+                buffer.putLong(index + 8, ~appendPosition);
+                buffer.putInt(index, SKIP_MARKER);
+            }
+            appendPosition += skip;
+            offset = 0;
+        }
+        
+        // Payload first and length last, so a record torn by a crash does not validate
+        int index = HEADER_BYTES + offset;
+        writeView.position(index + RECORD_HEADER_BYTES);
+        writeView.put(payload, off, len);
+        crc.reset();
+        crc.update(payload, off, len);
+        buffer.putInt(index + 4, (int) crc.getValue());
+        buffer.putLong(index + 8, ~appendPosition);
+        buffer.putInt(index, len);
+        appendPosition += needed;
+        return true;
+    }
+    
+    /**
+     * Commit the oldest appended events once they have been written to the log file.
+     * 
+     * @param count The number of events to commit
+     */
+    public void commit(int count) {
+        if (closed) {
+            return;
+        }
+        long position = commitPosition;
+        int committed = 0;
+        while (committed < count) {
+            int offset = (int) (position % capacity);
+            long remaining = capacity - offset;
+            if (remaining < RECORD_HEADER_BYTES) {
+                position += remaining;
+                continue;
+            }
+            int length = buffer.getInt(HEADER_BYTES + offset);
+            if (length == SKIP_MARKER) {
+                position += remaining;
+                continue;
+            }
+            position += RECORD_HEADER_BYTES + length;
+            committed++;
+        }
+        commitPosition = position;
+        buffer.putLong(COMMIT_OFFSET, position);
+    }
+    
+    /**
+     * Release the mapping of the ring file.
+     * Later appends are refused and commits ignored. The caller must make sure that no append,
+     * commit or recovery is running, since the memory of the mapping is gone afterwards.
+     */
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        unmap(buffer);
+    }
+    
+    /**
+     * Unmap a buffer instead of waiting for the garbage collector to do so, which keeps the file
+     * mapped, and on Windows locked, until the buffer is collected.
+     */
+    private static void unmap(MappedByteBuffer mapped) {
+        try {
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            Method invokeCleaner;
+            try {
+                invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+            } catch (NoSuchMethodException e) {
+                // Java 8
+                Method cleanerMethod = mapped.getClass().getMethod("cleaner");
+                cleanerMethod.setAccessible(true);
+                Object cleaner = cleanerMethod.invoke(mapped);
+                if (cleaner != null) {
+                    cleaner.getClass().getMethod("clean").invoke(cleaner);
+                }
+                return;
+            }
+            Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+            theUnsafe.setAccessible(true);
+            invokeCleaner.invoke(theUnsafe.get(null), mapped);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            log.debug("Write-ahead spool mapping is released by the garbage collector: {}", e.toString());
+        }
+    }
+    
+    /**
+     * Get the number of events that did not fit in the ring.
+     * 
+     * @return The number of overflows
+     */
+    public long getOverflows() {
+        return overflows;
+    }
+    
+    /**
+     * Get the ring file.
+     * 
+     * @return The file
+     */
+    public File getFile() {
+        return file;
+    }
+}
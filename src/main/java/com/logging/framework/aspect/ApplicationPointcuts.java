@@ -0,0 +1,23 @@
+package com.logging.framework.aspect;
+
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.annotation.Pointcut;
+
+/**
+ * Pointcuts shared by the advices that match every method rather than an annotation.
+ * Only declares pointcuts, it is not registered as an aspect itself.
+ */
+@Aspect
+public class ApplicationPointcuts {
+    
+    /**
+     * Any method of an application class.
+     * The framework, Spring and JDK classes and the methods inherited from Object are never matched,
+     * since proxying them (for example the bound configuration properties) fails or creates circular references.
+     */
+    @Pointcut("execution(* *(..)) && !execution(* java.lang.Object.*(..)) "
+            + "&& !within(com.logging.framework..*) && !within(org.springframework..*) "
+            + "&& !within(java..*) && !within(javax..*)")
+    public void applicationMethod() {
+    }
+}
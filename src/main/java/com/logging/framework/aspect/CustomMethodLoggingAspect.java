@@ -1,9 +1,17 @@
 package com.logging.framework.aspect;
 
-import com.logging.framework.annotation.LogMethod;
+import ch.qos.logback.classic.Level;
+import com.logging.framework.exception.ExceptionPropagationTracker;
+import com.logging.framework.index.LoggingMethodIndex;
+import com.logging.framework.index.MethodMetadata;
+import com.logging.framework.index.MethodMetadataRegistry;
+import com.logging.framework.metrics.MethodRollup;
 import com.logging.framework.model.LoggingEvent;
 import com.logging.framework.model.MethodExecutionStatus;
+import com.logging.framework.recorder.FlightRecorder;
+import com.logging.framework.sampling.MethodSampling;
 import com.logging.framework.service.LoggingService;
+import com.logging.framework.support.AsyncResults;
 import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.annotation.Around;
 import org.aspectj.lang.annotation.Aspect;
@@ -11,8 +19,6 @@ import org.aspectj.lang.reflect.MethodSignature;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
-import java.lang.reflect.Method;
-
 /**
  * Aspect for logging custom methods.
  * Intercepts methods annotated with @LogMethod to provide detailed logging.
@@ -24,6 +30,18 @@ public class CustomMethodLoggingAspect {
     @Autowired
     private LoggingService loggingService;
     
+    @Autowired(required = false)
+    private FlightRecorder flightRecorder;
+    
+    @Autowired(required = false)
+    private MethodSampling methodSampling;
+    
+    @Autowired(required = false)
+    private MethodRollup methodRollup;
+    
+    @Autowired(required = false)
+    private MethodMetadataRegistry methodMetadataRegistry = new MethodMetadataRegistry(LoggingMethodIndex.empty());
+    
     /**
      * Intercept methods annotated with @LogMethod.
      * 
@@ -33,83 +51,170 @@ public class CustomMethodLoggingAspect {
      */
     @Around("@annotation(com.logging.framework.annotation.LogMethod)")
     public Object logCustomMethod(ProceedingJoinPoint joinPoint) throws Throwable {
+        // Woven classes can run before the application context injected the aspect
+        if (loggingService == null) {
+            return joinPoint.proceed();
+        }
+        
         MethodSignature signature = (MethodSignature) joinPoint.getSignature();
-        Method method = signature.getMethod();
-        String className = signature.getDeclaringType().getSimpleName();
-        String methodName = method.getName();
+        MethodMetadata metadata = methodMetadataRegistry.get(signature.getMethod());
+        String className = metadata.getSimpleClassName();
+        String methodName = metadata.getMethodName();
         Object[] args = joinPoint.getArgs();
         
-        // Get annotation
-        LogMethod annotation = method.getAnnotation(LogMethod.class);
+        // Sampled out invocations are only logged on completion, if they fail or are slow
+        boolean sampled = metadata.sample();
         
-        // Create logging event
-        LoggingEvent event = new LoggingEvent();
-        event.setClassName(className);
-        event.setMethodName(methodName);
-        event.setLogLevel(annotation.level());
-        event.setStatus(MethodExecutionStatus.IN_PROGRESS);
-        
-        // Log arguments if configured
-        if (annotation.includeArgs()) {
-            event.setArguments(args);
-            loggingService.logMethodEntry(className, methodName, args);
-        } else {
-            loggingService.logMethodEntry(className, methodName, null);
+        // Log method entry and initial status, unless switched off at runtime or invocations are only recorded
+        if (sampled && metadata.isLevelEnabled(metadata.getLogMethodLevelValue()) && methodRollup == null
+                && (flightRecorder == null || !flightRecorder.isRecordOnly())) {
+            // Log arguments if configured
+            if (metadata.isIncludeArgs()) {
+                loggingService.logMethodEntry(className, methodName, args);
+            } else {
+                loggingService.logMethodEntry(className, methodName, null);
+            }
+            loggingService.logMethodStatus(className, methodName, MethodExecutionStatus.IN_PROGRESS, 
+                    metadata.getStartedTemplate(), null);
         }
         
-        // Log initial status
-        String description = annotation.description().isEmpty() ? 
-                "Executing method" : annotation.description();
-        loggingService.logMethodStatus(className, methodName, MethodExecutionStatus.IN_PROGRESS, 
-                description + " - Started");
-        
         long startTime = System.currentTimeMillis();
         Object result = null;
+        Throwable failure = null;
+        boolean deferred = false;
         
+        // Exceptions logged by an earlier outermost invocation are logged again if they are thrown again
+        ExceptionPropagationTracker.enter();
         try {
             // Execute the method
             result = joinPoint.proceed();
             
-            // Set status to PASSED
-            event.setStatus(MethodExecutionStatus.PASSED);
+            // An asynchronous result is logged when it completes, not when it is returned
+            if (result != null && metadata.isAsyncReturnType()
+                    && (flightRecorder != null || methodRollup != null || loggingService.isEnabled(metadata.getLogMethodLevel()))) {
+                Object decorated = AsyncResults.onCompletion(result, startTime, (value, error, cancelled, durationMs) ->
+                        logCompletion(metadata, args, sampled, value, error, cancelled, durationMs));
+                if (decorated != null) {
+                    deferred = true;
+                    return decorated;
+                }
+            }
             
             return result;
         } catch (Throwable throwable) {
+            failure = throwable;
+            throw throwable;
+        } finally {
+            ExceptionPropagationTracker.exit();
+            if (!deferred) {
+                logCompletion(metadata, args, sampled, result, failure, false, System.currentTimeMillis() - startTime);
+            }
+        }
+    }
+    
+    /**
+     * Log the outcome of a method execution.
+     * For asynchronous methods this is the completion of the returned future, or of a
+     * subscription to the returned publisher.
+     * 
+     * @param metadata The method metadata
+     * @param args The method arguments
+     * @param sampled Whether the invocation was sampled in
+     * @param result The method result
+     * @param throwable The exception the method failed with, or null
+     * @param cancelled Whether the asynchronous result was cancelled
+     * @param executionTime The execution time in milliseconds
+     */
+    private void logCompletion(MethodMetadata metadata, Object[] args, boolean sampled, Object result,
+                               Throwable throwable, boolean cancelled, long executionTime) {
+        // Record the invocation; in record-only mode only failed or slow invocations are logged
+        boolean recordedOnly = flightRecorder != null
+                && flightRecorder.record(metadata, null, executionTime, throwable != null);
+        
+        // Aggregate the invocation; in rollup mode only failures are logged individually
+        if (methodRollup != null && methodRollup.record(metadata, null, executionTime, throwable != null)) {
+            recordedOnly = true;
+        }
+        if (recordedOnly) {
+            return;
+        }
+        
+        // Successful invocations below the level threshold are not logged, failures unless logging is off
+        if (!metadata.isLevelEnabled(throwable != null ? Level.ERROR_INT : metadata.getLogMethodLevelValue())) {
+            return;
+        }
+        
+        // Sampled out invocations are only counted, unless they failed or were slow
+        if (!sampled && !isAlwaysLogged(throwable != null, executionTime)) {
+            metadata.skipSample();
+            return;
+        }
+        
+        String className = metadata.getSimpleClassName();
+        String methodName = metadata.getMethodName();
+        
+        // Create logging event
+        LoggingEvent event = new LoggingEvent();
+        event.setClassName(className);
+        event.setMethodName(methodName);
+        event.setLogLevel(metadata.getLogMethodLevel());
+        if (metadata.isIncludeArgs()) {
+            event.setArguments(args);
+        }
+        if (cancelled) {
+            event.addContext("cancelled", true);
+        }
+        if (metadata.getSampler() != null) {
+            // The invocations this event stands for, so that totals can be reconstructed
+            event.addContext("sampleCount", metadata.getSampler().drainSampleCount());
+        }
+        
+        if (throwable == null) {
+            // Set status to PASSED
+            event.setStatus(MethodExecutionStatus.PASSED);
+        } else {
             // Set status to FAILED and set exception
             event.setStatus(MethodExecutionStatus.FAILED);
             event.setException(throwable);
             
             // Log failure status
             loggingService.logMethodStatus(className, methodName, MethodExecutionStatus.FAILED, 
-                    description + " - Failed: " + throwable.getMessage());
-            
-            throw throwable;
-        } finally {
-            long executionTime = System.currentTimeMillis() - startTime;
-            
-            // Set execution time
-            if (annotation.logExecutionTime()) {
-                event.setExecutionTimeMs(executionTime);
-            }
-            
-            // Set result if configured
-            if (annotation.includeResult()) {
-                event.setResult(result);
-            }
-            
-            // Log the event
-            loggingService.logEvent(event);
-            
-            // Log method exit with status
-            if (annotation.includeArgs() && annotation.includeResult()) {
-                loggingService.logMethodExit(className, methodName, result, executionTime, event.getStatus());
-            }
-            
-            // Log final status if successful
-            if (event.getStatus() == MethodExecutionStatus.PASSED) {
-                loggingService.logMethodStatus(className, methodName, MethodExecutionStatus.PASSED, 
-                        description + " - Completed in " + executionTime + " ms");
-            }
+                    metadata.getFailedTemplate(), throwable.getMessage());
+        }
+        
+        // Set execution time
+        if (metadata.isLogExecutionTime()) {
+            event.setExecutionTimeMs(executionTime);
+        }
+        
+        // Set result if configured
+        if (metadata.isIncludeResult()) {
+            event.setResult(result);
+        }
+        
+        // Log the event
+        loggingService.logEvent(event);
+        
+        // Log method exit with status
+        if (metadata.isIncludeArgs() && metadata.isIncludeResult()) {
+            loggingService.logMethodExit(className, methodName, result, executionTime, event.getStatus());
         }
+        
+        // Log final status if successful
+        if (event.getStatus() == MethodExecutionStatus.PASSED) {
+            loggingService.logMethodStatus(className, methodName, MethodExecutionStatus.PASSED, 
+                    cancelled ? metadata.getCancelledTemplate() : metadata.getCompletedTemplate(), executionTime);
+        }
+    }
+    
+    /**
+     * Check whether an invocation is logged even when it was sampled out.
+     * 
+     * @param failed Whether the invocation failed
+     * @param executionTime The execution time in milliseconds
+     * @return True if the invocation failed or was slow
+     */
+    private boolean isAlwaysLogged(boolean failed, long executionTime) {
+        return methodSampling != null ? methodSampling.isAlwaysLogged(failed, executionTime) : failed;
     }
 }
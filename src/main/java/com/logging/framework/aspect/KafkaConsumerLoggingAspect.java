@@ -1,25 +1,37 @@
 package com.logging.framework.aspect;
 
-import com.logging.framework.annotation.LogKafkaConsumer;
+import ch.qos.logback.classic.Level;
+import com.logging.framework.exception.ExceptionPropagationTracker;
+import com.logging.framework.index.LoggingMethodIndex;
+import com.logging.framework.index.MethodMetadata;
+import com.logging.framework.index.MethodMetadataRegistry;
+import com.logging.framework.metrics.HotKeyDetector;
+import com.logging.framework.metrics.MethodRollup;
+import com.logging.framework.metrics.SlowMessageTracker;
+import com.logging.framework.interceptor.KafkaRecordContextHolder;
+import com.logging.framework.metrics.TopicPartitionMetrics;
 import com.logging.framework.model.KafkaMessageContext;
 import com.logging.framework.model.LoggingEvent;
 import com.logging.framework.model.MethodExecutionStatus;
+import com.logging.framework.policy.TopicPolicies;
+import com.logging.framework.policy.TopicPolicy;
+import com.logging.framework.recorder.FlightRecorder;
+import com.logging.framework.sampling.MethodSampling;
 import com.logging.framework.service.LoggingService;
+import com.logging.framework.support.AsyncResults;
+import com.logging.framework.template.MessageTemplate;
+import com.logging.framework.template.MessageTemplates;
+import com.logging.framework.trace.TraceContextHolder;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.annotation.Around;
 import org.aspectj.lang.annotation.Aspect;
 import org.aspectj.lang.reflect.MethodSignature;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.kafka.annotation.KafkaListener;
 import org.springframework.kafka.support.Acknowledgment;
-import org.springframework.messaging.handler.annotation.Headers;
-import org.springframework.messaging.handler.annotation.Payload;
 import org.springframework.messaging.support.MessageHeaderAccessor;
 import org.springframework.stereotype.Component;
 
-import java.lang.annotation.Annotation;
-import java.lang.reflect.Method;
-import java.lang.reflect.Parameter;
 import java.util.Map;
 
 /**
@@ -30,9 +42,38 @@ import java.util.Map;
 @Component
 public class KafkaConsumerLoggingAspect {
     
+    private static final MessageTemplate PROCESSING = MessageTemplates.intern("Processing Kafka message from topic: {}");
+    private static final MessageTemplate PROCESSED = MessageTemplates.intern("Successfully processed Kafka message in {} ms");
+    private static final MessageTemplate CANCELLED = MessageTemplates.intern("Kafka message processing cancelled after {} ms");
+    private static final MessageTemplate FAILED = MessageTemplates.intern("Failed to process Kafka message: {}");
+    
     @Autowired
     private LoggingService loggingService;
     
+    @Autowired(required = false)
+    private TopicPartitionMetrics topicPartitionMetrics;
+    
+    @Autowired(required = false)
+    private FlightRecorder flightRecorder;
+    
+    @Autowired(required = false)
+    private TopicPolicies topicPolicies;
+    
+    @Autowired(required = false)
+    private MethodSampling methodSampling;
+    
+    @Autowired(required = false)
+    private MethodRollup methodRollup;
+    
+    @Autowired(required = false)
+    private SlowMessageTracker slowMessageTracker;
+    
+    @Autowired(required = false)
+    private HotKeyDetector hotKeyDetector;
+    
+    @Autowired(required = false)
+    private MethodMetadataRegistry methodMetadataRegistry = new MethodMetadataRegistry(LoggingMethodIndex.empty());
+    
     /**
      * Intercept Kafka listener methods.
      * This pointcut targets methods annotated with @KafkaListener.
@@ -43,121 +84,316 @@ public class KafkaConsumerLoggingAspect {
      */
     @Around("@annotation(org.springframework.kafka.annotation.KafkaListener) || @annotation(com.logging.framework.annotation.LogKafkaConsumer)")
     public Object logKafkaConsumer(ProceedingJoinPoint joinPoint) throws Throwable {
+        if (loggingService == null) {
+            return joinPoint.proceed();
+        }
+        
         MethodSignature signature = (MethodSignature) joinPoint.getSignature();
-        Method method = signature.getMethod();
-        String className = signature.getDeclaringType().getSimpleName();
-        String methodName = method.getName();
+        MethodMetadata metadata = methodMetadataRegistry.get(signature.getMethod());
+        String className = metadata.getSimpleClassName();
+        String methodName = metadata.getMethodName();
         Object[] args = joinPoint.getArgs();
         
-        // Create logging event
-        LoggingEvent event = new LoggingEvent();
-        event.setClassName(className);
-        event.setMethodName(methodName);
-        event.setArguments(args);
-        event.setStatus(MethodExecutionStatus.IN_PROGRESS);
-        
         // Extract Kafka message context
-        KafkaMessageContext kafkaMessageContext = extractKafkaMessageContext(method, args);
-        event.setKafkaMessageContext(kafkaMessageContext);
+        KafkaMessageContext kafkaMessageContext = extractKafkaMessageContext(metadata, args);
         
-        // Set log level from annotation if present
-        LogKafkaConsumer annotation = method.getAnnotation(LogKafkaConsumer.class);
-        if (annotation != null) {
-            event.setLogLevel(annotation.level());
-        } else {
-            event.setLogLevel("INFO");
-        }
+        // Policy of the topic, cached after its first message
+        TopicPolicy policy = topicPolicies != null ? topicPolicies.forTopic(kafkaMessageContext.getTopic()) : null;
+        int level = metadata.getKafkaConsumerLevelValue();
         
-        // Log method entry
-        loggingService.logMethodEntry(className, methodName, args);
+        // The arguments are logged as well, so the payload and headers settings of the topic apply to them too
+        Object[] loggedArgs = policy != null ? applyPolicy(policy, metadata, args) : args;
         
-        // Log initial status
-        loggingService.logMethodStatus(className, methodName, MethodExecutionStatus.IN_PROGRESS, 
-                "Processing Kafka message from topic: " + (kafkaMessageContext.getTopic() != null ? kafkaMessageContext.getTopic() : "unknown"));
+        // Sampled out messages are only logged on completion, if processing fails or is slow
+        boolean sampled = (policy == null || policy.sample()) && metadata.sample();
+        
+        // Log method entry and initial status, unless switched off at runtime or invocations are only recorded
+        if (sampled && metadata.isLevelEnabled(level) && (policy == null || policy.isLevelEnabled(level))
+                && methodRollup == null && (flightRecorder == null || !flightRecorder.isRecordOnly())) {
+            loggingService.logMethodEntry(className, methodName, loggedArgs);
+            loggingService.logMethodStatus(className, methodName, MethodExecutionStatus.IN_PROGRESS, 
+                    PROCESSING, kafkaMessageContext.getTopic() != null ? kafkaMessageContext.getTopic() : "unknown");
+        }
         
         long startTime = System.currentTimeMillis();
         Object result = null;
+        Throwable failure = null;
+        boolean deferred = false;
         
+        // Exceptions logged by an earlier outermost invocation are logged again if they are thrown again
+        ExceptionPropagationTracker.enter();
         try {
             // Execute the method
             result = joinPoint.proceed();
             
-            // Set status to PASSED
-            event.setStatus(MethodExecutionStatus.PASSED);
+            // An asynchronous result is logged when it completes, not when it is returned
+            if (result != null && metadata.isAsyncReturnType() && (topicPartitionMetrics != null || flightRecorder != null
+                    || methodRollup != null || slowMessageTracker != null || hotKeyDetector != null
+                    || loggingService.isEnabled(metadata.getKafkaConsumerLevel()))) {
+                Object decorated = AsyncResults.onCompletion(result, startTime, (value, error, cancelled, durationMs) ->
+                        logCompletion(metadata, loggedArgs, kafkaMessageContext, policy, sampled,
+                                value, error, cancelled, durationMs));
+                if (decorated != null) {
+                    deferred = true;
+                    return decorated;
+                }
+            }
             
             return result;
         } catch (Throwable throwable) {
+            failure = throwable;
+            throw throwable;
+        } finally {
+            ExceptionPropagationTracker.exit();
+            if (!deferred) {
+                logCompletion(metadata, loggedArgs, kafkaMessageContext, policy, sampled, result, failure, false, 
+                        System.currentTimeMillis() - startTime);
+            }
+        }
+    }
+    
+    /**
+     * Log the outcome of processing a Kafka message.
+     * For asynchronous listeners this is the completion of the returned future, or of a
+     * subscription to the returned publisher.
+     * 
+     * @param metadata The method metadata
+     * @param args The method arguments to log
+     * @param kafkaMessageContext The Kafka message context
+     * @param policy The policy of the topic, or null
+     * @param sampled Whether the message was sampled in by the topic policy and the method sampler
+     * @param result The method result
+     * @param throwable The exception processing failed with, or null
+     * @param cancelled Whether the asynchronous result was cancelled
+     * @param executionTime The execution time in milliseconds
+     */
+    private void logCompletion(MethodMetadata metadata, Object[] args, KafkaMessageContext kafkaMessageContext,
+                               TopicPolicy policy, boolean sampled, Object result, Throwable throwable,
+                               boolean cancelled, long executionTime) {
+        boolean failed = throwable != null;
+        
+        // Keep the message if it is among the slowest of the window
+        if (slowMessageTracker != null) {
+            slowMessageTracker.record(metadata, kafkaMessageContext, executionTime, failed);
+        }
+        
+        // Count the message by key and partition
+        if (hotKeyDetector != null) {
+            hotKeyDetector.record(kafkaMessageContext, executionTime);
+        }
+        
+        // Record the invocation; in record-only mode only failed or slow invocations are logged
+        boolean recordedOnly = flightRecorder != null
+                && flightRecorder.record(metadata, kafkaMessageContext, executionTime, failed);
+        
+        // Aggregate the invocation; in rollup mode only failures are logged individually
+        if (methodRollup != null && methodRollup.record(metadata, kafkaMessageContext.getTopic(), executionTime, failed)) {
+            recordedOnly = true;
+        }
+        
+        // Successful invocations below the level threshold are not logged, failures unless logging is off
+        int level = failed ? Level.ERROR_INT : metadata.getKafkaConsumerLevelValue();
+        boolean logged = !recordedOnly && metadata.isLevelEnabled(level)
+                && (policy == null || policy.isLevelEnabled(level));
+        
+        // Sampled out messages are only counted, unless processing failed or was slow
+        if (logged && !sampled && !isAlwaysLogged(failed, executionTime)) {
+            metadata.skipSample();
+            logged = false;
+        }
+        if (!logged) {
+            if (topicPartitionMetrics != null) {
+                topicPartitionMetrics.record(kafkaMessageContext, executionTime, failed);
+            }
+            return;
+        }
+        
+        String className = metadata.getSimpleClassName();
+        String methodName = metadata.getMethodName();
+        
+        // Create logging event
+        LoggingEvent event = new LoggingEvent();
+        event.setClassName(className);
+        event.setMethodName(methodName);
+        event.setArguments(args);
+        event.setKafkaMessageContext(kafkaMessageContext);
+        if (policy != null) {
+            applyPolicy(policy, kafkaMessageContext, event);
+        }
+        
+        // Set log level from @LogKafkaConsumer, INFO if absent
+        event.setLogLevel(metadata.getKafkaConsumerLevel());
+        if (cancelled) {
+            event.addContext("cancelled", true);
+        }
+        if (metadata.getSampler() != null) {
+            // The messages this event stands for, so that totals can be reconstructed
+            event.addContext("sampleCount", metadata.getSampler().drainSampleCount());
+        }
+        
+        if (throwable == null) {
+            // Set status to PASSED
+            event.setStatus(MethodExecutionStatus.PASSED);
+        } else {
             // Set status to FAILED
             event.setStatus(MethodExecutionStatus.FAILED);
             event.setException(throwable);
             
             // Log failure status
             loggingService.logMethodStatus(className, methodName, MethodExecutionStatus.FAILED, 
-                    "Failed to process Kafka message: " + throwable.getMessage());
-            
-            throw throwable;
-        } finally {
-            long executionTime = System.currentTimeMillis() - startTime;
-            
-            // Update event with result and execution time
-            event.setResult(result);
-            event.setExecutionTimeMs(executionTime);
-            
-            // Log Kafka consumer event
-            loggingService.logKafkaConsumerEvent(event);
-            
-            // Log method exit with status
-            loggingService.logMethodExit(className, methodName, result, executionTime, event.getStatus());
-            
-            // Log final status if successful
-            if (event.getStatus() == MethodExecutionStatus.PASSED) {
-                loggingService.logMethodStatus(className, methodName, MethodExecutionStatus.PASSED, 
-                        "Successfully processed Kafka message in " + executionTime + " ms");
+                    FAILED, throwable.getMessage());
+        }
+        
+        // Update event with result and execution time
+        event.setResult(result);
+        event.setExecutionTimeMs(executionTime);
+        
+        // Record end-to-end latency and throughput for the topic-partition
+        if (topicPartitionMetrics != null) {
+            topicPartitionMetrics.record(kafkaMessageContext, executionTime,
+                    event.getStatus() == MethodExecutionStatus.FAILED);
+        }
+        
+        // Log Kafka consumer event
+        loggingService.logKafkaConsumerEvent(event);
+        
+        // Log method exit with status
+        loggingService.logMethodExit(className, methodName, result, executionTime, event.getStatus());
+        
+        // Log final status if successful
+        if (event.getStatus() == MethodExecutionStatus.PASSED) {
+            loggingService.logMethodStatus(className, methodName, MethodExecutionStatus.PASSED, 
+                    cancelled ? CANCELLED : PROCESSED, executionTime);
+        }
+    }
+    
+    /**
+     * Check whether an invocation is logged even when it was sampled out.
+     * 
+     * @param failed Whether the invocation failed
+     * @param executionTime The execution time in milliseconds
+     * @return True if the invocation failed or was slow
+     */
+    private boolean isAlwaysLogged(boolean failed, long executionTime) {
+        return methodSampling != null ? methodSampling.isAlwaysLogged(failed, executionTime) : failed;
+    }
+    
+    /**
+     * Apply the payload, header and sink settings of a topic policy to the consumer event.
+     * 
+     * @param policy The policy of the topic
+     * @param kafkaMessageContext The Kafka message context of the event
+     * @param event The Kafka consumer event
+     */
+    private void applyPolicy(TopicPolicy policy, KafkaMessageContext kafkaMessageContext, LoggingEvent event) {
+        if (!policy.isIncludePayload()) {
+            kafkaMessageContext.setPayload(null);
+        } else if (policy.isMasking()) {
+            kafkaMessageContext.setPayload(policy.mask(kafkaMessageContext.getPayload()));
+        }
+        if (!policy.isIncludeHeaders()) {
+            kafkaMessageContext.setHeaders(null);
+        }
+        if (policy.isSampled()) {
+            // Lets totals be reconstructed from the sampled events
+            event.addContext("samplingRate", policy.getSamplingRate());
+        }
+        event.setExcludedFromSink(!policy.isSink());
+    }
+    
+    /**
+     * Apply the payload and header settings of a topic policy to the listener arguments.
+     * The payload argument is masked, or dropped with the headers argument if they are not logged.
+     * 
+     * @param policy The policy of the topic
+     * @param metadata The metadata of the method being executed
+     * @param args The method arguments
+     * @return The arguments to log, a copy if any of them was masked or dropped
+     */
+    private Object[] applyPolicy(TopicPolicy policy, MethodMetadata metadata, Object[] args) {
+        boolean includePayload = policy.isIncludePayload();
+        boolean includeHeaders = policy.isIncludeHeaders();
+        if (includePayload && includeHeaders && !policy.isMasking()) {
+            return args;
+        }
+        
+        int payloadIndex = payloadIndex(metadata, args);
+        Object[] loggedArgs = args;
+        for (int i = 0; i < args.length; i++) {
+            Object arg = args[i];
+            Object loggedArg = arg;
+            if (arg instanceof ConsumerRecord) {
+                // A record renders its value and headers, so only its value is logged
+                loggedArg = includePayload ? policy.mask(((ConsumerRecord<?, ?>) arg).value()) : null;
+            } else if (i == payloadIndex) {
+                loggedArg = includePayload ? policy.mask(arg) : null;
+            } else if (i == metadata.getHeadersIndex() && !includeHeaders) {
+                loggedArg = null;
+            }
+            if (loggedArg != arg) {
+                if (loggedArgs == args) {
+                    loggedArgs = args.clone();
+                }
+                loggedArgs[i] = loggedArg;
             }
         }
+        return loggedArgs;
+    }
+    
+    /**
+     * Find the argument the payload of the message is taken from.
+     * 
+     * @param metadata The metadata of the method being executed
+     * @param args The method arguments
+     * @return The index of the @Payload argument, else of the first other non-null argument, or -1
+     */
+    private int payloadIndex(MethodMetadata metadata, Object[] args) {
+        if (metadata.getPayloadIndex() >= 0) {
+            return metadata.getPayloadIndex();
+        }
+        for (int i = 0; i < args.length; i++) {
+            Object arg = args[i];
+            if (arg != null && i != metadata.getHeadersIndex()
+                    && !(arg instanceof ConsumerRecord) && !(arg instanceof Acknowledgment)) {
+                return i;
+            }
+        }
+        return -1;
     }
     
     /**
      * Extract Kafka message context from method arguments.
      * 
-     * @param method The method being executed
+     * @param metadata The metadata of the method being executed
      * @param args The method arguments
      * @return The Kafka message context
      */
-    private KafkaMessageContext extractKafkaMessageContext(Method method, Object[] args) {
+    private KafkaMessageContext extractKafkaMessageContext(MethodMetadata metadata, Object[] args) {
         KafkaMessageContext context = new KafkaMessageContext();
         
-        // Get method parameters and annotations
-        Parameter[] parameters = method.getParameters();
-        Annotation[][] parameterAnnotations = method.getParameterAnnotations();
-        
         // Extract information from parameters
-        for (int i = 0; i < parameters.length; i++) {
-            if (i >= args.length) {
-                break;
-            }
-            
+        for (int i = 0; i < args.length; i++) {
             Object arg = args[i];
             if (arg == null) {
                 continue;
             }
             
+            // Take everything from the record when the listener receives it directly
+            if (arg instanceof ConsumerRecord) {
+                context = KafkaMessageContext.fromConsumerRecord((ConsumerRecord<?, ?>) arg);
+                continue;
+            }
+            
             // Check for @Payload annotation
-            for (Annotation annotation : parameterAnnotations[i]) {
-                if (annotation instanceof Payload) {
-                    context.setPayload(arg);
-                    break;
-                }
+            if (i == metadata.getPayloadIndex()) {
+                context.setPayload(arg);
             }
             
             // Check for @Headers annotation
-            for (Annotation annotation : parameterAnnotations[i]) {
-                if (annotation instanceof Headers && arg instanceof Map) {
-                    MessageHeaderAccessor headerAccessor = new MessageHeaderAccessor();
-                    headerAccessor.copyHeaders((Map<String, Object>) arg);
-                    context = KafkaMessageContext.fromMessageHeaders(headerAccessor.getMessageHeaders(), context.getPayload());
-                    break;
-                }
+            if (i == metadata.getHeadersIndex() && arg instanceof Map) {
+                MessageHeaderAccessor headerAccessor = new MessageHeaderAccessor();
+                headerAccessor.copyHeaders((Map<String, Object>) arg);
+                context = KafkaMessageContext.fromMessageHeaders(headerAccessor.getMessageHeaders(), context.getPayload());
             }
             
             // Check for Acknowledgment
@@ -172,10 +408,18 @@ public class KafkaConsumerLoggingAspect {
             }
         }
         
-        // Extract topic from KafkaListener annotation
-        KafkaListener kafkaListener = method.getAnnotation(KafkaListener.class);
-        if (kafkaListener != null && kafkaListener.topics().length > 0) {
-            context.setTopic(String.join(",", kafkaListener.topics()));
+        // Fill in partition, offset and timestamp from the record being processed by the container
+        ConsumerRecord<?, ?> currentRecord = KafkaRecordContextHolder.getCurrentRecord();
+        if (currentRecord != null) {
+            context.mergeMissing(KafkaMessageContext.fromConsumerRecord(currentRecord));
+        }
+        
+        // Correlate with the trace of the message
+        context.setTraceContext(TraceContextHolder.current());
+        
+        // Fall back to the topic from the KafkaListener annotation
+        if (context.getTopic() == null && metadata.getListenerTopics() != null) {
+            context.setTopic(metadata.getListenerTopics());
         }
         
         return context;
@@ -1,9 +1,20 @@
 package com.logging.framework.aspect;
 
+import ch.qos.logback.classic.Level;
 import com.logging.framework.config.KafkaLoggingProperties;
+import com.logging.framework.exception.ExceptionPropagationTracker;
+import com.logging.framework.index.LoggingMethodIndex;
+import com.logging.framework.index.MethodMetadata;
+import com.logging.framework.index.MethodMetadataRegistry;
+import com.logging.framework.metrics.MethodRollup;
 import com.logging.framework.model.LoggingEvent;
 import com.logging.framework.model.MethodExecutionStatus;
+import com.logging.framework.recorder.FlightRecorder;
+import com.logging.framework.sampling.MethodSampling;
 import com.logging.framework.service.LoggingService;
+import com.logging.framework.support.AsyncResults;
+import com.logging.framework.template.MessageTemplate;
+import com.logging.framework.template.MessageTemplates;
 import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.annotation.Around;
 import org.aspectj.lang.annotation.Aspect;
@@ -11,7 +22,6 @@ import org.aspectj.lang.reflect.MethodSignature;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
-import java.lang.reflect.Method;
 import java.util.List;
 import java.util.regex.Pattern;
 
@@ -23,93 +33,217 @@ import java.util.regex.Pattern;
 @Component
 public class PredefinedMethodLoggingAspect {
     
+    private static final int UNPARSED_LEVEL = Integer.MIN_VALUE + 1;
+    
+    private static final MessageTemplate STARTED = MessageTemplates.intern("Executing predefined method - Started");
+    private static final MessageTemplate COMPLETED = MessageTemplates.intern("Predefined method executed successfully in {} ms");
+    private static final MessageTemplate CANCELLED = MessageTemplates.intern("Predefined method cancelled after {} ms");
+    private static final MessageTemplate FAILED = MessageTemplates.intern("Predefined method execution failed: {}");
+    
     @Autowired
     private LoggingService loggingService;
     
     @Autowired
     private KafkaLoggingProperties properties;
     
+    @Autowired(required = false)
+    private FlightRecorder flightRecorder;
+    
+    @Autowired(required = false)
+    private MethodSampling methodSampling;
+    
+    @Autowired(required = false)
+    private MethodRollup methodRollup;
+    
+    // Level value of the configured log level, parsed on first use
+    private int logLevelValue = UNPARSED_LEVEL;
+    
+    @Autowired(required = false)
+    private MethodMetadataRegistry methodMetadataRegistry = new MethodMetadataRegistry(LoggingMethodIndex.empty());
+    
     /**
      * Intercept methods based on predefined patterns.
      * This pointcut uses a dynamic expression to match methods defined in configuration.
+     * Only methods of application classes are advised, see {@link ApplicationPointcuts#applicationMethod()}.
      * 
      * @param joinPoint The join point
      * @return The result of the method execution
      * @throws Throwable If an error occurs during method execution
      */
-    @Around("execution(* *(..))")
+    @Around("com.logging.framework.aspect.ApplicationPointcuts.applicationMethod()")
     public Object logPredefinedMethod(ProceedingJoinPoint joinPoint) throws Throwable {
+        if (loggingService == null || properties == null) {
+            return joinPoint.proceed();
+        }
+        
         MethodSignature signature = (MethodSignature) joinPoint.getSignature();
-        Method method = signature.getMethod();
-        String className = signature.getDeclaringType().getName();
-        String methodName = method.getName();
-        String fullMethodName = className + "." + methodName;
+        MethodMetadata metadata = methodMetadataRegistry.get(signature.getMethod());
+        String methodName = metadata.getMethodName();
         
         // Check if method matches any predefined pattern
-        if (!isMethodPredefined(fullMethodName)) {
+        if (!isMethodPredefined(metadata.getQualifiedMethodName())) {
             // If not predefined, proceed without logging
             return joinPoint.proceed();
         }
         
         // Method is predefined, log it
-        String simpleClassName = signature.getDeclaringType().getSimpleName();
+        String simpleClassName = metadata.getSimpleClassName();
         Object[] args = joinPoint.getArgs();
         
-        // Create logging event
-        LoggingEvent event = new LoggingEvent();
-        event.setClassName(simpleClassName);
-        event.setMethodName(methodName);
-        event.setArguments(args);
-        event.setLogLevel(properties.getLogLevel());
-        event.setStatus(MethodExecutionStatus.IN_PROGRESS);
-        
-        // Log method entry
-        loggingService.logMethodEntry(simpleClassName, methodName, args);
+        // Sampled out invocations are only logged on completion, if they fail or are slow
+        boolean sampled = metadata.sample();
         
-        // Log initial status
-        loggingService.logMethodStatus(simpleClassName, methodName, MethodExecutionStatus.IN_PROGRESS, 
-                "Executing predefined method - Started");
+        // Log method entry and initial status, unless switched off at runtime or invocations are only recorded
+        if (sampled && metadata.isLevelEnabled(logLevelValue()) && methodRollup == null
+                && (flightRecorder == null || !flightRecorder.isRecordOnly())) {
+            loggingService.logMethodEntry(simpleClassName, methodName, args);
+            loggingService.logMethodStatus(simpleClassName, methodName, MethodExecutionStatus.IN_PROGRESS, 
+                    STARTED, null);
+        }
         
         long startTime = System.currentTimeMillis();
         Object result = null;
+        Throwable failure = null;
+        boolean deferred = false;
         
+        // Exceptions logged by an earlier outermost invocation are logged again if they are thrown again
+        ExceptionPropagationTracker.enter();
         try {
             // Execute the method
             result = joinPoint.proceed();
             
-            // Set status to PASSED
-            event.setStatus(MethodExecutionStatus.PASSED);
+            // An asynchronous result is logged when it completes, not when it is returned
+            if (result != null && metadata.isAsyncReturnType()
+                    && (flightRecorder != null || methodRollup != null || loggingService.isEnabled(properties.getLogLevel()))) {
+                Object decorated = AsyncResults.onCompletion(result, startTime, (value, error, cancelled, durationMs) ->
+                        logCompletion(metadata, args, sampled, value, error, cancelled, durationMs));
+                if (decorated != null) {
+                    deferred = true;
+                    return decorated;
+                }
+            }
             
             return result;
         } catch (Throwable throwable) {
+            failure = throwable;
+            throw throwable;
+        } finally {
+            ExceptionPropagationTracker.exit();
+            if (!deferred) {
+                logCompletion(metadata, args, sampled, result, failure, false, System.currentTimeMillis() - startTime);
+            }
+        }
+    }
+    
+    /**
+     * Log the outcome of a predefined method execution.
+     * For asynchronous methods this is the completion of the returned future, or of a
+     * subscription to the returned publisher.
+     * 
+     * @param metadata The method metadata
+     * @param args The method arguments
+     * @param sampled Whether the invocation was sampled in
+     * @param result The method result
+     * @param throwable The exception the method failed with, or null
+     * @param cancelled Whether the asynchronous result was cancelled
+     * @param executionTime The execution time in milliseconds
+     */
+    private void logCompletion(MethodMetadata metadata, Object[] args, boolean sampled, Object result,
+                               Throwable throwable, boolean cancelled, long executionTime) {
+        // Record the invocation; in record-only mode only failed or slow invocations are logged
+        boolean recordedOnly = flightRecorder != null
+                && flightRecorder.record(metadata, null, executionTime, throwable != null);
+        
+        // Aggregate the invocation; in rollup mode only failures are logged individually
+        if (methodRollup != null && methodRollup.record(metadata, null, executionTime, throwable != null)) {
+            recordedOnly = true;
+        }
+        if (recordedOnly) {
+            return;
+        }
+        
+        // Successful invocations below the level threshold are not logged, failures unless logging is off
+        if (!metadata.isLevelEnabled(throwable != null ? Level.ERROR_INT : logLevelValue())) {
+            return;
+        }
+        
+        // Sampled out invocations are only counted, unless they failed or were slow
+        if (!sampled && !isAlwaysLogged(throwable != null, executionTime)) {
+            metadata.skipSample();
+            return;
+        }
+        
+        String simpleClassName = metadata.getSimpleClassName();
+        String methodName = metadata.getMethodName();
+        
+        // Create logging event
+        LoggingEvent event = new LoggingEvent();
+        event.setClassName(simpleClassName);
+        event.setMethodName(methodName);
+        event.setArguments(args);
+        event.setLogLevel(properties.getLogLevel());
+        if (cancelled) {
+            event.addContext("cancelled", true);
+        }
+        if (metadata.getSampler() != null) {
+            // The invocations this event stands for, so that totals can be reconstructed
+            event.addContext("sampleCount", metadata.getSampler().drainSampleCount());
+        }
+        
+        if (throwable == null) {
+            // Set status to PASSED
+            event.setStatus(MethodExecutionStatus.PASSED);
+        } else {
             // Set status to FAILED and set exception
             event.setStatus(MethodExecutionStatus.FAILED);
             event.setException(throwable);
             
             // Log failure status
             loggingService.logMethodStatus(simpleClassName, methodName, MethodExecutionStatus.FAILED, 
-                    "Predefined method execution failed: " + throwable.getMessage());
-            
-            throw throwable;
-        } finally {
-            long executionTime = System.currentTimeMillis() - startTime;
-            
-            // Update event with result and execution time
-            event.setResult(result);
-            event.setExecutionTimeMs(executionTime);
-            
-            // Log the event
-            loggingService.logEvent(event);
-            
-            // Log method exit with status
-            loggingService.logMethodExit(simpleClassName, methodName, result, executionTime, event.getStatus());
-            
-            // Log final status if successful
-            if (event.getStatus() == MethodExecutionStatus.PASSED) {
-                loggingService.logMethodStatus(simpleClassName, methodName, MethodExecutionStatus.PASSED, 
-                        "Predefined method executed successfully in " + executionTime + " ms");
-            }
+                    FAILED, throwable.getMessage());
+        }
+        
+        // Update event with result and execution time
+        event.setResult(result);
+        event.setExecutionTimeMs(executionTime);
+        
+        // Log the event
+        loggingService.logEvent(event);
+        
+        // Log method exit with status
+        loggingService.logMethodExit(simpleClassName, methodName, result, executionTime, event.getStatus());
+        
+        // Log final status if successful
+        if (event.getStatus() == MethodExecutionStatus.PASSED) {
+            loggingService.logMethodStatus(simpleClassName, methodName, MethodExecutionStatus.PASSED, 
+                    cancelled ? CANCELLED : COMPLETED, executionTime);
+        }
+    }
+    
+    /**
+     * Check whether an invocation is logged even when it was sampled out.
+     * 
+     * @param failed Whether the invocation failed
+     * @param executionTime The execution time in milliseconds
+     * @return True if the invocation failed or was slow
+     */
+    private boolean isAlwaysLogged(boolean failed, long executionTime) {
+        return methodSampling != null ? methodSampling.isAlwaysLogged(failed, executionTime) : failed;
+    }
+    
+    /**
+     * Get the level value of the configured log level.
+     * Parsing is idempotent, so concurrent first calls need no synchronization.
+     * 
+     * @return The logback level value
+     */
+    private int logLevelValue() {
+        int value = logLevelValue;
+        if (value == UNPARSED_LEVEL) {
+            value = MethodMetadata.levelValue(properties.getLogLevel());
+            logLevelValue = value;
         }
+        return value;
     }
     
     /**
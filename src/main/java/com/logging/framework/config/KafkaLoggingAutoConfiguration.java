@@ -2,24 +2,53 @@ package com.logging.framework.config;
 
 import com.logging.framework.annotation.EnableKafkaLogging;
 import com.logging.framework.annotation.LogMethodPattern;
+import com.logging.framework.appender.KafkaLoggingFileAppender;
 import com.logging.framework.aspect.CustomMethodLoggingAspect;
 import com.logging.framework.aspect.KafkaConsumerLoggingAspect;
 import com.logging.framework.aspect.PredefinedMethodLoggingAspect;
+import com.logging.framework.exception.ExceptionRateLimiter;
 import com.logging.framework.exception.KafkaExceptionHandler;
+import com.logging.framework.index.LoggingMethodIndex;
+import com.logging.framework.index.MethodMetadataRegistry;
+import com.logging.framework.level.LogLevelControl;
+import com.logging.framework.interceptor.KafkaRecordContextInterceptor;
+import com.logging.framework.interceptor.KafkaProducerPostProcessor;
+import com.logging.framework.interceptor.ProducerLoggingListener;
+import com.logging.framework.interceptor.RecordInterceptorPostProcessor;
+import com.logging.framework.metrics.ProducerMetrics;
+import com.logging.framework.metrics.HotKeyDetector;
+import com.logging.framework.metrics.MethodRollup;
+import com.logging.framework.metrics.SlowMessageTracker;
+import com.logging.framework.metrics.TopicPartitionMetrics;
+import com.logging.framework.policy.TopicPolicies;
+import com.logging.framework.sampling.MethodSampling;
+import com.logging.framework.recorder.FlightRecorder;
+import com.logging.framework.service.LoggingScheduler;
 import com.logging.framework.service.LoggingService;
 import com.logging.framework.service.LoggingServiceImpl;
 
+import org.aspectj.lang.Aspects;
+import org.aspectj.lang.NoAspectBoundException;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.ConfigurableBeanFactory;
+import org.springframework.beans.factory.config.EmbeddedValueResolver;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.bind.Binder;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.ApplicationContext;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.core.annotation.AnnotationUtils;
+import org.springframework.core.env.Environment;
+import org.springframework.util.ClassUtils;
 
-import java.util.Map;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
 
 /**
  * Auto-configuration for the Kafka logging framework.
@@ -33,9 +62,6 @@ public class KafkaLoggingAutoConfiguration {
     @Autowired
     private KafkaLoggingProperties properties;
     
-    @Autowired
-    private ApplicationContext applicationContext;
-    
     /**
      * Create the logging service bean.
      * 
@@ -48,78 +74,460 @@ public class KafkaLoggingAutoConfiguration {
     }
     
     /**
-     * Create the Kafka consumer logging aspect bean.
+     * Load the logging method index written at compile time.
      * 
-     * @return The Kafka consumer logging aspect
+     * @param applicationContext The application context
+     * @return The index, empty if none was found or the index is disabled
      */
     @Bean
-    @ConditionalOnProperty(name = "kafka.logging.enabled", havingValue = "true", matchIfMissing = true)
-    public KafkaConsumerLoggingAspect kafkaConsumerLoggingAspect() {
-        return new KafkaConsumerLoggingAspect();
+    @ConditionalOnMissingBean
+    public LoggingMethodIndex loggingMethodIndex(ApplicationContext applicationContext) {
+        if (!properties.isUseMethodIndex()) {
+            return LoggingMethodIndex.empty();
+        }
+        return LoggingMethodIndex.load(applicationContext.getClassLoader());
     }
     
     /**
-     * Create the custom method logging aspect bean.
+     * Create the runtime control of the log levels of intercepted methods.
      * 
-     * @return The custom method logging aspect
+     * @return The log level control
      */
     @Bean
-    @ConditionalOnProperty(name = "kafka.logging.enabled", havingValue = "true", matchIfMissing = true)
-    public CustomMethodLoggingAspect customMethodLoggingAspect() {
-        return new CustomMethodLoggingAspect();
+    @ConditionalOnMissingBean
+    @ConditionalOnProperty(name = "kafka.logging.level-control.enabled", havingValue = "true", matchIfMissing = true)
+    public LogLevelControl logLevelControl() {
+        KafkaLoggingProperties.LevelControlConfig config = properties.getLevelControl();
+        return new LogLevelControl(config.getRules(), config.isJmxEnabled());
+    }
+    
+    /**
+     * Create the sampling of intercepted methods.
+     * 
+     * @return The method sampling
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    @ConditionalOnProperty(name = "kafka.logging.sampling.enabled", havingValue = "true", matchIfMissing = true)
+    public MethodSampling methodSampling() {
+        KafkaLoggingProperties.SamplingConfig config = properties.getSampling();
+        return new MethodSampling(config.getRules(), config.getLatencyThresholdMs());
+    }
+    
+    /**
+     * Create the registry of per-method metadata used by the aspects.
+     * 
+     * @param index The logging method index
+     * @param levelControl The log level control, if enabled
+     * @param sampling The method sampling, if enabled
+     * @param beanFactory The bean factory, resolving placeholders in listener topics
+     * @return The method metadata registry
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    public MethodMetadataRegistry methodMetadataRegistry(LoggingMethodIndex index,
+                                                         ObjectProvider<LogLevelControl> levelControl,
+                                                         ObjectProvider<MethodSampling> sampling,
+                                                         ConfigurableBeanFactory beanFactory) {
+        return new MethodMetadataRegistry(index, levelControl.getIfAvailable(), sampling.getIfAvailable(),
+                new EmbeddedValueResolver(beanFactory));
+    }
+    
+    /**
+     * Create the shared background scheduler.
+     * 
+     * @return The logging scheduler
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    public LoggingScheduler loggingScheduler() {
+        return new LoggingScheduler();
     }
     
     /**
-     * Create the predefined method logging aspect bean.
+     * Create the logging policies of topics.
      * 
-     * @return The predefined method logging aspect
+     * @return The topic policies
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    public TopicPolicies topicPolicies() {
+        return new TopicPolicies(properties);
+    }
+    
+    /**
+     * Create the per topic-partition latency and throughput metrics.
+     * 
+     * @param scheduler The logging scheduler
+     * @param fileAppender The dedicated log file appender, if configured
+     * @return The topic-partition metrics
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    @ConditionalOnProperty(name = "kafka.logging.metrics.enabled", havingValue = "true", matchIfMissing = true)
+    public TopicPartitionMetrics topicPartitionMetrics(LoggingScheduler scheduler,
+                                                       ObjectProvider<KafkaLoggingFileAppender> fileAppender) {
+        return new TopicPartitionMetrics(scheduler, fileAppender.getIfAvailable(),
+                properties.getMetrics().getSummaryIntervalSeconds() * 1000L);
+    }
+    
+    /**
+     * Create the per topic producer latency, record size and failure metrics.
+     * 
+     * @param scheduler The logging scheduler
+     * @param fileAppender The dedicated log file appender, if configured
+     * @return The producer metrics
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    @ConditionalOnProperty(name = "kafka.logging.metrics.producer-enabled", havingValue = "true", matchIfMissing = true)
+    public ProducerMetrics producerMetrics(LoggingScheduler scheduler,
+                                           ObjectProvider<KafkaLoggingFileAppender> fileAppender) {
+        return new ProducerMetrics(scheduler, fileAppender.getIfAvailable(),
+                properties.getMetrics().getSummaryIntervalSeconds() * 1000L);
+    }
+    
+    /**
+     * Create the producer listener recording send results and logging failed sends.
+     * 
+     * @param loggingService The logging service
+     * @param scheduler The logging scheduler
+     * @param producerMetrics The producer metrics, if enabled
+     * @return The producer listener
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    public ProducerLoggingListener producerLoggingListener(LoggingService loggingService, LoggingScheduler scheduler,
+                                                           ObjectProvider<ProducerMetrics> producerMetrics) {
+        KafkaLoggingProperties.TraceConfig trace = properties.getTrace();
+        return new ProducerLoggingListener(loggingService, scheduler, producerMetrics.getIfAvailable(),
+                trace.isEnabled() ? trace.getHeader() : null);
+    }
+    
+    /**
+     * Create the fingerprint based exception rate limiter.
+     * 
+     * @param scheduler The logging scheduler
+     * @param fileAppender The dedicated log file appender, if configured
+     * @return The exception rate limiter
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    @ConditionalOnProperty(name = "kafka.logging.exceptions.rate-limit-enabled", havingValue = "true", matchIfMissing = true)
+    public ExceptionRateLimiter exceptionRateLimiter(LoggingScheduler scheduler,
+                                                     ObjectProvider<KafkaLoggingFileAppender> fileAppender) {
+        KafkaLoggingProperties.ExceptionConfig config = properties.getExceptions();
+        return new ExceptionRateLimiter(scheduler, fileAppender.getIfAvailable(),
+                config.getWindowSeconds() * 1000L, config.getMaxFingerprints(),
+                config.getFingerprintDepth(), config.getMaxSampleOffsets());
+    }
+    
+    /**
+     * Create the in-memory flight recorder of intercepted invocations.
+     * 
+     * @param fileAppender The dedicated log file appender, if configured
+     * @return The flight recorder
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    @ConditionalOnProperty(name = "kafka.logging.flight-recorder.enabled", havingValue = "true")
+    public FlightRecorder flightRecorder(ObjectProvider<KafkaLoggingFileAppender> fileAppender) {
+        KafkaLoggingProperties.FlightRecorderConfig config = properties.getFlightRecorder();
+        return new FlightRecorder(fileAppender.getIfAvailable(), config.getCapacity(), config.isDumpOnFailure(),
+                config.getLatencyThresholdMs(), config.isRecordOnly(), config.isJmxEnabled());
+    }
+    
+    /**
+     * Create the rollup of intercepted invocations, which replaces per-call lines by periodic summaries.
+     * 
+     * @param scheduler The logging scheduler
+     * @param fileAppender The dedicated log file appender, if configured
+     * @return The method rollup
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    @ConditionalOnProperty(name = "kafka.logging.rollup.enabled", havingValue = "true")
+    public MethodRollup methodRollup(LoggingScheduler scheduler, ObjectProvider<KafkaLoggingFileAppender> fileAppender) {
+        KafkaLoggingProperties.RollupConfig config = properties.getRollup();
+        return new MethodRollup(scheduler, fileAppender.getIfAvailable(), config.getIntervalSeconds() * 1000L,
+                config.isLogFailures());
+    }
+    
+    /**
+     * Create the tracker of the slowest messages of each listener.
+     * 
+     * @param scheduler The logging scheduler
+     * @param fileAppender The dedicated log file appender, if configured
+     * @return The slow message tracker
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    @ConditionalOnProperty(name = "kafka.logging.slow-messages.enabled", havingValue = "true")
+    public SlowMessageTracker slowMessageTracker(LoggingScheduler scheduler,
+                                                 ObjectProvider<KafkaLoggingFileAppender> fileAppender) {
+        KafkaLoggingProperties.SlowMessagesConfig config = properties.getSlowMessages();
+        return new SlowMessageTracker(scheduler, fileAppender.getIfAvailable(), config.getTopK(),
+                config.getWindowSeconds() * 1000L, config.getMinProcessingTimeMs());
+    }
+    
+    /**
+     * Create the detector of hot keys and partitions of consumed topics.
+     * 
+     * @param scheduler The logging scheduler
+     * @param fileAppender The dedicated log file appender, if configured
+     * @return The hot key detector
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    @ConditionalOnProperty(name = "kafka.logging.hot-keys.enabled", havingValue = "true")
+    public HotKeyDetector hotKeyDetector(LoggingScheduler scheduler,
+                                         ObjectProvider<KafkaLoggingFileAppender> fileAppender) {
+        KafkaLoggingProperties.HotKeysConfig config = properties.getHotKeys();
+        return new HotKeyDetector(scheduler, fileAppender.getIfAvailable(), config.getTopK(),
+                config.getSketchWidth(), config.getSketchDepth(), config.getWindowSeconds() * 1000L);
+    }
+    
+    /**
+     * Register the record interceptor on listener container factories.
+     * This exposes record metadata such as partition, offset and timestamp to the aspects,
+     * and starts the trace span of each listener invocation.
+     * 
+     * @param environment The environment
+     * @return The record interceptor post processor
      */
     @Bean
     @ConditionalOnProperty(name = "kafka.logging.enabled", havingValue = "true", matchIfMissing = true)
-    public PredefinedMethodLoggingAspect predefinedMethodLoggingAspect() {
-        PredefinedMethodLoggingAspect aspect = new PredefinedMethodLoggingAspect();
-        
-        // Process @LogMethodPattern annotations
-        processLogMethodPatternAnnotations();
-        
-        return aspect;
+    public static RecordInterceptorPostProcessor recordInterceptorPostProcessor(Environment environment) {
+        KafkaLoggingProperties.TraceConfig trace = traceConfig(environment);
+        return new RecordInterceptorPostProcessor(
+                new KafkaRecordContextInterceptor(trace.isEnabled() ? trace.getHeader() : null));
     }
     
     /**
-     * Create the Kafka exception handler bean.
+     * Instrument producer factories and Kafka templates.
+     * The producer interceptor propagates the trace context and stamps send times; the
+     * producer listener records acknowledgements and logs failed sends.
      * 
-     * @return The Kafka exception handler
+     * @param environment The environment
+     * @param producerMetrics The producer metrics, if enabled
+     * @param producerListener The producer listener
+     * @return The producer post processor
      */
     @Bean
     @ConditionalOnProperty(name = "kafka.logging.enabled", havingValue = "true", matchIfMissing = true)
-    public KafkaExceptionHandler kafkaExceptionHandler() {
-        return new KafkaExceptionHandler();
+    public static KafkaProducerPostProcessor kafkaProducerPostProcessor(Environment environment,
+                                                                        ObjectProvider<ProducerMetrics> producerMetrics,
+                                                                        ObjectProvider<ProducerLoggingListener> producerListener) {
+        KafkaLoggingProperties.TraceConfig trace = traceConfig(environment);
+        return new KafkaProducerPostProcessor(trace.isEnabled() && trace.isPropagate() ? trace.getHeader() : null,
+                producerMetrics, producerListener);
+    }
+    
+    /**
+     * Bind the trace configuration for the static post processor beans, which are created
+     * before the configuration properties bean.
+     */
+    private static KafkaLoggingProperties.TraceConfig traceConfig(Environment environment) {
+        return Binder.get(environment).bind("kafka.logging.trace", KafkaLoggingProperties.TraceConfig.class)
+                .orElseGet(KafkaLoggingProperties.TraceConfig::new);
+    }
+    
+    /**
+     * Framework aspects applied through Spring AOP proxies.
+     * This is the default weaving mode.
+     */
+    @Configuration
+    @ConditionalOnProperty(name = "kafka.logging.weaving-mode", havingValue = "proxy", matchIfMissing = true)
+    static class ProxyWeavingConfiguration {
+        
+        /**
+         * Create the Kafka consumer logging aspect bean.
+         * 
+         * @return The Kafka consumer logging aspect
+         */
+        @Bean
+        @ConditionalOnProperty(name = "kafka.logging.enabled", havingValue = "true", matchIfMissing = true)
+        public KafkaConsumerLoggingAspect kafkaConsumerLoggingAspect() {
+            return new KafkaConsumerLoggingAspect();
+        }
+        
+        /**
+         * Create the custom method logging aspect bean.
+         * 
+         * @return The custom method logging aspect
+         */
+        @Bean
+        @ConditionalOnProperty(name = "kafka.logging.enabled", havingValue = "true", matchIfMissing = true)
+        public CustomMethodLoggingAspect customMethodLoggingAspect() {
+            return new CustomMethodLoggingAspect();
+        }
+        
+        /**
+         * Create the predefined method logging aspect bean.
+         * 
+         * @param applicationContext The application context
+         * @param properties The Kafka logging properties
+         * @param index The logging method index
+         * @return The predefined method logging aspect
+         */
+        @Bean
+        @ConditionalOnProperty(name = "kafka.logging.enabled", havingValue = "true", matchIfMissing = true)
+        public PredefinedMethodLoggingAspect predefinedMethodLoggingAspect(ApplicationContext applicationContext,
+                                                                           KafkaLoggingProperties properties,
+                                                                           LoggingMethodIndex index) {
+            PredefinedMethodLoggingAspect aspect = new PredefinedMethodLoggingAspect();
+            
+            // Process @LogMethodPattern annotations
+            processLogMethodPatternAnnotations(applicationContext, properties, index);
+            
+            return aspect;
+        }
+        
+        /**
+         * Create the Kafka exception handler bean.
+         * 
+         * @return The Kafka exception handler
+         */
+        @Bean
+        @ConditionalOnProperty(name = "kafka.logging.enabled", havingValue = "true", matchIfMissing = true)
+        public KafkaExceptionHandler kafkaExceptionHandler() {
+            return new KafkaExceptionHandler();
+        }
+    }
+    
+    /**
+     * Framework aspects woven by AspectJ, at load time or at compile time.
+     * AspectJ owns the aspect instances; they are exposed as beans so that their dependencies are injected.
+     * Spring AOP ignores aspects compiled or woven by AspectJ, so no proxies are created in this mode.
+     */
+    @Configuration
+    @ConditionalOnProperty(name = "kafka.logging.weaving-mode", havingValue = "aspectj")
+    static class AspectJWeavingConfiguration {
+        
+        /**
+         * Expose the woven Kafka consumer logging aspect.
+         * 
+         * @return The Kafka consumer logging aspect
+         */
+        @Bean
+        @ConditionalOnProperty(name = "kafka.logging.enabled", havingValue = "true", matchIfMissing = true)
+        public KafkaConsumerLoggingAspect kafkaConsumerLoggingAspect() {
+            return aspectOf(KafkaConsumerLoggingAspect.class);
+        }
+        
+        /**
+         * Expose the woven custom method logging aspect.
+         * 
+         * @return The custom method logging aspect
+         */
+        @Bean
+        @ConditionalOnProperty(name = "kafka.logging.enabled", havingValue = "true", matchIfMissing = true)
+        public CustomMethodLoggingAspect customMethodLoggingAspect() {
+            return aspectOf(CustomMethodLoggingAspect.class);
+        }
+        
+        /**
+         * Expose the woven predefined method logging aspect.
+         * 
+         * @param applicationContext The application context
+         * @param properties The Kafka logging properties
+         * @param index The logging method index
+         * @return The predefined method logging aspect
+         */
+        @Bean
+        @ConditionalOnProperty(name = "kafka.logging.enabled", havingValue = "true", matchIfMissing = true)
+        public PredefinedMethodLoggingAspect predefinedMethodLoggingAspect(ApplicationContext applicationContext,
+                                                                           KafkaLoggingProperties properties,
+                                                                           LoggingMethodIndex index) {
+            PredefinedMethodLoggingAspect aspect = aspectOf(PredefinedMethodLoggingAspect.class);
+            
+            // Process @LogMethodPattern annotations
+            processLogMethodPatternAnnotations(applicationContext, properties, index);
+            
+            return aspect;
+        }
+        
+        /**
+         * Expose the woven Kafka exception handler.
+         * 
+         * @return The Kafka exception handler
+         */
+        @Bean
+        @ConditionalOnProperty(name = "kafka.logging.enabled", havingValue = "true", matchIfMissing = true)
+        public KafkaExceptionHandler kafkaExceptionHandler() {
+            return aspectOf(KafkaExceptionHandler.class);
+        }
+        
+        /**
+         * Get the singleton instance AspectJ created for an aspect.
+         * 
+         * @param aspectClass The aspect class
+         * @param <T> The aspect type
+         * @return The aspect instance
+         */
+        private static <T> T aspectOf(Class<T> aspectClass) {
+            try {
+                return Aspects.aspectOf(aspectClass);
+            } catch (NoAspectBoundException e) {
+                throw new IllegalStateException("kafka.logging.weaving-mode=aspectj requires " 
+                        + aspectClass.getSimpleName() + " to be woven by AspectJ: start the JVM with " 
+                        + "-javaagent:aspectjweaver.jar or weave the application at compile time", e);
+            }
+        }
     }
     
     /**
      * Process @LogMethodPattern annotations and add them to the configuration.
+     * The annotated classes listed in the logging method index are taken from it without reflection.
+     * The bean definitions of the application context are scanned as well, for annotated beans whose
+     * class is missing from the index, for example because it was compiled without the processor.
+     * 
+     * @param applicationContext The application context
+     * @param properties The Kafka logging properties
+     * @param index The logging method index
      */
-    private void processLogMethodPatternAnnotations() {
-        // Get all beans with @LogMethodPattern annotation
-        Map<String, Object> beans = applicationContext.getBeansWithAnnotation(LogMethodPattern.class);
+    private static void processLogMethodPatternAnnotations(ApplicationContext applicationContext,
+                                                           KafkaLoggingProperties properties,
+                                                           LoggingMethodIndex index) {
+        Set<String> processed = new HashSet<>();
+        if (index.isPresent()) {
+            for (LoggingMethodIndex.PatternClass patternClass : index.getPatternClasses()) {
+                if (processed.add(patternClass.getClassName())) {
+                    addMethodPatterns(properties, patternClass.getClassName(), patternClass.getInclude(),
+                            patternClass.getExclude());
+                }
+            }
+        }
         
-        for (Object bean : beans.values()) {
-            Class<?> beanClass = bean.getClass();
+        // Types of the beans with @LogMethodPattern annotation, without creating the beans
+        for (String beanName : applicationContext.getBeanNamesForAnnotation(LogMethodPattern.class)) {
+            Class<?> beanType = applicationContext.getType(beanName);
+            if (beanType == null) {
+                continue;
+            }
+            Class<?> beanClass = ClassUtils.getUserClass(beanType);
+            if (!processed.add(beanClass.getName())) {
+                continue;
+            }
             LogMethodPattern annotation = AnnotationUtils.findAnnotation(beanClass, LogMethodPattern.class);
             
             if (annotation != null) {
-                // Add include patterns
-                for (String pattern : annotation.value()) {
-                    String fullPattern = beanClass.getName() + "." + pattern;
-                    properties.getMethodSelection().getIncludePatterns().add(fullPattern);
-                }
-                
-                // Add exclude patterns
-                for (String pattern : annotation.exclude()) {
-                    String fullPattern = beanClass.getName() + "." + pattern;
-                    properties.getMethodSelection().getExcludePatterns().add(fullPattern);
-                }
+                addMethodPatterns(properties, beanClass.getName(), Arrays.asList(annotation.value()),
+                        Arrays.asList(annotation.exclude()));
             }
         }
     }
+    
+    private static void addMethodPatterns(KafkaLoggingProperties properties, String className,
+                                          List<String> include, List<String> exclude) {
+        // Add include patterns
+        for (String pattern : include) {
+            properties.getMethodSelection().getIncludePatterns().add(className + "." + pattern);
+        }
+        
+        // Add exclude patterns
+        for (String pattern : exclude) {
+            properties.getMethodSelection().getExcludePatterns().add(className + "." + pattern);
+        }
+    }
 }
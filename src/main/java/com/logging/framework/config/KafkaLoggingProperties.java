@@ -3,7 +3,10 @@ package com.logging.framework.config;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Configuration properties for the Kafka logging framework.
@@ -49,6 +52,51 @@ public class KafkaLoggingProperties {
      */
     private boolean asyncLogging = true;
     
+    /**
+     * Capacity of the queue in front of the asynchronous log writer.
+     * When the queue is full, events are written on the calling thread.
+     * Default is 8192.
+     */
+    private int asyncQueueCapacity = 8192;
+    
+    /**
+     * Whether events queued for the asynchronous log writer are also appended to a memory-mapped
+     * write-ahead spool next to the log file, so that they survive the process being killed.
+     * Events found in the spool on startup are written to the log file before new logging begins.
+     * Default is false.
+     */
+    private boolean asyncWriteAhead = false;
+    
+    /**
+     * Size of the write-ahead spool. Events that do not fit are written on the calling thread.
+     * Default is 8MB.
+     */
+    private String asyncWriteAheadSize = "8MB";
+    
+    /**
+     * Whether the background writer runs on a virtual thread instead of a platform thread.
+     * Only takes effect on Java 21 and later.
+     * Default is false.
+     */
+    private boolean virtualThreadWriter = false;
+    
+    /**
+     * How the framework aspects are applied to application code.
+     * PROXY uses Spring AOP proxies; ASPECTJ expects the aspects to be woven by AspectJ
+     * (load-time weaving with the aspectjweaver agent, or compile-time weaving), which also
+     * intercepts calls on {@code this}.
+     * Default is PROXY.
+     */
+    private WeavingMode weavingMode = WeavingMode.PROXY;
+    
+    /**
+     * Whether to use the logging method index written by the annotation processor.
+     * When an index is found, @LogMethodPattern classes are taken from it instead of scanning
+     * the application context. Disable when some annotated classes were compiled without the processor.
+     * Default is true.
+     */
+    private boolean useMethodIndex = true;
+    
     /**
      * List of sensitive field names to mask in logs.
      */
@@ -70,6 +118,78 @@ public class KafkaLoggingProperties {
      */
     private MethodSelectionConfig methodSelection = new MethodSelectionConfig();
     
+    /**
+     * Configuration for consumer metrics.
+     */
+    private MetricsConfig metrics = new MetricsConfig();
+    
+    /**
+     * Configuration for exception logging.
+     */
+    private ExceptionConfig exceptions = new ExceptionConfig();
+    
+    /**
+     * Configuration for trace correlation.
+     */
+    private TraceConfig trace = new TraceConfig();
+    
+    /**
+     * Configuration for the Kafka topic sink.
+     */
+    private SinkConfig sink = new SinkConfig();
+    
+    /**
+     * Configuration for the in-memory flight recorder.
+     */
+    private FlightRecorderConfig flightRecorder = new FlightRecorderConfig();
+    
+    /**
+     * Configuration for the runtime log level control.
+     */
+    private LevelControlConfig levelControl = new LevelControlConfig();
+    
+    /**
+     * Configuration for the sampling of intercepted methods.
+     */
+    private SamplingConfig sampling = new SamplingConfig();
+    
+    /**
+     * Configuration for the rollup mode, which writes periodic summaries instead of per-call lines.
+     */
+    private RollupConfig rollup = new RollupConfig();
+    
+    /**
+     * Configuration for the tracking of the slowest messages of each listener.
+     */
+    private SlowMessagesConfig slowMessages = new SlowMessagesConfig();
+    
+    /**
+     * Configuration for the detection of hot keys and partitions of consumed topics.
+     */
+    private HotKeysConfig hotKeys = new HotKeysConfig();
+    
+    /**
+     * Logging policies by topic name or pattern with * wildcards.
+     * Names containing dots or wildcards are written in brackets, for example topics[clickstream.*].sampling-rate=0.01.
+     */
+    private Map<String, TopicPolicyConfig> topics = new LinkedHashMap<>();
+    
+    /**
+     * Ways of applying the framework aspects.
+     */
+    public enum WeavingMode {
+        
+        /**
+         * Spring AOP proxies around beans.
+         */
+        PROXY,
+        
+        /**
+         * AspectJ load-time or compile-time weaving.
+         */
+        ASPECTJ
+    }
+    
     /**
      * Inner class for log file configuration.
      */
@@ -110,6 +230,21 @@ public class KafkaLoggingProperties {
          */
         private String pattern = "[%d{yyyy-MM-dd HH:mm:ss}] [%p] [%X{status}] [%X{class}#%X{method}] - %m%n";
         
+        /**
+         * Whether to write status messages as a template ID and variable part instead of their text.
+         * Each template is defined once per file by a message_template record.
+         * Default is false.
+         */
+        private boolean templateIds = false;
+        
+        /**
+         * Format of the log file lines: pattern, json, ecs or logfmt.
+         * The pattern format writes the JSON of each event into the log pattern; the other formats
+         * write the line produced by their encoder, without the pattern.
+         * Default is pattern.
+         */
+        private String format = "pattern";
+        
         // Getters and Setters
         
         public boolean isEnabled() {
@@ -159,6 +294,22 @@ public class KafkaLoggingProperties {
         public void setPattern(String pattern) {
             this.pattern = pattern;
         }
+        
+        public boolean isTemplateIds() {
+            return templateIds;
+        }
+        
+        public void setTemplateIds(boolean templateIds) {
+            this.templateIds = templateIds;
+        }
+        
+        public String getFormat() {
+            return format;
+        }
+        
+        public void setFormat(String format) {
+            this.format = format;
+        }
     }
     
     /**
@@ -220,62 +371,1027 @@ public class KafkaLoggingProperties {
         }
     }
     
-    // Getters and Setters
-    
-    public boolean isEnabled() {
-        return enabled;
-    }
-    
-    public void setEnabled(boolean enabled) {
-        this.enabled = enabled;
-    }
-    
-    public List<String> getPredefinedMethods() {
-        return predefinedMethods;
-    }
-    
-    public void setPredefinedMethods(List<String> predefinedMethods) {
-        this.predefinedMethods = predefinedMethods;
-    }
-    
-    public String getLogLevel() {
-        return logLevel;
-    }
-    
-    public void setLogLevel(String logLevel) {
-        this.logLevel = logLevel;
-    }
-    
-    public boolean isIncludePayload() {
-        return includePayload;
-    }
-    
-    public void setIncludePayload(boolean includePayload) {
-        this.includePayload = includePayload;
-    }
-    
-    public boolean isMaskSensitiveData() {
-        return maskSensitiveData;
-    }
-    
-    public void setMaskSensitiveData(boolean maskSensitiveData) {
-        this.maskSensitiveData = maskSensitiveData;
-    }
-    
-    public boolean isAsyncLogging() {
-        return asyncLogging;
+    /**
+     * Inner class for consumer metrics configuration.
+     */
+    public static class MetricsConfig {
+        /**
+         * Whether to track end-to-end latency and throughput per topic-partition.
+         * Default is true.
+         */
+        private boolean enabled = true;
+        
+        /**
+         * Interval of the periodic partition summary log line, in seconds.
+         * A value of 0 disables the summary line; statistics are still available through the API.
+         * Default is 60.
+         */
+        private long summaryIntervalSeconds = 60;
+        
+        /**
+         * Whether to track send-to-acknowledgement latency, record sizes and failures per topic
+         * for the records sent through KafkaTemplate.
+         * Default is true.
+         */
+        private boolean producerEnabled = true;
+        
+        // Getters and Setters
+        
+        public boolean isEnabled() {
+            return enabled;
+        }
+        
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+        
+        public long getSummaryIntervalSeconds() {
+            return summaryIntervalSeconds;
+        }
+        
+        public void setSummaryIntervalSeconds(long summaryIntervalSeconds) {
+            this.summaryIntervalSeconds = summaryIntervalSeconds;
+        }
+        
+        public boolean isProducerEnabled() {
+            return producerEnabled;
+        }
+        
+        public void setProducerEnabled(boolean producerEnabled) {
+            this.producerEnabled = producerEnabled;
+        }
     }
     
-    public void setAsyncLogging(boolean asyncLogging) {
-        this.asyncLogging = asyncLogging;
+    /**
+     * Inner class for exception logging configuration.
+     */
+    public static class ExceptionConfig {
+        /**
+         * Whether to rate limit exception logging per exception fingerprint.
+         * Default is true.
+         */
+        private boolean rateLimitEnabled = true;
+        
+        /**
+         * Length of the rate limiting window, in seconds.
+         * The full stack trace of a fingerprint is logged once per window.
+         * Default is 60.
+         */
+        private long windowSeconds = 60;
+        
+        /**
+         * Maximum number of fingerprints tracked at the same time.
+         * Default is 1024.
+         */
+        private int maxFingerprints = 1024;
+        
+        /**
+         * Number of top stack frames included in the fingerprint.
+         * Default is 5.
+         */
+        private int fingerprintDepth = 5;
+        
+        /**
+         * Maximum number of sample offsets reported per fingerprint and window.
+         * Default is 5.
+         */
+        private int maxSampleOffsets = 5;
+        
+        /**
+         * Whether stack traces are rendered into the dedicated log file by the writer,
+         * instead of being formatted into the application log on the consumer thread.
+         * Default is true.
+         */
+        private boolean stackTracesInLogFile = true;
+        
+        /**
+         * Maximum number of frames rendered per exception in a cause chain.
+         * Default is 30.
+         */
+        private int maxStackFrames = 30;
+        
+        /**
+         * Additional frame class prefixes filtered from rendered stack traces.
+         * Spring AOP, CGLIB, reflection and the framework aspects are always filtered.
+         */
+        private List<String> filteredFramePrefixes = new ArrayList<>();
+        
+        /**
+         * Maximum number of rendered stack traces kept in the cache.
+         * Default is 256.
+         */
+        private int stackTraceCacheSize = 256;
+        
+        // Getters and Setters
+        
+        public boolean isRateLimitEnabled() {
+            return rateLimitEnabled;
+        }
+        
+        public void setRateLimitEnabled(boolean rateLimitEnabled) {
+            this.rateLimitEnabled = rateLimitEnabled;
+        }
+        
+        public long getWindowSeconds() {
+            return windowSeconds;
+        }
+        
+        public void setWindowSeconds(long windowSeconds) {
+            this.windowSeconds = windowSeconds;
+        }
+        
+        public int getMaxFingerprints() {
+            return maxFingerprints;
+        }
+        
+        public void setMaxFingerprints(int maxFingerprints) {
+            this.maxFingerprints = maxFingerprints;
+        }
+        
+        public int getFingerprintDepth() {
+            return fingerprintDepth;
+        }
+        
+        public void setFingerprintDepth(int fingerprintDepth) {
+            this.fingerprintDepth = fingerprintDepth;
+        }
+        
+        public int getMaxSampleOffsets() {
+            return maxSampleOffsets;
+        }
+        
+        public void setMaxSampleOffsets(int maxSampleOffsets) {
+            this.maxSampleOffsets = maxSampleOffsets;
+        }
+        
+        public boolean isStackTracesInLogFile() {
+            return stackTracesInLogFile;
+        }
+        
+        public void setStackTracesInLogFile(boolean stackTracesInLogFile) {
+            this.stackTracesInLogFile = stackTracesInLogFile;
+        }
+        
+        public int getMaxStackFrames() {
+            return maxStackFrames;
+        }
+        
+        public void setMaxStackFrames(int maxStackFrames) {
+            this.maxStackFrames = maxStackFrames;
+        }
+        
+        public List<String> getFilteredFramePrefixes() {
+            return filteredFramePrefixes;
+        }
+        
+        public void setFilteredFramePrefixes(List<String> filteredFramePrefixes) {
+            this.filteredFramePrefixes = filteredFramePrefixes;
+        }
+        
+        public int getStackTraceCacheSize() {
+            return stackTraceCacheSize;
+        }
+        
+        public void setStackTraceCacheSize(int stackTraceCacheSize) {
+            this.stackTraceCacheSize = stackTraceCacheSize;
+        }
     }
     
-    public List<String> getSensitiveFields() {
-        return sensitiveFields;
+    /**
+     * Inner class for trace correlation configuration.
+     */
+    public static class TraceConfig {
+        /**
+         * Whether to correlate messages across services with trace and span IDs.
+         * The trace context is read from the header of consumed records, or a new trace is
+         * started when it is missing, and every logging event of the invocation carries it.
+         * Default is true.
+         */
+        private boolean enabled = true;
+        
+        /**
+         * Header carrying the trace context.
+         * The W3C traceparent format is read and written for "traceparent"; any other header
+         * is read in either format and written as a bare 32 digit hex trace ID.
+         * Default is traceparent.
+         */
+        private String header = "traceparent";
+        
+        /**
+         * Whether to add the trace header to records sent through Spring producer factories
+         * while a message is processed.
+         * Default is true.
+         */
+        private boolean propagate = true;
+        
+        // Getters and Setters
+        
+        public boolean isEnabled() {
+            return enabled;
+        }
+        
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+        
+        public String getHeader() {
+            return header;
+        }
+        
+        public void setHeader(String header) {
+            this.header = header;
+        }
+        
+        public boolean isPropagate() {
+            return propagate;
+        }
+        
+        public void setPropagate(boolean propagate) {
+            this.propagate = propagate;
+        }
     }
     
-    public void setSensitiveFields(List<String> sensitiveFields) {
-        this.sensitiveFields = sensitiveFields;
+    /**
+     * Inner class for the Kafka topic sink configuration.
+     */
+    public static class SinkConfig {
+        /**
+         * Whether to publish the events written to the dedicated log file to a Kafka topic.
+         * Default is false.
+         */
+        private boolean enabled = false;
+        
+        /**
+         * Topic the events are published to.
+         * Default is kafka-logging.
+         */
+        private String topic = "kafka-logging";
+        
+        /**
+         * Bootstrap servers of the sink producer.
+         * Default is the value of spring.kafka.bootstrap-servers, or localhost:9092.
+         */
+        private String bootstrapServers;
+        
+        /**
+         * Compression type of the sink producer.
+         * Default is lz4.
+         */
+        private String compressionType = "lz4";
+        
+        /**
+         * Batch size of the sink producer in bytes.
+         * Default is 256KB.
+         */
+        private int batchSize = 256 * 1024;
+        
+        /**
+         * Time the sink producer waits for a batch to fill, in milliseconds.
+         * Default is 500.
+         */
+        private long lingerMs = 500;
+        
+        /**
+         * Maximum time a publish may block when the producer buffer is full or the topic
+         * metadata is not available, in milliseconds. Events are spooled after that.
+         * Default is 1000.
+         */
+        private long maxBlockMs = 1000;
+        
+        /**
+         * Time after which an event not acknowledged by the broker is spooled, in milliseconds.
+         * Default is 30000.
+         */
+        private int deliveryTimeoutMs = 30000;
+        
+        /**
+         * Additional properties of the sink producer, such as security settings.
+         */
+        private Map<String, String> producer = new HashMap<>();
+        
+        /**
+         * Directory of the local spool, used while the broker is unavailable or slow.
+         * Default is ./logs/spool.
+         */
+        private String spoolPath = "./logs/spool";
+        
+        /**
+         * Size of a spool segment file.
+         * Default is 16MB.
+         */
+        private String spoolSegmentSize = "16MB";
+        
+        /**
+         * Maximum total size of the spool. The oldest segments are dropped when it is exceeded.
+         * Default is 512MB.
+         */
+        private String spoolMaxSize = "512MB";
+        
+        /**
+         * Interval in which spooled events are replayed to the topic, in seconds.
+         * Default is 10.
+         */
+        private long replayIntervalSeconds = 10;
+        
+        // Getters and Setters
+        
+        public boolean isEnabled() {
+            return enabled;
+        }
+        
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+        
+        public String getTopic() {
+            return topic;
+        }
+        
+        public void setTopic(String topic) {
+            this.topic = topic;
+        }
+        
+        public String getBootstrapServers() {
+            return bootstrapServers;
+        }
+        
+        public void setBootstrapServers(String bootstrapServers) {
+            this.bootstrapServers = bootstrapServers;
+        }
+        
+        public String getCompressionType() {
+            return compressionType;
+        }
+        
+        public void setCompressionType(String compressionType) {
+            this.compressionType = compressionType;
+        }
+        
+        public int getBatchSize() {
+            return batchSize;
+        }
+        
+        public void setBatchSize(int batchSize) {
+            this.batchSize = batchSize;
+        }
+        
+        public long getLingerMs() {
+            return lingerMs;
+        }
+        
+        public void setLingerMs(long lingerMs) {
+            this.lingerMs = lingerMs;
+        }
+        
+        public long getMaxBlockMs() {
+            return maxBlockMs;
+        }
+        
+        public void setMaxBlockMs(long maxBlockMs) {
+            this.maxBlockMs = maxBlockMs;
+        }
+        
+        public int getDeliveryTimeoutMs() {
+            return deliveryTimeoutMs;
+        }
+        
+        public void setDeliveryTimeoutMs(int deliveryTimeoutMs) {
+            this.deliveryTimeoutMs = deliveryTimeoutMs;
+        }
+        
+        public Map<String, String> getProducer() {
+            return producer;
+        }
+        
+        public void setProducer(Map<String, String> producer) {
+            this.producer = producer;
+        }
+        
+        public String getSpoolPath() {
+            return spoolPath;
+        }
+        
+        public void setSpoolPath(String spoolPath) {
+            this.spoolPath = spoolPath;
+        }
+        
+        public String getSpoolSegmentSize() {
+            return spoolSegmentSize;
+        }
+        
+        public void setSpoolSegmentSize(String spoolSegmentSize) {
+            this.spoolSegmentSize = spoolSegmentSize;
+        }
+        
+        public String getSpoolMaxSize() {
+            return spoolMaxSize;
+        }
+        
+        public void setSpoolMaxSize(String spoolMaxSize) {
+            this.spoolMaxSize = spoolMaxSize;
+        }
+        
+        public long getReplayIntervalSeconds() {
+            return replayIntervalSeconds;
+        }
+        
+        public void setReplayIntervalSeconds(long replayIntervalSeconds) {
+            this.replayIntervalSeconds = replayIntervalSeconds;
+        }
+    }
+    
+    /**
+     * Inner class for the flight recorder configuration.
+     */
+    public static class FlightRecorderConfig {
+        /**
+         * Whether to record every intercepted invocation in per-thread in-memory rings.
+         * Default is false.
+         */
+        private boolean enabled = false;
+        
+        /**
+         * Number of records kept per thread, rounded up to a power of two.
+         * Default is 256.
+         */
+        private int capacity = 256;
+        
+        /**
+         * Whether to dump the records of the thread when an invocation fails.
+         * Default is true.
+         */
+        private boolean dumpOnFailure = true;
+        
+        /**
+         * Execution time in milliseconds from which an invocation dumps the records of the thread.
+         * Zero disables the latency trigger.
+         * Default is 0.
+         */
+        private long latencyThresholdMs = 0;
+        
+        /**
+         * Whether successful invocations below the latency threshold are only recorded,
+         * without their entry, status, event and exit logs.
+         * Default is false.
+         */
+        private boolean recordOnly = false;
+        
+        /**
+         * Whether to register the flight recorder MXBean, to trigger dumps over JMX.
+         * Default is true.
+         */
+        private boolean jmxEnabled = true;
+        
+        // Getters and Setters
+        
+        public boolean isEnabled() {
+            return enabled;
+        }
+        
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+        
+        public int getCapacity() {
+            return capacity;
+        }
+        
+        public void setCapacity(int capacity) {
+            this.capacity = capacity;
+        }
+        
+        public boolean isDumpOnFailure() {
+            return dumpOnFailure;
+        }
+        
+        public void setDumpOnFailure(boolean dumpOnFailure) {
+            this.dumpOnFailure = dumpOnFailure;
+        }
+        
+        public long getLatencyThresholdMs() {
+            return latencyThresholdMs;
+        }
+        
+        public void setLatencyThresholdMs(long latencyThresholdMs) {
+            this.latencyThresholdMs = latencyThresholdMs;
+        }
+        
+        public boolean isRecordOnly() {
+            return recordOnly;
+        }
+        
+        public void setRecordOnly(boolean recordOnly) {
+            this.recordOnly = recordOnly;
+        }
+        
+        public boolean isJmxEnabled() {
+            return jmxEnabled;
+        }
+        
+        public void setJmxEnabled(boolean jmxEnabled) {
+            this.jmxEnabled = jmxEnabled;
+        }
+    }
+    
+    /**
+     * Inner class for the runtime log level control configuration.
+     */
+    public static class LevelControlConfig {
+        /**
+         * Whether the levels of intercepted methods can be changed at runtime.
+         * Default is true.
+         */
+        private boolean enabled = true;
+        
+        /**
+         * Whether to register the log level control MXBean.
+         * Default is true.
+         */
+        private boolean jmxEnabled = true;
+        
+        /**
+         * Initial levels by package, class, method (className.methodName), topic (topic:name) or * for all.
+         * Keys containing dots are written in brackets, for example rules[com.example.orders]=WARN.
+         */
+        private Map<String, String> rules = new LinkedHashMap<>();
+        
+        // Getters and Setters
+        
+        public boolean isEnabled() {
+            return enabled;
+        }
+        
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+        
+        public boolean isJmxEnabled() {
+            return jmxEnabled;
+        }
+        
+        public void setJmxEnabled(boolean jmxEnabled) {
+            this.jmxEnabled = jmxEnabled;
+        }
+        
+        public Map<String, String> getRules() {
+            return rules;
+        }
+        
+        public void setRules(Map<String, String> rules) {
+            this.rules = rules;
+        }
+    }
+    
+    /**
+     * Inner class for the sampling configuration.
+     */
+    public static class SamplingConfig {
+        /**
+         * Whether invocations are sampled as configured by the rules and annotations.
+         * Default is true.
+         */
+        private boolean enabled = true;
+        
+        /**
+         * Execution time in milliseconds from which invocations are logged even when sampled out; 0 disables it.
+         * Default is 1000.
+         */
+        private long latencyThresholdMs = 1000;
+        
+        /**
+         * Sampling by package, class, method (className.methodName) or * for all, as one-in-n:N,
+         * probabilistic:P, token-bucket:PER_SECOND or adaptive:PER_SECOND. Annotation sampling wins.
+         * Keys containing dots are written in brackets, for example rules[com.example.orders]=adaptive:100.
+         */
+        private Map<String, String> rules = new LinkedHashMap<>();
+        
+        // Getters and Setters
+        
+        public boolean isEnabled() {
+            return enabled;
+        }
+        
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+        
+        public long getLatencyThresholdMs() {
+            return latencyThresholdMs;
+        }
+        
+        public void setLatencyThresholdMs(long latencyThresholdMs) {
+            this.latencyThresholdMs = latencyThresholdMs;
+        }
+        
+        public Map<String, String> getRules() {
+            return rules;
+        }
+        
+        public void setRules(Map<String, String> rules) {
+            this.rules = rules;
+        }
+    }
+    
+    /**
+     * Inner class for the rollup mode configuration.
+     */
+    public static class RollupConfig {
+        /**
+         * Whether intercepted invocations are aggregated instead of logged per call.
+         * Default is false.
+         */
+        private boolean enabled = false;
+        
+        /**
+         * Interval in seconds at which one summary record per method and topic is written.
+         * Default is 60.
+         */
+        private int intervalSeconds = 60;
+        
+        /**
+         * Whether failed invocations are still logged individually.
+         * Default is true.
+         */
+        private boolean logFailures = true;
+        
+        // Getters and Setters
+        
+        public boolean isEnabled() {
+            return enabled;
+        }
+        
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+        
+        public int getIntervalSeconds() {
+            return intervalSeconds;
+        }
+        
+        public void setIntervalSeconds(int intervalSeconds) {
+            this.intervalSeconds = intervalSeconds;
+        }
+        
+        public boolean isLogFailures() {
+            return logFailures;
+        }
+        
+        public void setLogFailures(boolean logFailures) {
+            this.logFailures = logFailures;
+        }
+    }
+    
+    /**
+     * Inner class for the slowest messages tracking configuration.
+     */
+    public static class SlowMessagesConfig {
+        /**
+         * Whether to keep the slowest messages of each Kafka listener per window.
+         * Default is false.
+         */
+        private boolean enabled = false;
+        
+        /**
+         * Number of slowest messages kept per listener and window.
+         * Default is 10.
+         */
+        private int topK = 10;
+        
+        /**
+         * Window length in seconds; at its end the slowest messages are logged.
+         * A value of 0 closes windows only on demand.
+         * Default is 60.
+         */
+        private long windowSeconds = 60;
+        
+        /**
+         * Processing time in milliseconds below which messages are never kept.
+         * Default is 0.
+         */
+        private long minProcessingTimeMs = 0;
+        
+        // Getters and Setters
+        
+        public boolean isEnabled() {
+            return enabled;
+        }
+        
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+        
+        public int getTopK() {
+            return topK;
+        }
+        
+        public void setTopK(int topK) {
+            this.topK = topK;
+        }
+        
+        public long getWindowSeconds() {
+            return windowSeconds;
+        }
+        
+        public void setWindowSeconds(long windowSeconds) {
+            this.windowSeconds = windowSeconds;
+        }
+        
+        public long getMinProcessingTimeMs() {
+            return minProcessingTimeMs;
+        }
+        
+        public void setMinProcessingTimeMs(long minProcessingTimeMs) {
+            this.minProcessingTimeMs = minProcessingTimeMs;
+        }
+    }
+    
+    /**
+     * Inner class for the hot key and partition detection configuration.
+     */
+    public static class HotKeysConfig {
+        /**
+         * Whether to count consumed messages by key and partition to report the heaviest ones per window.
+         * Default is false.
+         */
+        private boolean enabled = false;
+        
+        /**
+         * Number of heaviest keys and partitions reported per topic and window.
+         * Default is 10.
+         */
+        private int topK = 10;
+        
+        /**
+         * Number of counters per count-min sketch row, rounded up to a power of two.
+         * Wider rows overestimate less. Default is 2048.
+         */
+        private int sketchWidth = 2048;
+        
+        /**
+         * Number of count-min sketch rows. Deeper sketches overestimate less often.
+         * Default is 4.
+         */
+        private int sketchDepth = 4;
+        
+        /**
+         * Window length in seconds; at its end the heaviest keys and partitions are logged.
+         * A value of 0 closes windows only on demand.
+         * Default is 60.
+         */
+        private long windowSeconds = 60;
+        
+        // Getters and Setters
+        
+        public boolean isEnabled() {
+            return enabled;
+        }
+        
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+        
+        public int getTopK() {
+            return topK;
+        }
+        
+        public void setTopK(int topK) {
+            this.topK = topK;
+        }
+        
+        public int getSketchWidth() {
+            return sketchWidth;
+        }
+        
+        public void setSketchWidth(int sketchWidth) {
+            this.sketchWidth = sketchWidth;
+        }
+        
+        public int getSketchDepth() {
+            return sketchDepth;
+        }
+        
+        public void setSketchDepth(int sketchDepth) {
+            this.sketchDepth = sketchDepth;
+        }
+        
+        public long getWindowSeconds() {
+            return windowSeconds;
+        }
+        
+        public void setWindowSeconds(long windowSeconds) {
+            this.windowSeconds = windowSeconds;
+        }
+    }
+    
+    /**
+     * Inner class for the logging policy of a topic.
+     * Values that are not set are inherited from the global settings.
+     */
+    public static class TopicPolicyConfig {
+        /**
+         * Level threshold of the messages of the topic. OFF logs nothing for the topic; its metrics are still recorded.
+         * Default is none, only the level of the listener applies.
+         */
+        private String level;
+        
+        /**
+         * Fraction of successful invocations that are logged, between 0 and 1. Failures are always logged.
+         * Default is 1.
+         */
+        private double samplingRate = 1.0;
+        
+        /**
+         * Whether to include message payloads in logs.
+         * Default is the global include-payload.
+         */
+        private Boolean includePayload;
+        
+        /**
+         * Whether to include message headers in logs.
+         * Default is true.
+         */
+        private boolean includeHeaders = true;
+        
+        /**
+         * Whether to mask sensitive payload fields.
+         * Default is the global mask-sensitive-data.
+         */
+        private Boolean maskSensitiveData;
+        
+        /**
+         * Sensitive field names masked in addition to the global sensitive-fields.
+         */
+        private List<String> sensitiveFields = new ArrayList<>();
+        
+        /**
+         * Whether events of the topic are published through the Kafka topic sink, when it is enabled.
+         * Default is true.
+         */
+        private boolean sink = true;
+        
+        // Getters and Setters
+        
+        public String getLevel() {
+            return level;
+        }
+        
+        public void setLevel(String level) {
+            this.level = level;
+        }
+        
+        public double getSamplingRate() {
+            return samplingRate;
+        }
+        
+        public void setSamplingRate(double samplingRate) {
+            this.samplingRate = samplingRate;
+        }
+        
+        public Boolean getIncludePayload() {
+            return includePayload;
+        }
+        
+        public void setIncludePayload(Boolean includePayload) {
+            this.includePayload = includePayload;
+        }
+        
+        public boolean isIncludeHeaders() {
+            return includeHeaders;
+        }
+        
+        public void setIncludeHeaders(boolean includeHeaders) {
+            this.includeHeaders = includeHeaders;
+        }
+        
+        public Boolean getMaskSensitiveData() {
+            return maskSensitiveData;
+        }
+        
+        public void setMaskSensitiveData(Boolean maskSensitiveData) {
+            this.maskSensitiveData = maskSensitiveData;
+        }
+        
+        public List<String> getSensitiveFields() {
+            return sensitiveFields;
+        }
+        
+        public void setSensitiveFields(List<String> sensitiveFields) {
+            this.sensitiveFields = sensitiveFields;
+        }
+        
+        public boolean isSink() {
+            return sink;
+        }
+        
+        public void setSink(boolean sink) {
+            this.sink = sink;
+        }
+    }
+    
+    // Getters and Setters
+    
+    public boolean isEnabled() {
+        return enabled;
+    }
+    
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+    
+    public List<String> getPredefinedMethods() {
+        return predefinedMethods;
+    }
+    
+    public void setPredefinedMethods(List<String> predefinedMethods) {
+        this.predefinedMethods = predefinedMethods;
+    }
+    
+    public String getLogLevel() {
+        return logLevel;
+    }
+    
+    public void setLogLevel(String logLevel) {
+        this.logLevel = logLevel;
+    }
+    
+    public boolean isIncludePayload() {
+        return includePayload;
+    }
+    
+    public void setIncludePayload(boolean includePayload) {
+        this.includePayload = includePayload;
+    }
+    
+    public boolean isMaskSensitiveData() {
+        return maskSensitiveData;
+    }
+    
+    public void setMaskSensitiveData(boolean maskSensitiveData) {
+        this.maskSensitiveData = maskSensitiveData;
+    }
+    
+    public boolean isAsyncLogging() {
+        return asyncLogging;
+    }
+    
+    public void setAsyncLogging(boolean asyncLogging) {
+        this.asyncLogging = asyncLogging;
+    }
+    
+    public int getAsyncQueueCapacity() {
+        return asyncQueueCapacity;
+    }
+    
+    public void setAsyncQueueCapacity(int asyncQueueCapacity) {
+        this.asyncQueueCapacity = asyncQueueCapacity;
+    }
+    
+    public boolean isAsyncWriteAhead() {
+        return asyncWriteAhead;
+    }
+    
+    public void setAsyncWriteAhead(boolean asyncWriteAhead) {
+        this.asyncWriteAhead = asyncWriteAhead;
+    }
+    
+    public String getAsyncWriteAheadSize() {
+        return asyncWriteAheadSize;
+    }
+    
+    public void setAsyncWriteAheadSize(String asyncWriteAheadSize) {
+        this.asyncWriteAheadSize = asyncWriteAheadSize;
+    }
+    
+    public boolean isVirtualThreadWriter() {
+        return virtualThreadWriter;
+    }
+    
+    public void setVirtualThreadWriter(boolean virtualThreadWriter) {
+        this.virtualThreadWriter = virtualThreadWriter;
+    }
+    
+    public WeavingMode getWeavingMode() {
+        return weavingMode;
+    }
+    
+    public void setWeavingMode(WeavingMode weavingMode) {
+        this.weavingMode = weavingMode;
+    }
+    
+    public boolean isUseMethodIndex() {
+        return useMethodIndex;
+    }
+    
+    public void setUseMethodIndex(boolean useMethodIndex) {
+        this.useMethodIndex = useMethodIndex;
+    }
+    
+    public List<String> getSensitiveFields() {
+        return sensitiveFields;
+    }
+    
+    public void setSensitiveFields(List<String> sensitiveFields) {
+        this.sensitiveFields = sensitiveFields;
     }
     
     public char getMaskingChar() {
@@ -301,4 +1417,92 @@ public class KafkaLoggingProperties {
     public void setMethodSelection(MethodSelectionConfig methodSelection) {
         this.methodSelection = methodSelection;
     }
+    
+    public MetricsConfig getMetrics() {
+        return metrics;
+    }
+    
+    public void setMetrics(MetricsConfig metrics) {
+        this.metrics = metrics;
+    }
+    
+    public ExceptionConfig getExceptions() {
+        return exceptions;
+    }
+    
+    public void setExceptions(ExceptionConfig exceptions) {
+        this.exceptions = exceptions;
+    }
+    
+    public TraceConfig getTrace() {
+        return trace;
+    }
+    
+    public void setTrace(TraceConfig trace) {
+        this.trace = trace;
+    }
+    
+    public SinkConfig getSink() {
+        return sink;
+    }
+    
+    public void setSink(SinkConfig sink) {
+        this.sink = sink;
+    }
+    
+    public FlightRecorderConfig getFlightRecorder() {
+        return flightRecorder;
+    }
+    
+    public void setFlightRecorder(FlightRecorderConfig flightRecorder) {
+        this.flightRecorder = flightRecorder;
+    }
+    
+    public LevelControlConfig getLevelControl() {
+        return levelControl;
+    }
+    
+    public void setLevelControl(LevelControlConfig levelControl) {
+        this.levelControl = levelControl;
+    }
+    
+    public SamplingConfig getSampling() {
+        return sampling;
+    }
+    
+    public void setSampling(SamplingConfig sampling) {
+        this.sampling = sampling;
+    }
+    
+    public RollupConfig getRollup() {
+        return rollup;
+    }
+    
+    public void setRollup(RollupConfig rollup) {
+        this.rollup = rollup;
+    }
+    
+    public SlowMessagesConfig getSlowMessages() {
+        return slowMessages;
+    }
+    
+    public void setSlowMessages(SlowMessagesConfig slowMessages) {
+        this.slowMessages = slowMessages;
+    }
+    
+    public HotKeysConfig getHotKeys() {
+        return hotKeys;
+    }
+    
+    public void setHotKeys(HotKeysConfig hotKeys) {
+        this.hotKeys = hotKeys;
+    }
+    
+    public Map<String, TopicPolicyConfig> getTopics() {
+        return topics;
+    }
+    
+    public void setTopics(Map<String, TopicPolicyConfig> topics) {
+        this.topics = topics;
+    }
 }
@@ -1,11 +1,24 @@
 package com.logging.framework.config;
 
+import ch.qos.logback.core.util.FileSize;
 import com.logging.framework.appender.KafkaLoggingFileAppender;
+import com.logging.framework.appender.KafkaTopicSink;
+import com.logging.framework.appender.LogSpool;
+import com.logging.framework.encoder.EventEncoder;
+import com.logging.framework.exception.StackTraceRenderer;
+import com.logging.framework.service.LoggingScheduler;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import java.io.File;
+import java.util.Collections;
 
 /**
  * Configuration for the dedicated log file.
@@ -23,13 +36,50 @@ public class LogFileConfiguration {
         this.properties = properties;
     }
     
+    /**
+     * Create the sink publishing the log file events to a Kafka topic.
+     * 
+     * @param scheduler The logging scheduler the spool is replayed on
+     * @param environment The environment, for the Spring Kafka bootstrap servers
+     * @return The Kafka topic sink
+     */
+    @Bean
+    @ConditionalOnProperty(name = "kafka.logging.sink.enabled", havingValue = "true")
+    public KafkaTopicSink kafkaTopicSink(LoggingScheduler scheduler, Environment environment) {
+        KafkaLoggingProperties.SinkConfig sink = properties.getSink();
+        String bootstrapServers = sink.getBootstrapServers();
+        if (bootstrapServers == null || bootstrapServers.isEmpty()) {
+            bootstrapServers = String.join(",", Binder.get(environment)
+                    .bind("spring.kafka.bootstrap-servers", Bindable.listOf(String.class))
+                    .orElse(Collections.singletonList("localhost:9092")));
+        }
+        LogSpool spool = new LogSpool(new File(sink.getSpoolPath()),
+                FileSize.valueOf(sink.getSpoolSegmentSize()).getSize(),
+                FileSize.valueOf(sink.getSpoolMaxSize()).getSize());
+        return new KafkaTopicSink(sink.getTopic(), KafkaTopicSink.producerConfig(sink, bootstrapServers),
+                spool, scheduler, sink.getReplayIntervalSeconds() * 1000L);
+    }
+    
     /**
      * Create the Kafka logging file appender.
      * 
+     * @param topicSink The Kafka topic sink, if enabled
+     * @param encoder The event encoder of the application, replacing the configured format
      * @return The Kafka logging file appender
      */
     @Bean
-    public KafkaLoggingFileAppender kafkaLoggingFileAppender() {
-        return new KafkaLoggingFileAppender(properties);
+    public KafkaLoggingFileAppender kafkaLoggingFileAppender(ObjectProvider<KafkaTopicSink> topicSink,
+                                                             ObjectProvider<EventEncoder> encoder) {
+        KafkaLoggingProperties.ExceptionConfig exceptions = properties.getExceptions();
+        StackTraceRenderer renderer = null;
+        if (exceptions.isStackTracesInLogFile()) {
+            renderer = new StackTraceRenderer(exceptions.getFilteredFramePrefixes(),
+                    exceptions.getMaxStackFrames(), exceptions.getStackTraceCacheSize());
+        }
+        EventEncoder customEncoder = encoder.getIfAvailable();
+        if (customEncoder != null) {
+            return new KafkaLoggingFileAppender(properties, renderer, topicSink.getIfAvailable(), customEncoder);
+        }
+        return new KafkaLoggingFileAppender(properties, renderer, topicSink.getIfAvailable());
     }
 }
@@ -0,0 +1,128 @@
+package com.logging.framework.encoder;
+
+import com.logging.framework.model.LoggingEvent;
+import com.logging.framework.model.MethodExecutionStatus;
+import com.logging.framework.trace.TraceContext;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Map;
+
+/**
+ * Encodes an event in the Elastic Common Schema, the format {@code ecs}.
+ * Fields are written with dotted names on one JSON object, as the ECS logging libraries do:
+ * {@code @timestamp}, {@code log.level}, {@code message}, {@code log.logger}, {@code event.outcome},
+ * {@code event.duration} in nanoseconds, {@code trace.id}, {@code span.id} and {@code error.*}.
+ * The Kafka message, arguments and result keep the shape of the {@code json} format, and the
+ * context other than its action is written as a {@code context} object.
+ */
+public class EcsEncoder implements EventEncoder {
+    
+    private static final String ECS_VERSION = "1.2.0";
+    
+    private final ZoneId zone;
+    
+    /**
+     * Create a new EcsEncoder writing timestamps with the offset of the system time zone.
+     */
+    public EcsEncoder() {
+        this(ZoneId.systemDefault());
+    }
+    
+    /**
+     * Create a new EcsEncoder.
+     * 
+     * @param zone The time zone the local timestamps of the events are in
+     */
+    public EcsEncoder(ZoneId zone) {
+        this.zone = zone;
+    }
+    
+    @Override
+    public void encode(LoggingEvent event, EncoderBuffer buffer) {
+        LocalDateTime timestamp = event.getTimestamp();
+        buffer.appendAscii("{\"@timestamp\":\"");
+        JsonOutput.writeTimestampMillis(buffer, timestamp);
+        buffer.appendAscii(zone.getRules().getOffset(timestamp).getId());
+        buffer.appendAscii("\",\"log.level\":");
+        JsonOutput.writeString(buffer, event.getLogLevel() != null ? event.getLogLevel() : "INFO");
+        buffer.appendAscii(",\"message\":");
+        if (event.getMessageTemplate() != null) {
+            JsonOutput.writeString(buffer, event.getMessage());
+        } else {
+            JsonOutput.writeString(buffer, defaultMessage(event.getStatus()));
+        }
+        buffer.appendAscii(",\"ecs.version\":\"").appendAscii(ECS_VERSION).append('"');
+        buffer.appendAscii(",\"log.logger\":");
+        JsonOutput.writeString(buffer, event.getClassName());
+        buffer.appendAscii(",\"log.origin.function\":");
+        JsonOutput.writeString(buffer, event.getMethodName());
+        Object action = event.getAdditionalContext().get("action");
+        if (action != null) {
+            buffer.appendAscii(",\"event.action\":");
+            JsonOutput.writeValue(buffer, action);
+        }
+        buffer.appendAscii(",\"event.outcome\":\"").appendAscii(outcome(event.getStatus())).append('"');
+        if (event.getExecutionTimeMs() > 0) {
+            buffer.appendAscii(",\"event.duration\":").appendLong(event.getExecutionTimeMs() * 1_000_000L);
+        }
+        TraceContext trace = event.getTraceContext();
+        if (trace != null) {
+            buffer.appendAscii(",\"trace.id\":\"").appendHex(trace.getTraceIdHigh(), 16).appendHex(trace.getTraceIdLow(), 16)
+                    .appendAscii("\",\"span.id\":\"").appendHex(trace.getSpanId(), 16).append('"');
+        }
+        if (event.getKafkaMessageContext() != null) {
+            buffer.appendAscii(",\"kafka\":");
+            JsonOutput.writeKafka(buffer, event.getKafkaMessageContext());
+        }
+        Object[] arguments = event.getArguments();
+        if (arguments != null && arguments.length > 0) {
+            buffer.appendAscii(",\"arguments\":");
+            JsonOutput.writeArguments(buffer, arguments);
+        }
+        if (event.getResult() != null) {
+            buffer.appendAscii(",\"result\":");
+            JsonOutput.writeValue(buffer, event.getResult());
+        }
+        if (event.getAdditionalContext().size() > (action != null ? 1 : 0)) {
+            buffer.appendAscii(",\"context\":{");
+            for (Map.Entry<String, Object> entry : event.getAdditionalContext().entrySet()) {
+                if (!"action".equals(entry.getKey())) {
+                    JsonOutput.writeField(buffer, entry.getKey());
+                    JsonOutput.writeValue(buffer, entry.getValue());
+                }
+            }
+            buffer.append('}');
+        }
+        Throwable exception = event.getException();
+        if (exception != null) {
+            buffer.appendAscii(",\"error.type\":");
+            JsonOutput.writeString(buffer, exception.getClass().getName());
+            buffer.appendAscii(",\"error.message\":");
+            JsonOutput.writeString(buffer, exception.getMessage());
+            if (event.getStackTrace() != null) {
+                buffer.appendAscii(",\"error.stack_trace\":");
+                JsonOutput.writeString(buffer, event.getStackTrace());
+            }
+        }
+        buffer.append('}');
+    }
+    
+    private static String defaultMessage(MethodExecutionStatus status) {
+        if (status == MethodExecutionStatus.PASSED) {
+            return "Method executed successfully";
+        } else if (status == MethodExecutionStatus.FAILED) {
+            return "Method execution failed";
+        }
+        return "Method execution in progress";
+    }
+    
+    private static String outcome(MethodExecutionStatus status) {
+        if (status == MethodExecutionStatus.PASSED) {
+            return "success";
+        } else if (status == MethodExecutionStatus.FAILED) {
+            return "failure";
+        }
+        return "unknown";
+    }
+}
@@ -0,0 +1,270 @@
+package com.logging.framework.encoder;
+
+import com.logging.framework.support.VirtualThreads;
+
+import java.io.OutputStream;
+import java.util.Arrays;
+
+/**
+ * Growable byte buffer an {@link EventEncoder} writes an event into.
+ * The buffer is reset and reused for every event, so once it has grown to the size of the
+ * largest event, appending text and numbers allocates nothing. Text is written as UTF-8.
+ * It is an {@link OutputStream} so that values without a built-in encoding can be written by a
+ * serializer, such as Jackson, straight into it.
+ */
+public final class EncoderBuffer extends OutputStream {
+    
+    private static final byte[] HEX = "0123456789abcdef".getBytes();
+    private static final byte[] MIN_LONG = Long.toString(Long.MIN_VALUE).getBytes();
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final int MAX_RETAINED_CAPACITY = 64 * 1024;
+    private static final ThreadLocal<EncoderBuffer> THREAD_BUFFER = new ThreadLocal<>();
+    
+    private byte[] bytes;
+    private int size;
+    
+    /**
+     * Create a new EncoderBuffer.
+     * 
+     * @param initialCapacity The initial capacity in bytes
+     */
+    public EncoderBuffer(int initialCapacity) {
+        this.bytes = new byte[Math.max(16, initialCapacity)];
+    }
+    
+    /**
+     * Get the buffer of the current thread, empty.
+     * A platform thread reuses its buffer, unless an event made it grow beyond 64 KiB; a virtual
+     * thread is not reused and gets a new buffer. The buffer must no longer be used once the caller
+     * hands control to code that may take the buffer of the thread as well.
+     * 
+     * @return The buffer
+     */
+    public static EncoderBuffer forCurrentThread() {
+        if (VirtualThreads.isCurrentThreadVirtual()) {
+            return new EncoderBuffer(INITIAL_CAPACITY);
+        }
+        EncoderBuffer buffer = THREAD_BUFFER.get();
+        if (buffer == null || buffer.bytes.length > MAX_RETAINED_CAPACITY) {
+            buffer = new EncoderBuffer(INITIAL_CAPACITY);
+            THREAD_BUFFER.set(buffer);
+        }
+        buffer.reset();
+        return buffer;
+    }
+    
+    /**
+     * Discard the content, keeping the capacity.
+     */
+    public void reset() {
+        size = 0;
+    }
+    
+    /**
+     * Get the number of bytes written.
+     * 
+     * @return The size
+     */
+    public int size() {
+        return size;
+    }
+    
+    /**
+     * Get the backing array; only the first {@link #size()} bytes are valid.
+     * 
+     * @return The backing array
+     */
+    public byte[] array() {
+        return bytes;
+    }
+    
+    /**
+     * Copy the content.
+     * 
+     * @return A new array with the content
+     */
+    public byte[] toByteArray() {
+        return Arrays.copyOf(bytes, size);
+    }
+    
+    @Override
+    public void write(int b) {
+        ensureCapacity(1);
+        bytes[size++] = (byte) b;
+    }
+    
+    @Override
+    public void write(byte[] b, int off, int len) {
+        ensureCapacity(len);
+        System.arraycopy(b, off, bytes, size, len);
+        size += len;
+    }
+    
+    /**
+     * Append a byte.
+     * 
+     * @param b The byte
+     * @return This buffer
+     */
+    public EncoderBuffer append(byte b) {
+        ensureCapacity(1);
+        bytes[size++] = b;
+        return this;
+    }
+    
+    /**
+     * Append a character that is known to be ASCII.
+     * 
+     * @param c The character
+     * @return This buffer
+     */
+    public EncoderBuffer append(char c) {
+        ensureCapacity(1);
+        bytes[size++] = (byte) c;
+        return this;
+    }
+    
+    /**
+     * Append text that is known to be ASCII, such as a field name or an enum constant.
+     * 
+     * @param text The text
+     * @return This buffer
+     */
+    public EncoderBuffer appendAscii(String text) {
+        int length = text.length();
+        ensureCapacity(length);
+        for (int i = 0; i < length; i++) {
+            bytes[size++] = (byte) text.charAt(i);
+        }
+        return this;
+    }
+    
+    /**
+     * Append text as UTF-8.
+     * 
+     * @param text The text
+     * @return This buffer
+     */
+    public EncoderBuffer appendUtf8(CharSequence text) {
+        return appendUtf8(text, 0, text.length());
+    }
+    
+    /**
+     * Append part of a text as UTF-8.
+     * 
+     * @param text The text
+     * @param start The index of the first character
+     * @param end The index after the last character
+     * @return This buffer
+     */
+    public EncoderBuffer appendUtf8(CharSequence text, int start, int end) {
+        ensureCapacity(end - start);
+        for (int i = start; i < end; i++) {
+            char c = text.charAt(i);
+            if (c < 0x80) {
+                ensureCapacity(1);
+                bytes[size++] = (byte) c;
+            } else {
+                i = appendMultiByte(text, i, end);
+            }
+        }
+        return this;
+    }
+    
+    /**
+     * Append a non-ASCII character, or the surrogate pair starting at an index.
+     * 
+     * @return The index of the last character consumed
+     */
+    private int appendMultiByte(CharSequence text, int i, int end) {
+        char c = text.charAt(i);
+        ensureCapacity(4);
+        if (c < 0x800) {
+            bytes[size++] = (byte) (0xc0 | (c >> 6));
+            bytes[size++] = (byte) (0x80 | (c & 0x3f));
+        } else if (Character.isHighSurrogate(c) && i + 1 < end && Character.isLowSurrogate(text.charAt(i + 1))) {
+            int codePoint = Character.toCodePoint(c, text.charAt(i + 1));
+            bytes[size++] = (byte) (0xf0 | (codePoint >> 18));
+            bytes[size++] = (byte) (0x80 | ((codePoint >> 12) & 0x3f));
+            bytes[size++] = (byte) (0x80 | ((codePoint >> 6) & 0x3f));
+            bytes[size++] = (byte) (0x80 | (codePoint & 0x3f));
+            return i + 1;
+        } else if (Character.isSurrogate(c)) {
+            // Unpaired surrogate, written as a replacement the way String.getBytes does
+            bytes[size++] = '?';
+        } else {
+            bytes[size++] = (byte) (0xe0 | (c >> 12));
+            bytes[size++] = (byte) (0x80 | ((c >> 6) & 0x3f));
+            bytes[size++] = (byte) (0x80 | (c & 0x3f));
+        }
+        return i;
+    }
+    
+    /**
+     * Append a number in decimal.
+     * 
+     * @param value The number
+     * @return This buffer
+     */
+    public EncoderBuffer appendLong(long value) {
+        if (value == Long.MIN_VALUE) {
+            write(MIN_LONG, 0, MIN_LONG.length);
+            return this;
+        }
+        ensureCapacity(20);
+        if (value < 0) {
+            bytes[size++] = '-';
+            value = -value;
+        }
+        int digits = 1;
+        for (long rest = value / 10; rest > 0; rest /= 10) {
+            digits++;
+        }
+        for (int i = size + digits - 1; i >= size; i--) {
+            bytes[i] = (byte) ('0' + value % 10);
+            value /= 10;
+        }
+        size += digits;
+        return this;
+    }
+    
+    /**
+     * Append a number in decimal, left padded with zeros.
+     * 
+     * @param value The non-negative number
+     * @param digits The minimum number of digits
+     * @return This buffer
+     */
+    public EncoderBuffer appendPadded(long value, int digits) {
+        for (long rest = value / 10; rest > 0; rest /= 10) {
+            digits--;
+        }
+        for (; digits > 1; digits--) {
+            append('0');
+        }
+        return appendLong(value);
+    }
+    
+    /**
+     * Append a number as fixed width lower case hex digits.
+     * 
+     * @param value The number
+     * @param digits The number of hex digits, the lowest ones of the value
+     * @return This buffer
+     */
+    public EncoderBuffer appendHex(long value, int digits) {
+        ensureCapacity(digits);
+        for (int i = size + digits - 1; i >= size; i--) {
+            bytes[i] = HEX[(int) (value & 0xf)];
+            value >>>= 4;
+        }
+        size += digits;
+        return this;
+    }
+    
+    private void ensureCapacity(int length) {
+        if (size + length > bytes.length) {
+            bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size + length));
+        }
+    }
+}
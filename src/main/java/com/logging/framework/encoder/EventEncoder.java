@@ -0,0 +1,32 @@
+package com.logging.framework.encoder;
+
+import com.logging.framework.model.LoggingEvent;
+
+/**
+ * Encodes a logging event as one line of the dedicated log file.
+ * The built-in encoders are selected with {@code kafka.logging.log-file.format}; an application
+ * can provide its own by declaring an EventEncoder bean. The line written to the file is exactly
+ * what the encoder produces, without the log pattern around it, and is also what the topic sink publishes.
+ * Encoders are called by several threads at once, since events are also encoded for the write-ahead
+ * spool on the threads logging them, and must not keep the buffer or the event.
+ */
+public interface EventEncoder {
+    
+    /**
+     * Write an event into the buffer, without a line separator.
+     * 
+     * @param event The logging event
+     * @param buffer The buffer, empty when the method is called
+     */
+    void encode(LoggingEvent event, EncoderBuffer buffer);
+    
+    /**
+     * Check whether status messages are written as template IDs.
+     * The log file then also gets the message_template records defining the IDs.
+     * 
+     * @return True if the encoder writes template IDs instead of message text
+     */
+    default boolean usesTemplateIds() {
+        return false;
+    }
+}
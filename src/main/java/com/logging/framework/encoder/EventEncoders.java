@@ -0,0 +1,46 @@
+package com.logging.framework.encoder;
+
+/**
+ * Factory for the built-in encoders, by the name used in {@code kafka.logging.log-file.format}.
+ */
+public final class EventEncoders {
+    
+    /**
+     * The format writing events with the log pattern, without an encoder.
+     */
+    public static final String PATTERN = "pattern";
+    
+    public static final String JSON = "json";
+    
+    public static final String ECS = "ecs";
+    
+    public static final String LOGFMT = "logfmt";
+    
+    private EventEncoders() {
+    }
+    
+    /**
+     * Get the built-in encoder of a format.
+     * 
+     * @param format The name of the format
+     * @param templateIds Whether status messages are written as template IDs, for the formats supporting them
+     * @return The encoder, or null for the pattern format
+     * @throws IllegalArgumentException If the format is unknown
+     */
+    public static EventEncoder forFormat(String format, boolean templateIds) {
+        String name = format != null ? format.trim().toLowerCase() : PATTERN;
+        switch (name) {
+            case PATTERN:
+                return null;
+            case JSON:
+                return new JsonLinesEncoder(templateIds);
+            case ECS:
+                return new EcsEncoder();
+            case LOGFMT:
+                return new LogfmtEncoder();
+            default:
+                throw new IllegalArgumentException("Unknown log file format: " + format
+                        + ", expected pattern, json, ecs or logfmt");
+        }
+    }
+}
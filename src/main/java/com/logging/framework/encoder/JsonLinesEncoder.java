@@ -0,0 +1,97 @@
+package com.logging.framework.encoder;
+
+import com.logging.framework.model.LoggingEvent;
+import com.logging.framework.template.MessageTemplate;
+
+import java.util.Map;
+
+/**
+ * Encodes an event as a JSON object on one line, the format {@code json}.
+ * The object is the same as {@link LoggingEvent#toJsonString(boolean)}, field for field, but written
+ * straight into the buffer instead of through a map and an object mapper.
+ */
+public class JsonLinesEncoder implements EventEncoder {
+    
+    private final boolean templateIds;
+    
+    /**
+     * Create a new JsonLinesEncoder.
+     * 
+     * @param templateIds Whether to write status messages as template IDs
+     */
+    public JsonLinesEncoder(boolean templateIds) {
+        this.templateIds = templateIds;
+    }
+    
+    @Override
+    public void encode(LoggingEvent event, EncoderBuffer buffer) {
+        buffer.appendAscii("{\"timestamp\":\"");
+        JsonOutput.writeTimestamp(buffer, event.getTimestamp());
+        buffer.appendAscii("\",\"level\":");
+        JsonOutput.writeString(buffer, event.getLogLevel());
+        buffer.appendAscii(",\"status\":");
+        JsonOutput.writeValue(buffer, event.getStatus());
+        buffer.appendAscii(",\"class\":");
+        JsonOutput.writeString(buffer, event.getClassName());
+        buffer.appendAscii(",\"method\":");
+        JsonOutput.writeString(buffer, event.getMethodName());
+        if (event.getTraceContext() != null) {
+            buffer.appendAscii(",\"trace\":");
+            JsonOutput.writeTrace(buffer, event.getTraceContext());
+        }
+        if (event.getExecutionTimeMs() > 0) {
+            buffer.appendAscii(",\"durationMs\":").appendLong(event.getExecutionTimeMs());
+        }
+        Object[] arguments = event.getArguments();
+        if (arguments != null && arguments.length > 0) {
+            buffer.appendAscii(",\"arguments\":");
+            JsonOutput.writeArguments(buffer, arguments);
+        }
+        if (event.getResult() != null) {
+            buffer.appendAscii(",\"result\":");
+            JsonOutput.writeValue(buffer, event.getResult());
+        }
+        if (event.getKafkaMessageContext() != null) {
+            buffer.appendAscii(",\"kafka\":");
+            JsonOutput.writeKafka(buffer, event.getKafkaMessageContext());
+        }
+        MessageTemplate template = event.getMessageTemplate();
+        if (!event.getAdditionalContext().isEmpty() || template != null) {
+            buffer.appendAscii(",\"context\":{");
+            for (Map.Entry<String, Object> entry : event.getAdditionalContext().entrySet()) {
+                JsonOutput.writeField(buffer, entry.getKey());
+                JsonOutput.writeValue(buffer, entry.getValue());
+            }
+            if (template != null && templateIds) {
+                JsonOutput.writeField(buffer, "messageId");
+                buffer.appendLong(template.getId());
+                if (event.getMessageArgument() != null) {
+                    JsonOutput.writeField(buffer, "messageArg");
+                    JsonOutput.writeValue(buffer, event.getMessageArgument());
+                }
+            } else if (template != null) {
+                JsonOutput.writeField(buffer, "message");
+                JsonOutput.writeString(buffer, event.getMessage());
+            }
+            buffer.append('}');
+        }
+        Throwable exception = event.getException();
+        if (exception != null) {
+            buffer.appendAscii(",\"exception\":\"");
+            JsonOutput.writeStringContent(buffer, exception.getClass().getSimpleName());
+            buffer.append(':').append(' ');
+            JsonOutput.writeStringContent(buffer, String.valueOf(exception.getMessage()));
+            buffer.append('"');
+        }
+        if (event.getStackTrace() != null) {
+            buffer.appendAscii(",\"stackTrace\":");
+            JsonOutput.writeString(buffer, event.getStackTrace());
+        }
+        buffer.append('}');
+    }
+    
+    @Override
+    public boolean usesTemplateIds() {
+        return templateIds;
+    }
+}
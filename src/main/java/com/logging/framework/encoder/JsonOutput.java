@@ -0,0 +1,232 @@
+package com.logging.framework.encoder;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.logging.framework.model.KafkaMessageContext;
+import com.logging.framework.trace.TraceContext;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * JSON writing shared by the JSON based encoders, compatible with the output of Jackson.
+ * Strings, numbers, booleans, maps, collections, trace and Kafka contexts are written straight
+ * into the buffer; any other value is serialized by Jackson into the buffer.
+ */
+final class JsonOutput {
+    
+    private static final byte[] HEX = "0123456789ABCDEF".getBytes();
+    
+    private static final ObjectMapper MAPPER = new ObjectMapper().disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+    
+    private JsonOutput() {
+    }
+    
+    /**
+     * Write a field name and its separator, preceded by a comma unless the object is empty.
+     */
+    static void writeField(EncoderBuffer buffer, String name) {
+        if (buffer.array()[buffer.size() - 1] != '{') {
+            buffer.append(',');
+        }
+        buffer.append('"');
+        writeStringContent(buffer, name);
+        buffer.append('"').append(':');
+    }
+    
+    /**
+     * Write a string, or null.
+     */
+    static void writeString(EncoderBuffer buffer, CharSequence text) {
+        if (text == null) {
+            buffer.appendAscii("null");
+            return;
+        }
+        buffer.append('"');
+        writeStringContent(buffer, text);
+        buffer.append('"');
+    }
+    
+    /**
+     * Write the escaped characters of a string, without quotes.
+     */
+    static void writeStringContent(EncoderBuffer buffer, CharSequence text) {
+        int length = text.length();
+        int start = 0;
+        for (int i = 0; i < length; i++) {
+            char c = text.charAt(i);
+            if (c >= 0x20 && c != '"' && c != '\\') {
+                continue;
+            }
+            buffer.appendUtf8(text, start, i);
+            start = i + 1;
+            buffer.append('\\');
+            switch (c) {
+                case '"':
+                case '\\':
+                    buffer.append(c);
+                    break;
+                case '\b':
+                    buffer.append('b');
+                    break;
+                case '\t':
+                    buffer.append('t');
+                    break;
+                case '\n':
+                    buffer.append('n');
+                    break;
+                case '\f':
+                    buffer.append('f');
+                    break;
+                case '\r':
+                    buffer.append('r');
+                    break;
+                default:
+                    buffer.appendAscii("u00").append(HEX[c >> 4]).append(HEX[c & 0xf]);
+            }
+        }
+        buffer.appendUtf8(text, start, length);
+    }
+    
+    /**
+     * Write a timestamp in the format of {@link LocalDateTime#toString()}, without quotes.
+     */
+    static void writeTimestamp(EncoderBuffer buffer, LocalDateTime timestamp) {
+        buffer.appendPadded(timestamp.getYear(), 4).append('-')
+                .appendPadded(timestamp.getMonthValue(), 2).append('-')
+                .appendPadded(timestamp.getDayOfMonth(), 2).append('T')
+                .appendPadded(timestamp.getHour(), 2).append(':')
+                .appendPadded(timestamp.getMinute(), 2);
+        int second = timestamp.getSecond();
+        int nano = timestamp.getNano();
+        if (second > 0 || nano > 0) {
+            buffer.append(':').appendPadded(second, 2);
+            if (nano > 0) {
+                buffer.append('.');
+                if (nano % 1_000_000 == 0) {
+                    buffer.appendPadded(nano / 1_000_000, 3);
+                } else if (nano % 1000 == 0) {
+                    buffer.appendPadded(nano / 1000, 6);
+                } else {
+                    buffer.appendPadded(nano, 9);
+                }
+            }
+        }
+    }
+    
+    /**
+     * Write a timestamp with seconds and milliseconds always present, {@code yyyy-MM-ddTHH:mm:ss.SSS}, without quotes.
+     */
+    static void writeTimestampMillis(EncoderBuffer buffer, LocalDateTime timestamp) {
+        buffer.appendPadded(timestamp.getYear(), 4).append('-')
+                .appendPadded(timestamp.getMonthValue(), 2).append('-')
+                .appendPadded(timestamp.getDayOfMonth(), 2).append('T')
+                .appendPadded(timestamp.getHour(), 2).append(':')
+                .appendPadded(timestamp.getMinute(), 2).append(':')
+                .appendPadded(timestamp.getSecond(), 2).append('.')
+                .appendPadded(timestamp.getNano() / 1_000_000, 3);
+    }
+    
+    /**
+     * Write the IDs of a trace context as an object.
+     */
+    static void writeTrace(EncoderBuffer buffer, TraceContext trace) {
+        buffer.appendAscii("{\"traceId\":\"").appendHex(trace.getTraceIdHigh(), 16).appendHex(trace.getTraceIdLow(), 16)
+                .appendAscii("\",\"spanId\":\"").appendHex(trace.getSpanId(), 16).append('"');
+        if (trace.getParentSpanId() != 0) {
+            buffer.appendAscii(",\"parentSpanId\":\"").appendHex(trace.getParentSpanId(), 16).append('"');
+        }
+        buffer.append('}');
+    }
+    
+    /**
+     * Write a Kafka message context as an object with the properties Jackson writes for it.
+     */
+    static void writeKafka(EncoderBuffer buffer, KafkaMessageContext context) {
+        buffer.appendAscii("{\"topic\":");
+        writeString(buffer, context.getTopic());
+        buffer.appendAscii(",\"partition\":");
+        writeValue(buffer, context.getPartition());
+        buffer.appendAscii(",\"offset\":");
+        writeValue(buffer, context.getOffset());
+        buffer.appendAscii(",\"key\":");
+        writeString(buffer, context.getKey());
+        buffer.appendAscii(",\"payload\":");
+        writeValue(buffer, context.getPayload());
+        buffer.appendAscii(",\"headers\":");
+        writeValue(buffer, context.getHeaders());
+        buffer.appendAscii(",\"timestamp\":");
+        writeValue(buffer, context.getTimestamp());
+        buffer.appendAscii(",\"timestampType\":");
+        writeString(buffer, context.getTimestampType());
+        buffer.append('}');
+    }
+    
+    /**
+     * Write any value.
+     */
+    static void writeValue(EncoderBuffer buffer, Object value) {
+        if (value == null) {
+            buffer.appendAscii("null");
+        } else if (value instanceof CharSequence) {
+            writeString(buffer, (CharSequence) value);
+        } else if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            buffer.appendLong(((Number) value).longValue());
+        } else if (value instanceof Boolean) {
+            buffer.appendAscii((Boolean) value ? "true" : "false");
+        } else if (value instanceof Enum) {
+            writeString(buffer, ((Enum<?>) value).name());
+        } else if (value instanceof Map) {
+            buffer.append('{');
+            boolean first = true;
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                if (!first) {
+                    buffer.append(',');
+                }
+                first = false;
+                writeString(buffer, String.valueOf(entry.getKey()));
+                buffer.append(':');
+                writeValue(buffer, entry.getValue());
+            }
+            buffer.append('}');
+        } else if (value instanceof Collection) {
+            buffer.append('[');
+            boolean first = true;
+            for (Object element : (Collection<?>) value) {
+                if (!first) {
+                    buffer.append(',');
+                }
+                first = false;
+                writeValue(buffer, element);
+            }
+            buffer.append(']');
+        } else if (value instanceof TraceContext) {
+            writeTrace(buffer, (TraceContext) value);
+        } else if (value instanceof KafkaMessageContext) {
+            writeKafka(buffer, (KafkaMessageContext) value);
+        } else {
+            try {
+                MAPPER.writeValue(buffer, value);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+    
+    /**
+     * Write the arguments of a method in the format of {@link java.util.Arrays#toString(Object[])}, as a string.
+     */
+    static void writeArguments(EncoderBuffer buffer, Object[] arguments) {
+        buffer.append('"').append('[');
+        for (int i = 0; i < arguments.length; i++) {
+            if (i > 0) {
+                buffer.append(',').append(' ');
+            }
+            writeStringContent(buffer, String.valueOf(arguments[i]));
+        }
+        buffer.append(']').append('"');
+    }
+}
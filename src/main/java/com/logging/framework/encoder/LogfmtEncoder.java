@@ -0,0 +1,129 @@
+package com.logging.framework.encoder;
+
+import com.logging.framework.model.KafkaMessageContext;
+import com.logging.framework.model.LoggingEvent;
+import com.logging.framework.trace.TraceContext;
+
+import java.util.Map;
+
+/**
+ * Encodes an event as {@code key=value} pairs on one line, the format {@code logfmt}.
+ * Values with spaces, quotes, equals signs or control characters are quoted, with quotes,
+ * backslashes and line breaks escaped; stack traces therefore stay on the line of their event.
+ * The context is flattened into pairs of its own keys, and other values are written as their
+ * string representation.
+ */
+public class LogfmtEncoder implements EventEncoder {
+    
+    @Override
+    public void encode(LoggingEvent event, EncoderBuffer buffer) {
+        buffer.appendAscii("ts=");
+        JsonOutput.writeTimestampMillis(buffer, event.getTimestamp());
+        writePair(buffer, "level", event.getLogLevel() != null ? event.getLogLevel() : "INFO");
+        if (event.getStatus() != null) {
+            buffer.appendAscii(" status=").appendAscii(event.getStatus().name());
+        }
+        writePair(buffer, "class", event.getClassName());
+        writePair(buffer, "method", event.getMethodName());
+        if (event.getExecutionTimeMs() > 0) {
+            buffer.appendAscii(" duration_ms=").appendLong(event.getExecutionTimeMs());
+        }
+        TraceContext trace = event.getTraceContext();
+        if (trace != null) {
+            buffer.appendAscii(" trace_id=").appendHex(trace.getTraceIdHigh(), 16).appendHex(trace.getTraceIdLow(), 16)
+                    .appendAscii(" span_id=").appendHex(trace.getSpanId(), 16);
+        }
+        KafkaMessageContext kafka = event.getKafkaMessageContext();
+        if (kafka != null) {
+            writePair(buffer, "topic", kafka.getTopic());
+            writePair(buffer, "partition", kafka.getPartition());
+            writePair(buffer, "offset", kafka.getOffset());
+            writePair(buffer, "key", kafka.getKey());
+            writePair(buffer, "payload", kafka.getPayload());
+        }
+        Object[] arguments = event.getArguments();
+        if (arguments != null && arguments.length > 0) {
+            buffer.appendAscii(" args=\"[");
+            for (int i = 0; i < arguments.length; i++) {
+                if (i > 0) {
+                    buffer.append(',').append(' ');
+                }
+                writeEscaped(buffer, String.valueOf(arguments[i]));
+            }
+            buffer.append(']').append('"');
+        }
+        writePair(buffer, "result", event.getResult());
+        for (Map.Entry<String, Object> entry : event.getAdditionalContext().entrySet()) {
+            writePair(buffer, entry.getKey(), entry.getValue());
+        }
+        if (event.getMessageTemplate() != null) {
+            writePair(buffer, "msg", event.getMessage());
+        }
+        Throwable exception = event.getException();
+        if (exception != null) {
+            writePair(buffer, "error", exception.getClass().getName());
+            writePair(buffer, "error_msg", exception.getMessage());
+        }
+        writePair(buffer, "stack_trace", event.getStackTrace());
+    }
+    
+    /**
+     * Write a pair preceded by a space; nothing is written for a null value.
+     */
+    private static void writePair(EncoderBuffer buffer, String key, Object value) {
+        if (value == null) {
+            return;
+        }
+        buffer.append(' ').appendUtf8(key).append('=');
+        if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            buffer.appendLong(((Number) value).longValue());
+        } else {
+            writeValue(buffer, value instanceof CharSequence ? (CharSequence) value : String.valueOf(value));
+        }
+    }
+    
+    private static void writeValue(EncoderBuffer buffer, CharSequence value) {
+        boolean quoted = value.length() == 0;
+        for (int i = 0; i < value.length() && !quoted; i++) {
+            char c = value.charAt(i);
+            quoted = c <= ' ' || c == '"' || c == '=' || c == '\\';
+        }
+        if (quoted) {
+            buffer.append('"');
+            writeEscaped(buffer, value);
+            buffer.append('"');
+        } else {
+            buffer.appendUtf8(value);
+        }
+    }
+    
+    private static void writeEscaped(EncoderBuffer buffer, CharSequence value) {
+        int start = 0;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c >= ' ' && c != '"' && c != '\\') {
+                continue;
+            }
+            buffer.appendUtf8(value, start, i);
+            start = i + 1;
+            switch (c) {
+                case '"':
+                case '\\':
+                    buffer.append('\\').append(c);
+                    break;
+                case '\n':
+                    buffer.append('\\').append('n');
+                    break;
+                case '\r':
+                    buffer.append('\\').append('r');
+                    break;
+                case '\t':
+                    buffer.append('\\').append('t');
+                    break;
+                default:
+                    buffer.append(' ');
+            }
+        }
+        buffer.appendUtf8(value, start, value.length());
+    }
+}
@@ -0,0 +1,119 @@
+package com.logging.framework.exception;
+
+import com.logging.framework.support.IdentitySlots;
+import com.logging.framework.support.VirtualThreads;
+
+import java.lang.ref.WeakReference;
+
+/**
+ * Computes a stable fingerprint for an exception.
+ * The fingerprint is a 64-bit hash of the exception type and its top stack frames, so
+ * the same failure raised for different messages maps to the same value while the
+ * exception message (which usually contains per-message data) is ignored.
+ */
+public final class ExceptionFingerprint {
+    
+    static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    static final long FNV_PRIME = 0x100000001b3L;
+    
+    private static final ThreadLocal<Cached> LAST = new ThreadLocal<>();
+    private static final IdentitySlots<Cached> SHARED = new IdentitySlots<>(256);
+    
+    private ExceptionFingerprint() {
+    }
+    
+    /**
+     * Get the fingerprint of an exception.
+     * The last computed fingerprint is cached per thread, since the same exception
+     * is usually looked at several times while it propagates. Virtual threads use a
+     * shared cache keyed by the exception instead.
+     * 
+     * @param throwable The exception
+     * @param depth The number of top stack frames to include
+     * @return The fingerprint
+     */
+    public static long of(Throwable throwable, int depth) {
+        if (VirtualThreads.isCurrentThreadVirtual()) {
+            Cached shared = SHARED.get(throwable);
+            if (shared != null && shared.depth == depth) {
+                return shared.fingerprint;
+            }
+            long fingerprint = compute(throwable, depth);
+            Cached cached = new Cached();
+            cached.depth = depth;
+            cached.fingerprint = fingerprint;
+            SHARED.put(throwable, cached);
+            return fingerprint;
+        }
+        Cached cached = LAST.get();
+        if (cached != null && cached.throwable.get() == throwable && cached.depth == depth) {
+            return cached.fingerprint;
+        }
+        long fingerprint = compute(throwable, depth);
+        if (cached == null) {
+            cached = new Cached();
+            LAST.set(cached);
+        }
+        cached.throwable = new WeakReference<>(throwable);
+        cached.depth = depth;
+        cached.fingerprint = fingerprint;
+        return fingerprint;
+    }
+    
+    /**
+     * Format a fingerprint for the log output.
+     * 
+     * @param fingerprint The fingerprint
+     * @return The fingerprint as 16 hex digits
+     */
+    public static String toHex(long fingerprint) {
+        String hex = Long.toHexString(fingerprint);
+        return hex.length() == 16 ? hex : "0000000000000000".substring(hex.length()) + hex;
+    }
+    
+    static long compute(Throwable throwable, int depth) {
+        StackTraceElement[] frames = throwable.getStackTrace();
+        return hash(FNV_OFFSET, throwable, frames, Math.min(depth, frames.length));
+    }
+    
+    /**
+     * Hash the type of an exception and its top stack frames into a running FNV-1a hash.
+     * Shared with the {@link StackTraceRenderer} cache key, so both identify a trace the same way.
+     * 
+     * @param hash The hash so far, {@link #FNV_OFFSET} to start a new one
+     * @param throwable The exception
+     * @param frames The stack frames of the exception
+     * @param limit The number of top frames to include
+     * @return The updated hash
+     */
+    static long hash(long hash, Throwable throwable, StackTraceElement[] frames, int limit) {
+        hash = hash(hash, throwable.getClass().getName());
+        for (int i = 0; i < limit; i++) {
+            StackTraceElement frame = frames[i];
+            hash = hash(hash, frame.getClassName());
+            hash = hash(hash, frame.getMethodName());
+            hash = (hash ^ frame.getLineNumber()) * FNV_PRIME;
+        }
+        return hash;
+    }
+    
+    private static long hash(long hash, String value) {
+        if (value == null) {
+            return hash * FNV_PRIME;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            hash = (hash ^ value.charAt(i)) * FNV_PRIME;
+        }
+        return hash;
+    }
+    
+    /**
+     * Last fingerprint computed on a thread, or for an exception in the shared cache.
+     * The exception of a thread is only weakly referenced, so that pooled threads do not keep it alive.
+     */
+    private static class Cached {
+        private WeakReference<Throwable> throwable;
+        private int depth;
+        private long fingerprint;
+    }
+}
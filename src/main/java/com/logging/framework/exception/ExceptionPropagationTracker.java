@@ -0,0 +1,256 @@
+package com.logging.framework.exception;
+
+import com.logging.framework.support.IdentitySlots;
+import com.logging.framework.support.VirtualThreads;
+
+import java.lang.ref.WeakReference;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Tracks exceptions that have already been logged on the current thread.
+ * An exception is serialized once, at the innermost intercepted frame where it is first seen.
+ * Every outer frame it propagates through only appends a "propagated through" breadcrumb.
+ * Exceptions wrapping an already logged cause (for example a ListenerExecutionFailedException)
+ * are treated as the same failure.
+ * Platform threads keep a small ring of logged exceptions each; virtual threads share one
+ * bounded table keyed by exception identity instead of allocating a ring per task. Both only hold
+ * weak references to the exceptions.
+ * The tracking is scoped to one outermost intercepted invocation, such as the processing of one Kafka message:
+ * it is reset when the invocation starts, so that a cached or singleton exception thrown again by a later
+ * invocation is logged again. It is not cleared when the invocation returns, because the container's error
+ * handler still looks the exception up afterwards.
+ */
+public final class ExceptionPropagationTracker {
+    
+    private static final int TRACKED_PER_THREAD = 8;
+    private static final int MAX_CAUSE_DEPTH = 8;
+    private static final int MAX_BREADCRUMBS = 32;
+    private static final int SHARED_SLOTS = 1024;
+    
+    private static final ThreadLocal<Scope> SCOPE = new ThreadLocal<Scope>() {
+        @Override
+        protected Scope initialValue() {
+            return new Scope();
+        }
+    };
+    
+    // Numbers the invocations, so that shared entries of an earlier invocation are not found anymore
+    private static final AtomicLong INVOCATIONS = new AtomicLong();
+    
+    private static final IdentitySlots<Origin> SHARED = new IdentitySlots<>(SHARED_SLOTS);
+    
+    private ExceptionPropagationTracker() {
+    }
+    
+    /**
+     * Enter an intercepted invocation. The tracking is reset if it is the outermost invocation on the thread.
+     * Every call must be followed by a call to {@link #exit()}.
+     */
+    public static void enter() {
+        Scope scope = SCOPE.get();
+        if (scope.depth++ == 0) {
+            scope.reset();
+        }
+    }
+    
+    /**
+     * Exit an intercepted invocation entered with {@link #enter()}.
+     */
+    public static void exit() {
+        Scope scope = SCOPE.get();
+        if (scope.depth > 0) {
+            scope.depth--;
+        }
+    }
+    
+    /**
+     * Forget the exceptions logged on the current thread.
+     */
+    public static void reset() {
+        SCOPE.get().reset();
+    }
+    
+    /**
+     * Get the number of the current outermost intercepted invocation, which scopes per-invocation caches.
+     * 
+     * @return The invocation number, 0 before the first invocation on the thread
+     */
+    static long currentInvocation() {
+        return SCOPE.get().invocation;
+    }
+    
+    /**
+     * Register an exception seen at a frame.
+     * The first sighting records the frame as the origin; later sightings of the same
+     * exception (or of an exception caused by it) append the frame as a breadcrumb.
+     * 
+     * @param exception The exception
+     * @param className The class of the frame
+     * @param methodName The method of the frame
+     * @return True if this is the first sighting and the exception should be logged in full
+     */
+    public static boolean register(Throwable exception, String className, String methodName) {
+        boolean virtual = VirtualThreads.isCurrentThreadVirtual();
+        Origin origin = find(exception, virtual);
+        if (origin != null) {
+            origin.addBreadcrumb(className, methodName);
+            if (lookup(exception, virtual) == null) {
+                // Remember the wrapper as well, so outer frames find it directly
+                remember(exception, origin, virtual);
+            }
+            return false;
+        }
+        remember(exception, new Origin(className, methodName, SCOPE.get().invocation), virtual);
+        return true;
+    }
+    
+    /**
+     * Check whether an exception, or one of its causes, has already been logged on this thread.
+     * 
+     * @param exception The exception
+     * @return True if it has been logged
+     */
+    public static boolean isLogged(Throwable exception) {
+        return find(exception, VirtualThreads.isCurrentThreadVirtual()) != null;
+    }
+    
+    /**
+     * Get the frame where an exception was first logged.
+     * 
+     * @param exception The exception
+     * @return The origin as "Class#method", or null if the exception has not been logged
+     */
+    public static String getOrigin(Throwable exception) {
+        Origin origin = find(exception, VirtualThreads.isCurrentThreadVirtual());
+        return origin != null ? origin.frame : null;
+    }
+    
+    /**
+     * Get the frames an exception has propagated through since it was logged.
+     * 
+     * @param exception The exception
+     * @return The breadcrumbs as "A#a -> B#b", or an empty string
+     */
+    public static String getBreadcrumbs(Throwable exception) {
+        Origin origin = find(exception, VirtualThreads.isCurrentThreadVirtual());
+        return origin != null && origin.breadcrumbs != null ? origin.breadcrumbs.toString() : "";
+    }
+    
+    private static Origin find(Throwable exception, boolean virtual) {
+        Throwable current = exception;
+        for (int depth = 0; current != null && depth < MAX_CAUSE_DEPTH; depth++) {
+            Origin origin = lookup(current, virtual);
+            if (origin != null) {
+                return origin;
+            }
+            Throwable cause = current.getCause();
+            current = cause == current ? null : cause;
+        }
+        return null;
+    }
+    
+    private static Origin lookup(Throwable exception, boolean virtual) {
+        if (virtual) {
+            Origin origin = SHARED.get(exception);
+            return origin != null && origin.threadId == Thread.currentThread().getId()
+                    && origin.invocation == SCOPE.get().invocation ? origin : null;
+        }
+        Entry[] entries = SCOPE.get().entries();
+        for (Entry entry : entries) {
+            if (entry != null && entry.get() == exception) {
+                return entry.origin;
+            }
+        }
+        return null;
+    }
+    
+    private static void remember(Throwable exception, Origin origin, boolean virtual) {
+        if (virtual) {
+            SHARED.put(exception, origin);
+            return;
+        }
+        Scope scope = SCOPE.get();
+        scope.entries()[scope.next] = new Entry(exception, origin);
+        scope.next = (scope.next + 1) % TRACKED_PER_THREAD;
+    }
+    
+    /**
+     * Tracking state of a thread: the depth of intercepted invocations, the number of the outermost one,
+     * and on platform threads the ring of logged exceptions.
+     */
+    private static class Scope {
+        
+        private int depth;
+        private long invocation;
+        private Entry[] entries;
+        private int next;
+        
+        Entry[] entries() {
+            if (entries == null) {
+                entries = new Entry[TRACKED_PER_THREAD];
+            }
+            return entries;
+        }
+        
+        void reset() {
+            invocation = INVOCATIONS.incrementAndGet();
+            if (entries != null) {
+                Arrays.fill(entries, null);
+            }
+            next = 0;
+        }
+    }
+    
+    /**
+     * Slot of the per-thread ring of logged exceptions, weakly referencing the exception.
+     * Wrapper exceptions share the origin of the exception they wrap.
+     */
+    private static class Entry extends WeakReference<Throwable> {
+        
+        private final Origin origin;
+        
+        Entry(Throwable exception, Origin origin) {
+            super(exception);
+            this.origin = origin;
+        }
+    }
+    
+    /**
+     * Frame where an exception was first logged, and the frames it propagated through since.
+     */
+    private static class Origin {
+        
+        private final String frame;
+        private final long threadId = Thread.currentThread().getId();
+        private final long invocation;
+        private String lastClassName;
+        private String lastMethodName;
+        private StringBuilder breadcrumbs;
+        private int breadcrumbCount;
+        
+        Origin(String className, String methodName, long invocation) {
+            this.frame = className + "#" + methodName;
+            this.invocation = invocation;
+            this.lastClassName = className;
+            this.lastMethodName = methodName;
+        }
+        
+        void addBreadcrumb(String className, String methodName) {
+            // Several advices on the same join point report the same frame
+            if (breadcrumbCount >= MAX_BREADCRUMBS
+                    || (methodName.equals(lastMethodName) && className.equals(lastClassName))) {
+                return;
+            }
+            if (breadcrumbs == null) {
+                breadcrumbs = new StringBuilder(64);
+            } else {
+                breadcrumbs.append(" -> ");
+            }
+            breadcrumbs.append(className).append('#').append(methodName);
+            lastClassName = className;
+            lastMethodName = methodName;
+            breadcrumbCount++;
+        }
+    }
+}
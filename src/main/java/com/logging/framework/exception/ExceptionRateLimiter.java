@@ -0,0 +1,280 @@
+package com.logging.framework.exception;
+
+import com.logging.framework.appender.KafkaLoggingFileAppender;
+import com.logging.framework.model.KafkaMessageContext;
+import com.logging.framework.model.LoggingEvent;
+import com.logging.framework.model.MethodExecutionStatus;
+import com.logging.framework.service.LoggingScheduler;
+import com.logging.framework.support.IdentitySlots;
+import com.logging.framework.support.VirtualThreads;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.InitializingBean;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Rate limiter for exception logging, keyed by exception fingerprint.
+ * The first occurrence of a fingerprint in a window is logged with its full stack trace;
+ * further occurrences are only counted, together with a few sample record offsets, and
+ * reported as a single "seen N times" line when the window ends.
+ * Memory is bounded by an LRU of fingerprints.
+ * Summaries are logged outside the lock, so a thread writing one never blocks the others
+ * (and a virtual thread never blocks while pinned to its carrier).
+ */
+public class ExceptionRateLimiter implements InitializingBean {
+    
+    private static final Logger log = LoggerFactory.getLogger(ExceptionRateLimiter.class);
+    
+    private final LoggingScheduler scheduler;
+    private final KafkaLoggingFileAppender fileAppender;
+    private final long windowMs;
+    private final int fingerprintDepth;
+    private final int maxSampleOffsets;
+    private final Map<Long, FingerprintState> states;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final List<FingerprintState> evicted = new ArrayList<>();
+    
+    private final ThreadLocal<LastDecision> lastDecision = new ThreadLocal<>();
+    private final IdentitySlots<SharedDecision> sharedDecisions = new IdentitySlots<>(256);
+    
+    /**
+     * Create a new ExceptionRateLimiter.
+     * 
+     * @param scheduler The scheduler used for the periodic summaries
+     * @param fileAppender The dedicated log file appender, may be null
+     * @param windowMs The window length in milliseconds
+     * @param maxFingerprints The maximum number of fingerprints to track
+     * @param fingerprintDepth The number of stack frames included in the fingerprint
+     * @param maxSampleOffsets The maximum number of sample offsets kept per window
+     */
+    public ExceptionRateLimiter(LoggingScheduler scheduler, KafkaLoggingFileAppender fileAppender,
+                                long windowMs, final int maxFingerprints, int fingerprintDepth, int maxSampleOffsets) {
+        this.scheduler = scheduler;
+        this.fileAppender = fileAppender;
+        this.windowMs = windowMs;
+        this.fingerprintDepth = fingerprintDepth;
+        this.maxSampleOffsets = maxSampleOffsets;
+        this.states = new LinkedHashMap<Long, FingerprintState>(64, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, FingerprintState> eldest) {
+                if (size() > maxFingerprints) {
+                    evicted.add(eldest.getValue());
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+    
+    @Override
+    public void afterPropertiesSet() {
+        if (scheduler != null && windowMs > 0) {
+            scheduler.scheduleAtFixedRate(this::flush, windowMs);
+        }
+    }
+    
+    /**
+     * Decide whether an exception should be logged in full.
+     * The same exception instance seen again on the same thread within the same outermost intercepted
+     * invocation (for example while it propagates through several intercepted methods) gets the same
+     * decision and is counted once. Thrown again for a later message, it is counted again.
+     * 
+     * @param exception The exception
+     * @param context The Kafka message being processed, may be null
+     * @return True if the exception should be logged with its stack trace, false if it is suppressed
+     */
+    public boolean tryAcquire(Throwable exception, KafkaMessageContext context) {
+        boolean virtual = VirtualThreads.isCurrentThreadVirtual();
+        long invocation = ExceptionPropagationTracker.currentInvocation();
+        LastDecision last = null;
+        if (virtual) {
+            SharedDecision shared = sharedDecisions.get(exception);
+            if (shared != null && shared.invocation == invocation
+                    && shared.threadId == Thread.currentThread().getId()) {
+                return shared.allowed;
+            }
+        } else {
+            last = lastDecision.get();
+            if (last != null && last.invocation == invocation && last.exception.get() == exception) {
+                return last.allowed;
+            }
+        }
+        long fingerprint = ExceptionFingerprint.of(exception, fingerprintDepth);
+        boolean allowed;
+        long now = System.currentTimeMillis();
+        List<FingerprintState> toReport = null;
+        lock.lock();
+        try {
+            FingerprintState state = states.get(fingerprint);
+            if (state == null) {
+                state = new FingerprintState(fingerprint, exception);
+                states.put(fingerprint, state);
+            }
+            if (now - state.windowStart >= windowMs) {
+                state.windowStart = now;
+                allowed = true;
+            } else {
+                state.suppressed++;
+                if (context != null && state.sampleOffsets.size() < maxSampleOffsets) {
+                    state.sampleOffsets.add(formatOffset(context));
+                }
+                allowed = false;
+            }
+            if (!evicted.isEmpty()) {
+                toReport = new ArrayList<>(evicted);
+                evicted.clear();
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (toReport != null) {
+            for (FingerprintState state : toReport) {
+                report(state);
+            }
+        }
+        if (virtual) {
+            sharedDecisions.put(exception, new SharedDecision(allowed, invocation));
+            return allowed;
+        }
+        if (last == null) {
+            last = new LastDecision();
+            lastDecision.set(last);
+        }
+        last.exception = new WeakReference<>(exception);
+        last.invocation = invocation;
+        last.allowed = allowed;
+        return allowed;
+    }
+    
+    /**
+     * Get the fingerprint of an exception as used by this rate limiter.
+     * 
+     * @param exception The exception
+     * @return The fingerprint
+     */
+    public long fingerprint(Throwable exception) {
+        return ExceptionFingerprint.of(exception, fingerprintDepth);
+    }
+    
+    /**
+     * Report the suppressed counts of all fingerprints and start new windows.
+     */
+    public void flush() {
+        List<FingerprintState> toReport = new ArrayList<>();
+        lock.lock();
+        try {
+            Iterator<FingerprintState> it = states.values().iterator();
+            while (it.hasNext()) {
+                FingerprintState state = it.next();
+                if (state.suppressed > 0) {
+                    toReport.add(state.copyAndReset());
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+        for (FingerprintState state : toReport) {
+            report(state);
+        }
+    }
+    
+    private void report(FingerprintState state) {
+        if (state.suppressed == 0) {
+            return;
+        }
+        String fingerprint = ExceptionFingerprint.toHex(state.fingerprint);
+        log.warn("Exception {} [fingerprint={}] seen {} more times in the last {}, sample offsets: {}",
+                state.exceptionType, fingerprint, state.suppressed, formatWindow(windowMs), state.sampleOffsets);
+        if (fileAppender != null) {
+            LoggingEvent event = new LoggingEvent();
+            event.setClassName("ExceptionRateLimiter");
+            event.setMethodName("summary");
+            event.setStatus(MethodExecutionStatus.FAILED);
+            event.setLogLevel("WARN");
+            event.addContext("action", "exception_summary");
+            event.addContext("exception", state.exceptionType);
+            event.addContext("fingerprint", fingerprint);
+            event.addContext("count", state.suppressed);
+            event.addContext("sampleOffsets", state.sampleOffsets);
+            fileAppender.log(event);
+        }
+    }
+    
+    /**
+     * Format the window length, in seconds when it is a whole number of seconds and in milliseconds otherwise.
+     * 
+     * @param windowMs The window length in milliseconds
+     * @return The formatted window length
+     */
+    static String formatWindow(long windowMs) {
+        return windowMs % 1000 == 0 ? windowMs / 1000 + "s" : windowMs + "ms";
+    }
+    
+    private static String formatOffset(KafkaMessageContext context) {
+        return context.getTopic() + "-" + context.getPartition() + "@" + context.getOffset();
+    }
+    
+    /**
+     * Window state of one fingerprint.
+     */
+    private static class FingerprintState {
+        
+        private final long fingerprint;
+        private final String exceptionType;
+        private long windowStart = Long.MIN_VALUE / 2;
+        private long suppressed;
+        private List<String> sampleOffsets = new ArrayList<>();
+        
+        FingerprintState(long fingerprint, Throwable exception) {
+            this.fingerprint = fingerprint;
+            this.exceptionType = exception.getClass().getName();
+        }
+        
+        private FingerprintState(FingerprintState other) {
+            this.fingerprint = other.fingerprint;
+            this.exceptionType = other.exceptionType;
+            this.suppressed = other.suppressed;
+            this.sampleOffsets = other.sampleOffsets;
+        }
+        
+        FingerprintState copyAndReset() {
+            FingerprintState copy = new FingerprintState(this);
+            suppressed = 0;
+            sampleOffsets = new ArrayList<>();
+            return copy;
+        }
+    }
+    
+    /**
+     * Last decision taken on a thread.
+     * The exception is only weakly referenced, so that pooled consumer threads do not keep it,
+     * its cause chain and whatever it references alive until their next failure.
+     */
+    private static class LastDecision {
+        private WeakReference<Throwable> exception;
+        private long invocation;
+        private boolean allowed;
+    }
+    
+    /**
+     * Decision taken for an exception on a virtual thread, kept in the shared table.
+     */
+    private static class SharedDecision {
+        
+        private final boolean allowed;
+        private final long invocation;
+        private final long threadId = Thread.currentThread().getId();
+        
+        SharedDecision(boolean allowed, long invocation) {
+            this.allowed = allowed;
+            this.invocation = invocation;
+        }
+    }
+}
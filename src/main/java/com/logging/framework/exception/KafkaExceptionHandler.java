@@ -1,5 +1,6 @@
 package com.logging.framework.exception;
 
+import com.logging.framework.aspect.ApplicationPointcuts;
 import com.logging.framework.model.KafkaMessageContext;
 import com.logging.framework.service.LoggingService;
 import org.aspectj.lang.JoinPoint;
@@ -35,6 +36,10 @@ public class KafkaExceptionHandler {
      */
     @AfterThrowing(pointcut = "@annotation(org.springframework.kafka.annotation.KafkaListener)", throwing = "exception")
     public void handleKafkaListenerException(JoinPoint joinPoint, Throwable exception) {
+        if (loggingService == null) {
+            return;
+        }
+        
         MethodSignature signature = (MethodSignature) joinPoint.getSignature();
         Method method = signature.getMethod();
         String className = signature.getDeclaringType().getSimpleName();
@@ -55,12 +60,18 @@ public class KafkaExceptionHandler {
     /**
      * Handle exceptions thrown by any method.
      * This advice is triggered after an exception is thrown by any method.
+     * Only methods of application classes are advised, see {@link ApplicationPointcuts#applicationMethod()}.
      * 
      * @param joinPoint The join point where the exception was thrown
      * @param exception The exception that was thrown
      */
-    @AfterThrowing(pointcut = "execution(* *(..))", throwing = "exception")
+    @AfterThrowing(pointcut = "com.logging.framework.aspect.ApplicationPointcuts.applicationMethod()",
+            throwing = "exception")
     public void handleGeneralException(JoinPoint joinPoint, Throwable exception) {
+        if (loggingService == null) {
+            return;
+        }
+        
         MethodSignature signature = (MethodSignature) joinPoint.getSignature();
         Method method = signature.getMethod();
         String className = signature.getDeclaringType().getSimpleName();
@@ -30,20 +30,11 @@ public class LoggingErrorHandler implements ErrorHandler {
         int partition = data.partition();
         long offset = data.offset();
         Object key = data.key();
-        Object value = data.value();
         
-        log.error("Error while processing Kafka message: topic={}, partition={}, offset={}, key={}",
-                topic, partition, offset, key, thrownException);
+        logError(topic, partition, offset, key, thrownException);
         
         // Create Kafka message context
-        KafkaMessageContext context = new KafkaMessageContext();
-        context.setTopic(topic);
-        context.setPartition(partition);
-        context.setOffset(offset);
-        if (key instanceof String) {
-            context.setKey((String) key);
-        }
-        context.setPayload(value);
+        KafkaMessageContext context = KafkaMessageContext.fromConsumerRecord(data);
         
         // Log exception with context
         loggingService.logException("KafkaConsumer", "onMessage", thrownException, new Object[]{context});
@@ -64,8 +55,7 @@ public class LoggingErrorHandler implements ErrorHandler {
         Object key = headers.get(KafkaHeaders.RECEIVED_KEY);
         Object payload = message.getPayload();
         
-        log.error("Error while processing Kafka message: topic={}, partition={}, offset={}, key={}",
-                topic, partition, offset, key, exception);
+        logError(topic, partition, offset, key, exception);
         
         // Create Kafka message context
         KafkaMessageContext context = KafkaMessageContext.fromMessageHeaders(headers, payload);
@@ -73,4 +63,28 @@ public class LoggingErrorHandler implements ErrorHandler {
         // Log exception with context
         loggingService.logException("KafkaConsumer", "onMessage", exception, new Object[]{context});
     }
+    
+    /**
+     * Log a listener error.
+     * The stack trace is omitted when the exception was already logged where it was thrown;
+     * the line then refers to that origin and the frames the exception propagated through.
+     * 
+     * @param topic The topic of the record
+     * @param partition The partition of the record
+     * @param offset The offset of the record
+     * @param key The key of the record
+     * @param exception The exception that was thrown
+     */
+    private void logError(String topic, Integer partition, Long offset, Object key, Exception exception) {
+        if (ExceptionPropagationTracker.isLogged(exception)) {
+            log.error("Error while processing Kafka message: topic={}, partition={}, offset={}, key={} - {} " +
+                            "(logged in [{}], propagated through [{}])",
+                    topic, partition, offset, key, exception,
+                    ExceptionPropagationTracker.getOrigin(exception),
+                    ExceptionPropagationTracker.getBreadcrumbs(exception));
+        } else {
+            log.error("Error while processing Kafka message: topic={}, partition={}, offset={}, key={}",
+                    topic, partition, offset, key, exception);
+        }
+    }
 }
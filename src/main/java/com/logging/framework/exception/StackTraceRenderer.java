@@ -0,0 +1,185 @@
+package com.logging.framework.exception;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Renders compact stack traces for the dedicated log file.
+ * Framework frames (Spring AOP, CGLIB proxies, reflection and the logging aspects themselves)
+ * are filtered out, the number of frames per exception is capped, frames shared with the
+ * enclosing exception are collapsed, and the rendered frames are cached per trace fingerprint,
+ * so an exception thrown repeatedly from the same place is only formatted once.
+ * Intended to run on the writer thread, not on the consumer thread.
+ */
+public class StackTraceRenderer {
+    
+    /**
+     * Frame prefixes filtered by default.
+     */
+    public static final List<String> DEFAULT_FILTERED_PREFIXES = Arrays.asList(
+            "org.springframework.aop.",
+            "org.springframework.cglib.",
+            "net.sf.cglib.",
+            "org.aspectj.",
+            "sun.reflect.",
+            "jdk.internal.reflect.",
+            "java.lang.reflect.Method",
+            "com.logging.framework.aspect.",
+            "com.logging.framework.exception.KafkaExceptionHandler");
+    
+    private static final int MAX_CAUSES = 10;
+    
+    private final String[] filteredPrefixes;
+    private final int maxFrames;
+    private final Map<Long, String[]> cache;
+    private final ReentrantLock lock = new ReentrantLock();
+    
+    /**
+     * Create a new StackTraceRenderer.
+     * 
+     * @param additionalFilteredPrefixes Frame prefixes to filter in addition to the defaults
+     * @param maxFrames Maximum number of frames rendered per exception in the chain
+     * @param cacheSize Maximum number of rendered traces kept in the cache
+     */
+    public StackTraceRenderer(List<String> additionalFilteredPrefixes, int maxFrames, final int cacheSize) {
+        List<String> prefixes = new ArrayList<>(DEFAULT_FILTERED_PREFIXES);
+        if (additionalFilteredPrefixes != null) {
+            prefixes.addAll(additionalFilteredPrefixes);
+        }
+        this.filteredPrefixes = prefixes.toArray(new String[0]);
+        this.maxFrames = maxFrames;
+        this.cache = new LinkedHashMap<Long, String[]>(64, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, String[]> eldest) {
+                return size() > cacheSize;
+            }
+        };
+    }
+    
+    /**
+     * Render the stack trace of an exception, including its causes.
+     * 
+     * @param throwable The exception
+     * @return The rendered stack trace
+     */
+    public String render(Throwable throwable) {
+        List<Throwable> chain = causeChain(throwable);
+        List<StackTraceElement[]> traces = new ArrayList<>(chain.size());
+        long fingerprint = ExceptionFingerprint.FNV_OFFSET;
+        for (Throwable t : chain) {
+            StackTraceElement[] frames = t.getStackTrace();
+            traces.add(frames);
+            // All frames of every exception in the chain, unlike the rate limiting fingerprint
+            fingerprint = ExceptionFingerprint.hash(fingerprint, t, frames, frames.length);
+            fingerprint = (fingerprint ^ frames.length) * ExceptionFingerprint.FNV_PRIME;
+        }
+        
+        String[] blocks;
+        lock.lock();
+        try {
+            blocks = cache.get(fingerprint);
+        } finally {
+            lock.unlock();
+        }
+        if (blocks == null) {
+            blocks = renderBlocks(traces);
+            lock.lock();
+            try {
+                cache.put(fingerprint, blocks);
+            } finally {
+                lock.unlock();
+            }
+        }
+        
+        StringBuilder sb = new StringBuilder(256);
+        for (int i = 0; i < chain.size(); i++) {
+            if (i > 0) {
+                sb.append("Caused by: ");
+            }
+            sb.append(chain.get(i)).append('\n');
+            sb.append(blocks[i]);
+        }
+        return sb.toString();
+    }
+    
+    private String[] renderBlocks(List<StackTraceElement[]> traces) {
+        String[] blocks = new String[traces.size()];
+        for (int level = 0; level < traces.size(); level++) {
+            StackTraceElement[] frames = traces.get(level);
+            int common = level > 0 ? commonFrames(frames, traces.get(level - 1)) : 0;
+            int end = frames.length - common;
+            StringBuilder sb = new StringBuilder(512);
+            int rendered = 0;
+            int filtered = 0;
+            int i = 0;
+            for (; i < end && rendered < maxFrames; i++) {
+                if (isFiltered(frames[i])) {
+                    filtered++;
+                    continue;
+                }
+                if (filtered > 0) {
+                    sb.append("\t... ").append(filtered).append(" framework frames filtered\n");
+                    filtered = 0;
+                }
+                sb.append("\tat ").append(frames[i]).append('\n');
+                rendered++;
+            }
+            if (filtered > 0) {
+                sb.append("\t... ").append(filtered).append(" framework frames filtered\n");
+            }
+            if (i < end) {
+                sb.append("\t... ").append(end - i).append(" more frames truncated\n");
+            }
+            if (common > 0) {
+                sb.append("\t... ").append(common).append(" common frames omitted\n");
+            }
+            blocks[level] = sb.toString();
+        }
+        return blocks;
+    }
+    
+    private boolean isFiltered(StackTraceElement frame) {
+        String className = frame.getClassName();
+        if (className.contains("$$EnhancerBySpringCGLIB$$") || className.contains("$$SpringCGLIB$$")
+                || className.startsWith("com.sun.proxy.$Proxy")) {
+            return true;
+        }
+        for (String prefix : filteredPrefixes) {
+            if (className.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    private static int commonFrames(StackTraceElement[] frames, StackTraceElement[] enclosing) {
+        int m = frames.length - 1;
+        int n = enclosing.length - 1;
+        int common = 0;
+        while (m >= 0 && n >= 0 && frames[m].equals(enclosing[n])) {
+            m--;
+            n--;
+            common++;
+        }
+        return common;
+    }
+    
+    private static List<Throwable> causeChain(Throwable throwable) {
+        List<Throwable> chain = new ArrayList<>(2);
+        Throwable current = throwable;
+        while (current != null && chain.size() < MAX_CAUSES) {
+            for (Throwable seen : chain) {
+                if (seen == current) {
+                    return chain;
+                }
+            }
+            chain.add(current);
+            current = current.getCause();
+        }
+        return chain;
+    }
+}
@@ -0,0 +1,255 @@
+package com.logging.framework.index;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Annotation processor writing the logging method index.
+ * Records every method annotated with @LogMethod, @LogKafkaConsumer or @KafkaListener and every
+ * class annotated with @LogMethodPattern, with all annotation attributes resolved (defaults included),
+ * to {@link LoggingMethodIndex#INDEX_LOCATION}. The framework reads the index at startup instead of
+ * scanning the application context and reflecting on the intercepted methods.
+ * <p>
+ * The processor is registered as a service of the framework jar, so javac runs it for every module
+ * compiled against the framework. When the compiler is given explicit annotation processor paths,
+ * the framework has to be added to them.
+ */
+public class LoggingIndexProcessor extends AbstractProcessor {
+    
+    static final String LOG_METHOD = "com.logging.framework.annotation.LogMethod";
+    static final String LOG_KAFKA_CONSUMER = "com.logging.framework.annotation.LogKafkaConsumer";
+    static final String LOG_METHOD_PATTERN = "com.logging.framework.annotation.LogMethodPattern";
+    static final String KAFKA_LISTENER = "org.springframework.kafka.annotation.KafkaListener";
+    
+    private static final String PAYLOAD = "org.springframework.messaging.handler.annotation.Payload";
+    private static final String HEADERS = "org.springframework.messaging.handler.annotation.Headers";
+    
+    private final Map<String, String> methods = new LinkedHashMap<>();
+    private final Map<String, String> patternClasses = new LinkedHashMap<>();
+    
+    @Override
+    public Set<String> getSupportedAnnotationTypes() {
+        return new HashSet<>(Arrays.asList(LOG_METHOD, LOG_KAFKA_CONSUMER, LOG_METHOD_PATTERN, KAFKA_LISTENER));
+    }
+    
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+    
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        for (TypeElement annotation : annotations) {
+            for (Element element : roundEnv.getElementsAnnotatedWith(annotation)) {
+                if (element.getKind() == ElementKind.METHOD) {
+                    ExecutableElement method = (ExecutableElement) element;
+                    methods.put(methodKey(method), methodEntry(method));
+                } else if (element.getKind().isClass() 
+                        && annotation.getQualifiedName().contentEquals(LOG_METHOD_PATTERN)) {
+                    TypeElement type = (TypeElement) element;
+                    patternClasses.put(binaryName(type), patternClassEntry(type));
+                }
+            }
+        }
+        if (roundEnv.processingOver() && !(methods.isEmpty() && patternClasses.isEmpty())) {
+            writeIndex();
+        }
+        return false;
+    }
+    
+    private String methodEntry(ExecutableElement method) {
+        TypeElement type = (TypeElement) method.getEnclosingElement();
+        StringBuilder json = new StringBuilder("{");
+        field(json, "className", binaryName(type)).append(',');
+        field(json, "methodName", method.getSimpleName().toString()).append(',');
+        json.append("\"parameterTypes\":[");
+        List<? extends VariableElement> parameters = method.getParameters();
+        for (int i = 0; i < parameters.size(); i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            string(json, typeName(parameters.get(i).asType()));
+        }
+        json.append("],\"payloadIndex\":").append(parameterIndex(parameters, PAYLOAD));
+        json.append(",\"headersIndex\":").append(parameterIndex(parameters, HEADERS));
+        for (AnnotationMirror mirror : method.getAnnotationMirrors()) {
+            String name = annotationName(mirror);
+            if (LOG_METHOD.equals(name)) {
+                json.append(",\"logMethod\":");
+                attributes(json, mirror);
+            } else if (LOG_KAFKA_CONSUMER.equals(name)) {
+                json.append(",\"logKafkaConsumer\":");
+                attributes(json, mirror);
+            } else if (KAFKA_LISTENER.equals(name)) {
+                json.append(",\"kafkaListener\":");
+                attributes(json, mirror, "id", "topics", "topicPattern", "groupId");
+            }
+        }
+        return json.append('}').toString();
+    }
+    
+    private String patternClassEntry(TypeElement type) {
+        StringBuilder json = new StringBuilder("{");
+        field(json, "className", binaryName(type));
+        for (AnnotationMirror mirror : type.getAnnotationMirrors()) {
+            if (LOG_METHOD_PATTERN.equals(annotationName(mirror))) {
+                json.append(",\"logMethodPattern\":");
+                attributes(json, mirror);
+            }
+        }
+        return json.append('}').toString();
+    }
+    
+    private void writeIndex() {
+        try {
+            FileObject resource = processingEnv.getFiler()
+                    .createResource(StandardLocation.CLASS_OUTPUT, "", LoggingMethodIndex.INDEX_LOCATION);
+            try (Writer writer = new OutputStreamWriter(resource.openOutputStream(), StandardCharsets.UTF_8)) {
+                writer.write("{\"version\":" + LoggingMethodIndex.VERSION + ",\n\"methods\":[");
+                writeEntries(writer, methods.values());
+                writer.write("],\n\"patternClasses\":[");
+                writeEntries(writer, patternClasses.values());
+                writer.write("]}\n");
+            }
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.WARNING,
+                    "Unable to write " + LoggingMethodIndex.INDEX_LOCATION + ": " + e.getMessage());
+        }
+    }
+    
+    private static void writeEntries(Writer writer, Iterable<String> entries) throws IOException {
+        boolean first = true;
+        for (String entry : entries) {
+            writer.write(first ? "\n" : ",\n");
+            writer.write(entry);
+            first = false;
+        }
+    }
+    
+    private void attributes(StringBuilder json, AnnotationMirror mirror, String... only) {
+        List<String> names = Arrays.asList(only);
+        Map<? extends ExecutableElement, ? extends AnnotationValue> values =
+                processingEnv.getElementUtils().getElementValuesWithDefaults(mirror);
+        json.append('{');
+        boolean first = true;
+        for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry : values.entrySet()) {
+            String name = entry.getKey().getSimpleName().toString();
+            if (!names.isEmpty() && !names.contains(name)) {
+                continue;
+            }
+            if (!first) {
+                json.append(',');
+            }
+            string(json, name).append(':');
+            value(json, entry.getValue().getValue());
+            first = false;
+        }
+        json.append('}');
+    }
+    
+    private static void value(StringBuilder json, Object value) {
+        if (value instanceof List) {
+            json.append('[');
+            List<?> values = (List<?>) value;
+            for (int i = 0; i < values.size(); i++) {
+                if (i > 0) {
+                    json.append(',');
+                }
+                value(json, ((AnnotationValue) values.get(i)).getValue());
+            }
+            json.append(']');
+        } else if (value instanceof Boolean || value instanceof Number) {
+            json.append(value);
+        } else {
+            string(json, String.valueOf(value));
+        }
+    }
+    
+    private static int parameterIndex(List<? extends VariableElement> parameters, String annotation) {
+        for (int i = 0; i < parameters.size(); i++) {
+            for (AnnotationMirror mirror : parameters.get(i).getAnnotationMirrors()) {
+                if (annotation.equals(annotationName(mirror))) {
+                    return i;
+                }
+            }
+        }
+        return -1;
+    }
+    
+    private String methodKey(ExecutableElement method) {
+        List<String> parameterTypes = new ArrayList<>();
+        for (VariableElement parameter : method.getParameters()) {
+            parameterTypes.add(typeName(parameter.asType()));
+        }
+        return LoggingMethodIndex.key(binaryName((TypeElement) method.getEnclosingElement()),
+                method.getSimpleName().toString(), parameterTypes);
+    }
+    
+    /**
+     * Get the name of a type as returned by {@link LoggingMethodIndex#typeName(Class)} at runtime.
+     */
+    private String typeName(TypeMirror type) {
+        TypeMirror erased = processingEnv.getTypeUtils().erasure(type);
+        if (erased.getKind() == TypeKind.ARRAY) {
+            return typeName(((ArrayType) erased).getComponentType()) + "[]";
+        }
+        if (erased.getKind() == TypeKind.DECLARED) {
+            return binaryName((TypeElement) ((DeclaredType) erased).asElement());
+        }
+        return erased.toString();
+    }
+    
+    private String binaryName(TypeElement type) {
+        return processingEnv.getElementUtils().getBinaryName(type).toString();
+    }
+    
+    private static String annotationName(AnnotationMirror mirror) {
+        return ((TypeElement) mirror.getAnnotationType().asElement()).getQualifiedName().toString();
+    }
+    
+    private static StringBuilder field(StringBuilder json, String name, String value) {
+        string(json, name).append(':');
+        return string(json, value);
+    }
+    
+    private static StringBuilder string(StringBuilder json, String value) {
+        json.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                json.append('\\').append(c);
+            } else if (c < 0x20) {
+                json.append(String.format("\\u%04x", (int) c));
+            } else {
+                json.append(c);
+            }
+        }
+        return json.append('"');
+    }
+}
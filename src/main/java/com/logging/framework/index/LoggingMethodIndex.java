@@ -0,0 +1,206 @@
+package com.logging.framework.index;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Logging method index written at compile time by {@link LoggingIndexProcessor}.
+ * All index resources on the classpath are merged, so every jar compiled with the
+ * processor contributes its own methods and pattern classes.
+ */
+public class LoggingMethodIndex {
+    
+    private static final Logger log = LoggerFactory.getLogger(LoggingMethodIndex.class);
+    
+    /**
+     * Location of the index resources.
+     */
+    public static final String INDEX_LOCATION = "META-INF/kafka-logging-index.json";
+    
+    static final int VERSION = 1;
+    
+    private static final LoggingMethodIndex EMPTY = new LoggingMethodIndex(
+            Collections.<String, JsonNode>emptyMap(), Collections.<PatternClass>emptyList(), 0);
+    
+    private final Map<String, JsonNode> methods;
+    private final List<PatternClass> patternClasses;
+    private final int resourceCount;
+    
+    private LoggingMethodIndex(Map<String, JsonNode> methods, List<PatternClass> patternClasses, int resourceCount) {
+        this.methods = methods;
+        this.patternClasses = patternClasses;
+        this.resourceCount = resourceCount;
+    }
+    
+    /**
+     * Get an index without entries.
+     * 
+     * @return The empty index
+     */
+    public static LoggingMethodIndex empty() {
+        return EMPTY;
+    }
+    
+    /**
+     * Load and merge all index resources visible to a class loader.
+     * Resources that cannot be read are logged and skipped.
+     * 
+     * @param classLoader The class loader, or null for the default one
+     * @return The index, empty if no resource was found
+     */
+    public static LoggingMethodIndex load(ClassLoader classLoader) {
+        ClassLoader loader = classLoader != null ? classLoader : LoggingMethodIndex.class.getClassLoader();
+        Map<String, JsonNode> methods = new HashMap<>();
+        List<PatternClass> patternClasses = new ArrayList<>();
+        int resourceCount = 0;
+        ObjectMapper objectMapper = new ObjectMapper();
+        try {
+            Enumeration<URL> resources = loader.getResources(INDEX_LOCATION);
+            while (resources.hasMoreElements()) {
+                URL url = resources.nextElement();
+                try (InputStream in = url.openStream()) {
+                    JsonNode root = objectMapper.readTree(in);
+                    if (root.path("version").asInt() != VERSION) {
+                        log.warn("Ignoring logging method index {} with unsupported version {}", url, root.path("version"));
+                        continue;
+                    }
+                    for (JsonNode method : root.path("methods")) {
+                        methods.put(key(method), method);
+                    }
+                    for (JsonNode patternClass : root.path("patternClasses")) {
+                        patternClasses.add(new PatternClass(patternClass));
+                    }
+                    resourceCount++;
+                } catch (IOException e) {
+                    log.warn("Unable to read logging method index {}", url, e);
+                }
+            }
+        } catch (IOException e) {
+            log.warn("Unable to look up logging method indexes", e);
+        }
+        if (resourceCount == 0) {
+            return EMPTY;
+        }
+        log.debug("Loaded logging method index from {} resources: {} methods, {} pattern classes",
+                resourceCount, methods.size(), patternClasses.size());
+        return new LoggingMethodIndex(methods, Collections.unmodifiableList(patternClasses), resourceCount);
+    }
+    
+    /**
+     * Check whether at least one index resource was found.
+     * 
+     * @return True if the index was loaded from the classpath
+     */
+    public boolean isPresent() {
+        return resourceCount > 0;
+    }
+    
+    /**
+     * Get the number of indexed methods.
+     * 
+     * @return The number of methods
+     */
+    public int getMethodCount() {
+        return methods.size();
+    }
+    
+    /**
+     * Get the classes annotated with @LogMethodPattern.
+     * 
+     * @return The pattern classes
+     */
+    public List<PatternClass> getPatternClasses() {
+        return patternClasses;
+    }
+    
+    /**
+     * Get the index entry of a method.
+     * 
+     * @param className The binary name of the declaring class
+     * @param methodName The method name
+     * @param parameterTypes The parameter types
+     * @return The entry, or null if the method is not indexed
+     */
+    JsonNode getMethod(String className, String methodName, Class<?>[] parameterTypes) {
+        if (methods.isEmpty()) {
+            return null;
+        }
+        List<String> names = new ArrayList<>(parameterTypes.length);
+        for (Class<?> parameterType : parameterTypes) {
+            names.add(typeName(parameterType));
+        }
+        return methods.get(key(className, methodName, names));
+    }
+    
+    static String key(String className, String methodName, List<String> parameterTypes) {
+        return className + "#" + methodName + "(" + String.join(",", parameterTypes) + ")";
+    }
+    
+    private static String key(JsonNode method) {
+        List<String> parameterTypes = new ArrayList<>();
+        for (JsonNode parameterType : method.path("parameterTypes")) {
+            parameterTypes.add(parameterType.asText());
+        }
+        return key(method.path("className").asText(), method.path("methodName").asText(), parameterTypes);
+    }
+    
+    /**
+     * Get the name of a parameter type as written by the processor.
+     * Arrays are written as the component type followed by [], other types by their binary name.
+     * 
+     * @param type The type
+     * @return The type name
+     */
+    static String typeName(Class<?> type) {
+        return type.isArray() ? typeName(type.getComponentType()) + "[]" : type.getName();
+    }
+    
+    /**
+     * Class annotated with @LogMethodPattern.
+     */
+    public static class PatternClass {
+        
+        private final String className;
+        private final List<String> include;
+        private final List<String> exclude;
+        
+        PatternClass(JsonNode entry) {
+            this.className = entry.path("className").asText();
+            JsonNode pattern = entry.path("logMethodPattern");
+            this.include = strings(pattern.path("value"));
+            this.exclude = strings(pattern.path("exclude"));
+        }
+        
+        public String getClassName() {
+            return className;
+        }
+        
+        public List<String> getInclude() {
+            return include;
+        }
+        
+        public List<String> getExclude() {
+            return exclude;
+        }
+    }
+    
+    static List<String> strings(JsonNode array) {
+        List<String> values = new ArrayList<>();
+        for (JsonNode value : array) {
+            values.add(value.asText());
+        }
+        return values;
+    }
+}
@@ -0,0 +1,475 @@
+package com.logging.framework.index;
+
+import ch.qos.logback.classic.Level;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.logging.framework.annotation.LogKafkaConsumer;
+import com.logging.framework.annotation.LogMethod;
+import com.logging.framework.sampling.Sampler;
+import com.logging.framework.support.AsyncResults;
+import com.logging.framework.template.MessageTemplate;
+import com.logging.framework.template.MessageTemplates;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.messaging.handler.annotation.Headers;
+import org.springframework.messaging.handler.annotation.Payload;
+import org.springframework.util.StringValueResolver;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * Logging metadata of an intercepted method, resolved once and reused for every call.
+ * Built from the compile-time index when the method is indexed and by reflection otherwise.
+ * Annotation levels are parsed once into logback level values; the level threshold is changed at
+ * runtime by {@link com.logging.framework.level.LogLevelControl} and read on every call.
+ * The sampler is assigned by {@link com.logging.framework.sampling.MethodSampling} when the method is registered.
+ * The status messages of the method are interned as templates here, once, from its description.
+ */
+public final class MethodMetadata {
+    
+    private final String className;
+    private final String simpleClassName;
+    private final String qualifiedMethodName;
+    private final String methodName;
+    private final boolean indexed;
+    private final boolean asyncReturnType;
+    
+    private boolean logMethod;
+    private String logMethodLevel = "INFO";
+    private int logMethodLevelValue = Level.INFO_INT;
+    private boolean includeArgs = true;
+    private boolean includeResult = true;
+    private boolean logExecutionTime = true;
+    private String description = "Executing method";
+    private MessageTemplate startedTemplate;
+    private MessageTemplate completedTemplate;
+    private MessageTemplate cancelledTemplate;
+    private MessageTemplate failedTemplate;
+    
+    private String kafkaConsumerLevel = "INFO";
+    private int kafkaConsumerLevelValue = Level.INFO_INT;
+    private String[] listenerTopicNames = new String[0];
+    private String listenerTopics;
+    private String listenerTopicPatternSource;
+    private Pattern listenerTopicPattern;
+    private int payloadIndex = -1;
+    private int headersIndex = -1;
+    
+    private String sampling = "";
+    private Sampler sampler;
+    
+    private volatile int levelThreshold = Level.ALL_INT;
+    
+    private MethodMetadata(Method method, boolean indexed) {
+        this.className = method.getDeclaringClass().getName();
+        this.simpleClassName = method.getDeclaringClass().getSimpleName();
+        this.qualifiedMethodName = method.getDeclaringClass().getName() + "." + method.getName();
+        this.methodName = method.getName();
+        this.indexed = indexed;
+        this.asyncReturnType = AsyncResults.isAsyncType(method.getReturnType());
+        setDescription("");
+    }
+    
+    /**
+     * Resolve the metadata of a method from its annotations.
+     * 
+     * @param method The method
+     * @return The metadata
+     */
+    static MethodMetadata reflect(Method method) {
+        MethodMetadata metadata = new MethodMetadata(method, false);
+        LogMethod logMethod = method.getAnnotation(LogMethod.class);
+        if (logMethod != null) {
+            metadata.logMethod = true;
+            metadata.setLogMethodLevel(logMethod.level());
+            metadata.includeArgs = logMethod.includeArgs();
+            metadata.includeResult = logMethod.includeResult();
+            metadata.logExecutionTime = logMethod.logExecutionTime();
+            metadata.setDescription(logMethod.description());
+            metadata.sampling = logMethod.sampling();
+        }
+        LogKafkaConsumer logKafkaConsumer = method.getAnnotation(LogKafkaConsumer.class);
+        if (logKafkaConsumer != null) {
+            metadata.setKafkaConsumerLevel(logKafkaConsumer.level());
+            metadata.setSampling(logKafkaConsumer.sampling());
+        }
+        KafkaListener kafkaListener = method.getAnnotation(KafkaListener.class);
+        if (kafkaListener != null) {
+            metadata.setListenerTopics(Arrays.asList(kafkaListener.topics()), kafkaListener.topicPattern());
+        }
+        Annotation[][] parameterAnnotations = method.getParameterAnnotations();
+        for (int i = 0; i < parameterAnnotations.length; i++) {
+            for (Annotation annotation : parameterAnnotations[i]) {
+                if (annotation instanceof Payload && metadata.payloadIndex < 0) {
+                    metadata.payloadIndex = i;
+                } else if (annotation instanceof Headers && metadata.headersIndex < 0) {
+                    metadata.headersIndex = i;
+                }
+            }
+        }
+        return metadata;
+    }
+    
+    /**
+     * Resolve the metadata of a method from its index entry.
+     * 
+     * @param method The method
+     * @param entry The index entry of the method
+     * @return The metadata
+     */
+    static MethodMetadata fromIndex(Method method, JsonNode entry) {
+        MethodMetadata metadata = new MethodMetadata(method, true);
+        JsonNode logMethod = entry.path("logMethod");
+        if (!logMethod.isMissingNode()) {
+            metadata.logMethod = true;
+            metadata.setLogMethodLevel(logMethod.path("level").asText("INFO"));
+            metadata.includeArgs = logMethod.path("includeArgs").asBoolean(true);
+            metadata.includeResult = logMethod.path("includeResult").asBoolean(true);
+            metadata.logExecutionTime = logMethod.path("logExecutionTime").asBoolean(true);
+            metadata.setDescription(logMethod.path("description").asText(""));
+            metadata.sampling = logMethod.path("sampling").asText("");
+        }
+        JsonNode logKafkaConsumer = entry.path("logKafkaConsumer");
+        if (!logKafkaConsumer.isMissingNode()) {
+            metadata.setKafkaConsumerLevel(logKafkaConsumer.path("level").asText("INFO"));
+            metadata.setSampling(logKafkaConsumer.path("sampling").asText(""));
+        }
+        JsonNode kafkaListener = entry.path("kafkaListener");
+        if (!kafkaListener.isMissingNode()) {
+            metadata.setListenerTopics(LoggingMethodIndex.strings(kafkaListener.path("topics")),
+                    kafkaListener.path("topicPattern").asText(""));
+        }
+        metadata.payloadIndex = entry.path("payloadIndex").asInt(-1);
+        metadata.headersIndex = entry.path("headersIndex").asInt(-1);
+        return metadata;
+    }
+    
+    /**
+     * Get the logback level value of a level name, as compared with the level threshold.
+     * 
+     * @param level The level name
+     * @return The level value, INFO for unknown names
+     */
+    public static int levelValue(String level) {
+        return Level.toLevel(level, Level.INFO).toInt();
+    }
+    
+    private void setLogMethodLevel(String level) {
+        this.logMethodLevel = level;
+        this.logMethodLevelValue = levelValue(level);
+    }
+    
+    private void setKafkaConsumerLevel(String level) {
+        this.kafkaConsumerLevel = level;
+        this.kafkaConsumerLevelValue = levelValue(level);
+    }
+    
+    private void setSampling(String sampling) {
+        // Sampling of @LogKafkaConsumer wins over the one of @LogMethod on the same method
+        if (!sampling.isEmpty()) {
+            this.sampling = sampling;
+        }
+    }
+    
+    private void setListenerTopics(List<String> topics, String topicPattern) {
+        this.listenerTopicNames = topics.toArray(new String[0]);
+        this.listenerTopics = topics.isEmpty() ? null : String.join(",", topics);
+        this.listenerTopicPatternSource = topicPattern.isEmpty() ? null : topicPattern;
+    }
+    
+    /**
+     * Resolve placeholders and expressions in the @KafkaListener topics and topic pattern, as the
+     * listener container does, so that the topics are the ones the listener actually consumes.
+     * Called by the registry before the method is registered.
+     * 
+     * @param resolver The embedded value resolver of the bean factory, null to take the values literally
+     */
+    void resolveListenerTopics(StringValueResolver resolver) {
+        if (resolver != null && listenerTopicNames.length > 0) {
+            List<String> topics = new ArrayList<>(listenerTopicNames.length);
+            for (String topic : listenerTopicNames) {
+                // A placeholder may stand for a comma separated list of topics
+                for (String resolved : resolve(resolver, topic).split(",")) {
+                    if (!resolved.trim().isEmpty()) {
+                        topics.add(resolved.trim());
+                    }
+                }
+            }
+            this.listenerTopicNames = topics.toArray(new String[0]);
+            this.listenerTopics = topics.isEmpty() ? null : String.join(",", topics);
+        }
+        if (listenerTopicPatternSource != null) {
+            String pattern = resolver != null ? resolve(resolver, listenerTopicPatternSource) : listenerTopicPatternSource;
+            try {
+                listenerTopicPattern = Pattern.compile(pattern.trim());
+            } catch (PatternSyntaxException e) {
+                // The container rejects the listener as well
+                listenerTopicPattern = null;
+            }
+        }
+    }
+    
+    private static String resolve(StringValueResolver resolver, String value) {
+        try {
+            String resolved = resolver.resolveStringValue(value);
+            return resolved != null ? resolved : value;
+        } catch (IllegalArgumentException e) {
+            // Unresolvable placeholder, the container fails to start the listener
+            return value;
+        }
+    }
+    
+    private void setDescription(String description) {
+        this.description = description.isEmpty() ? "Executing method" : description;
+        String literal = MessageTemplates.escape(this.description);
+        this.startedTemplate = MessageTemplates.intern(literal + " - Started");
+        this.completedTemplate = MessageTemplates.intern(literal + " - Completed in {} ms");
+        this.cancelledTemplate = MessageTemplates.intern(literal + " - Cancelled after {} ms");
+        this.failedTemplate = MessageTemplates.intern(literal + " - Failed: {}");
+    }
+    
+    /**
+     * Get the fully qualified name of the declaring class.
+     * 
+     * @return The class name
+     */
+    public String getClassName() {
+        return className;
+    }
+    
+    /**
+     * Get the simple name of the declaring class, as used in the log output.
+     * 
+     * @return The simple class name
+     */
+    public String getSimpleClassName() {
+        return simpleClassName;
+    }
+    
+    /**
+     * Get the fully qualified method name (className.methodName) used for method selection.
+     * 
+     * @return The qualified method name
+     */
+    public String getQualifiedMethodName() {
+        return qualifiedMethodName;
+    }
+    
+    public String getMethodName() {
+        return methodName;
+    }
+    
+    /**
+     * Check whether the metadata came from the compile-time index.
+     * 
+     * @return True if the method is indexed
+     */
+    public boolean isIndexed() {
+        return indexed;
+    }
+    
+    /**
+     * Check whether the method returns an asynchronous result (a completion stage, a listenable
+     * future or a Reactive Streams publisher), whose work finishes after the method returned.
+     * 
+     * @return True if the return type is asynchronous
+     */
+    public boolean isAsyncReturnType() {
+        return asyncReturnType;
+    }
+    
+    public boolean isLogMethod() {
+        return logMethod;
+    }
+    
+    public String getLogMethodLevel() {
+        return logMethodLevel;
+    }
+    
+    public int getLogMethodLevelValue() {
+        return logMethodLevelValue;
+    }
+    
+    public boolean isIncludeArgs() {
+        return includeArgs;
+    }
+    
+    public boolean isIncludeResult() {
+        return includeResult;
+    }
+    
+    public boolean isLogExecutionTime() {
+        return logExecutionTime;
+    }
+    
+    /**
+     * Get the @LogMethod description, or the default one when the annotation has none.
+     * 
+     * @return The description
+     */
+    public String getDescription() {
+        return description;
+    }
+    
+    /**
+     * Get the status message logged when the method starts.
+     * 
+     * @return The started template, without variable part
+     */
+    public MessageTemplate getStartedTemplate() {
+        return startedTemplate;
+    }
+    
+    /**
+     * Get the status message logged when the method completes.
+     * 
+     * @return The completed template, with the execution time in milliseconds as variable part
+     */
+    public MessageTemplate getCompletedTemplate() {
+        return completedTemplate;
+    }
+    
+    /**
+     * Get the status message logged when the asynchronous result of the method is cancelled.
+     * 
+     * @return The cancelled template, with the execution time in milliseconds as variable part
+     */
+    public MessageTemplate getCancelledTemplate() {
+        return cancelledTemplate;
+    }
+    
+    /**
+     * Get the status message logged when the method fails.
+     * 
+     * @return The failed template, with the exception message as variable part
+     */
+    public MessageTemplate getFailedTemplate() {
+        return failedTemplate;
+    }
+    
+    public String getKafkaConsumerLevel() {
+        return kafkaConsumerLevel;
+    }
+    
+    public int getKafkaConsumerLevelValue() {
+        return kafkaConsumerLevelValue;
+    }
+    
+    /**
+     * Get the topics of the @KafkaListener annotation, joined with commas.
+     * 
+     * @return The topics, or null if the method has no listener topics
+     */
+    public String getListenerTopics() {
+        return listenerTopics;
+    }
+    
+    /**
+     * Get the topics of the @KafkaListener annotation.
+     * 
+     * @return The topics, empty if the method has no listener topics
+     */
+    public String[] getListenerTopicNames() {
+        return listenerTopicNames;
+    }
+    
+    /**
+     * Get the topic pattern of the @KafkaListener annotation.
+     * 
+     * @return The pattern, or null if the listener does not subscribe by pattern
+     */
+    public Pattern getListenerTopicPattern() {
+        return listenerTopicPattern;
+    }
+    
+    /**
+     * Get the index of the parameter annotated with @Payload.
+     * 
+     * @return The parameter index, or -1
+     */
+    public int getPayloadIndex() {
+        return payloadIndex;
+    }
+    
+    /**
+     * Get the index of the parameter annotated with @Headers.
+     * 
+     * @return The parameter index, or -1
+     */
+    public int getHeadersIndex() {
+        return headersIndex;
+    }
+    
+    /**
+     * Get the sampling of the method's annotations.
+     * 
+     * @return The sampling specification, empty if the annotations have none
+     */
+    public String getSampling() {
+        return sampling;
+    }
+    
+    /**
+     * Get the sampler of the method.
+     * 
+     * @return The sampler, or null if every invocation is logged
+     */
+    public Sampler getSampler() {
+        return sampler;
+    }
+    
+    public void setSampler(Sampler sampler) {
+        this.sampler = sampler;
+    }
+    
+    /**
+     * Decide whether an invocation is logged, when it neither fails nor is slow.
+     * 
+     * @return True if the method has no sampler or the invocation is sampled in
+     */
+    public boolean sample() {
+        return sampler == null || sampler.sample();
+    }
+    
+    /**
+     * Count an invocation that was sampled out, so that the next logged event reports it.
+     */
+    public void skipSample() {
+        if (sampler != null) {
+            sampler.skip();
+        }
+    }
+    
+    /**
+     * Check whether logging at a level is enabled for the method.
+     * This is a single volatile read, so it can be called on every invocation.
+     * 
+     * @param levelValue The logback level value
+     * @return True if the level is at or above the level threshold of the method
+     */
+    public boolean isLevelEnabled(int levelValue) {
+        return levelValue >= levelThreshold;
+    }
+    
+    /**
+     * Get the level threshold of the method.
+     * 
+     * @return The logback level value, ALL unless a runtime rule applies
+     */
+    public int getLevelThreshold() {
+        return levelThreshold;
+    }
+    
+    /**
+     * Set the level threshold of the method, as resolved from the runtime level rules.
+     * 
+     * @param levelThreshold The logback level value; OFF disables logging of the method
+     */
+    public void setLevelThreshold(int levelThreshold) {
+        this.levelThreshold = levelThreshold;
+    }
+}
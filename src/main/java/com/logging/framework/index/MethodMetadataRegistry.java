@@ -0,0 +1,91 @@
+package com.logging.framework.index;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.logging.framework.level.LogLevelControl;
+import com.logging.framework.sampling.MethodSampling;
+import org.springframework.util.StringValueResolver;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Per-method logging metadata used by the aspects.
+ * Metadata is resolved on the first call of a method, from the compile-time index when the
+ * method is indexed and by reflection otherwise; later calls are a single map lookup.
+ * Placeholders in the listener topics are resolved with the embedded value resolver of the bean factory.
+ * Resolved methods are registered with the log level control, which sets their level threshold,
+ * and with the method sampling, which sets their sampler.
+ */
+public class MethodMetadataRegistry {
+    
+    private final LoggingMethodIndex index;
+    private final LogLevelControl levelControl;
+    private final MethodSampling sampling;
+    private final StringValueResolver valueResolver;
+    private final ConcurrentMap<Method, MethodMetadata> metadata = new ConcurrentHashMap<>();
+    
+    /**
+     * Create a new MethodMetadataRegistry.
+     * 
+     * @param index The compile-time index, may be empty
+     */
+    public MethodMetadataRegistry(LoggingMethodIndex index) {
+        this(index, null, null, null);
+    }
+    
+    /**
+     * Create a new MethodMetadataRegistry taking listener topics literally.
+     * 
+     * @param index The compile-time index, may be empty
+     * @param levelControl The runtime log level control, may be null
+     * @param sampling The method sampling, may be null
+     */
+    public MethodMetadataRegistry(LoggingMethodIndex index, LogLevelControl levelControl, MethodSampling sampling) {
+        this(index, levelControl, sampling, null);
+    }
+    
+    /**
+     * Create a new MethodMetadataRegistry.
+     * 
+     * @param index The compile-time index, may be empty
+     * @param levelControl The runtime log level control, may be null
+     * @param sampling The method sampling, may be null
+     * @param valueResolver The resolver of placeholders in the listener topics, null to take them literally
+     */
+    public MethodMetadataRegistry(LoggingMethodIndex index, LogLevelControl levelControl, MethodSampling sampling,
+                                  StringValueResolver valueResolver) {
+        this.index = index;
+        this.levelControl = levelControl;
+        this.sampling = sampling;
+        this.valueResolver = valueResolver;
+    }
+    
+    /**
+     * Get the metadata of a method.
+     * 
+     * @param method The intercepted method
+     * @return The metadata
+     */
+    public MethodMetadata get(Method method) {
+        MethodMetadata result = metadata.get(method);
+        if (result == null) {
+            result = metadata.computeIfAbsent(method, this::resolve);
+        }
+        return result;
+    }
+    
+    private MethodMetadata resolve(Method method) {
+        JsonNode entry = index.getMethod(method.getDeclaringClass().getName(), method.getName(),
+                method.getParameterTypes());
+        MethodMetadata result = entry != null ? MethodMetadata.fromIndex(method, entry) : MethodMetadata.reflect(method);
+        result.resolveListenerTopics(valueResolver);
+        if (levelControl != null) {
+            levelControl.register(result);
+        }
+        if (sampling != null) {
+            sampling.register(result);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,112 @@
+package com.logging.framework.interceptor;
+
+import com.logging.framework.metrics.ProducerMetrics;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.springframework.beans.BeansException;
+import org.springframework.beans.DirectFieldAccessor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.CompositeProducerListener;
+import org.springframework.kafka.support.ProducerListener;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Instruments the producers of the application.
+ * Registers the {@link LoggingProducerInterceptor} on every producer factory and the
+ * {@link ProducerLoggingListener} on every Kafka template. Interceptors and listeners
+ * already configured by the application are kept and run first.
+ */
+public class KafkaProducerPostProcessor implements BeanPostProcessor {
+    
+    private final String traceHeader;
+    private final ObjectProvider<ProducerMetrics> producerMetrics;
+    private final ObjectProvider<ProducerLoggingListener> producerListener;
+    
+    /**
+     * Create a new KafkaProducerPostProcessor.
+     * The beans are looked up when the first producer factory or template is processed.
+     * 
+     * @param traceHeader The header the trace context is propagated in, null to not propagate it
+     * @param producerMetrics The producer metrics, if enabled
+     * @param producerListener The producer listener
+     */
+    public KafkaProducerPostProcessor(String traceHeader, ObjectProvider<ProducerMetrics> producerMetrics,
+                                      ObjectProvider<ProducerLoggingListener> producerListener) {
+        this.traceHeader = traceHeader;
+        this.producerMetrics = producerMetrics;
+        this.producerListener = producerListener;
+    }
+    
+    @Override
+    public Object postProcessBeforeInitialization(Object bean, String beanName) throws BeansException {
+        if (bean instanceof DefaultKafkaProducerFactory) {
+            ProducerMetrics metrics = producerMetrics.getIfAvailable();
+            if (traceHeader == null && metrics == null) {
+                return bean;
+            }
+            DefaultKafkaProducerFactory<?, ?> factory = (DefaultKafkaProducerFactory<?, ?>) bean;
+            List<Object> interceptors = interceptorClasses(
+                    factory.getConfigurationProperties().get(ProducerConfig.INTERCEPTOR_CLASSES_CONFIG));
+            if (!interceptors.contains(LoggingProducerInterceptor.class)
+                    && !interceptors.contains(LoggingProducerInterceptor.class.getName())) {
+                interceptors.add(LoggingProducerInterceptor.class);
+            }
+            Map<String, Object> updates = new HashMap<>();
+            updates.put(ProducerConfig.INTERCEPTOR_CLASSES_CONFIG, interceptors);
+            if (traceHeader != null) {
+                updates.put(LoggingProducerInterceptor.TRACE_HEADER_CONFIG, traceHeader);
+            }
+            if (metrics != null) {
+                updates.put(LoggingProducerInterceptor.PRODUCER_METRICS_CONFIG, metrics);
+            }
+            factory.updateConfigs(updates);
+        }
+        return bean;
+    }
+    
+    @Override
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public Object postProcessAfterInitialization(Object bean, String beanName) throws BeansException {
+        if (bean instanceof KafkaTemplate) {
+            ProducerLoggingListener listener = producerListener.getIfAvailable();
+            if (listener == null) {
+                return bean;
+            }
+            KafkaTemplate template = (KafkaTemplate) bean;
+            Object existing = new DirectFieldAccessor(template).getPropertyValue("producerListener");
+            if (existing == null) {
+                template.setProducerListener(listener);
+            } else if (existing != listener) {
+                template.setProducerListener(new CompositeProducerListener((ProducerListener) existing, listener));
+            }
+        }
+        return bean;
+    }
+    
+    /**
+     * Read the configured interceptors, given as a class, a class name, a comma separated list
+     * of class names or a collection of those.
+     */
+    private static List<Object> interceptorClasses(Object configured) {
+        List<Object> interceptors = new ArrayList<>();
+        if (configured instanceof Collection) {
+            interceptors.addAll((Collection<?>) configured);
+        } else if (configured instanceof String) {
+            for (String name : ((String) configured).split(",")) {
+                if (!name.trim().isEmpty()) {
+                    interceptors.add(name.trim());
+                }
+            }
+        } else if (configured != null) {
+            interceptors.add(configured);
+        }
+        return interceptors;
+    }
+}
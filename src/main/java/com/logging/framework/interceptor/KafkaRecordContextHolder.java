@@ -0,0 +1,42 @@
+package com.logging.framework.interceptor;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+
+/**
+ * Holds the record currently being processed by a listener container thread.
+ * Populated by {@link KafkaRecordContextInterceptor} so that the logging aspects can
+ * see record metadata (partition, offset, timestamp) even when the listener method
+ * only receives the payload.
+ */
+public final class KafkaRecordContextHolder {
+    
+    private static final ThreadLocal<ConsumerRecord<?, ?>> CURRENT_RECORD = new ThreadLocal<>();
+    
+    private KafkaRecordContextHolder() {
+    }
+    
+    /**
+     * Get the record currently being processed on this thread.
+     * 
+     * @return The current record, or null if none
+     */
+    public static ConsumerRecord<?, ?> getCurrentRecord() {
+        return CURRENT_RECORD.get();
+    }
+    
+    /**
+     * Set the record currently being processed on this thread.
+     * 
+     * @param record The record
+     */
+    public static void setCurrentRecord(ConsumerRecord<?, ?> record) {
+        CURRENT_RECORD.set(record);
+    }
+    
+    /**
+     * Clear the record of this thread.
+     */
+    public static void clear() {
+        CURRENT_RECORD.remove();
+    }
+}
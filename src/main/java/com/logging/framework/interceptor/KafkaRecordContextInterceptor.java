@@ -0,0 +1,69 @@
+package com.logging.framework.interceptor;
+
+import com.logging.framework.trace.TraceContext;
+import com.logging.framework.trace.TraceContextHolder;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.header.Header;
+import org.springframework.kafka.listener.RecordInterceptor;
+
+/**
+ * Record interceptor exposing the current record to the logging aspects.
+ * The record is published before the listener is invoked and cleared after it completes.
+ * When tracing is enabled it also starts the span of the listener invocation: a child of the
+ * span found in the trace header of the record, or a new trace when the header is missing.
+ */
+public class KafkaRecordContextInterceptor implements RecordInterceptor<Object, Object> {
+    
+    private final String traceHeader;
+    
+    /**
+     * Create an interceptor that reads the W3C {@code traceparent} header.
+     */
+    public KafkaRecordContextInterceptor() {
+        this("traceparent");
+    }
+    
+    /**
+     * Create a new KafkaRecordContextInterceptor.
+     * 
+     * @param traceHeader The header carrying the trace context, null to disable tracing
+     */
+    public KafkaRecordContextInterceptor(String traceHeader) {
+        this.traceHeader = traceHeader;
+    }
+    
+    @Override
+    public ConsumerRecord<Object, Object> intercept(ConsumerRecord<Object, Object> record,
+                                                    Consumer<Object, Object> consumer) {
+        KafkaRecordContextHolder.setCurrentRecord(record);
+        if (traceHeader != null) {
+            Header header = record.headers().lastHeader(traceHeader);
+            TraceContext parent = header != null ? TraceContext.parse(header.value()) : null;
+            TraceContextHolder.set(parent != null ? parent.newChild() : TraceContext.newRoot());
+        }
+        return record;
+    }
+    
+    /**
+     * Required by Spring Kafka 2.x, where the one-argument variant is still abstract.
+     * Listener containers call {@link #intercept(ConsumerRecord, Consumer)}.
+     */
+    @Override
+    @Deprecated
+    public ConsumerRecord<Object, Object> intercept(ConsumerRecord<Object, Object> record) {
+        return intercept(record, null);
+    }
+    
+    @Override
+    public void afterRecord(ConsumerRecord<Object, Object> record, Consumer<Object, Object> consumer) {
+        KafkaRecordContextHolder.clear();
+        TraceContextHolder.clear();
+    }
+    
+    @Override
+    public void clearThreadState(Consumer<?, ?> consumer) {
+        KafkaRecordContextHolder.clear();
+        TraceContextHolder.clear();
+    }
+}
@@ -0,0 +1,73 @@
+package com.logging.framework.interceptor;
+
+import com.logging.framework.metrics.ProducerMetrics;
+import com.logging.framework.trace.TraceContext;
+import com.logging.framework.trace.TraceContextHolder;
+import org.apache.kafka.clients.producer.ProducerInterceptor;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.clients.producer.RecordMetadata;
+
+import java.util.Map;
+
+/**
+ * Producer interceptor of the logging framework, called on the sending thread.
+ * It propagates the trace context of the sending thread: records sent while a message is processed
+ * get the trace header of the current span, so the consumer of the outgoing record continues the
+ * same trace. Records that already carry the header are left unchanged. It also stamps the send
+ * time of each record for the send-to-acknowledgement latency of {@link ProducerMetrics}.
+ * Kafka instantiates the interceptor from the {@code interceptor.classes} producer property and
+ * passes it the {@link #TRACE_HEADER_CONFIG} and {@link #PRODUCER_METRICS_CONFIG} properties.
+ */
+public class LoggingProducerInterceptor implements ProducerInterceptor<Object, Object> {
+    
+    /**
+     * Producer property holding the trace header name; tracing is off without it.
+     */
+    public static final String TRACE_HEADER_CONFIG = "kafka.logging.trace.header";
+    
+    /**
+     * Producer property holding the {@link ProducerMetrics} instance; send times are not stamped without it.
+     */
+    public static final String PRODUCER_METRICS_CONFIG = "kafka.logging.producer-metrics";
+    
+    private String traceHeader;
+    private boolean w3c;
+    private ProducerMetrics producerMetrics;
+    
+    @Override
+    public void configure(Map<String, ?> configs) {
+        Object header = configs.get(TRACE_HEADER_CONFIG);
+        if (header != null && !header.toString().isEmpty()) {
+            traceHeader = header.toString();
+            w3c = "traceparent".equalsIgnoreCase(traceHeader);
+        }
+        Object metrics = configs.get(PRODUCER_METRICS_CONFIG);
+        if (metrics instanceof ProducerMetrics) {
+            producerMetrics = (ProducerMetrics) metrics;
+        }
+    }
+    
+    @Override
+    public ProducerRecord<Object, Object> onSend(ProducerRecord<Object, Object> record) {
+        if (traceHeader != null) {
+            TraceContext context = TraceContextHolder.current();
+            if (context != null && record.headers().lastHeader(traceHeader) == null) {
+                // A header other than traceparent carries the bare trace ID
+                record.headers().add(traceHeader, w3c ? context.toTraceparent() : context.toTraceIdBytes());
+            }
+        }
+        if (producerMetrics != null) {
+            producerMetrics.recordSend(record);
+        }
+        return record;
+    }
+    
+    @Override
+    public void onAcknowledgement(RecordMetadata metadata, Exception exception) {
+        // Acknowledgements are handled by the ProducerLoggingListener, which also gets the record
+    }
+    
+    @Override
+    public void close() {
+    }
+}
@@ -0,0 +1,134 @@
+package com.logging.framework.interceptor;
+
+import com.logging.framework.metrics.ProducerMetrics;
+import com.logging.framework.model.KafkaMessageContext;
+import com.logging.framework.model.LoggingEvent;
+import com.logging.framework.model.MethodExecutionStatus;
+import com.logging.framework.service.LoggingScheduler;
+import com.logging.framework.service.LoggingService;
+import com.logging.framework.trace.TraceContext;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.clients.producer.RecordMetadata;
+import org.apache.kafka.common.header.Header;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.kafka.support.ProducerListener;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Producer listener recording the outcome of every send of a {@code KafkaTemplate}.
+ * Kafka calls it on the producer I/O thread, so it only updates the lock-free producer metrics
+ * there; failures are logged with the full Kafka message context on the logging scheduler thread.
+ * The number of failures waiting for the scheduler is bounded: when a broker outage fails many
+ * sends at once, failures beyond the bound are only counted and reported as one line.
+ */
+public class ProducerLoggingListener implements ProducerListener<Object, Object> {
+    
+    /**
+     * Default maximum number of failures waiting to be logged.
+     */
+    public static final int DEFAULT_MAX_PENDING_FAILURES = 1000;
+    
+    private static final Logger log = LoggerFactory.getLogger(ProducerLoggingListener.class);
+    
+    private final LoggingService loggingService;
+    private final LoggingScheduler scheduler;
+    private final ProducerMetrics producerMetrics;
+    private final String traceHeader;
+    private final int maxPendingFailures;
+    private final AtomicInteger pendingFailures = new AtomicInteger();
+    private final AtomicLong droppedFailures = new AtomicLong();
+    private final AtomicLong unreportedDrops = new AtomicLong();
+    
+    /**
+     * Create a new ProducerLoggingListener with the default bound of pending failures.
+     * 
+     * @param loggingService The logging service
+     * @param scheduler The scheduler failures are logged on
+     * @param producerMetrics The producer metrics, may be null
+     * @param traceHeader The header carrying the trace context, may be null
+     */
+    public ProducerLoggingListener(LoggingService loggingService, LoggingScheduler scheduler,
+                                   ProducerMetrics producerMetrics, String traceHeader) {
+        this(loggingService, scheduler, producerMetrics, traceHeader, DEFAULT_MAX_PENDING_FAILURES);
+    }
+    
+    /**
+     * Create a new ProducerLoggingListener.
+     * 
+     * @param loggingService The logging service
+     * @param scheduler The scheduler failures are logged on
+     * @param producerMetrics The producer metrics, may be null
+     * @param traceHeader The header carrying the trace context, may be null
+     * @param maxPendingFailures Maximum number of failures waiting to be logged
+     */
+    public ProducerLoggingListener(LoggingService loggingService, LoggingScheduler scheduler,
+                                   ProducerMetrics producerMetrics, String traceHeader, int maxPendingFailures) {
+        this.loggingService = loggingService;
+        this.scheduler = scheduler;
+        this.producerMetrics = producerMetrics;
+        this.traceHeader = traceHeader;
+        this.maxPendingFailures = maxPendingFailures;
+    }
+    
+    @Override
+    public void onSuccess(ProducerRecord<Object, Object> record, RecordMetadata metadata) {
+        if (producerMetrics != null) {
+            producerMetrics.recordCompletion(record, metadata, null);
+        }
+    }
+    
+    @Override
+    public void onError(ProducerRecord<Object, Object> record, RecordMetadata metadata, Exception exception) {
+        long latencyMs = producerMetrics != null ? producerMetrics.recordCompletion(record, metadata, exception) : -1;
+        
+        if (pendingFailures.incrementAndGet() > maxPendingFailures) {
+            pendingFailures.decrementAndGet();
+            droppedFailures.incrementAndGet();
+            unreportedDrops.incrementAndGet();
+            return;
+        }
+        
+        KafkaMessageContext context = KafkaMessageContext.fromProducerRecord(record, metadata);
+        if (traceHeader != null) {
+            Header header = record.headers().lastHeader(traceHeader);
+            context.setTraceContext(header != null ? TraceContext.parse(header.value()) : null);
+        }
+        
+        LoggingEvent event = new LoggingEvent();
+        event.setClassName("KafkaProducer");
+        event.setMethodName("send");
+        event.setLogLevel("ERROR");
+        event.setKafkaMessageContext(context);
+        event.setTraceContext(context.getTraceContext());
+        event.setException(exception);
+        event.setStatus(MethodExecutionStatus.FAILED);
+        if (latencyMs >= 0) {
+            event.setExecutionTimeMs(latencyMs);
+        }
+        
+        // Never write a log line on the producer I/O thread
+        scheduler.execute(() -> {
+            try {
+                loggingService.logKafkaProducerEvent(event);
+            } finally {
+                pendingFailures.decrementAndGet();
+            }
+            long dropped = unreportedDrops.getAndSet(0);
+            if (dropped > 0) {
+                log.warn("{} failed Kafka sends not logged, more than {} were waiting to be logged", dropped, maxPendingFailures);
+            }
+        });
+    }
+    
+    /**
+     * Get the number of failed sends not logged because too many were waiting.
+     * 
+     * @return The number of dropped failures
+     */
+    public long getDroppedFailures() {
+        return droppedFailures.get();
+    }
+}
@@ -0,0 +1,45 @@
+package com.logging.framework.interceptor;
+
+import org.springframework.beans.BeansException;
+import org.springframework.beans.DirectFieldAccessor;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.kafka.config.AbstractKafkaListenerContainerFactory;
+import org.springframework.kafka.listener.CompositeRecordInterceptor;
+import org.springframework.kafka.listener.RecordInterceptor;
+
+/**
+ * Registers the {@link KafkaRecordContextInterceptor} on every listener container factory.
+ * An interceptor already configured by the application is kept and runs first.
+ */
+public class RecordInterceptorPostProcessor implements BeanPostProcessor {
+    
+    private final KafkaRecordContextInterceptor interceptor;
+    
+    public RecordInterceptorPostProcessor() {
+        this(new KafkaRecordContextInterceptor());
+    }
+    
+    /**
+     * Create a new RecordInterceptorPostProcessor.
+     * 
+     * @param interceptor The interceptor to register
+     */
+    public RecordInterceptorPostProcessor(KafkaRecordContextInterceptor interceptor) {
+        this.interceptor = interceptor;
+    }
+    
+    @Override
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public Object postProcessAfterInitialization(Object bean, String beanName) throws BeansException {
+        if (bean instanceof AbstractKafkaListenerContainerFactory) {
+            AbstractKafkaListenerContainerFactory factory = (AbstractKafkaListenerContainerFactory) bean;
+            Object existing = new DirectFieldAccessor(factory).getPropertyValue("recordInterceptor");
+            if (existing == null) {
+                factory.setRecordInterceptor(interceptor);
+            } else if (existing != interceptor) {
+                factory.setRecordInterceptor(new CompositeRecordInterceptor((RecordInterceptor) existing, interceptor));
+            }
+        }
+        return bean;
+    }
+}
@@ -0,0 +1,314 @@
+package com.logging.framework.level;
+
+import ch.qos.logback.classic.Level;
+import com.logging.framework.index.MethodMetadata;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Pattern;
+
+/**
+ * Runtime control of the log levels of intercepted methods, without a restart.
+ * Rules set a level threshold for a package, a class, a method or the listeners of a topic; an
+ * invocation is logged when its level (from @LogMethod, @LogKafkaConsumer or the global log level)
+ * is at or above the threshold, and failures are logged unless the threshold is OFF.
+ * 
+ * The most specific rule wins: method, then class, then topic, then the longest package, then
+ * the {@code *} rule. The resolved threshold is stored in the {@link MethodMetadata} of each method,
+ * so the aspects read one volatile field per call. Changing a rule recomputes only the methods under
+ * its target. Topic rules apply to methods whose @KafkaListener lists the topic, with placeholders
+ * resolved, or subscribes to a topic pattern matching it.
+ */
+public class LogLevelControl implements LogLevelControlMXBean, InitializingBean, DisposableBean {
+    
+    private static final Logger log = LoggerFactory.getLogger(LogLevelControl.class);
+    
+    /**
+     * Prefix of topic targets.
+     */
+    public static final String TOPIC_PREFIX = "topic:";
+    
+    /**
+     * Target of the rule applied to every method.
+     */
+    public static final String ROOT = "*";
+    
+    private static final String OBJECT_NAME = "com.logging.framework:type=LogLevelControl";
+    
+    private final boolean jmxEnabled;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Map<String, Integer> rules = new HashMap<>();
+    private final NavigableMap<String, List<MethodMetadata>> methods = new TreeMap<>();
+    private final Map<String, List<MethodMetadata>> topicMethods = new HashMap<>();
+    private final List<MethodMetadata> patternMethods = new ArrayList<>();
+    
+    private ObjectName registeredName;
+    
+    /**
+     * Create a new LogLevelControl.
+     * 
+     * @param rules The initial levels by target
+     * @param jmxEnabled Whether to register the MXBean
+     */
+    public LogLevelControl(Map<String, String> rules, boolean jmxEnabled) {
+        this.jmxEnabled = jmxEnabled;
+        for (Map.Entry<String, String> rule : rules.entrySet()) {
+            this.rules.put(rule.getKey().trim(), parse(rule.getValue()));
+        }
+    }
+    
+    @Override
+    public void afterPropertiesSet() {
+        if (!jmxEnabled) {
+            return;
+        }
+        try {
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, name);
+            registeredName = name;
+        } catch (InstanceAlreadyExistsException e) {
+            // Another application context in the same JVM registered its control first
+            log.debug("Log level control MXBean {} is already registered", OBJECT_NAME);
+        } catch (JMException e) {
+            log.warn("Failed to register log level control MXBean {}", OBJECT_NAME, e);
+        }
+    }
+    
+    @Override
+    public void destroy() {
+        if (registeredName != null) {
+            try {
+                ManagementFactory.getPlatformMBeanServer().unregisterMBean(registeredName);
+            } catch (JMException e) {
+                log.debug("Failed to unregister log level control MXBean {}", OBJECT_NAME, e);
+            }
+            registeredName = null;
+        }
+    }
+    
+    /**
+     * Register a method and set its level threshold from the current rules.
+     * Called by the method metadata registry when a method is first intercepted.
+     * 
+     * @param metadata The method metadata
+     */
+    public void register(MethodMetadata metadata) {
+        lock.lock();
+        try {
+            methods.computeIfAbsent(metadata.getQualifiedMethodName(), name -> new ArrayList<>(1)).add(metadata);
+            for (String topic : metadata.getListenerTopicNames()) {
+                topicMethods.computeIfAbsent(topic, name -> new ArrayList<>()).add(metadata);
+            }
+            if (metadata.getListenerTopicPattern() != null) {
+                patternMethods.add(metadata);
+            }
+            metadata.setLevelThreshold(resolve(metadata));
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    @Override
+    public void setLevel(String target, String level) {
+        int threshold = parse(level);
+        String key = target.trim();
+        lock.lock();
+        try {
+            rules.put(key, threshold);
+            recompute(key);
+        } finally {
+            lock.unlock();
+        }
+        log.info("Kafka logging level of {} set to {}", key, name(threshold));
+    }
+    
+    /**
+     * Disable logging of a target.
+     * 
+     * @param target The target of the rule
+     */
+    public void disable(String target) {
+        setLevel(target, "OFF");
+    }
+    
+    /**
+     * Enable logging of every level for a target.
+     * 
+     * @param target The target of the rule
+     */
+    public void enable(String target) {
+        setLevel(target, "ALL");
+    }
+    
+    @Override
+    public void clearLevel(String target) {
+        String key = target.trim();
+        lock.lock();
+        try {
+            if (rules.remove(key) == null) {
+                return;
+            }
+            recompute(key);
+        } finally {
+            lock.unlock();
+        }
+        log.info("Kafka logging level rule of {} removed", key);
+    }
+    
+    /**
+     * Get the level of a rule.
+     * 
+     * @param target The target of the rule
+     * @return The level, or null if the target has no rule
+     */
+    public String getLevel(String target) {
+        lock.lock();
+        try {
+            Integer threshold = rules.get(target.trim());
+            return threshold != null ? name(threshold) : null;
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    @Override
+    public Map<String, String> getRules() {
+        lock.lock();
+        try {
+            Map<String, String> result = new TreeMap<>();
+            for (Map.Entry<String, Integer> rule : rules.entrySet()) {
+                result.put(rule.getKey(), name(rule.getValue()));
+            }
+            return result;
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    @Override
+    public String getEffectiveLevel(String qualifiedMethodName) {
+        lock.lock();
+        try {
+            List<MethodMetadata> registered = methods.get(qualifiedMethodName);
+            return registered != null ? name(registered.get(0).getLevelThreshold()) : null;
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    @Override
+    public int getMethodCount() {
+        lock.lock();
+        try {
+            int count = 0;
+            for (List<MethodMetadata> registered : methods.values()) {
+                count += registered.size();
+            }
+            return count;
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    private void recompute(String target) {
+        Collection<List<MethodMetadata>> affected;
+        if (target.equals(ROOT)) {
+            affected = methods.values();
+        } else if (target.startsWith(TOPIC_PREFIX)) {
+            String topic = target.substring(TOPIC_PREFIX.length());
+            List<MethodMetadata> listeners = new ArrayList<>(topicMethods.getOrDefault(topic, Collections.emptyList()));
+            for (MethodMetadata metadata : patternMethods) {
+                if (metadata.getListenerTopicPattern().matcher(topic).matches()) {
+                    listeners.add(metadata);
+                }
+            }
+            affected = Collections.singletonList(listeners);
+        } else {
+            // The method itself and everything below the package or class; '/' follows '.'
+            affected = new ArrayList<>(methods.subMap(target + ".", true, target + "/", false).values());
+            List<MethodMetadata> method = methods.get(target);
+            if (method != null) {
+                affected.add(method);
+            }
+        }
+        for (List<MethodMetadata> registered : affected) {
+            for (MethodMetadata metadata : registered) {
+                metadata.setLevelThreshold(resolve(metadata));
+            }
+        }
+    }
+    
+    private int resolve(MethodMetadata metadata) {
+        Integer rule = rules.get(metadata.getQualifiedMethodName());
+        if (rule != null) {
+            return rule;
+        }
+        String className = metadata.getClassName();
+        rule = rules.get(className);
+        if (rule != null) {
+            return rule;
+        }
+        
+        // The most verbose rule of the listener topics
+        Integer topicRule = null;
+        for (String topic : metadata.getListenerTopicNames()) {
+            rule = rules.get(TOPIC_PREFIX + topic);
+            if (rule != null && (topicRule == null || rule < topicRule)) {
+                topicRule = rule;
+            }
+        }
+        Pattern topicPattern = metadata.getListenerTopicPattern();
+        if (topicPattern != null) {
+            for (Map.Entry<String, Integer> entry : rules.entrySet()) {
+                String target = entry.getKey();
+                if (target.startsWith(TOPIC_PREFIX) && (topicRule == null || entry.getValue() < topicRule)
+                        && topicPattern.matcher(target.substring(TOPIC_PREFIX.length())).matches()) {
+                    topicRule = entry.getValue();
+                }
+            }
+        }
+        if (topicRule != null) {
+            return topicRule;
+        }
+        
+        for (int end = className.lastIndexOf('.'); end > 0; end = className.lastIndexOf('.', end - 1)) {
+            rule = rules.get(className.substring(0, end));
+            if (rule != null) {
+                return rule;
+            }
+        }
+        rule = rules.get(ROOT);
+        return rule != null ? rule : Level.ALL_INT;
+    }
+    
+    private static int parse(String level) {
+        String name = level != null ? level.trim().toUpperCase() : "";
+        if (name.equals("ALL") || name.equals("ON")) {
+            return Level.ALL_INT;
+        }
+        Level parsed = Level.toLevel(name, null);
+        if (parsed == null) {
+            throw new IllegalArgumentException("Unknown log level: " + level);
+        }
+        return parsed.toInt();
+    }
+    
+    private static String name(int threshold) {
+        return Level.toLevel(threshold).toString();
+    }
+}
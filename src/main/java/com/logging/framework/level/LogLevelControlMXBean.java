@@ -0,0 +1,48 @@
+package com.logging.framework.level;
+
+import java.util.Map;
+
+/**
+ * Management interface of the {@link LogLevelControl}, registered as
+ * {@code com.logging.framework:type=LogLevelControl} on the platform MBean server.
+ */
+public interface LogLevelControlMXBean {
+    
+    /**
+     * Set the level of a package, class, method ({@code className.methodName}),
+     * topic ({@code topic:name}) or of everything ({@code *}).
+     * 
+     * @param target The target of the rule
+     * @param level TRACE, DEBUG, INFO, WARN, ERROR, OFF to disable or ALL to enable everything
+     */
+    void setLevel(String target, String level);
+    
+    /**
+     * Remove the rule of a target, so that the next less specific rule applies.
+     * 
+     * @param target The target of the rule
+     */
+    void clearLevel(String target);
+    
+    /**
+     * Get the current rules.
+     * 
+     * @return The levels by target
+     */
+    Map<String, String> getRules();
+    
+    /**
+     * Get the level threshold applied to a method.
+     * 
+     * @param qualifiedMethodName The method, as {@code className.methodName}
+     * @return The level, or null if the method has not been invoked yet
+     */
+    String getEffectiveLevel(String qualifiedMethodName);
+    
+    /**
+     * Get the number of methods the rules are applied to.
+     * 
+     * @return The number of registered methods
+     */
+    int getMethodCount();
+}
@@ -0,0 +1,316 @@
+package com.logging.framework.metrics;
+
+import com.logging.framework.appender.KafkaLoggingFileAppender;
+import com.logging.framework.model.KafkaMessageContext;
+import com.logging.framework.model.LoggingEvent;
+import com.logging.framework.model.MethodExecutionStatus;
+import com.logging.framework.service.LoggingScheduler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.InitializingBean;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Heavy hitter detection on the consumer path: the heaviest message keys of each topic, and the
+ * partitions taking the most processing time, per window.
+ * Keys are counted in a count-min sketch of fixed size per topic, updated with atomic increments.
+ * The K heaviest keys are kept as candidates; a key already among them only has its estimate
+ * updated, and the lock of the topic is taken only when a new key's estimate passes the lightest
+ * candidate. Messages and processing time are counted per partition in a primitive array.
+ * At the end of each window the heaviest keys and partitions are logged and kept for {@link #getHotSpots()}.
+ */
+public class HotKeyDetector implements InitializingBean {
+    
+    private static final Logger log = LoggerFactory.getLogger(HotKeyDetector.class);
+    
+    private final ConcurrentMap<String, TopicHeat> topics = new ConcurrentHashMap<>();
+    private final LoggingScheduler scheduler;
+    private final KafkaLoggingFileAppender fileAppender;
+    private final int k;
+    private final int sketchWidth;
+    private final int sketchDepth;
+    private final long windowMs;
+    
+    private volatile Map<String, TopicHotSpots> lastWindow = Collections.emptyMap();
+    private volatile long windowStart = System.currentTimeMillis();
+    
+    /**
+     * Create a new HotKeyDetector.
+     * 
+     * @param scheduler The scheduler used to close the windows
+     * @param fileAppender The dedicated log file appender, may be null
+     * @param k The number of heaviest keys and partitions reported per topic
+     * @param sketchWidth The number of counters per sketch row, rounded up to a power of two
+     * @param sketchDepth The number of sketch rows
+     * @param windowMs The window length in milliseconds, 0 to close windows only on demand
+     */
+    public HotKeyDetector(LoggingScheduler scheduler, KafkaLoggingFileAppender fileAppender, int k,
+                          int sketchWidth, int sketchDepth, long windowMs) {
+        if (k < 1 || sketchWidth < 1 || sketchDepth < 1) {
+            throw new IllegalArgumentException("Top K, sketch width and sketch depth must be at least 1");
+        }
+        this.scheduler = scheduler;
+        this.fileAppender = fileAppender;
+        this.k = k;
+        this.sketchWidth = sketchWidth > 1 ? Integer.highestOneBit(sketchWidth - 1) << 1 : 1;
+        this.sketchDepth = sketchDepth;
+        this.windowMs = windowMs;
+    }
+    
+    @Override
+    public void afterPropertiesSet() {
+        if (windowMs > 0 && scheduler != null) {
+            scheduler.scheduleAtFixedRate(this::logWindow, windowMs);
+        }
+    }
+    
+    /**
+     * Count a processed message.
+     * 
+     * @param context The Kafka message context
+     * @param processingTimeMs The time the listener spent processing the message
+     */
+    public void record(KafkaMessageContext context, long processingTimeMs) {
+        if (context == null || context.getTopic() == null) {
+            return;
+        }
+        TopicHeat heat = topics.get(context.getTopic());
+        if (heat == null) {
+            heat = topics.computeIfAbsent(context.getTopic(), TopicHeat::new);
+        }
+        heat.messages.incrementAndGet();
+        Integer partition = context.getPartition();
+        if (partition != null && partition >= 0) {
+            heat.recordPartition(partition, processingTimeMs < 0 ? 0 : processingTimeMs);
+        }
+        String key = context.getKey();
+        if (key != null) {
+            heat.recordKey(key);
+        }
+    }
+    
+    /**
+     * Get the heaviest keys and partitions of the last completed window.
+     * 
+     * @return The hot spots by topic
+     */
+    public Map<String, TopicHotSpots> getHotSpots() {
+        return lastWindow;
+    }
+    
+    /**
+     * Get the heaviest keys and partitions of a topic in the last completed window.
+     * 
+     * @param topic The topic
+     * @return The hot spots, or null if the topic had no messages in the window
+     */
+    public TopicHotSpots getHotSpots(String topic) {
+        return lastWindow.get(topic);
+    }
+    
+    /**
+     * Close the current window and return its heaviest keys and partitions.
+     * This is what the periodic task calls; it can also be called on demand.
+     * 
+     * @return The hot spots by topic
+     */
+    public synchronized Map<String, TopicHotSpots> rollWindow() {
+        long now = System.currentTimeMillis();
+        long length = now - windowStart;
+        windowStart = now;
+        Map<String, TopicHotSpots> window = new LinkedHashMap<>();
+        for (TopicHeat heat : topics.values()) {
+            TopicHotSpots hotSpots = heat.roll(length);
+            if (hotSpots != null) {
+                window.put(hotSpots.getTopic(), hotSpots);
+            }
+        }
+        lastWindow = Collections.unmodifiableMap(window);
+        return lastWindow;
+    }
+    
+    private void logWindow() {
+        for (TopicHotSpots hotSpots : rollWindow().values()) {
+            log.info("Kafka hot spots: topic={} messages={} keys={} partitions={}", hotSpots.getTopic(),
+                    hotSpots.getMessages(), hotSpots.getKeys(), hotSpots.getPartitions());
+            if (fileAppender != null) {
+                LoggingEvent event = new LoggingEvent();
+                event.setClassName("HotKeyDetector");
+                event.setMethodName("summary");
+                event.setStatus(MethodExecutionStatus.PASSED);
+                event.setLogLevel("INFO");
+                event.addContext("action", "hot_spots");
+                event.addContext("topic", hotSpots.getTopic());
+                event.addContext("windowMs", hotSpots.getWindowMs());
+                event.addContext("messages", hotSpots.getMessages());
+                event.addContext("keys", hotSpots.getKeys());
+                event.addContext("partitions", hotSpots.getPartitions());
+                fileAppender.log(event);
+            }
+        }
+    }
+    
+    /**
+     * Key sketch, heavy key candidates and partition counters of one topic.
+     */
+    private class TopicHeat {
+        
+        private final String topic;
+        private final AtomicLong messages = new AtomicLong();
+        private final AtomicLongArray sketch = new AtomicLongArray(sketchWidth * sketchDepth);
+        private final ConcurrentMap<String, AtomicLong> candidates = new ConcurrentHashMap<>();
+        private final ReentrantLock lock = new ReentrantLock();
+        // Estimate of the lightest candidate once there are K of them, 0 before
+        private volatile long threshold;
+        // Messages and processing time by partition, interleaved
+        private volatile AtomicLongArray partitions = new AtomicLongArray(2 * 16);
+        
+        TopicHeat(String topic) {
+            this.topic = topic;
+        }
+        
+        void recordKey(String key) {
+            int hash = key.hashCode();
+            int mask = sketchWidth - 1;
+            long estimate = Long.MAX_VALUE;
+            for (int row = 0; row < sketchDepth; row++) {
+                int index = row * sketchWidth + (int) (mix(hash, row) & mask);
+                estimate = Math.min(estimate, sketch.incrementAndGet(index));
+            }
+            AtomicLong candidate = candidates.get(key);
+            if (candidate != null) {
+                candidate.set(estimate);
+            } else if (estimate > threshold) {
+                offer(key, estimate);
+            }
+        }
+        
+        // An independent hash per row, so that keys colliding in one row rarely collide in the others
+        private long mix(int hash, int row) {
+            long h = hash + (row + 1) * 0x9E3779B97F4A7C15L;
+            h = (h ^ (h >>> 33)) * 0xFF51AFD7ED558CCDL;
+            h = (h ^ (h >>> 33)) * 0xC4CEB9FE1A85EC53L;
+            return h ^ (h >>> 33);
+        }
+        
+        private void offer(String key, long estimate) {
+            lock.lock();
+            try {
+                AtomicLong candidate = candidates.get(key);
+                if (candidate != null) {
+                    candidate.set(estimate);
+                    return;
+                }
+                if (candidates.size() >= k) {
+                    String lightest = lightest();
+                    long min = candidates.get(lightest).get();
+                    if (min >= estimate) {
+                        // The candidates have grown since the threshold was published
+                        threshold = min;
+                        return;
+                    }
+                    candidates.remove(lightest);
+                }
+                candidates.put(key, new AtomicLong(estimate));
+                if (candidates.size() >= k) {
+                    threshold = candidates.get(lightest()).get();
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+        
+        private String lightest() {
+            String lightest = null;
+            long min = Long.MAX_VALUE;
+            for (Map.Entry<String, AtomicLong> entry : candidates.entrySet()) {
+                long count = entry.getValue().get();
+                if (count < min) {
+                    min = count;
+                    lightest = entry.getKey();
+                }
+            }
+            return lightest;
+        }
+        
+        void recordPartition(int partition, long processingTimeMs) {
+            AtomicLongArray current = partitions;
+            if (2 * partition + 1 >= current.length()) {
+                current = grow(partition);
+            }
+            current.incrementAndGet(2 * partition);
+            current.addAndGet(2 * partition + 1, processingTimeMs);
+        }
+        
+        private synchronized AtomicLongArray grow(int partition) {
+            AtomicLongArray current = partitions;
+            if (2 * partition + 1 < current.length()) {
+                return current;
+            }
+            AtomicLongArray grown = new AtomicLongArray(Math.max(2 * partition + 2, current.length() * 2));
+            for (int i = 0; i < current.length(); i++) {
+                grown.set(i, current.get(i));
+            }
+            partitions = grown;
+            return grown;
+        }
+        
+        TopicHotSpots roll(long windowMs) {
+            long total = messages.getAndSet(0);
+            if (total == 0) {
+                return null;
+            }
+            List<TopicHotSpots.HotKey> keys = new ArrayList<>();
+            lock.lock();
+            try {
+                for (Map.Entry<String, AtomicLong> entry : candidates.entrySet()) {
+                    long count = Math.min(entry.getValue().get(), total);
+                    keys.add(new TopicHotSpots.HotKey(entry.getKey(), count, (double) count / total));
+                }
+                candidates.clear();
+                threshold = 0;
+                for (int i = 0; i < sketch.length(); i++) {
+                    if (sketch.get(i) != 0) {
+                        sketch.set(i, 0);
+                    }
+                }
+            } finally {
+                lock.unlock();
+            }
+            keys.sort((a, b) -> Long.compare(b.getCount(), a.getCount()));
+            
+            List<TopicHotSpots.HotPartition> hot = new ArrayList<>();
+            AtomicLongArray current = partitions;
+            long totalTime = 0;
+            long[] counts = new long[current.length()];
+            for (int i = 0; i < counts.length; i++) {
+                counts[i] = current.getAndSet(i, 0);
+                if (i % 2 == 1) {
+                    totalTime += counts[i];
+                }
+            }
+            for (int partition = 0; 2 * partition < counts.length; partition++) {
+                if (counts[2 * partition] > 0) {
+                    long time = counts[2 * partition + 1];
+                    hot.add(new TopicHotSpots.HotPartition(partition, counts[2 * partition], time,
+                            totalTime == 0 ? 0.0 : (double) time / totalTime));
+                }
+            }
+            hot.sort((a, b) -> a.getProcessingTimeMs() != b.getProcessingTimeMs()
+                    ? Long.compare(b.getProcessingTimeMs(), a.getProcessingTimeMs())
+                    : Long.compare(b.getMessages(), a.getMessages()));
+            return new TopicHotSpots(topic, windowMs, total, Collections.unmodifiableList(keys),
+                    Collections.unmodifiableList(hot.subList(0, Math.min(k, hot.size()))));
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package com.logging.framework.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free log-linear histogram for millisecond latencies (and other non-negative values such as record sizes).
+ * Each power of two is split into 8 linear sub-buckets, which keeps the
+ * relative error of reported percentiles below 12.5% with a fixed footprint.
+ * Recording never allocates; windows are rotated with {@link #snapshotAndReset()}.
+ */
+public class LatencyHistogram {
+    
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKET_COUNT = (64 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+    
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong sum = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+    
+    /**
+     * Record a single value.
+     * Negative values (for example caused by clock skew) are recorded as zero.
+     * 
+     * @param value The value in milliseconds
+     */
+    public void record(long value) {
+        long v = value < 0 ? 0 : value;
+        counts.incrementAndGet(bucketIndex(v));
+        count.incrementAndGet();
+        sum.addAndGet(v);
+        long currentMax = max.get();
+        while (v > currentMax && !max.compareAndSet(currentMax, v)) {
+            currentMax = max.get();
+        }
+    }
+    
+    /**
+     * Take a snapshot of the recorded values and reset the histogram.
+     * Values recorded concurrently end up either in this snapshot or in the next one.
+     * 
+     * @return The snapshot of the finished window
+     */
+    public Snapshot snapshotAndReset() {
+        long[] bucketCounts = new long[BUCKET_COUNT];
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            if (counts.get(i) != 0) {
+                bucketCounts[i] = counts.getAndSet(i, 0);
+            }
+        }
+        return new Snapshot(bucketCounts, count.getAndSet(0), sum.getAndSet(0), max.getAndSet(0));
+    }
+    
+    /**
+     * Take a snapshot of the recorded values without resetting the histogram.
+     * 
+     * @return The snapshot of the current values
+     */
+    public Snapshot snapshot() {
+        long[] bucketCounts = new long[BUCKET_COUNT];
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            bucketCounts[i] = counts.get(i);
+        }
+        return new Snapshot(bucketCounts, count.get(), sum.get(), max.get());
+    }
+    
+    static int bucketIndex(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+    }
+    
+    static long bucketUpperBound(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int exponent = index / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        long subBucket = index & (SUB_BUCKETS - 1);
+        long width = 1L << (exponent - SUB_BUCKET_BITS);
+        return ((SUB_BUCKETS + subBucket) << (exponent - SUB_BUCKET_BITS)) + width - 1;
+    }
+    
+    /**
+     * Immutable view of a histogram window.
+     */
+    public static class Snapshot {
+        
+        private final long[] counts;
+        private final long count;
+        private final long sum;
+        private final long max;
+        
+        Snapshot(long[] counts, long count, long sum, long max) {
+            this.counts = counts;
+            this.count = count;
+            this.sum = sum;
+            this.max = max;
+        }
+        
+        /**
+         * Get the value at the given percentile.
+         * The upper bound of the matching bucket is returned, capped at the recorded maximum.
+         * 
+         * @param percentile The percentile between 0 and 100
+         * @return The value at the percentile, or 0 if nothing was recorded
+         */
+        public long getPercentile(double percentile) {
+            long total = 0;
+            for (long c : counts) {
+                total += c;
+            }
+            if (total == 0) {
+                return 0;
+            }
+            long rank = (long) Math.ceil(total * Math.min(100.0, Math.max(0.0, percentile)) / 100.0);
+            rank = Math.max(1, rank);
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank) {
+                    return Math.min(bucketUpperBound(i), max);
+                }
+            }
+            return max;
+        }
+        
+        /**
+         * Merge this snapshot with another one.
+         * 
+         * @param other The other snapshot
+         * @return A new snapshot containing the values of both
+         */
+        public Snapshot merge(Snapshot other) {
+            long[] merged = new long[counts.length];
+            for (int i = 0; i < merged.length; i++) {
+                merged[i] = counts[i] + other.counts[i];
+            }
+            return new Snapshot(merged, count + other.count, sum + other.sum, Math.max(max, other.max));
+        }
+        
+        public long getCount() {
+            return count;
+        }
+        
+        public long getSum() {
+            return sum;
+        }
+        
+        public long getMax() {
+            return max;
+        }
+        
+        public double getMean() {
+            return count == 0 ? 0.0 : (double) sum / count;
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package com.logging.framework.metrics;
+
+import com.logging.framework.appender.KafkaLoggingFileAppender;
+import com.logging.framework.index.MethodMetadata;
+import com.logging.framework.model.LoggingEvent;
+import com.logging.framework.model.MethodExecutionStatus;
+import com.logging.framework.service.LoggingScheduler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Rollup mode: the aspects aggregate invocations per method, and per topic for Kafka listeners,
+ * instead of logging a line per call. Every interval one summary record per key (count, failures,
+ * sum, min, max and latency percentiles) is written to the dedicated log file.
+ * Aggregates are striped primitive arrays, so recording an invocation is a map lookup and a
+ * few atomic updates without allocation. Failed invocations can still be logged individually.
+ */
+public class MethodRollup implements InitializingBean, DisposableBean {
+    
+    private static final Logger log = LoggerFactory.getLogger(MethodRollup.class);
+    
+    private final ConcurrentMap<MethodMetadata, RollupAggregate> methods = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, RollupAggregate> topics = new ConcurrentHashMap<>();
+    private final LoggingScheduler scheduler;
+    private final KafkaLoggingFileAppender fileAppender;
+    private final long intervalMs;
+    private final boolean logFailures;
+    private final int stripes;
+    
+    private volatile List<RollupSummary> lastWindow = Collections.emptyList();
+    private volatile long windowStart = System.currentTimeMillis();
+    
+    /**
+     * Create a new MethodRollup.
+     * 
+     * @param scheduler The scheduler used for the periodic summaries
+     * @param fileAppender The dedicated log file appender, may be null
+     * @param intervalMs The rollup interval in milliseconds
+     * @param logFailures Whether failed invocations are still logged individually
+     */
+    public MethodRollup(LoggingScheduler scheduler, KafkaLoggingFileAppender fileAppender, long intervalMs,
+                        boolean logFailures) {
+        this.scheduler = scheduler;
+        this.fileAppender = fileAppender;
+        this.intervalMs = intervalMs;
+        this.logFailures = logFailures;
+        // Enough stripes for the cores, as a power of two
+        this.stripes = Integer.highestOneBit(Math.max(1, Runtime.getRuntime().availableProcessors() * 2 - 1));
+    }
+    
+    @Override
+    public void afterPropertiesSet() {
+        if (intervalMs > 0 && scheduler != null) {
+            scheduler.scheduleAtFixedRate(this::logSummary, intervalMs);
+        }
+    }
+    
+    @Override
+    public void destroy() {
+        // Write the partial window, which is not in any per-call line
+        logSummary();
+    }
+    
+    /**
+     * Aggregate a completed invocation.
+     * 
+     * @param metadata The metadata of the invoked method
+     * @param topic The topic of the processed message, or null
+     * @param executionTimeMs The execution time in milliseconds
+     * @param failed Whether the invocation failed
+     * @return True if the invocation must not be logged individually
+     */
+    public boolean record(MethodMetadata metadata, String topic, long executionTimeMs, boolean failed) {
+        RollupAggregate aggregate = methods.get(metadata);
+        if (aggregate == null) {
+            aggregate = methods.computeIfAbsent(metadata,
+                    key -> new RollupAggregate(key.getQualifiedMethodName(), "method", stripes));
+        }
+        aggregate.record(executionTimeMs, failed);
+        if (topic != null) {
+            aggregate = topics.get(topic);
+            if (aggregate == null) {
+                aggregate = topics.computeIfAbsent(topic, key -> new RollupAggregate(key, "topic", stripes));
+            }
+            aggregate.record(executionTimeMs, failed);
+        }
+        return !(failed && logFailures);
+    }
+    
+    /**
+     * Get the summaries of the last completed window.
+     * 
+     * @return The summaries of the keys invoked in the window
+     */
+    public List<RollupSummary> getSummaries() {
+        return lastWindow;
+    }
+    
+    /**
+     * Close the current window and return its summaries.
+     * This is what the periodic summary calls; it can also be called on demand.
+     * 
+     * @return The summaries of the keys invoked in the closed window
+     */
+    public synchronized List<RollupSummary> rollWindow() {
+        long now = System.currentTimeMillis();
+        long windowMs = now - windowStart;
+        windowStart = now;
+        List<RollupSummary> summaries = new ArrayList<>();
+        collect(methods.values(), windowMs, summaries);
+        collect(topics.values(), windowMs, summaries);
+        lastWindow = Collections.unmodifiableList(summaries);
+        return lastWindow;
+    }
+    
+    private static void collect(Iterable<RollupAggregate> aggregates, long windowMs, List<RollupSummary> target) {
+        for (RollupAggregate aggregate : aggregates) {
+            RollupSummary summary = aggregate.roll(windowMs);
+            if (summary != null) {
+                target.add(summary);
+            }
+        }
+    }
+    
+    private void logSummary() {
+        for (RollupSummary summary : rollWindow()) {
+            if (fileAppender == null) {
+                log.info("Kafka logging rollup: {}={} count={} failures={} mean={}ms min={}ms max={}ms "
+                                + "p50={}ms p90={}ms p99={}ms",
+                        summary.getKind(), summary.getKey(), summary.getCount(), summary.getFailures(),
+                        String.format("%.1f", summary.getMeanMs()), summary.getMinMs(), summary.getMaxMs(),
+                        summary.getP50Ms(), summary.getP90Ms(), summary.getP99Ms());
+                continue;
+            }
+            LoggingEvent event = new LoggingEvent();
+            event.setClassName("MethodRollup");
+            event.setMethodName("summary");
+            event.setStatus(MethodExecutionStatus.PASSED);
+            event.setLogLevel("INFO");
+            event.addContext("action", "rollup_summary");
+            event.addContext(summary.getKind(), summary.getKey());
+            event.addContext("windowMs", summary.getWindowMs());
+            event.addContext("count", summary.getCount());
+            event.addContext("failures", summary.getFailures());
+            event.addContext("sumMs", summary.getSumMs());
+            event.addContext("minMs", summary.getMinMs());
+            event.addContext("maxMs", summary.getMaxMs());
+            event.addContext("p50Ms", summary.getP50Ms());
+            event.addContext("p90Ms", summary.getP90Ms());
+            event.addContext("p99Ms", summary.getP99Ms());
+            fileAppender.log(event);
+        }
+    }
+}
@@ -0,0 +1,224 @@
+package com.logging.framework.metrics;
+
+import com.logging.framework.appender.KafkaLoggingFileAppender;
+import com.logging.framework.model.LoggingEvent;
+import com.logging.framework.model.MethodExecutionStatus;
+import com.logging.framework.service.LoggingScheduler;
+import com.logging.framework.support.IdentitySlots;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.clients.producer.RecordMetadata;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.InitializingBean;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Rolling send-to-acknowledgement latency, record size and failure counts per produced topic.
+ * The send time of a record is stamped by the producer interceptor on the sending thread and
+ * picked up by the producer listener when the broker acknowledges the record, on the producer
+ * I/O thread. Both sides only touch lock-free counters and histograms.
+ * A summary of each finished window is logged periodically by the scheduler and kept for {@link #getStats()}.
+ */
+public class ProducerMetrics implements InitializingBean {
+    
+    private static final Logger log = LoggerFactory.getLogger(ProducerMetrics.class);
+    
+    private final ConcurrentMap<String, TopicMetrics> topics = new ConcurrentHashMap<>();
+    private final IdentitySlots<Long> sendTimes = new IdentitySlots<>(4096);
+    private final LoggingScheduler scheduler;
+    private final KafkaLoggingFileAppender fileAppender;
+    private final long summaryIntervalMs;
+    
+    private volatile List<ProducerTopicStats> lastWindow = Collections.emptyList();
+    private volatile long windowStart = System.currentTimeMillis();
+    
+    /**
+     * Create a new ProducerMetrics.
+     * 
+     * @param scheduler The scheduler used for the periodic summary
+     * @param fileAppender The dedicated log file appender, may be null
+     * @param summaryIntervalMs The summary interval in milliseconds, 0 disables the summary log line
+     */
+    public ProducerMetrics(LoggingScheduler scheduler, KafkaLoggingFileAppender fileAppender,
+                           long summaryIntervalMs) {
+        this.scheduler = scheduler;
+        this.fileAppender = fileAppender;
+        this.summaryIntervalMs = summaryIntervalMs;
+    }
+    
+    @Override
+    public void afterPropertiesSet() {
+        if (summaryIntervalMs > 0 && scheduler != null) {
+            scheduler.scheduleAtFixedRate(this::logSummary, summaryIntervalMs);
+        }
+    }
+    
+    /**
+     * Record a record handed to the producer.
+     * 
+     * @param record The record
+     */
+    public void recordSend(ProducerRecord<?, ?> record) {
+        sendTimes.put(record, System.nanoTime());
+        topicMetrics(record.topic()).sent.increment();
+    }
+    
+    /**
+     * Record the acknowledgement or failure of a sent record.
+     * When the send time of the record is no longer known (another record took its slot, or
+     * the record was not sent through an instrumented producer), the latency is derived from
+     * the timestamp the producer assigned to the record, if it assigned one.
+     * 
+     * @param record The record
+     * @param metadata The metadata returned by the broker, may be null for a failed send
+     * @param exception The exception the send failed with, or null
+     * @return The send-to-acknowledgement latency in milliseconds, or -1 if unknown
+     */
+    public long recordCompletion(ProducerRecord<?, ?> record, RecordMetadata metadata, Exception exception) {
+        TopicMetrics metrics = topicMetrics(record.topic());
+        long latencyMs = latency(record, metadata);
+        if (latencyMs >= 0) {
+            metrics.ackLatency.record(latencyMs);
+        }
+        if (exception != null) {
+            metrics.failures.increment();
+        } else {
+            metrics.acknowledged.increment();
+            if (metadata != null) {
+                metrics.recordSize.record(Math.max(0, metadata.serializedKeySize())
+                        + Math.max(0, metadata.serializedValueSize()));
+            }
+        }
+        return latencyMs;
+    }
+    
+    private long latency(ProducerRecord<?, ?> record, RecordMetadata metadata) {
+        Long sendTime = sendTimes.get(record);
+        if (sendTime != null) {
+            return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - sendTime);
+        }
+        if (record.timestamp() == null && metadata != null && metadata.hasTimestamp()) {
+            return Math.max(0, System.currentTimeMillis() - metadata.timestamp());
+        }
+        return -1;
+    }
+    
+    /**
+     * Get the statistics of the last completed window.
+     * 
+     * @return The statistics per topic
+     */
+    public List<ProducerTopicStats> getStats() {
+        return lastWindow;
+    }
+    
+    /**
+     * Get the statistics of the last completed window for one topic.
+     * 
+     * @param topic The topic
+     * @return The statistics of the topic, or null if nothing was sent to it
+     */
+    public ProducerTopicStats getStats(String topic) {
+        for (ProducerTopicStats stats : lastWindow) {
+            if (stats.getTopic().equals(topic)) {
+                return stats;
+            }
+        }
+        return null;
+    }
+    
+    /**
+     * Close the current window and return its statistics.
+     * This is what the periodic summary calls; it can also be called on demand.
+     * 
+     * @return The statistics of the closed window
+     */
+    public List<ProducerTopicStats> rollWindow() {
+        long now = System.currentTimeMillis();
+        long windowMs = now - windowStart;
+        windowStart = now;
+        List<ProducerTopicStats> stats = new ArrayList<>();
+        for (TopicMetrics topic : topics.values()) {
+            stats.add(topic.roll(windowMs));
+        }
+        lastWindow = Collections.unmodifiableList(stats);
+        return lastWindow;
+    }
+    
+    private void logSummary() {
+        for (ProducerTopicStats stats : rollWindow()) {
+            if (stats.getSent() == 0 && stats.getAcknowledged() == 0 && stats.getFailures() == 0) {
+                continue;
+            }
+            log.info("Kafka producer summary: topic={} sent={} acked={} failures={} rec/s={} " +
+                            "ack p50={}ms p99={}ms max={}ms bytes={} size p99={}B",
+                    stats.getTopic(), stats.getSent(), stats.getAcknowledged(), stats.getFailures(),
+                    String.format("%.1f", stats.getRecordsPerSecond()),
+                    stats.getAckP50Ms(), stats.getAckP99Ms(), stats.getAckMaxMs(),
+                    stats.getBytes(), stats.getRecordSizeP99());
+            if (fileAppender != null) {
+                LoggingEvent event = new LoggingEvent();
+                event.setClassName("ProducerMetrics");
+                event.setMethodName("summary");
+                event.setStatus(stats.getFailures() > 0 ? MethodExecutionStatus.FAILED : MethodExecutionStatus.PASSED);
+                event.setLogLevel("INFO");
+                event.addContext("action", "producer_summary");
+                event.addContext("topic", stats.getTopic());
+                event.addContext("sent", stats.getSent());
+                event.addContext("acknowledged", stats.getAcknowledged());
+                event.addContext("failures", stats.getFailures());
+                event.addContext("recordsPerSecond", Math.round(stats.getRecordsPerSecond() * 10) / 10.0);
+                event.addContext("ackP50Ms", stats.getAckP50Ms());
+                event.addContext("ackP99Ms", stats.getAckP99Ms());
+                event.addContext("ackMaxMs", stats.getAckMaxMs());
+                event.addContext("bytes", stats.getBytes());
+                event.addContext("recordSizeP99", stats.getRecordSizeP99());
+                event.addContext("recordSizeMax", stats.getRecordSizeMax());
+                fileAppender.log(event);
+            }
+        }
+    }
+    
+    private TopicMetrics topicMetrics(String topic) {
+        TopicMetrics metrics = topics.get(topic);
+        if (metrics == null) {
+            metrics = topics.computeIfAbsent(topic, TopicMetrics::new);
+        }
+        return metrics;
+    }
+    
+    /**
+     * Window counters and histograms of one topic.
+     */
+    private static class TopicMetrics {
+        
+        private final String topic;
+        private final LongAdder sent = new LongAdder();
+        private final LongAdder acknowledged = new LongAdder();
+        private final LongAdder failures = new LongAdder();
+        private final LongAdder totalSent = new LongAdder();
+        private final LongAdder totalFailures = new LongAdder();
+        private final LatencyHistogram ackLatency = new LatencyHistogram();
+        private final LatencyHistogram recordSize = new LatencyHistogram();
+        
+        TopicMetrics(String topic) {
+            this.topic = topic;
+        }
+        
+        ProducerTopicStats roll(long windowMs) {
+            long windowSent = sent.sumThenReset();
+            long windowFailures = failures.sumThenReset();
+            totalSent.add(windowSent);
+            totalFailures.add(windowFailures);
+            return new ProducerTopicStats(topic, windowMs, windowSent, acknowledged.sumThenReset(), windowFailures,
+                    totalSent.sum(), totalFailures.sum(), ackLatency.snapshotAndReset(), recordSize.snapshotAndReset());
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package com.logging.framework.metrics;
+
+/**
+ * Immutable summary of the records sent to a topic over the last completed window.
+ * Latencies are in milliseconds from the send call until the broker acknowledged the record
+ * (or the send failed); sizes are the serialized key and value sizes in bytes.
+ */
+public class ProducerTopicStats {
+    
+    private final String topic;
+    private final long windowMs;
+    private final long sent;
+    private final long acknowledged;
+    private final long failures;
+    private final long totalSent;
+    private final long totalFailures;
+    private final long ackP50Ms;
+    private final long ackP99Ms;
+    private final long ackMaxMs;
+    private final long bytes;
+    private final long recordSizeP99;
+    private final long recordSizeMax;
+    
+    public ProducerTopicStats(String topic, long windowMs, long sent, long acknowledged, long failures,
+                              long totalSent, long totalFailures,
+                              LatencyHistogram.Snapshot ackLatency, LatencyHistogram.Snapshot recordSize) {
+        this.topic = topic;
+        this.windowMs = windowMs;
+        this.sent = sent;
+        this.acknowledged = acknowledged;
+        this.failures = failures;
+        this.totalSent = totalSent;
+        this.totalFailures = totalFailures;
+        this.ackP50Ms = ackLatency.getPercentile(50);
+        this.ackP99Ms = ackLatency.getPercentile(99);
+        this.ackMaxMs = ackLatency.getMax();
+        this.bytes = recordSize.getSum();
+        this.recordSizeP99 = recordSize.getPercentile(99);
+        this.recordSizeMax = recordSize.getMax();
+    }
+    
+    /**
+     * Get the send rate of the window in records per second.
+     * 
+     * @return Records per second
+     */
+    public double getRecordsPerSecond() {
+        return windowMs <= 0 ? 0.0 : sent * 1000.0 / windowMs;
+    }
+    
+    /**
+     * Get the mean serialized record size of the acknowledged records of the window.
+     * 
+     * @return The mean size in bytes
+     */
+    public double getMeanRecordSize() {
+        return acknowledged == 0 ? 0.0 : (double) bytes / acknowledged;
+    }
+    
+    public String getTopic() {
+        return topic;
+    }
+    
+    public long getWindowMs() {
+        return windowMs;
+    }
+    
+    public long getSent() {
+        return sent;
+    }
+    
+    public long getAcknowledged() {
+        return acknowledged;
+    }
+    
+    public long getFailures() {
+        return failures;
+    }
+    
+    public long getTotalSent() {
+        return totalSent;
+    }
+    
+    public long getTotalFailures() {
+        return totalFailures;
+    }
+    
+    public long getAckP50Ms() {
+        return ackP50Ms;
+    }
+    
+    public long getAckP99Ms() {
+        return ackP99Ms;
+    }
+    
+    public long getAckMaxMs() {
+        return ackMaxMs;
+    }
+    
+    public long getBytes() {
+        return bytes;
+    }
+    
+    public long getRecordSizeP99() {
+        return recordSizeP99;
+    }
+    
+    public long getRecordSizeMax() {
+        return recordSizeMax;
+    }
+    
+    @Override
+    public String toString() {
+        return "ProducerTopicStats{" +
+                "topic='" + topic + '\'' +
+                ", sent=" + sent +
+                ", acknowledged=" + acknowledged +
+                ", failures=" + failures +
+                ", recPerSec=" + String.format("%.1f", getRecordsPerSecond()) +
+                ", ackP50=" + ackP50Ms +
+                ", ackP99=" + ackP99Ms +
+                ", ackMax=" + ackMaxMs +
+                ", bytes=" + bytes +
+                '}';
+    }
+}
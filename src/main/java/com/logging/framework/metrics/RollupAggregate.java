@@ -0,0 +1,148 @@
+package com.logging.framework.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Striped count, failure, sum, min, max and latency histogram of one rollup key.
+ * Each stripe is a padded run of slots in one primitive array, so threads recording on
+ * different stripes never share a cache line. Recording is a few atomic updates on the
+ * stripe of the current thread and never allocates. The histogram has power-of-two buckets.
+ */
+class RollupAggregate {
+    
+    private static final int COUNT = 0;
+    private static final int FAILURES = 1;
+    private static final int SUM = 2;
+    private static final int MIN = 3;
+    private static final int MAX = 4;
+    private static final int FIRST_BUCKET = 8;
+    
+    /**
+     * Number of histogram buckets; bucket i holds values below 2^i, the last one everything above.
+     */
+    static final int BUCKETS = 40;
+    
+    // Multiple of 8 longs, so that stripes start on their own 64 byte cache line
+    private static final int STRIDE = FIRST_BUCKET + BUCKETS;
+    
+    private final String key;
+    private final String kind;
+    private final int stripeMask;
+    private final AtomicLongArray slots;
+    
+    /**
+     * Create a new RollupAggregate.
+     * 
+     * @param key The key, a qualified method name or a topic
+     * @param kind The kind of key, method or topic
+     * @param stripes The number of stripes, a power of two
+     */
+    RollupAggregate(String key, String kind, int stripes) {
+        this.key = key;
+        this.kind = kind;
+        this.stripeMask = stripes - 1;
+        // One spare stripe, so that the first one does not share a line with the array header
+        this.slots = new AtomicLongArray((stripes + 1) * STRIDE);
+        for (int stripe = 0; stripe < stripes; stripe++) {
+            slots.set(base(stripe) + MIN, Long.MAX_VALUE);
+        }
+    }
+    
+    /**
+     * Record an invocation.
+     * 
+     * @param executionTimeMs The execution time in milliseconds
+     * @param failed Whether the invocation failed
+     */
+    void record(long executionTimeMs, boolean failed) {
+        long value = executionTimeMs < 0 ? 0 : executionTimeMs;
+        int base = base(stripe());
+        slots.incrementAndGet(base + COUNT);
+        if (failed) {
+            slots.incrementAndGet(base + FAILURES);
+        }
+        slots.addAndGet(base + SUM, value);
+        long min = slots.get(base + MIN);
+        while (value < min && !slots.compareAndSet(base + MIN, min, value)) {
+            min = slots.get(base + MIN);
+        }
+        long max = slots.get(base + MAX);
+        while (value > max && !slots.compareAndSet(base + MAX, max, value)) {
+            max = slots.get(base + MAX);
+        }
+        slots.incrementAndGet(base + FIRST_BUCKET + bucketIndex(value));
+    }
+    
+    /**
+     * Sum the stripes into a summary and start a new window.
+     * Invocations recorded concurrently end up either in this window or in the next one.
+     * 
+     * @param windowMs The length of the finished window in milliseconds
+     * @return The summary, or null if nothing was recorded in the window
+     */
+    RollupSummary roll(long windowMs) {
+        long count = 0;
+        long failures = 0;
+        long sum = 0;
+        long min = Long.MAX_VALUE;
+        long max = 0;
+        long[] buckets = null;
+        for (int stripe = 0; stripe <= stripeMask; stripe++) {
+            int base = base(stripe);
+            if (slots.get(base + COUNT) == 0) {
+                continue;
+            }
+            count += slots.getAndSet(base + COUNT, 0);
+            failures += slots.getAndSet(base + FAILURES, 0);
+            sum += slots.getAndSet(base + SUM, 0);
+            min = Math.min(min, slots.getAndSet(base + MIN, Long.MAX_VALUE));
+            max = Math.max(max, slots.getAndSet(base + MAX, 0));
+            if (buckets == null) {
+                buckets = new long[BUCKETS];
+            }
+            for (int i = 0; i < BUCKETS; i++) {
+                if (slots.get(base + FIRST_BUCKET + i) != 0) {
+                    buckets[i] += slots.getAndSet(base + FIRST_BUCKET + i, 0);
+                }
+            }
+        }
+        if (count == 0) {
+            return null;
+        }
+        return new RollupSummary(key, kind, windowMs, count, failures, sum, min == Long.MAX_VALUE ? 0 : min, max,
+                percentile(buckets, 50, max), percentile(buckets, 90, max), percentile(buckets, 99, max));
+    }
+    
+    private int base(int stripe) {
+        return (stripe + 1) * STRIDE;
+    }
+    
+    private int stripe() {
+        // Thread ids are sequential, so spread them over the stripes
+        return (int) ((Thread.currentThread().getId() * 0x9E3779B97F4A7C15L) >>> 40) & stripeMask;
+    }
+    
+    static int bucketIndex(long value) {
+        return Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(value));
+    }
+    
+    private static long percentile(long[] buckets, double percentile, long max) {
+        long total = 0;
+        for (long count : buckets) {
+            total += count;
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(total * percentile / 100.0));
+        long seen = 0;
+        for (int i = 0; i < buckets.length; i++) {
+            seen += buckets[i];
+            if (seen >= rank) {
+                // Upper bound of the bucket, capped at the recorded maximum
+                return i == 0 ? 0 : Math.min((1L << i) - 1, max);
+            }
+        }
+        return max;
+    }
+}
@@ -0,0 +1,112 @@
+package com.logging.framework.metrics;
+
+/**
+ * Immutable summary of the invocations of one method or topic over a rollup window.
+ * Times are execution times in milliseconds; percentiles are the upper bounds of
+ * power-of-two histogram buckets, capped at the maximum.
+ */
+public class RollupSummary {
+    
+    private final String key;
+    private final String kind;
+    private final long windowMs;
+    private final long count;
+    private final long failures;
+    private final long sumMs;
+    private final long minMs;
+    private final long maxMs;
+    private final long p50Ms;
+    private final long p90Ms;
+    private final long p99Ms;
+    
+    public RollupSummary(String key, String kind, long windowMs, long count, long failures, long sumMs,
+                         long minMs, long maxMs, long p50Ms, long p90Ms, long p99Ms) {
+        this.key = key;
+        this.kind = kind;
+        this.windowMs = windowMs;
+        this.count = count;
+        this.failures = failures;
+        this.sumMs = sumMs;
+        this.minMs = minMs;
+        this.maxMs = maxMs;
+        this.p50Ms = p50Ms;
+        this.p90Ms = p90Ms;
+        this.p99Ms = p99Ms;
+    }
+    
+    /**
+     * Get the mean execution time.
+     * 
+     * @return The mean in milliseconds
+     */
+    public double getMeanMs() {
+        return count == 0 ? 0.0 : (double) sumMs / count;
+    }
+    
+    /**
+     * Get the qualified method name or the topic the summary is about.
+     * 
+     * @return The key
+     */
+    public String getKey() {
+        return key;
+    }
+    
+    /**
+     * Get the kind of key.
+     * 
+     * @return method or topic
+     */
+    public String getKind() {
+        return kind;
+    }
+    
+    public long getWindowMs() {
+        return windowMs;
+    }
+    
+    public long getCount() {
+        return count;
+    }
+    
+    public long getFailures() {
+        return failures;
+    }
+    
+    public long getSumMs() {
+        return sumMs;
+    }
+    
+    public long getMinMs() {
+        return minMs;
+    }
+    
+    public long getMaxMs() {
+        return maxMs;
+    }
+    
+    public long getP50Ms() {
+        return p50Ms;
+    }
+    
+    public long getP90Ms() {
+        return p90Ms;
+    }
+    
+    public long getP99Ms() {
+        return p99Ms;
+    }
+    
+    @Override
+    public String toString() {
+        return "RollupSummary{" +
+                kind + "='" + key + '\'' +
+                ", count=" + count +
+                ", failures=" + failures +
+                ", mean=" + String.format("%.1f", getMeanMs()) +
+                ", min=" + minMs +
+                ", max=" + maxMs +
+                ", p99=" + p99Ms +
+                '}';
+    }
+}
@@ -0,0 +1,96 @@
+package com.logging.framework.metrics;
+
+import com.logging.framework.model.KafkaMessageContext;
+import com.logging.framework.trace.TraceContext;
+
+/**
+ * Immutable record of a slow listener invocation, enough to find the message again:
+ * its topic, partition, offset and key. The payload and headers are not kept.
+ */
+public class SlowMessage {
+    
+    private final String listener;
+    private final String topic;
+    private final Integer partition;
+    private final Long offset;
+    private final String key;
+    private final Long timestamp;
+    private final TraceContext trace;
+    private final long processingTimeMs;
+    private final boolean failed;
+    private final long completedAt;
+    
+    SlowMessage(String listener, KafkaMessageContext context, long processingTimeMs, boolean failed) {
+        this.listener = listener;
+        this.topic = context != null ? context.getTopic() : null;
+        this.partition = context != null ? context.getPartition() : null;
+        this.offset = context != null ? context.getOffset() : null;
+        this.key = context != null ? context.getKey() : null;
+        this.timestamp = context != null ? context.getTimestamp() : null;
+        this.trace = context != null ? context.getTraceContext() : null;
+        this.processingTimeMs = processingTimeMs;
+        this.failed = failed;
+        this.completedAt = System.currentTimeMillis();
+    }
+    
+    /**
+     * Get the listener that processed the message.
+     * 
+     * @return The qualified method name of the listener
+     */
+    public String getListener() {
+        return listener;
+    }
+    
+    public String getTopic() {
+        return topic;
+    }
+    
+    public Integer getPartition() {
+        return partition;
+    }
+    
+    public Long getOffset() {
+        return offset;
+    }
+    
+    public String getKey() {
+        return key;
+    }
+    
+    /**
+     * Get the record timestamp.
+     * 
+     * @return The timestamp in epoch milliseconds, or null if unknown
+     */
+    public Long getTimestamp() {
+        return timestamp;
+    }
+    
+    public TraceContext getTrace() {
+        return trace;
+    }
+    
+    public long getProcessingTimeMs() {
+        return processingTimeMs;
+    }
+    
+    public boolean isFailed() {
+        return failed;
+    }
+    
+    /**
+     * Get the time processing completed.
+     * 
+     * @return The time in epoch milliseconds
+     */
+    public long getCompletedAt() {
+        return completedAt;
+    }
+    
+    @Override
+    public String toString() {
+        return topic + "-" + partition + "@" + offset + " key=" + key + " " + processingTimeMs + "ms"
+                + (failed ? " FAILED" : "");
+    }
+}
@@ -0,0 +1,262 @@
+package com.logging.framework.metrics;
+
+import com.logging.framework.appender.KafkaLoggingFileAppender;
+import com.logging.framework.index.MethodMetadata;
+import com.logging.framework.model.KafkaMessageContext;
+import com.logging.framework.model.LoggingEvent;
+import com.logging.framework.model.MethodExecutionStatus;
+import com.logging.framework.service.LoggingScheduler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.InitializingBean;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Keeps the K slowest messages of each Kafka listener per window, with their topic, partition,
+ * offset and key, so that the messages behind a latency spike can be found without logging every call.
+ * Each listener has a bounded min-heap of processing times. Once the heap is full its root is the
+ * K-th slowest time, published as a volatile threshold: an invocation at or below it costs that
+ * single comparison. Only invocations that enter the top K take the lock of the listener and allocate.
+ * At the end of each window the slowest messages are logged, slowest first, and kept for {@link #getSlowest()}.
+ */
+public class SlowMessageTracker implements InitializingBean {
+    
+    private static final Logger log = LoggerFactory.getLogger(SlowMessageTracker.class);
+    
+    private final ConcurrentMap<MethodMetadata, TopK> listeners = new ConcurrentHashMap<>();
+    private final LoggingScheduler scheduler;
+    private final KafkaLoggingFileAppender fileAppender;
+    private final int k;
+    private final long windowMs;
+    private final long minProcessingTimeMs;
+    
+    private volatile Map<String, List<SlowMessage>> lastWindow = Collections.emptyMap();
+    private volatile long windowStart = System.currentTimeMillis();
+    
+    /**
+     * Create a new SlowMessageTracker.
+     * 
+     * @param scheduler The scheduler used to close the windows
+     * @param fileAppender The dedicated log file appender, may be null
+     * @param k The number of slowest messages kept per listener and window
+     * @param windowMs The window length in milliseconds, 0 to close windows only on demand
+     * @param minProcessingTimeMs The processing time below which messages are never kept
+     */
+    public SlowMessageTracker(LoggingScheduler scheduler, KafkaLoggingFileAppender fileAppender, int k,
+                              long windowMs, long minProcessingTimeMs) {
+        if (k < 1) {
+            throw new IllegalArgumentException("The number of slowest messages must be at least 1: " + k);
+        }
+        this.scheduler = scheduler;
+        this.fileAppender = fileAppender;
+        this.k = k;
+        this.windowMs = windowMs;
+        this.minProcessingTimeMs = minProcessingTimeMs;
+    }
+    
+    @Override
+    public void afterPropertiesSet() {
+        if (windowMs > 0 && scheduler != null) {
+            scheduler.scheduleAtFixedRate(this::logWindow, windowMs);
+        }
+    }
+    
+    /**
+     * Offer a processed message.
+     * 
+     * @param metadata The metadata of the listener
+     * @param context The Kafka message context
+     * @param processingTimeMs The time the listener spent processing the message
+     * @param failed Whether processing failed
+     */
+    public void record(MethodMetadata metadata, KafkaMessageContext context, long processingTimeMs, boolean failed) {
+        TopK topK = listeners.get(metadata);
+        if (topK == null) {
+            topK = listeners.computeIfAbsent(metadata,
+                    key -> new TopK(key.getQualifiedMethodName(), k, minProcessingTimeMs - 1));
+        }
+        if (processingTimeMs <= topK.threshold) {
+            return;
+        }
+        topK.offer(context, processingTimeMs, failed);
+    }
+    
+    /**
+     * Get the slowest messages of the last completed window.
+     * 
+     * @return The slowest messages, slowest first, by qualified listener method name
+     */
+    public Map<String, List<SlowMessage>> getSlowest() {
+        return lastWindow;
+    }
+    
+    /**
+     * Get the slowest messages of a listener in the last completed window.
+     * 
+     * @param listener The qualified method name of the listener
+     * @return The slowest messages, slowest first
+     */
+    public List<SlowMessage> getSlowest(String listener) {
+        List<SlowMessage> slowest = lastWindow.get(listener);
+        return slowest != null ? slowest : Collections.emptyList();
+    }
+    
+    /**
+     * Get the slowest messages of the current window so far, without closing it.
+     * 
+     * @return The slowest messages, slowest first, by qualified listener method name
+     */
+    public Map<String, List<SlowMessage>> getCurrentSlowest() {
+        Map<String, List<SlowMessage>> current = new LinkedHashMap<>();
+        for (TopK topK : listeners.values()) {
+            List<SlowMessage> slowest = topK.snapshot(false);
+            if (!slowest.isEmpty()) {
+                current.put(topK.listener, slowest);
+            }
+        }
+        return current;
+    }
+    
+    /**
+     * Close the current window and return its slowest messages.
+     * This is what the periodic task calls; it can also be called on demand.
+     * 
+     * @return The slowest messages, slowest first, by qualified listener method name
+     */
+    public synchronized Map<String, List<SlowMessage>> rollWindow() {
+        windowStart = System.currentTimeMillis();
+        Map<String, List<SlowMessage>> window = new LinkedHashMap<>();
+        for (TopK topK : listeners.values()) {
+            List<SlowMessage> slowest = topK.snapshot(true);
+            if (!slowest.isEmpty()) {
+                window.put(topK.listener, slowest);
+            }
+        }
+        lastWindow = Collections.unmodifiableMap(window);
+        return lastWindow;
+    }
+    
+    private void logWindow() {
+        long windowEnd = System.currentTimeMillis();
+        long length = windowEnd - windowStart;
+        for (Map.Entry<String, List<SlowMessage>> entry : rollWindow().entrySet()) {
+            log.info("Slowest Kafka messages of {} in the last {} ms: {}", entry.getKey(), length, entry.getValue());
+            if (fileAppender != null) {
+                LoggingEvent event = new LoggingEvent();
+                event.setClassName("SlowMessageTracker");
+                event.setMethodName("summary");
+                event.setStatus(MethodExecutionStatus.PASSED);
+                event.setLogLevel("INFO");
+                event.addContext("action", "slow_messages");
+                event.addContext("listener", entry.getKey());
+                event.addContext("windowMs", length);
+                event.addContext("messages", entry.getValue());
+                fileAppender.log(event);
+            }
+        }
+    }
+    
+    /**
+     * Bounded min-heap of the slowest messages of one listener.
+     */
+    private static class TopK {
+        
+        private final String listener;
+        private final ReentrantLock lock = new ReentrantLock();
+        private final long floor;
+        private final long[] times;
+        private final SlowMessage[] messages;
+        private int size;
+        
+        // Processing time of the K-th slowest message once the heap is full, the floor before
+        private volatile long threshold;
+        
+        TopK(String listener, int k, long floor) {
+            this.listener = listener;
+            this.floor = floor;
+            this.threshold = floor;
+            this.times = new long[k];
+            this.messages = new SlowMessage[k];
+        }
+        
+        void offer(KafkaMessageContext context, long processingTimeMs, boolean failed) {
+            lock.lock();
+            try {
+                // The threshold may have risen while waiting for the lock
+                if (processingTimeMs <= threshold) {
+                    return;
+                }
+                SlowMessage message = new SlowMessage(listener, context, processingTimeMs, failed);
+                if (size < times.length) {
+                    siftUp(size++, processingTimeMs, message);
+                } else {
+                    siftDown(0, processingTimeMs, message);
+                }
+                if (size == times.length) {
+                    threshold = times[0];
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+        
+        List<SlowMessage> snapshot(boolean reset) {
+            SlowMessage[] copy;
+            lock.lock();
+            try {
+                copy = Arrays.copyOf(messages, size);
+                if (reset) {
+                    Arrays.fill(messages, 0, size, null);
+                    size = 0;
+                    threshold = floor;
+                }
+            } finally {
+                lock.unlock();
+            }
+            List<SlowMessage> slowest = new ArrayList<>(Arrays.asList(copy));
+            slowest.sort((a, b) -> Long.compare(b.getProcessingTimeMs(), a.getProcessingTimeMs()));
+            return slowest;
+        }
+        
+        private void siftUp(int index, long time, SlowMessage message) {
+            while (index > 0) {
+                int parent = (index - 1) >>> 1;
+                if (times[parent] <= time) {
+                    break;
+                }
+                times[index] = times[parent];
+                messages[index] = messages[parent];
+                index = parent;
+            }
+            times[index] = time;
+            messages[index] = message;
+        }
+        
+        private void siftDown(int index, long time, SlowMessage message) {
+            int half = size >>> 1;
+            while (index < half) {
+                int child = 2 * index + 1;
+                if (child + 1 < size && times[child + 1] < times[child]) {
+                    child++;
+                }
+                if (time <= times[child]) {
+                    break;
+                }
+                times[index] = times[child];
+                messages[index] = messages[child];
+                index = child;
+            }
+            times[index] = time;
+            messages[index] = message;
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package com.logging.framework.metrics;
+
+import java.util.List;
+
+/**
+ * Immutable heaviest keys and partitions of a topic over a window.
+ * Key counts are count-min sketch estimates, which may overestimate but never underestimate.
+ */
+public class TopicHotSpots {
+    
+    private final String topic;
+    private final long windowMs;
+    private final long messages;
+    private final List<HotKey> keys;
+    private final List<HotPartition> partitions;
+    
+    public TopicHotSpots(String topic, long windowMs, long messages, List<HotKey> keys, List<HotPartition> partitions) {
+        this.topic = topic;
+        this.windowMs = windowMs;
+        this.messages = messages;
+        this.keys = keys;
+        this.partitions = partitions;
+    }
+    
+    public String getTopic() {
+        return topic;
+    }
+    
+    public long getWindowMs() {
+        return windowMs;
+    }
+    
+    public long getMessages() {
+        return messages;
+    }
+    
+    /**
+     * Get the heaviest keys.
+     * 
+     * @return The keys, heaviest first
+     */
+    public List<HotKey> getKeys() {
+        return keys;
+    }
+    
+    /**
+     * Get the heaviest partitions by processing time.
+     * 
+     * @return The partitions, heaviest first
+     */
+    public List<HotPartition> getPartitions() {
+        return partitions;
+    }
+    
+    @Override
+    public String toString() {
+        return "TopicHotSpots{" +
+                "topic='" + topic + '\'' +
+                ", messages=" + messages +
+                ", keys=" + keys +
+                ", partitions=" + partitions +
+                '}';
+    }
+    
+    /**
+     * Estimated message count of a key.
+     */
+    public static class HotKey {
+        
+        private final String key;
+        private final long count;
+        private final double share;
+        
+        public HotKey(String key, long count, double share) {
+            this.key = key;
+            this.count = count;
+            this.share = share;
+        }
+        
+        public String getKey() {
+            return key;
+        }
+        
+        public long getCount() {
+            return count;
+        }
+        
+        /**
+         * Get the share of the messages of the topic with this key.
+         * 
+         * @return The share between 0 and 1
+         */
+        public double getShare() {
+            return share;
+        }
+        
+        @Override
+        public String toString() {
+            return key + "=" + count + String.format(" (%.1f%%)", share * 100);
+        }
+    }
+    
+    /**
+     * Messages and processing time of a partition.
+     */
+    public static class HotPartition {
+        
+        private final int partition;
+        private final long messages;
+        private final long processingTimeMs;
+        private final double share;
+        
+        public HotPartition(int partition, long messages, long processingTimeMs, double share) {
+            this.partition = partition;
+            this.messages = messages;
+            this.processingTimeMs = processingTimeMs;
+            this.share = share;
+        }
+        
+        public int getPartition() {
+            return partition;
+        }
+        
+        public long getMessages() {
+            return messages;
+        }
+        
+        public long getProcessingTimeMs() {
+            return processingTimeMs;
+        }
+        
+        /**
+         * Get the share of the processing time of the topic spent on this partition.
+         * 
+         * @return The share between 0 and 1
+         */
+        public double getShare() {
+            return share;
+        }
+        
+        @Override
+        public String toString() {
+            return partition + "=" + messages + " msgs/" + processingTimeMs + "ms" + String.format(" (%.1f%%)", share * 100);
+        }
+    }
+}
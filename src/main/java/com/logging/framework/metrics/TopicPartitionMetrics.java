@@ -0,0 +1,249 @@
+package com.logging.framework.metrics;
+
+import com.logging.framework.appender.KafkaLoggingFileAppender;
+import com.logging.framework.model.KafkaMessageContext;
+import com.logging.framework.model.LoggingEvent;
+import com.logging.framework.model.MethodExecutionStatus;
+import com.logging.framework.service.LoggingScheduler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.InitializingBean;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Rolling end-to-end latency and throughput per topic-partition.
+ * Partitions are kept in arrays indexed by partition number, so recording a message
+ * is one topic lookup, one array read and a handful of atomic increments.
+ * A summary of each finished window is logged periodically and kept for {@link #getStats()}.
+ */
+public class TopicPartitionMetrics implements InitializingBean {
+    
+    private static final Logger log = LoggerFactory.getLogger(TopicPartitionMetrics.class);
+    
+    private final ConcurrentMap<String, TopicMetrics> topics = new ConcurrentHashMap<>();
+    private final LoggingScheduler scheduler;
+    private final KafkaLoggingFileAppender fileAppender;
+    private final long summaryIntervalMs;
+    
+    private volatile List<TopicPartitionStats> lastWindow = Collections.emptyList();
+    private volatile long windowStart = System.currentTimeMillis();
+    
+    /**
+     * Create a new TopicPartitionMetrics.
+     * 
+     * @param scheduler The scheduler used for the periodic summary
+     * @param fileAppender The dedicated log file appender, may be null
+     * @param summaryIntervalMs The summary interval in milliseconds, 0 disables the summary log line
+     */
+    public TopicPartitionMetrics(LoggingScheduler scheduler, KafkaLoggingFileAppender fileAppender,
+                                 long summaryIntervalMs) {
+        this.scheduler = scheduler;
+        this.fileAppender = fileAppender;
+        this.summaryIntervalMs = summaryIntervalMs;
+    }
+    
+    @Override
+    public void afterPropertiesSet() {
+        if (summaryIntervalMs > 0 && scheduler != null) {
+            scheduler.scheduleAtFixedRate(this::logSummary, summaryIntervalMs);
+        }
+    }
+    
+    /**
+     * Record a processed message.
+     * 
+     * @param context The Kafka message context
+     * @param processingTimeMs The time the listener spent processing the message
+     * @param failed Whether processing failed
+     */
+    public void record(KafkaMessageContext context, long processingTimeMs, boolean failed) {
+        if (context == null || context.getTopic() == null) {
+            return;
+        }
+        int partition = context.getPartition() != null ? context.getPartition() : -1;
+        PartitionMetrics metrics = topicMetrics(context.getTopic()).partition(partition);
+        metrics.messages.increment();
+        if (failed) {
+            metrics.failures.increment();
+        }
+        metrics.processing.record(processingTimeMs);
+        Long timestamp = context.getTimestamp();
+        if (timestamp != null && timestamp > 0) {
+            metrics.endToEnd.record(System.currentTimeMillis() - timestamp);
+        }
+    }
+    
+    /**
+     * Get the statistics of the last completed window.
+     * 
+     * @return The statistics per topic-partition
+     */
+    public List<TopicPartitionStats> getStats() {
+        return lastWindow;
+    }
+    
+    /**
+     * Get the statistics of the last completed window for one topic.
+     * 
+     * @param topic The topic
+     * @return The statistics of the partitions of the topic
+     */
+    public List<TopicPartitionStats> getStats(String topic) {
+        List<TopicPartitionStats> result = new ArrayList<>();
+        for (TopicPartitionStats stats : lastWindow) {
+            if (stats.getTopic().equals(topic)) {
+                result.add(stats);
+            }
+        }
+        return result;
+    }
+    
+    /**
+     * Close the current window and return its statistics.
+     * This is what the periodic summary calls; it can also be called on demand.
+     * 
+     * @return The statistics of the closed window
+     */
+    public List<TopicPartitionStats> rollWindow() {
+        long now = System.currentTimeMillis();
+        long windowMs = now - windowStart;
+        windowStart = now;
+        List<TopicPartitionStats> stats = new ArrayList<>();
+        for (TopicMetrics topic : topics.values()) {
+            topic.collect(windowMs, stats);
+        }
+        lastWindow = Collections.unmodifiableList(stats);
+        return lastWindow;
+    }
+    
+    private void logSummary() {
+        for (TopicPartitionStats stats : rollWindow()) {
+            if (stats.getMessages() == 0) {
+                continue;
+            }
+            log.info("Kafka partition summary: topic={} partition={} messages={} failures={} msg/s={} " +
+                            "e2e p50={}ms p99={}ms max={}ms processing p99={}ms",
+                    stats.getTopic(), stats.getPartition(), stats.getMessages(), stats.getFailures(),
+                    String.format("%.1f", stats.getMessagesPerSecond()),
+                    stats.getEndToEndP50Ms(), stats.getEndToEndP99Ms(), stats.getEndToEndMaxMs(),
+                    stats.getProcessingP99Ms());
+            if (fileAppender != null) {
+                LoggingEvent event = new LoggingEvent();
+                event.setClassName("TopicPartitionMetrics");
+                event.setMethodName("summary");
+                event.setStatus(MethodExecutionStatus.PASSED);
+                event.setLogLevel("INFO");
+                event.addContext("action", "partition_summary");
+                event.addContext("topic", stats.getTopic());
+                event.addContext("partition", stats.getPartition());
+                event.addContext("messages", stats.getMessages());
+                event.addContext("failures", stats.getFailures());
+                event.addContext("messagesPerSecond", Math.round(stats.getMessagesPerSecond() * 10) / 10.0);
+                event.addContext("e2eP50Ms", stats.getEndToEndP50Ms());
+                event.addContext("e2eP99Ms", stats.getEndToEndP99Ms());
+                event.addContext("e2eMaxMs", stats.getEndToEndMaxMs());
+                event.addContext("processingP99Ms", stats.getProcessingP99Ms());
+                fileAppender.log(event);
+            }
+        }
+    }
+    
+    private TopicMetrics topicMetrics(String topic) {
+        TopicMetrics metrics = topics.get(topic);
+        if (metrics == null) {
+            metrics = topics.computeIfAbsent(topic, TopicMetrics::new);
+        }
+        return metrics;
+    }
+    
+    /**
+     * Metrics of one topic, with partitions indexed by partition number.
+     */
+    private static class TopicMetrics {
+        
+        private final String topic;
+        private final PartitionMetrics unknownPartition = new PartitionMetrics(-1);
+        private volatile AtomicReferenceArray<PartitionMetrics> partitions = new AtomicReferenceArray<>(16);
+        
+        TopicMetrics(String topic) {
+            this.topic = topic;
+        }
+        
+        PartitionMetrics partition(int partition) {
+            if (partition < 0) {
+                return unknownPartition;
+            }
+            AtomicReferenceArray<PartitionMetrics> current = partitions;
+            if (partition >= current.length()) {
+                current = grow(partition);
+            }
+            PartitionMetrics metrics = current.get(partition);
+            if (metrics == null) {
+                current.compareAndSet(partition, null, new PartitionMetrics(partition));
+                metrics = current.get(partition);
+            }
+            return metrics;
+        }
+        
+        private synchronized AtomicReferenceArray<PartitionMetrics> grow(int partition) {
+            AtomicReferenceArray<PartitionMetrics> current = partitions;
+            if (partition < current.length()) {
+                return current;
+            }
+            AtomicReferenceArray<PartitionMetrics> grown =
+                    new AtomicReferenceArray<>(Math.max(partition + 1, current.length() * 2));
+            for (int i = 0; i < current.length(); i++) {
+                grown.set(i, current.get(i));
+            }
+            partitions = grown;
+            return grown;
+        }
+        
+        void collect(long windowMs, List<TopicPartitionStats> target) {
+            AtomicReferenceArray<PartitionMetrics> current = partitions;
+            for (int i = 0; i < current.length(); i++) {
+                PartitionMetrics metrics = current.get(i);
+                if (metrics != null) {
+                    target.add(metrics.roll(topic, windowMs));
+                }
+            }
+            if (unknownPartition.total.sum() > 0 || unknownPartition.messages.sum() > 0) {
+                target.add(unknownPartition.roll(topic, windowMs));
+            }
+        }
+    }
+    
+    /**
+     * Window counters and histograms of one partition.
+     */
+    private static class PartitionMetrics {
+        
+        private final int partition;
+        private final LongAdder messages = new LongAdder();
+        private final LongAdder failures = new LongAdder();
+        private final LongAdder total = new LongAdder();
+        private final LongAdder totalFailures = new LongAdder();
+        private final LatencyHistogram endToEnd = new LatencyHistogram();
+        private final LatencyHistogram processing = new LatencyHistogram();
+        
+        PartitionMetrics(int partition) {
+            this.partition = partition;
+        }
+        
+        TopicPartitionStats roll(String topic, long windowMs) {
+            long windowMessages = messages.sumThenReset();
+            long windowFailures = failures.sumThenReset();
+            total.add(windowMessages);
+            totalFailures.add(windowFailures);
+            return new TopicPartitionStats(topic, partition, windowMs, windowMessages, windowFailures,
+                    total.sum(), totalFailures.sum(), endToEnd.snapshotAndReset(), processing.snapshotAndReset());
+        }
+    }
+}
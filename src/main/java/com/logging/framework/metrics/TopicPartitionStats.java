@@ -0,0 +1,117 @@
+package com.logging.framework.metrics;
+
+/**
+ * Immutable summary of a topic-partition over the last completed window.
+ * Latencies are in milliseconds; end-to-end latency is measured from the record
+ * timestamp (CreateTime or LogAppendTime) until processing completed.
+ */
+public class TopicPartitionStats {
+    
+    private final String topic;
+    private final int partition;
+    private final long windowMs;
+    private final long messages;
+    private final long failures;
+    private final long totalMessages;
+    private final long totalFailures;
+    private final long endToEndP50Ms;
+    private final long endToEndP99Ms;
+    private final long endToEndMaxMs;
+    private final long processingP50Ms;
+    private final long processingP99Ms;
+    private final long processingMaxMs;
+    
+    public TopicPartitionStats(String topic, int partition, long windowMs, long messages, long failures,
+                               long totalMessages, long totalFailures,
+                               LatencyHistogram.Snapshot endToEnd, LatencyHistogram.Snapshot processing) {
+        this.topic = topic;
+        this.partition = partition;
+        this.windowMs = windowMs;
+        this.messages = messages;
+        this.failures = failures;
+        this.totalMessages = totalMessages;
+        this.totalFailures = totalFailures;
+        this.endToEndP50Ms = endToEnd.getPercentile(50);
+        this.endToEndP99Ms = endToEnd.getPercentile(99);
+        this.endToEndMaxMs = endToEnd.getMax();
+        this.processingP50Ms = processing.getPercentile(50);
+        this.processingP99Ms = processing.getPercentile(99);
+        this.processingMaxMs = processing.getMax();
+    }
+    
+    /**
+     * Get the throughput of the window in messages per second.
+     * 
+     * @return Messages per second
+     */
+    public double getMessagesPerSecond() {
+        return windowMs <= 0 ? 0.0 : messages * 1000.0 / windowMs;
+    }
+    
+    public String getTopic() {
+        return topic;
+    }
+    
+    public int getPartition() {
+        return partition;
+    }
+    
+    public long getWindowMs() {
+        return windowMs;
+    }
+    
+    public long getMessages() {
+        return messages;
+    }
+    
+    public long getFailures() {
+        return failures;
+    }
+    
+    public long getTotalMessages() {
+        return totalMessages;
+    }
+    
+    public long getTotalFailures() {
+        return totalFailures;
+    }
+    
+    public long getEndToEndP50Ms() {
+        return endToEndP50Ms;
+    }
+    
+    public long getEndToEndP99Ms() {
+        return endToEndP99Ms;
+    }
+    
+    public long getEndToEndMaxMs() {
+        return endToEndMaxMs;
+    }
+    
+    public long getProcessingP50Ms() {
+        return processingP50Ms;
+    }
+    
+    public long getProcessingP99Ms() {
+        return processingP99Ms;
+    }
+    
+    public long getProcessingMaxMs() {
+        return processingMaxMs;
+    }
+    
+    @Override
+    public String toString() {
+        return "TopicPartitionStats{" +
+                "topic='" + topic + '\'' +
+                ", partition=" + partition +
+                ", messages=" + messages +
+                ", failures=" + failures +
+                ", msgPerSec=" + String.format("%.1f", getMessagesPerSecond()) +
+                ", e2eP50=" + endToEndP50Ms +
+                ", e2eP99=" + endToEndP99Ms +
+                ", e2eMax=" + endToEndMaxMs +
+                ", procP99=" + processingP99Ms +
+                '}';
+    }
+}
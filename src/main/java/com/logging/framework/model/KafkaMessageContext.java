@@ -1,5 +1,11 @@
 package com.logging.framework.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.logging.framework.trace.TraceContext;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.clients.producer.RecordMetadata;
+import org.apache.kafka.common.record.TimestampType;
 import org.springframework.kafka.support.KafkaHeaders;
 import org.springframework.messaging.MessageHeaders;
 
@@ -15,10 +21,71 @@ public class KafkaMessageContext {
     private String key;
     private Object payload;
     private MessageHeaders headers;
+    private Long timestamp;
+    private String timestampType;
+    private TraceContext traceContext;
     
     public KafkaMessageContext() {
     }
     
+    /**
+     * Create a KafkaMessageContext from a consumed record.
+     * Captures the record coordinates and its broker/producer timestamp.
+     * 
+     * @param record The consumer record
+     * @return A new KafkaMessageContext
+     */
+    public static KafkaMessageContext fromConsumerRecord(ConsumerRecord<?, ?> record) {
+        KafkaMessageContext context = new KafkaMessageContext();
+        context.setTopic(record.topic());
+        context.setPartition(record.partition());
+        context.setOffset(record.offset());
+        if (record.key() instanceof String) {
+            context.setKey((String) record.key());
+        } else if (record.key() != null) {
+            context.setKey(String.valueOf(record.key()));
+        }
+        if (record.timestamp() >= 0) {
+            context.setTimestamp(record.timestamp());
+            context.setTimestampType(record.timestampType().name());
+        }
+        context.setPayload(record.value());
+        return context;
+    }
+    
+    /**
+     * Create a KafkaMessageContext from a produced record.
+     * Partition, offset and timestamp are taken from the broker metadata when it is available.
+     * 
+     * @param record The producer record
+     * @param metadata The metadata returned for the record, may be null
+     * @return A new KafkaMessageContext
+     */
+    public static KafkaMessageContext fromProducerRecord(ProducerRecord<?, ?> record, RecordMetadata metadata) {
+        KafkaMessageContext context = new KafkaMessageContext();
+        context.setTopic(record.topic());
+        if (metadata != null && metadata.partition() >= 0) {
+            context.setPartition(metadata.partition());
+        } else {
+            context.setPartition(record.partition());
+        }
+        if (metadata != null && metadata.hasOffset()) {
+            context.setOffset(metadata.offset());
+        }
+        if (record.key() instanceof String) {
+            context.setKey((String) record.key());
+        } else if (record.key() != null) {
+            context.setKey(String.valueOf(record.key()));
+        }
+        if (metadata != null && metadata.hasTimestamp()) {
+            context.setTimestamp(metadata.timestamp());
+        } else {
+            context.setTimestamp(record.timestamp());
+        }
+        context.setPayload(record.value());
+        return context;
+    }
+    
     /**
      * Create a KafkaMessageContext from MessageHeaders.
      * Extracts Kafka-specific information from the headers.
@@ -48,6 +115,18 @@ public class KafkaMessageContext {
             if (headers.get(KafkaHeaders.RECEIVED_KEY) != null) {
                 context.setKey(headers.get(KafkaHeaders.RECEIVED_KEY, String.class));
             }
+            
+            if (headers.get(KafkaHeaders.RECEIVED_TIMESTAMP) != null) {
+                context.setTimestamp(headers.get(KafkaHeaders.RECEIVED_TIMESTAMP, Long.class));
+            }
+            
+            // Spring Kafka puts the name of the enum constant in the header, as the record path does
+            Object timestampType = headers.get(KafkaHeaders.TIMESTAMP_TYPE);
+            if (timestampType instanceof TimestampType) {
+                context.setTimestampType(((TimestampType) timestampType).name());
+            } else if (timestampType != null) {
+                context.setTimestampType(timestampType.toString());
+            }
         }
         
         context.setPayload(payload);
@@ -105,6 +184,71 @@ public class KafkaMessageContext {
         this.headers = headers;
     }
     
+    public Long getTimestamp() {
+        return timestamp;
+    }
+    
+    public void setTimestamp(Long timestamp) {
+        this.timestamp = timestamp;
+    }
+    
+    public String getTimestampType() {
+        return timestampType;
+    }
+    
+    public void setTimestampType(String timestampType) {
+        this.timestampType = timestampType;
+    }
+    
+    /**
+     * Get the trace context of the message.
+     * Not part of the JSON output of the context, since events carry it at the top level.
+     * 
+     * @return The trace context, or null if unknown
+     */
+    @JsonIgnore
+    public TraceContext getTraceContext() {
+        return traceContext;
+    }
+    
+    public void setTraceContext(TraceContext traceContext) {
+        this.traceContext = traceContext;
+    }
+    
+    /**
+     * Merge record coordinates from another context into this one.
+     * Only fields that are not already set on this context are copied.
+     * 
+     * @param other The context to take missing values from
+     */
+    public void mergeMissing(KafkaMessageContext other) {
+        if (other == null) {
+            return;
+        }
+        if (topic == null) {
+            topic = other.topic;
+        }
+        if (partition == null) {
+            partition = other.partition;
+        }
+        if (offset == null) {
+            offset = other.offset;
+        }
+        if (key == null) {
+            key = other.key;
+        }
+        if (timestamp == null) {
+            timestamp = other.timestamp;
+            timestampType = other.timestampType;
+        }
+        if (payload == null) {
+            payload = other.payload;
+        }
+        if (traceContext == null) {
+            traceContext = other.traceContext;
+        }
+    }
+    
     @Override
     public String toString() {
         return "KafkaMessageContext{" +
@@ -112,6 +256,8 @@ public class KafkaMessageContext {
                 ", partition=" + partition +
                 ", offset=" + offset +
                 ", key='" + key + '\'' +
+                ", timestamp=" + timestamp +
+                (traceContext != null ? ", trace=" + traceContext : "") +
                 '}';
     }
 }
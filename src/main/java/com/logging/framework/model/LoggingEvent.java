@@ -6,6 +6,9 @@ import java.util.Map;
 import java.util.Arrays;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.logging.framework.template.MessageTemplate;
+import com.logging.framework.trace.TraceContext;
+import com.logging.framework.trace.TraceContextHolder;
 
 /**
  * Model representing a logging event.
@@ -22,13 +25,20 @@ public class LoggingEvent {
     private String logLevel;
     private Throwable exception;
     private KafkaMessageContext kafkaMessageContext;
+    private TraceContext traceContext;
     private MethodExecutionStatus status;
     private Map<String, Object> additionalContext;
+    private MessageTemplate messageTemplate;
+    private Object messageArgument;
+    private boolean includeStackTrace;
+    private String stackTrace;
+    private boolean excludedFromSink;
     
     public LoggingEvent() {
         this.timestamp = LocalDateTime.now();
         this.status = MethodExecutionStatus.IN_PROGRESS;
         this.additionalContext = new LinkedHashMap<>();
+        this.traceContext = TraceContextHolder.current();
     }
     
     /**
@@ -43,6 +53,29 @@ public class LoggingEvent {
         return this;
     }
     
+    /**
+     * Set the status message of the event as a template and its variable part.
+     * The message is rendered when the event is encoded, not when it is created.
+     * 
+     * @param template The message template
+     * @param argument The variable part, may be null
+     * @return This logging event for method chaining
+     */
+    public LoggingEvent setMessage(MessageTemplate template, Object argument) {
+        this.messageTemplate = template;
+        this.messageArgument = argument;
+        return this;
+    }
+    
+    /**
+     * Get the rendered status message of the event.
+     * 
+     * @return The message, or null if the event has none
+     */
+    public String getMessage() {
+        return messageTemplate != null ? messageTemplate.format(messageArgument) : null;
+    }
+    
     /**
      * Get a formatted string representation of the logging event for the log file.
      * 
@@ -76,6 +109,16 @@ public class LoggingEvent {
             sb.append(" | Kafka: ").append(kafkaMessageContext);
         }
         
+        // Add trace and span IDs if available
+        if (traceContext != null) {
+            sb.append(" | Trace: ").append(traceContext);
+        }
+        
+        // Add status message if available
+        if (messageTemplate != null) {
+            sb.append(" | Message: ").append(getMessage());
+        }
+        
         // Add additional context if available
         if (!additionalContext.isEmpty()) {
             sb.append(" | Context: ").append(additionalContext);
@@ -96,12 +139,27 @@ public class LoggingEvent {
      * @return JSON representation of the event
      */
     public String toJsonString() {
+        return toJsonString(false);
+    }
+    
+    /**
+     * Convert this logging event to a JSON string with a consistent field order.
+     * The status message is written into the context, either rendered as {@code message} or as
+     * {@code messageId} and {@code messageArg}, to be resolved with the template dictionary.
+     * 
+     * @param templateIds Whether to write the message as template ID and variable part
+     * @return JSON representation of the event
+     */
+    public String toJsonString(boolean templateIds) {
         Map<String, Object> jsonMap = new LinkedHashMap<>();
         jsonMap.put("timestamp", timestamp.toString());
         jsonMap.put("level", logLevel);
         jsonMap.put("status", status);
         jsonMap.put("class", className);
         jsonMap.put("method", methodName);
+        if (traceContext != null) {
+            jsonMap.put("trace", traceContext);
+        }
         if (executionTimeMs > 0) {
             jsonMap.put("durationMs", executionTimeMs);
         }
@@ -114,12 +172,26 @@ public class LoggingEvent {
         if (kafkaMessageContext != null) {
             jsonMap.put("kafka", kafkaMessageContext);
         }
-        if (!additionalContext.isEmpty()) {
+        if (messageTemplate != null) {
+            Map<String, Object> context = new LinkedHashMap<>(additionalContext);
+            if (templateIds) {
+                context.put("messageId", messageTemplate.getId());
+                if (messageArgument != null) {
+                    context.put("messageArg", messageArgument);
+                }
+            } else {
+                context.put("message", getMessage());
+            }
+            jsonMap.put("context", context);
+        } else if (!additionalContext.isEmpty()) {
             jsonMap.put("context", additionalContext);
         }
         if (exception != null) {
             jsonMap.put("exception", exception.getClass().getSimpleName() + ": " + exception.getMessage());
         }
+        if (stackTrace != null) {
+            jsonMap.put("stackTrace", stackTrace);
+        }
 
         try {
             ObjectMapper mapper = new ObjectMapper();
@@ -206,6 +278,20 @@ public class LoggingEvent {
         this.kafkaMessageContext = kafkaMessageContext;
     }
     
+    /**
+     * Get the trace context of the invocation the event belongs to.
+     * Taken from the current thread when the event is created.
+     * 
+     * @return The trace context, or null if the event is not part of a trace
+     */
+    public TraceContext getTraceContext() {
+        return traceContext;
+    }
+    
+    public void setTraceContext(TraceContext traceContext) {
+        this.traceContext = traceContext;
+    }
+    
     public MethodExecutionStatus getStatus() {
         return status;
     }
@@ -221,4 +307,48 @@ public class LoggingEvent {
     public void setAdditionalContext(Map<String, Object> additionalContext) {
         this.additionalContext = additionalContext;
     }
+    
+    public MessageTemplate getMessageTemplate() {
+        return messageTemplate;
+    }
+    
+    public Object getMessageArgument() {
+        return messageArgument;
+    }
+    
+    public boolean isIncludeStackTrace() {
+        return includeStackTrace;
+    }
+    
+    /**
+     * Request the stack trace of the exception to be rendered into the log file.
+     * Rendering is deferred to the writer; see {@link #setStackTrace(String)}.
+     * 
+     * @param includeStackTrace Whether to render the stack trace
+     */
+    public void setIncludeStackTrace(boolean includeStackTrace) {
+        this.includeStackTrace = includeStackTrace;
+    }
+    
+    public String getStackTrace() {
+        return stackTrace;
+    }
+    
+    public void setStackTrace(String stackTrace) {
+        this.stackTrace = stackTrace;
+    }
+    
+    /**
+     * Check whether the event is kept out of the Kafka topic sink.
+     * It is still written to the dedicated log file.
+     * 
+     * @return True if the event is not published
+     */
+    public boolean isExcludedFromSink() {
+        return excludedFromSink;
+    }
+    
+    public void setExcludedFromSink(boolean excludedFromSink) {
+        this.excludedFromSink = excludedFromSink;
+    }
 }
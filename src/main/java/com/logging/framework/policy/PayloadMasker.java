@@ -0,0 +1,94 @@
+package com.logging.framework.policy;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Masks the values of sensitive fields in message payloads.
+ * JSON text payloads are masked with one precompiled pattern over all field names;
+ * map payloads are copied with the values of sensitive keys replaced. Other payload
+ * types are left unchanged. Field names are matched case-insensitively.
+ */
+public class PayloadMasker {
+    
+    private final Set<String> fields = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
+    private final Pattern jsonField;
+    private final String mask;
+    
+    /**
+     * Create a new PayloadMasker.
+     * 
+     * @param fields The sensitive field names
+     * @param maskingChar The character the values are replaced with
+     */
+    public PayloadMasker(Collection<String> fields, char maskingChar) {
+        StringBuilder names = new StringBuilder();
+        for (String field : fields) {
+            if (this.fields.add(field)) {
+                names.append(names.length() > 0 ? "|" : "").append(Pattern.quote(field));
+            }
+        }
+        this.jsonField = Pattern.compile("(\"(?:" + names + ")\"\\s*:\\s*)"
+                + "(\"(?:[^\"\\\\]|\\\\.)*\"|-?[0-9][0-9.eE+-]*|true|false)", Pattern.CASE_INSENSITIVE);
+        StringBuilder mask = new StringBuilder(8);
+        for (int i = 0; i < 8; i++) {
+            mask.append(maskingChar);
+        }
+        this.mask = mask.toString();
+    }
+    
+    /**
+     * Mask a payload.
+     * 
+     * @param payload The payload
+     * @return The masked payload, or the payload itself if there is nothing to mask
+     */
+    public Object mask(Object payload) {
+        if (payload instanceof String) {
+            return maskJson((String) payload);
+        }
+        if (payload instanceof Map) {
+            return maskMap((Map<?, ?>) payload);
+        }
+        return payload;
+    }
+    
+    private String maskJson(String payload) {
+        Matcher matcher = jsonField.matcher(payload);
+        if (!matcher.find()) {
+            return payload;
+        }
+        StringBuffer masked = new StringBuffer(payload.length());
+        do {
+            matcher.appendReplacement(masked, "");
+            masked.append(matcher.group(1)).append('"').append(mask).append('"');
+        } while (matcher.find());
+        matcher.appendTail(masked);
+        return masked.toString();
+    }
+    
+    private Object maskMap(Map<?, ?> payload) {
+        boolean sensitive = false;
+        for (Object key : payload.keySet()) {
+            if (key instanceof String && fields.contains(key)) {
+                sensitive = true;
+                break;
+            }
+        }
+        if (!sensitive) {
+            return payload;
+        }
+        Map<Object, Object> masked = new LinkedHashMap<>(payload);
+        for (Map.Entry<Object, Object> entry : masked.entrySet()) {
+            if (entry.getKey() instanceof String && fields.contains(entry.getKey())) {
+                entry.setValue(mask);
+            }
+        }
+        return masked;
+    }
+}
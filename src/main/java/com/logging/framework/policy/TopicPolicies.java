@@ -0,0 +1,122 @@
+package com.logging.framework.policy;
+
+import ch.qos.logback.classic.Level;
+import com.logging.framework.config.KafkaLoggingProperties;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.regex.Pattern;
+
+/**
+ * Logging policies of topics, configured under {@code kafka.logging.topics}.
+ * A topic takes the policy configured for its exact name, else the first configured pattern
+ * (with {@code *} wildcards) matching it, else the default policy built from the global settings.
+ * Unset policy values are inherited from the global settings as well.
+ * The policy of a topic is resolved on its first message and cached, so every later message
+ * costs one hash lookup, for pattern matched topics too.
+ */
+public class TopicPolicies {
+    
+    private static final int MAX_CACHED_TOPICS = 10_000;
+    
+    private final TopicPolicy defaultPolicy;
+    private final Map<String, TopicPolicy> exact = new HashMap<>();
+    private final List<Pattern> patterns = new ArrayList<>();
+    private final List<TopicPolicy> patternPolicies = new ArrayList<>();
+    private final ConcurrentMap<String, TopicPolicy> resolved = new ConcurrentHashMap<>();
+    
+    /**
+     * Create the topic policies from the configuration.
+     * 
+     * @param properties The Kafka logging properties
+     */
+    public TopicPolicies(KafkaLoggingProperties properties) {
+        this.defaultPolicy = build(null, new KafkaLoggingProperties.TopicPolicyConfig(), properties);
+        for (Map.Entry<String, KafkaLoggingProperties.TopicPolicyConfig> entry : properties.getTopics().entrySet()) {
+            String name = entry.getKey().trim();
+            TopicPolicy policy = build(name, entry.getValue(), properties);
+            if (name.indexOf('*') >= 0) {
+                patterns.add(Pattern.compile(name.replace(".", "\\.").replace("*", ".*")));
+                patternPolicies.add(policy);
+            } else {
+                exact.put(name, policy);
+            }
+        }
+    }
+    
+    /**
+     * Get the policy of a topic.
+     * 
+     * @param topic The topic, may be null
+     * @return The policy, never null
+     */
+    public TopicPolicy forTopic(String topic) {
+        if (topic == null) {
+            return defaultPolicy;
+        }
+        TopicPolicy policy = resolved.get(topic);
+        if (policy == null) {
+            policy = resolve(topic);
+            // Bound the cache if topic names are unbounded; uncached topics are resolved per message
+            if (resolved.size() < MAX_CACHED_TOPICS) {
+                resolved.putIfAbsent(topic, policy);
+            }
+        }
+        return policy;
+    }
+    
+    /**
+     * Get the policy of topics without a configured policy.
+     * 
+     * @return The default policy
+     */
+    public TopicPolicy getDefaultPolicy() {
+        return defaultPolicy;
+    }
+    
+    private TopicPolicy resolve(String topic) {
+        TopicPolicy policy = exact.get(topic);
+        if (policy != null) {
+            return policy;
+        }
+        for (int i = 0; i < patterns.size(); i++) {
+            if (patterns.get(i).matcher(topic).matches()) {
+                return patternPolicies.get(i);
+            }
+        }
+        return defaultPolicy;
+    }
+    
+    private static TopicPolicy build(String name, KafkaLoggingProperties.TopicPolicyConfig config,
+                                     KafkaLoggingProperties properties) {
+        int levelThreshold = Level.ALL_INT;
+        if (config.getLevel() != null) {
+            Level level = Level.toLevel(config.getLevel(), null);
+            if (level == null) {
+                throw new IllegalArgumentException("Unknown log level of topic " + name + ": " + config.getLevel());
+            }
+            levelThreshold = level.toInt();
+        }
+        double samplingRate = config.getSamplingRate();
+        if (samplingRate < 0.0 || samplingRate > 1.0) {
+            throw new IllegalArgumentException("Sampling rate of topic " + name + " must be between 0 and 1: "
+                    + samplingRate);
+        }
+        
+        boolean masking = config.getMaskSensitiveData() != null ? config.getMaskSensitiveData()
+                : properties.isMaskSensitiveData();
+        Set<String> fields = new LinkedHashSet<>(properties.getSensitiveFields());
+        fields.addAll(config.getSensitiveFields());
+        PayloadMasker masker = masking && !fields.isEmpty() ? new PayloadMasker(fields, properties.getMaskingChar()) : null;
+        
+        return new TopicPolicy(name, levelThreshold, samplingRate,
+                config.getIncludePayload() != null ? config.getIncludePayload() : properties.isIncludePayload(),
+                config.isIncludeHeaders(), masker, config.isSink());
+    }
+}
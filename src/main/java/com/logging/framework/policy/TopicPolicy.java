@@ -0,0 +1,119 @@
+package com.logging.framework.policy;
+
+import ch.qos.logback.classic.Level;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Resolved logging policy of a topic, applied by the Kafka consumer aspect to every message of the topic.
+ * Immutable; the level threshold and masker are prepared once when the policy is resolved.
+ */
+public class TopicPolicy {
+    
+    private final String name;
+    private final int levelThreshold;
+    private final double samplingRate;
+    private final boolean includePayload;
+    private final boolean includeHeaders;
+    private final PayloadMasker masker;
+    private final boolean sink;
+    
+    /**
+     * Create a new TopicPolicy.
+     * 
+     * @param name The configured topic name or pattern, null for the default policy
+     * @param levelThreshold The logback level value from which invocations are logged
+     * @param samplingRate The fraction of successful invocations that are logged
+     * @param includePayload Whether the payload is logged
+     * @param includeHeaders Whether the headers are logged
+     * @param masker The masker of sensitive payload fields, null for none
+     * @param sink Whether events are published through the Kafka topic sink
+     */
+    public TopicPolicy(String name, int levelThreshold, double samplingRate, boolean includePayload,
+                       boolean includeHeaders, PayloadMasker masker, boolean sink) {
+        this.name = name;
+        this.levelThreshold = levelThreshold;
+        this.samplingRate = samplingRate;
+        this.includePayload = includePayload;
+        this.includeHeaders = includeHeaders;
+        this.masker = masker;
+        this.sink = sink;
+    }
+    
+    /**
+     * Check whether logging at a level is enabled for the topic.
+     * 
+     * @param levelValue The logback level value
+     * @return True if the level is at or above the level threshold of the topic
+     */
+    public boolean isLevelEnabled(int levelValue) {
+        return levelValue >= levelThreshold;
+    }
+    
+    /**
+     * Decide whether a successful invocation is logged.
+     * Failures are logged regardless of the sampling rate.
+     * 
+     * @return True if the invocation is sampled in
+     */
+    public boolean sample() {
+        return samplingRate >= 1.0 || ThreadLocalRandom.current().nextDouble() < samplingRate;
+    }
+    
+    /**
+     * Check whether the topic is sampled.
+     * 
+     * @return True if only a fraction of successful invocations is logged
+     */
+    public boolean isSampled() {
+        return samplingRate < 1.0;
+    }
+    
+    /**
+     * Mask the sensitive fields of a payload.
+     * 
+     * @param payload The payload
+     * @return The masked payload
+     */
+    public Object mask(Object payload) {
+        return masker != null && payload != null ? masker.mask(payload) : payload;
+    }
+    
+    /**
+     * Get the configured topic name or pattern the policy was resolved from.
+     * 
+     * @return The name, or null for the default policy
+     */
+    public String getName() {
+        return name;
+    }
+    
+    /**
+     * Get the level threshold of the topic.
+     * 
+     * @return The level, ALL unless configured
+     */
+    public String getLevel() {
+        return Level.toLevel(levelThreshold).toString();
+    }
+    
+    public double getSamplingRate() {
+        return samplingRate;
+    }
+    
+    public boolean isIncludePayload() {
+        return includePayload;
+    }
+    
+    public boolean isIncludeHeaders() {
+        return includeHeaders;
+    }
+    
+    public boolean isMasking() {
+        return masker != null;
+    }
+    
+    public boolean isSink() {
+        return sink;
+    }
+}
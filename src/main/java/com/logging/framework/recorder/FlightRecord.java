@@ -0,0 +1,126 @@
+package com.logging.framework.recorder;
+
+import com.logging.framework.trace.TraceContext;
+
+import java.time.Instant;
+
+/**
+ * Immutable copy of one invocation recorded by the {@link FlightRecorder}.
+ * Topic, partition and offset are only known for invocations made while a Kafka record was processed.
+ */
+public class FlightRecord {
+    
+    private final long timestamp;
+    private final long threadId;
+    private final String className;
+    private final String methodName;
+    private final String topic;
+    private final int partition;
+    private final long offset;
+    private final long executionTimeMs;
+    private final boolean failed;
+    private final TraceContext traceContext;
+    
+    public FlightRecord(long timestamp, long threadId, String className, String methodName, String topic,
+                        int partition, long offset, long executionTimeMs, boolean failed,
+                        TraceContext traceContext) {
+        this.timestamp = timestamp;
+        this.threadId = threadId;
+        this.className = className;
+        this.methodName = methodName;
+        this.topic = topic;
+        this.partition = partition;
+        this.offset = offset;
+        this.executionTimeMs = executionTimeMs;
+        this.failed = failed;
+        this.traceContext = traceContext;
+    }
+    
+    /**
+     * Check whether the invocation processed a record of a topic-partition.
+     * 
+     * @param topic The topic
+     * @param partition The partition
+     * @return True if the invocation processed a record of the topic-partition
+     */
+    public boolean isOf(String topic, int partition) {
+        return partition == this.partition && topic.equals(this.topic);
+    }
+    
+    public long getTimestamp() {
+        return timestamp;
+    }
+    
+    public long getThreadId() {
+        return threadId;
+    }
+    
+    public String getClassName() {
+        return className;
+    }
+    
+    public String getMethodName() {
+        return methodName;
+    }
+    
+    public String getTopic() {
+        return topic;
+    }
+    
+    /**
+     * Get the partition of the record processed by the invocation.
+     * 
+     * @return The partition, or -1 if unknown
+     */
+    public int getPartition() {
+        return partition;
+    }
+    
+    /**
+     * Get the offset of the record processed by the invocation.
+     * 
+     * @return The offset, or -1 if unknown
+     */
+    public long getOffset() {
+        return offset;
+    }
+    
+    public long getExecutionTimeMs() {
+        return executionTimeMs;
+    }
+    
+    public boolean isFailed() {
+        return failed;
+    }
+    
+    public TraceContext getTraceContext() {
+        return traceContext;
+    }
+    
+    /**
+     * Get the compact form the record is dumped in, for example
+     * {@code 2026-01-01T10:00:00.123Z [42] OrderListener#onOrder orders-3@1187 12ms FAILED trace=<trace>/<span>}.
+     * 
+     * @return The formatted record
+     */
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder(128);
+        sb.append(Instant.ofEpochMilli(timestamp)).append(" [").append(threadId).append("] ")
+                .append(className).append('#').append(methodName);
+        if (topic != null) {
+            sb.append(' ').append(topic);
+            if (partition >= 0) {
+                sb.append('-').append(partition);
+            }
+            if (offset >= 0) {
+                sb.append('@').append(offset);
+            }
+        }
+        sb.append(' ').append(executionTimeMs).append("ms ").append(failed ? "FAILED" : "PASSED");
+        if (traceContext != null) {
+            sb.append(" trace=").append(traceContext);
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,399 @@
+package com.logging.framework.recorder;
+
+import com.logging.framework.appender.KafkaLoggingFileAppender;
+import com.logging.framework.index.MethodMetadata;
+import com.logging.framework.interceptor.KafkaRecordContextHolder;
+import com.logging.framework.model.KafkaMessageContext;
+import com.logging.framework.model.LoggingEvent;
+import com.logging.framework.model.MethodExecutionStatus;
+import com.logging.framework.support.VirtualThreads;
+import com.logging.framework.trace.TraceContext;
+import com.logging.framework.trace.TraceContextHolder;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * Always-on in-memory flight recorder of intercepted invocations.
+ * Every invocation writes a fixed-size record into a preallocated ring of the thread it completed on:
+ * a few array stores and no allocation, locking or I/O. The records of a thread are dumped to the
+ * dedicated log file when an invocation fails, when one exceeds the latency threshold, or on demand
+ * through this class or JMX, which also dumps the records of one topic-partition across all threads.
+ * A dump triggered by an invocation only holds the records of the thread not dumped before.
+ * 
+ * Virtual threads share one larger ring instead of one ring each, since there is one per task;
+ * its dumps are filtered by thread. Rings of platform threads that have terminated are discarded.
+ * Records are published with a sequence per slot, so a dump taken from another thread skips
+ * slots being overwritten while they are read.
+ */
+public class FlightRecorder implements FlightRecorderMXBean, InitializingBean, DisposableBean {
+    
+    private static final Logger log = LoggerFactory.getLogger(FlightRecorder.class);
+    
+    private static final String OBJECT_NAME = "com.logging.framework:type=FlightRecorder";
+    private static final int VIRTUAL_RING_FACTOR = 16;
+    
+    private final KafkaLoggingFileAppender fileAppender;
+    private final int capacity;
+    private final boolean dumpOnFailure;
+    private final long latencyThresholdMs;
+    private final boolean recordOnly;
+    private final boolean jmxEnabled;
+    
+    private final ThreadLocal<Ring> threadRing = new ThreadLocal<>();
+    private final List<Ring> rings = new CopyOnWriteArrayList<>();
+    private final Ring virtualRing;
+    private final LongAdder dumps = new LongAdder();
+    
+    private ObjectName registeredName;
+    
+    /**
+     * Create a new FlightRecorder.
+     * 
+     * @param fileAppender The dedicated log file appender, may be null
+     * @param capacity The number of records kept per thread, rounded up to a power of two
+     * @param dumpOnFailure Whether a failed invocation dumps the records of its thread
+     * @param latencyThresholdMs The execution time from which an invocation dumps the records of its thread, 0 for none
+     * @param recordOnly Whether successful invocations below the threshold are only recorded
+     * @param jmxEnabled Whether to register the MXBean
+     */
+    public FlightRecorder(KafkaLoggingFileAppender fileAppender, int capacity, boolean dumpOnFailure,
+                          long latencyThresholdMs, boolean recordOnly, boolean jmxEnabled) {
+        if (capacity <= 0 || capacity > 1 << 20) {
+            throw new IllegalArgumentException("Invalid flight recorder capacity: " + capacity);
+        }
+        int size = 1;
+        while (size < capacity) {
+            size <<= 1;
+        }
+        this.fileAppender = fileAppender;
+        this.capacity = size;
+        this.dumpOnFailure = dumpOnFailure;
+        this.latencyThresholdMs = latencyThresholdMs;
+        this.recordOnly = recordOnly;
+        this.jmxEnabled = jmxEnabled;
+        this.virtualRing = new Ring(null, "virtual", this.capacity * VIRTUAL_RING_FACTOR);
+        this.rings.add(virtualRing);
+    }
+    
+    @Override
+    public void afterPropertiesSet() {
+        if (!jmxEnabled) {
+            return;
+        }
+        try {
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, name);
+            registeredName = name;
+        } catch (InstanceAlreadyExistsException e) {
+            // Another application context in the same JVM registered its recorder first
+            log.debug("Flight recorder MXBean {} is already registered", OBJECT_NAME);
+        } catch (JMException e) {
+            log.warn("Failed to register flight recorder MXBean {}", OBJECT_NAME, e);
+        }
+    }
+    
+    @Override
+    public void destroy() {
+        if (registeredName != null) {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            try {
+                server.unregisterMBean(registeredName);
+            } catch (JMException e) {
+                log.debug("Failed to unregister flight recorder MXBean {}", OBJECT_NAME, e);
+            }
+            registeredName = null;
+        }
+    }
+    
+    /**
+     * Record a completed invocation, and dump the records of the thread if it failed or was slow.
+     * Without a Kafka message context, the record being processed on the thread is used, if any.
+     * 
+     * @param metadata The metadata of the invoked method
+     * @param context The Kafka message context, may be null
+     * @param executionTimeMs The execution time in milliseconds
+     * @param failed Whether the invocation failed
+     * @return True if the invocation should not be logged otherwise, in record-only mode
+     */
+    public boolean record(MethodMetadata metadata, KafkaMessageContext context, long executionTimeMs,
+                          boolean failed) {
+        Thread thread = Thread.currentThread();
+        String topic = null;
+        int partition = -1;
+        long offset = -1;
+        TraceContext traceContext;
+        if (context != null) {
+            topic = context.getTopic();
+            partition = context.getPartition() != null ? context.getPartition() : -1;
+            offset = context.getOffset() != null ? context.getOffset() : -1;
+            traceContext = context.getTraceContext();
+        } else {
+            ConsumerRecord<?, ?> record = KafkaRecordContextHolder.getCurrentRecord();
+            if (record != null) {
+                topic = record.topic();
+                partition = record.partition();
+                offset = record.offset();
+            }
+            traceContext = TraceContextHolder.current();
+        }
+        
+        Ring ring = ring(thread);
+        ring.write(System.currentTimeMillis(), thread.getId(), metadata, topic, partition, offset,
+                executionTimeMs, failed, traceContext);
+        
+        boolean slow = latencyThresholdMs > 0 && executionTimeMs >= latencyThresholdMs;
+        if (failed && dumpOnFailure) {
+            dumpTriggered(ring, thread, "failure of " + metadata.getSimpleClassName() + "#" + metadata.getMethodName());
+        } else if (slow) {
+            dumpTriggered(ring, thread, "latency of " + metadata.getSimpleClassName() + "#" + metadata.getMethodName()
+                    + " " + executionTimeMs + " ms exceeds " + latencyThresholdMs + " ms");
+        }
+        return recordOnly && !failed && !slow;
+    }
+    
+    /**
+     * Check whether successful invocations below the latency threshold are only recorded.
+     * 
+     * @return True in record-only mode
+     */
+    public boolean isRecordOnly() {
+        return recordOnly;
+    }
+    
+    /**
+     * Dump the records of the current thread.
+     * 
+     * @param reason The reason written with the dump
+     * @return The number of records dumped
+     */
+    public int dumpCurrentThread(String reason) {
+        Thread thread = Thread.currentThread();
+        Ring ring = VirtualThreads.isCurrentThreadVirtual() ? virtualRing : threadRing.get();
+        if (ring == null) {
+            return 0;
+        }
+        return write(reason, thread.getName(), ring.snapshot(0, ring == virtualRing ? thread.getId() : -1));
+    }
+    
+    /**
+     * Get the records of a topic-partition across all threads, oldest first.
+     * At most as many records as a ring holds are returned.
+     * 
+     * @param topic The topic
+     * @param partition The partition
+     * @return The records
+     */
+    public List<FlightRecord> getRecords(String topic, int partition) {
+        List<FlightRecord> records = new ArrayList<>();
+        for (Ring ring : rings) {
+            for (FlightRecord record : ring.snapshot(0, -1)) {
+                if (record.isOf(topic, partition)) {
+                    records.add(record);
+                }
+            }
+        }
+        records.sort(Comparator.comparingLong(FlightRecord::getTimestamp));
+        return records.size() > capacity ? new ArrayList<>(records.subList(records.size() - capacity, records.size()))
+                : records;
+    }
+    
+    @Override
+    public int getCapacity() {
+        return capacity;
+    }
+    
+    @Override
+    public int getRingCount() {
+        return rings.size();
+    }
+    
+    @Override
+    public long getDumpCount() {
+        return dumps.sum();
+    }
+    
+    @Override
+    public int dumpAll() {
+        int dumped = 0;
+        for (Ring ring : rings) {
+            dumped += write("requested", ring.threadName, ring.snapshot(0, -1));
+        }
+        return dumped;
+    }
+    
+    @Override
+    public int dumpThread(String threadName) {
+        int dumped = 0;
+        for (Ring ring : rings) {
+            if (ring != virtualRing && ring.threadName.equals(threadName)) {
+                dumped += write("requested", threadName, ring.snapshot(0, -1));
+            }
+        }
+        return dumped;
+    }
+    
+    @Override
+    public int dumpPartition(String topic, int partition) {
+        return write("requested for " + topic + "-" + partition, null, getRecords(topic, partition));
+    }
+    
+    private Ring ring(Thread thread) {
+        if (VirtualThreads.isCurrentThreadVirtual()) {
+            return virtualRing;
+        }
+        Ring ring = threadRing.get();
+        if (ring == null) {
+            ring = new Ring(thread, thread.getName(), capacity);
+            threadRing.set(ring);
+            rings.removeIf(Ring::isTerminated);
+            rings.add(ring);
+        }
+        return ring;
+    }
+    
+    private void dumpTriggered(Ring ring, Thread thread, String reason) {
+        if (ring == virtualRing) {
+            write(reason, thread.getName(), ring.snapshot(0, thread.getId()));
+            return;
+        }
+        // Only the owning thread advances its dump position
+        List<FlightRecord> records = ring.snapshot(ring.dumped, -1);
+        ring.dumped = ring.next.get();
+        write(reason, thread.getName(), records);
+    }
+    
+    private int write(String reason, String threadName, List<FlightRecord> records) {
+        if (records.isEmpty()) {
+            return 0;
+        }
+        dumps.increment();
+        List<String> lines = records.stream().map(FlightRecord::toString).collect(Collectors.toList());
+        if (fileAppender == null) {
+            log.warn("Flight recorder dump ({}), {} records{}:\n  {}", reason, records.size(),
+                    threadName != null ? " of thread " + threadName : "", String.join("\n  ", lines));
+            return records.size();
+        }
+        LoggingEvent event = new LoggingEvent();
+        event.setClassName("FlightRecorder");
+        event.setMethodName("dump");
+        event.setStatus(MethodExecutionStatus.FAILED);
+        event.setLogLevel("WARN");
+        event.addContext("action", "flight_recorder_dump");
+        event.addContext("reason", reason);
+        if (threadName != null) {
+            event.addContext("thread", threadName);
+        }
+        event.addContext("count", records.size());
+        event.addContext("records", lines);
+        fileAppender.log(event);
+        return records.size();
+    }
+    
+    /**
+     * Preallocated ring of records.
+     * Writers claim a sequence and publish the slot by storing the sequence after the fields;
+     * readers copy a slot only while its published sequence is stable.
+     */
+    private static final class Ring {
+        
+        private final WeakReference<Thread> owner;
+        private final String threadName;
+        private final int mask;
+        private final AtomicLong next = new AtomicLong();
+        private final AtomicLongArray published;
+        private final long[] timestamps;
+        private final long[] threadIds;
+        private final MethodMetadata[] methods;
+        private final String[] topics;
+        private final int[] partitions;
+        private final long[] offsets;
+        private final long[] executionTimes;
+        private final boolean[] failures;
+        private final TraceContext[] traceContexts;
+        
+        // Sequence up to which records were dumped by a trigger, owner thread only
+        private long dumped;
+        
+        Ring(Thread owner, String threadName, int size) {
+            this.owner = owner != null ? new WeakReference<>(owner) : null;
+            this.threadName = threadName;
+            this.mask = size - 1;
+            this.published = new AtomicLongArray(size);
+            this.timestamps = new long[size];
+            this.threadIds = new long[size];
+            this.methods = new MethodMetadata[size];
+            this.topics = new String[size];
+            this.partitions = new int[size];
+            this.offsets = new long[size];
+            this.executionTimes = new long[size];
+            this.failures = new boolean[size];
+            this.traceContexts = new TraceContext[size];
+        }
+        
+        void write(long timestamp, long threadId, MethodMetadata method, String topic, int partition, long offset,
+                   long executionTime, boolean failed, TraceContext traceContext) {
+            long sequence = next.getAndIncrement();
+            int slot = (int) sequence & mask;
+            published.set(slot, 0);
+            timestamps[slot] = timestamp;
+            threadIds[slot] = threadId;
+            methods[slot] = method;
+            topics[slot] = topic;
+            partitions[slot] = partition;
+            offsets[slot] = offset;
+            executionTimes[slot] = executionTime;
+            failures[slot] = failed;
+            traceContexts[slot] = traceContext;
+            published.lazySet(slot, sequence + 1);
+        }
+        
+        List<FlightRecord> snapshot(long from, long threadId) {
+            long end = next.get();
+            long start = Math.max(from, end - mask - 1);
+            List<FlightRecord> records = new ArrayList<>((int) (end - start));
+            for (long sequence = start; sequence < end; sequence++) {
+                int slot = (int) sequence & mask;
+                if (published.get(slot) != sequence + 1) {
+                    continue;
+                }
+                MethodMetadata method = methods[slot];
+                FlightRecord record = new FlightRecord(timestamps[slot], threadIds[slot],
+                        method.getSimpleClassName(), method.getMethodName(), topics[slot], partitions[slot],
+                        offsets[slot], executionTimes[slot], failures[slot], traceContexts[slot]);
+                if (published.get(slot) != sequence + 1) {
+                    continue;
+                }
+                if (threadId < 0 || record.getThreadId() == threadId) {
+                    records.add(record);
+                }
+            }
+            return records;
+        }
+        
+        boolean isTerminated() {
+            if (owner == null) {
+                return false;
+            }
+            Thread thread = owner.get();
+            return thread == null || !thread.isAlive();
+        }
+    }
+}
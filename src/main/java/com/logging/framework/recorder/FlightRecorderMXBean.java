@@ -0,0 +1,53 @@
+package com.logging.framework.recorder;
+
+/**
+ * Management interface of the {@link FlightRecorder}, registered as
+ * {@code com.logging.framework:type=FlightRecorder} on the platform MBean server.
+ */
+public interface FlightRecorderMXBean {
+    
+    /**
+     * Get the number of records kept per thread.
+     * 
+     * @return The ring capacity
+     */
+    int getCapacity();
+    
+    /**
+     * Get the number of rings currently recording.
+     * 
+     * @return The number of rings
+     */
+    int getRingCount();
+    
+    /**
+     * Get the number of dumps written since startup.
+     * 
+     * @return The number of dumps
+     */
+    long getDumpCount();
+    
+    /**
+     * Dump the records of all threads, one dump per thread.
+     * 
+     * @return The number of records dumped
+     */
+    int dumpAll();
+    
+    /**
+     * Dump the records of the threads with a name.
+     * 
+     * @param threadName The thread name
+     * @return The number of records dumped
+     */
+    int dumpThread(String threadName);
+    
+    /**
+     * Dump the records of a topic-partition across all threads.
+     * 
+     * @param topic The topic
+     * @param partition The partition
+     * @return The number of records dumped
+     */
+    int dumpPartition(String topic, int partition);
+}
@@ -0,0 +1,90 @@
+package com.logging.framework.sampling;
+
+import com.logging.framework.index.MethodMetadata;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Assigns samplers to intercepted methods and decides which invocations are always logged.
+ * The sampling of @LogMethod or @LogKafkaConsumer wins; otherwise the most specific configured
+ * rule applies: method ({@code className.methodName}), then class, then the longest package,
+ * then the {@code *} rule. Each method gets its own sampler when it is first intercepted.
+ * 
+ * Failed invocations and invocations taking at least the latency threshold are always logged.
+ */
+public class MethodSampling {
+    
+    private static final Logger log = LoggerFactory.getLogger(MethodSampling.class);
+    
+    /**
+     * Target of the rule applied to every method.
+     */
+    public static final String ROOT = "*";
+    
+    private final Map<String, String> rules = new HashMap<>();
+    private final long latencyThresholdMs;
+    
+    /**
+     * Create a new MethodSampling.
+     * 
+     * @param rules The sampling specifications by target
+     * @param latencyThresholdMs The execution time from which invocations are always logged, 0 for none
+     */
+    public MethodSampling(Map<String, String> rules, long latencyThresholdMs) {
+        for (Map.Entry<String, String> rule : rules.entrySet()) {
+            // Fail on startup rather than on the first invocation
+            Sampler.parse(rule.getValue());
+            this.rules.put(rule.getKey().trim(), rule.getValue());
+        }
+        this.latencyThresholdMs = latencyThresholdMs;
+    }
+    
+    /**
+     * Set the sampler of a method from its annotation or the rules.
+     * Called by the method metadata registry when a method is first intercepted.
+     * 
+     * @param metadata The method metadata
+     */
+    public void register(MethodMetadata metadata) {
+        String spec = metadata.getSampling();
+        if (spec.isEmpty()) {
+            spec = resolve(metadata);
+        }
+        try {
+            metadata.setSampler(Sampler.parse(spec));
+        } catch (IllegalArgumentException e) {
+            // An invalid annotation must not fail the intercepted call
+            log.warn("Ignoring sampling of {}: {}", metadata.getQualifiedMethodName(), e.getMessage());
+        }
+    }
+    
+    /**
+     * Check whether an invocation is logged whether or not it was sampled.
+     * 
+     * @param failed Whether the invocation failed
+     * @param executionTimeMs The execution time in milliseconds
+     * @return True if the invocation failed or was slow
+     */
+    public boolean isAlwaysLogged(boolean failed, long executionTimeMs) {
+        return failed || latencyThresholdMs > 0 && executionTimeMs >= latencyThresholdMs;
+    }
+    
+    private String resolve(MethodMetadata metadata) {
+        String rule = rules.get(metadata.getQualifiedMethodName());
+        if (rule != null) {
+            return rule;
+        }
+        String className = metadata.getClassName();
+        for (int end = className.length(); end > 0; end = className.lastIndexOf('.', end - 1)) {
+            rule = rules.get(className.substring(0, end));
+            if (rule != null) {
+                return rule;
+            }
+        }
+        rule = rules.get(ROOT);
+        return rule != null ? rule : "";
+    }
+}
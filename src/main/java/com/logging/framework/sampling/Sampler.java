@@ -0,0 +1,242 @@
+package com.logging.framework.sampling;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.DoubleSupplier;
+import java.util.function.LongSupplier;
+
+/**
+ * Decides which successful invocations of a method are logged.
+ * One sampler is kept per method; invocations that are not logged are counted, and the count is
+ * drained into the next logged event, so that the totals can be reconstructed from the log.
+ * 
+ * A sampler is described by a specification of the form {@code mode:value}:
+ * <ul>
+ *   <li>{@code one-in-n:100} logs every 100th invocation</li>
+ *   <li>{@code probabilistic:0.01} logs each invocation with a probability of 1%</li>
+ *   <li>{@code token-bucket:50} logs up to 50 invocations per second, with bursts of up to 50</li>
+ *   <li>{@code adaptive:200} adjusts the probability every second to log about 200 invocations per second</li>
+ *   <li>{@code none} logs every invocation</li>
+ * </ul>
+ */
+public abstract class Sampler {
+    
+    // Sources of randomness and time; the package-private constructors take others for tests
+    private static final DoubleSupplier RANDOM = () -> ThreadLocalRandom.current().nextDouble();
+    private static final LongSupplier NANO_TIME = System::nanoTime;
+    
+    private final String spec;
+    private final AtomicLong skipped = new AtomicLong();
+    
+    Sampler(String spec) {
+        this.spec = spec;
+    }
+    
+    /**
+     * Parse a sampler specification.
+     * 
+     * @param spec The specification
+     * @return The sampler, or null if the specification is empty or none
+     */
+    public static Sampler parse(String spec) {
+        String trimmed = spec != null ? spec.trim().toLowerCase() : "";
+        if (trimmed.isEmpty() || trimmed.equals("none")) {
+            return null;
+        }
+        int separator = trimmed.indexOf(':');
+        if (separator < 0) {
+            throw new IllegalArgumentException("Sampling must be given as mode:value: " + spec);
+        }
+        String mode = trimmed.substring(0, separator).trim();
+        String value = trimmed.substring(separator + 1).trim();
+        try {
+            switch (mode) {
+                case "one-in-n":
+                    return new OneInN(trimmed, Long.parseLong(value));
+                case "probabilistic":
+                    return new Probabilistic(trimmed, Double.parseDouble(value));
+                case "token-bucket":
+                    return new TokenBucket(trimmed, Double.parseDouble(value));
+                case "adaptive":
+                    return new Adaptive(trimmed, Double.parseDouble(value));
+                default:
+                    throw new IllegalArgumentException("Unknown sampling mode: " + spec);
+            }
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid sampling value: " + spec, e);
+        }
+    }
+    
+    /**
+     * Decide whether an invocation is logged.
+     * 
+     * @return True if the invocation is sampled in
+     */
+    public abstract boolean sample();
+    
+    /**
+     * Count an invocation that is not logged.
+     */
+    public void skip() {
+        skipped.incrementAndGet();
+    }
+    
+    /**
+     * Get the number of invocations a logged event stands for, and start counting again.
+     * 
+     * @return The invocations skipped since the last logged event, plus the logged one
+     */
+    public long drainSampleCount() {
+        return skipped.getAndSet(0) + 1;
+    }
+    
+    /**
+     * Get the specification the sampler was created from.
+     * 
+     * @return The specification
+     */
+    public String getSpec() {
+        return spec;
+    }
+    
+    @Override
+    public String toString() {
+        return spec;
+    }
+    
+    /**
+     * Logs every n-th invocation, starting with the first.
+     */
+    static final class OneInN extends Sampler {
+        
+        private final long n;
+        private final AtomicLong invocations = new AtomicLong();
+        
+        OneInN(String spec, long n) {
+            super(spec);
+            if (n < 1) {
+                throw new IllegalArgumentException("Sampling one-in-n needs n of at least 1: " + spec);
+            }
+            this.n = n;
+        }
+        
+        @Override
+        public boolean sample() {
+            return n == 1 || invocations.getAndIncrement() % n == 0;
+        }
+    }
+    
+    /**
+     * Logs each invocation with a fixed probability.
+     */
+    static final class Probabilistic extends Sampler {
+        
+        private final double probability;
+        private final DoubleSupplier random;
+        
+        Probabilistic(String spec, double probability) {
+            this(spec, probability, RANDOM);
+        }
+        
+        Probabilistic(String spec, double probability, DoubleSupplier random) {
+            super(spec);
+            if (!(probability >= 0.0 && probability <= 1.0)) {
+                throw new IllegalArgumentException("Sampling probability must be between 0 and 1: " + spec);
+            }
+            this.probability = probability;
+            this.random = random;
+        }
+        
+        @Override
+        public boolean sample() {
+            return probability >= 1.0 || random.getAsDouble() < probability;
+        }
+    }
+    
+    /**
+     * Logs up to a rate of invocations per second, allowing a burst of one second's worth.
+     * Kept as the theoretical arrival time of the next token, so a decision is one compare-and-set.
+     */
+    static final class TokenBucket extends Sampler {
+        
+        private final long intervalNanos;
+        private final long burstNanos;
+        private final AtomicLong nextArrival;
+        private final LongSupplier nanoTime;
+        
+        TokenBucket(String spec, double perSecond) {
+            this(spec, perSecond, NANO_TIME);
+        }
+        
+        TokenBucket(String spec, double perSecond, LongSupplier nanoTime) {
+            super(spec);
+            if (!(perSecond > 0.0)) {
+                throw new IllegalArgumentException("Sampling token-bucket needs a positive rate: " + spec);
+            }
+            this.intervalNanos = Math.max(1L, (long) (TimeUnit.SECONDS.toNanos(1) / perSecond));
+            this.burstNanos = intervalNanos * Math.max(1L, (long) perSecond);
+            this.nextArrival = new AtomicLong(nanoTime.getAsLong());
+            this.nanoTime = nanoTime;
+        }
+        
+        @Override
+        public boolean sample() {
+            long now = nanoTime.getAsLong();
+            while (true) {
+                long arrival = nextArrival.get();
+                long next = (arrival - now > 0 ? arrival : now) + intervalNanos;
+                if (next - now > burstNanos) {
+                    return false;
+                }
+                if (nextArrival.compareAndSet(arrival, next)) {
+                    return true;
+                }
+            }
+        }
+    }
+    
+    /**
+     * Logs about a target number of invocations per second. The invocation rate of the previous
+     * second sets the probability of the next one, so the sampler follows changes in traffic.
+     */
+    static final class Adaptive extends Sampler {
+        
+        private static final long WINDOW_NANOS = TimeUnit.SECONDS.toNanos(1);
+        
+        private final double targetPerSecond;
+        private final AtomicLong invocations = new AtomicLong();
+        private final AtomicLong windowStart;
+        private final LongSupplier nanoTime;
+        private final DoubleSupplier random;
+        private volatile double probability = 1.0;
+        
+        Adaptive(String spec, double targetPerSecond) {
+            this(spec, targetPerSecond, NANO_TIME, RANDOM);
+        }
+        
+        Adaptive(String spec, double targetPerSecond, LongSupplier nanoTime, DoubleSupplier random) {
+            super(spec);
+            if (!(targetPerSecond > 0.0)) {
+                throw new IllegalArgumentException("Sampling adaptive needs a positive target rate: " + spec);
+            }
+            this.targetPerSecond = targetPerSecond;
+            this.windowStart = new AtomicLong(nanoTime.getAsLong());
+            this.nanoTime = nanoTime;
+            this.random = random;
+        }
+        
+        @Override
+        public boolean sample() {
+            invocations.incrementAndGet();
+            long now = nanoTime.getAsLong();
+            long start = windowStart.get();
+            if (now - start >= WINDOW_NANOS && windowStart.compareAndSet(start, now)) {
+                double rate = invocations.getAndSet(0) * (double) WINDOW_NANOS / (now - start);
+                probability = rate <= targetPerSecond ? 1.0 : targetPerSecond / rate;
+            }
+            double current = probability;
+            return current >= 1.0 || random.getAsDouble() < current;
+        }
+    }
+}
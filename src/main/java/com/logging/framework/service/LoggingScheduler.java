@@ -0,0 +1,72 @@
+package com.logging.framework.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Shared background scheduler of the logging framework.
+ * Runs periodic summaries and other housekeeping on a single daemon thread,
+ * so that none of this work happens on the consumer threads.
+ */
+public class LoggingScheduler implements DisposableBean {
+    
+    private static final Logger log = LoggerFactory.getLogger(LoggingScheduler.class);
+    
+    private final ScheduledExecutorService executor;
+    
+    public LoggingScheduler() {
+        this.executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "kafka-logging-scheduler");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+    
+    /**
+     * Run a task periodically.
+     * Exceptions thrown by the task are logged and do not cancel later runs.
+     * 
+     * @param task The task to run
+     * @param periodMs The period in milliseconds
+     * @return The scheduled future of the task
+     */
+    public ScheduledFuture<?> scheduleAtFixedRate(Runnable task, long periodMs) {
+        return executor.scheduleAtFixedRate(() -> runSafely(task), periodMs, periodMs, TimeUnit.MILLISECONDS);
+    }
+    
+    /**
+     * Run a task once, as soon as possible, on the scheduler thread.
+     * 
+     * @param task The task to run
+     */
+    public void execute(Runnable task) {
+        executor.execute(() -> runSafely(task));
+    }
+    
+    @Override
+    public void destroy() {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(5, TimeUnit.SECONDS)) {
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+    
+    private void runSafely(Runnable task) {
+        try {
+            task.run();
+        } catch (Throwable t) {
+            log.warn("Kafka logging background task failed", t);
+        }
+    }
+}
@@ -2,6 +2,7 @@ package com.logging.framework.service;
 
 import com.logging.framework.model.LoggingEvent;
 import com.logging.framework.model.MethodExecutionStatus;
+import com.logging.framework.template.MessageTemplate;
 
 /**
  * Interface for logging services.
@@ -46,6 +47,15 @@ public interface LoggingService {
      */
     void logKafkaConsumerEvent(LoggingEvent event);
     
+    /**
+     * Log a Kafka producer event, such as a failed send.
+     * 
+     * @param event The logging event with the Kafka message context of the produced record
+     */
+    default void logKafkaProducerEvent(LoggingEvent event) {
+        logEvent(event);
+    }
+    
     /**
      * Log an exception event.
      * 
@@ -72,4 +82,30 @@ public interface LoggingService {
      * @param message Additional message
      */
     void logMethodStatus(String className, String methodName, MethodExecutionStatus status, String message);
+    
+    /**
+     * Log a method status event with a message template.
+     * The message is only rendered where it is written, so callers pass the variable part as is.
+     * 
+     * @param className The class name
+     * @param methodName The method name
+     * @param status The method execution status
+     * @param template The message template
+     * @param argument The variable part of the message, may be null
+     */
+    default void logMethodStatus(String className, String methodName, MethodExecutionStatus status,
+                                 MessageTemplate template, Object argument) {
+        logMethodStatus(className, methodName, status, template.format(argument));
+    }
+    
+    /**
+     * Check whether events of a log level are logged at all.
+     * Lets callers skip work that only serves the log output.
+     * 
+     * @param logLevel The log level of the event
+     * @return True if the level is enabled in the application log or the dedicated log file
+     */
+    default boolean isEnabled(String logLevel) {
+        return true;
+    }
 }
@@ -1,14 +1,22 @@
 package com.logging.framework.service;
 
 import com.logging.framework.appender.KafkaLoggingFileAppender;
+import com.logging.framework.exception.ExceptionPropagationTracker;
+import com.logging.framework.exception.ExceptionRateLimiter;
+import com.logging.framework.interceptor.KafkaRecordContextHolder;
+import com.logging.framework.model.KafkaMessageContext;
 import com.logging.framework.model.LoggingEvent;
 import com.logging.framework.model.MethodExecutionStatus;
+import com.logging.framework.template.MessageTemplate;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * Implementation of the LoggingService interface.
@@ -19,9 +27,17 @@ public class LoggingServiceImpl implements LoggingService {
     
     private static final Logger log = LoggerFactory.getLogger(LoggingServiceImpl.class);
     
+    private static final String STATUS_PATTERN = "Method [{}#{}] status: {} - ";
+    
+    // Status log patterns by template, so that SLF4J renders the message only if the line is written
+    private final ConcurrentMap<MessageTemplate, String> statusPatterns = new ConcurrentHashMap<>();
+    
     @Autowired(required = false)
     private KafkaLoggingFileAppender fileAppender;
     
+    @Autowired(required = false)
+    private ExceptionRateLimiter exceptionRateLimiter;
+    
     @Override
     public void logMethodEntry(String className, String methodName, Object[] args) {
         if (log.isDebugEnabled()) {
@@ -93,10 +109,61 @@ public class LoggingServiceImpl implements LoggingService {
         }
     }
     
+    @Override
+    public void logKafkaProducerEvent(LoggingEvent event) {
+        Throwable exception = event.getException();
+        if (exception == null) {
+            if (log.isDebugEnabled()) {
+                log.debug("Kafka message sent: {} in {}ms", event.getKafkaMessageContext(), event.getExecutionTimeMs());
+            }
+        } else if (exceptionRateLimiter == null
+                || exceptionRateLimiter.tryAcquire(exception, event.getKafkaMessageContext())) {
+            // Same fingerprint rate limiting as consumer side failures
+            if (fileAppender != null && fileAppender.rendersStackTraces()) {
+                // Not passed as the throwable, the stack trace is rendered into the file by the writer
+                log.error("Kafka send failed: {} after {}ms - {}", 
+                        event.getKafkaMessageContext(), event.getExecutionTimeMs(), exception.toString());
+                event.setIncludeStackTrace(true);
+            } else {
+                log.error("Kafka send failed: {} after {}ms", 
+                        event.getKafkaMessageContext(), event.getExecutionTimeMs(), exception);
+            }
+        }
+        
+        // Log to dedicated file if appender is available
+        if (fileAppender != null) {
+            event.addContext("action", "kafka_producer");
+            fileAppender.log(event);
+        }
+    }
+    
     @Override
     public void logException(String className, String methodName, Throwable exception, Object[] args) {
-        log.error("Exception in [{}#{}] with arguments: {}", 
-                className, methodName, formatArguments(args), exception);
+        // An exception is serialized once at its origin; outer frames only leave a breadcrumb
+        if (!ExceptionPropagationTracker.register(exception, className, methodName)) {
+            if (log.isDebugEnabled()) {
+                log.debug("{} first logged in [{}] propagated through [{}#{}]", 
+                        exception.getClass().getSimpleName(), 
+                        ExceptionPropagationTracker.getOrigin(exception), className, methodName);
+            }
+            return;
+        }
+        
+        // Repeated failures with the same fingerprint are only counted until the window ends
+        if (exceptionRateLimiter != null && !exceptionRateLimiter.tryAcquire(exception, findKafkaMessageContext(args))) {
+            return;
+        }
+        
+        // The stack trace goes to the dedicated file, rendered by the writer instead of this thread
+        boolean traceInFile = fileAppender != null && fileAppender.rendersStackTraces();
+        if (traceInFile) {
+            log.error("Exception in [{}#{}] with arguments: {} - {} (stack trace in {})", 
+                    className, methodName, formatArguments(args), exception, 
+                    fileAppender.getLogFileManager().getLogFile().getName());
+        } else {
+            log.error("Exception in [{}#{}] with arguments: {}", 
+                    className, methodName, formatArguments(args), exception);
+        }
         
         // Log to dedicated file if appender is available
         if (fileAppender != null) {
@@ -107,6 +174,7 @@ public class LoggingServiceImpl implements LoggingService {
             event.setException(exception);
             event.setStatus(MethodExecutionStatus.FAILED);
             event.setLogLevel("ERROR");
+            event.setIncludeStackTrace(traceInFile);
             event.addContext("action", "exception");
             
             fileAppender.log(event);
@@ -153,9 +221,22 @@ public class LoggingServiceImpl implements LoggingService {
                 }
         }
         
-        if (event.getException() != null) {
-            log.error("Exception in [{}#{}]", 
-                    event.getClassName(), event.getMethodName(), event.getException());
+        Throwable exception = event.getException();
+        if (exception != null) {
+            if (!ExceptionPropagationTracker.register(exception, event.getClassName(), event.getMethodName())) {
+                event.addContext("exceptionOrigin", ExceptionPropagationTracker.getOrigin(exception));
+            } else if (exceptionRateLimiter == null
+                    || exceptionRateLimiter.tryAcquire(exception, event.getKafkaMessageContext())) {
+                if (fileAppender != null && fileAppender.rendersStackTraces()) {
+                    // Not passed as the throwable, the stack trace is rendered into the file by the writer
+                    log.error("Exception in [{}#{}] - {}", 
+                            event.getClassName(), event.getMethodName(), exception.toString());
+                    event.setIncludeStackTrace(true);
+                } else {
+                    log.error("Exception in [{}#{}]", 
+                            event.getClassName(), event.getMethodName(), exception);
+                }
+            }
         }
         
         // Log to dedicated file if appender is available
@@ -186,6 +267,70 @@ public class LoggingServiceImpl implements LoggingService {
         }
     }
     
+    @Override
+    public void logMethodStatus(String className, String methodName, MethodExecutionStatus status,
+                                MessageTemplate template, Object argument) {
+        if (log.isInfoEnabled()) {
+            String pattern = statusPatterns.get(template);
+            if (pattern == null) {
+                pattern = statusPatterns.computeIfAbsent(template, key -> STATUS_PATTERN + key.getPattern());
+            }
+            log.info(pattern, className, methodName, status, argument);
+        }
+        
+        // Log to dedicated file if appender is available
+        if (fileAppender != null) {
+            LoggingEvent event = new LoggingEvent();
+            event.setClassName(className);
+            event.setMethodName(methodName);
+            event.setStatus(status);
+            event.setLogLevel("INFO");
+            event.addContext("action", "status_update");
+            event.setMessage(template, argument);
+            
+            fileAppender.log(event);
+        }
+    }
+    
+    @Override
+    public boolean isEnabled(String logLevel) {
+        if (fileAppender != null && fileAppender.isEnabled(logLevel)) {
+            return true;
+        }
+        String level = logLevel != null ? logLevel.toUpperCase() : "INFO";
+        switch (level) {
+            case "ERROR":
+                return log.isErrorEnabled();
+            case "WARN":
+                return log.isWarnEnabled();
+            case "DEBUG":
+                return log.isDebugEnabled();
+            case "TRACE":
+                return log.isTraceEnabled();
+            default:
+                return log.isInfoEnabled();
+        }
+    }
+    
+    /**
+     * Find the Kafka message an exception belongs to.
+     * Looks for a context among the arguments first, then at the record being processed on this thread.
+     * 
+     * @param args The arguments passed to the logging call
+     * @return The Kafka message context, or null if unknown
+     */
+    private KafkaMessageContext findKafkaMessageContext(Object[] args) {
+        if (args != null) {
+            for (Object arg : args) {
+                if (arg instanceof KafkaMessageContext) {
+                    return (KafkaMessageContext) arg;
+                }
+            }
+        }
+        ConsumerRecord<?, ?> record = KafkaRecordContextHolder.getCurrentRecord();
+        return record != null ? KafkaMessageContext.fromConsumerRecord(record) : null;
+    }
+    
     /**
      * Format method arguments for logging.
      * 
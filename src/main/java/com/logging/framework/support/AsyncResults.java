@@ -0,0 +1,131 @@
+package com.logging.framework.support;
+
+import com.logging.framework.interceptor.KafkaRecordContextHolder;
+import com.logging.framework.trace.TraceContext;
+import com.logging.framework.trace.TraceContextHolder;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.util.concurrent.ListenableFuture;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Completion callbacks for methods that return an asynchronous result.
+ * The work behind a {@link CompletionStage}, a {@link ListenableFuture} or a Reactor publisher
+ * finishes after the method has returned, so the aspects register a single callback on the
+ * result and log the outcome when it completes. Nothing ever blocks on the result.
+ * The callback runs with the Kafka record and trace context of the invoking thread restored, so it
+ * is logged against the message that started the work even when it completes on another thread.
+ */
+public final class AsyncResults {
+    
+    private static final Logger log = LoggerFactory.getLogger(AsyncResults.class);
+    
+    private AsyncResults() {
+    }
+    
+    /**
+     * Check whether a method return type is an asynchronous result.
+     * 
+     * @param returnType The declared return type
+     * @return True for completion stages, listenable futures and Reactive Streams publishers
+     */
+    public static boolean isAsyncType(Class<?> returnType) {
+        return CompletionStage.class.isAssignableFrom(returnType)
+                || ListenableFuture.class.isAssignableFrom(returnType)
+                || ReactiveSupport.isPublisherType(returnType);
+    }
+    
+    /**
+     * Register a completion listener on an asynchronous result.
+     * Futures are returned as they are, with the callback attached; the execution time of a
+     * future runs from the method invocation. A Mono or Flux is decorated, and timed from each
+     * subscription.
+     * 
+     * @param result The result returned by the method
+     * @param startTime The time the method was invoked, in milliseconds
+     * @param listener The completion listener
+     * @return The result to return to the caller, or null if the result is not asynchronous
+     */
+    public static Object onCompletion(Object result, long startTime, CompletionListener listener) {
+        CompletionListener bound = bindRecord(listener);
+        if (result instanceof CompletionStage) {
+            ((CompletionStage<?>) result).whenComplete((value, error) ->
+                    complete(bound, value, error, startTime));
+            return result;
+        }
+        if (result instanceof ListenableFuture) {
+            ((ListenableFuture<?>) result).addCallback(
+                    value -> complete(bound, value, null, startTime),
+                    error -> complete(bound, null, error, startTime));
+            return result;
+        }
+        return ReactiveSupport.onCompletion(result, bound);
+    }
+    
+    private static void complete(CompletionListener listener, Object value, Throwable error, long startTime) {
+        long durationMs = System.currentTimeMillis() - startTime;
+        Throwable cause = unwrap(error);
+        // The callback runs on the thread that completed the future, which must not see logging failures
+        try {
+            if (cause instanceof CancellationException) {
+                listener.completed(null, null, true, durationMs);
+            } else {
+                listener.completed(value, cause, false, durationMs);
+            }
+        } catch (Throwable t) {
+            log.warn("Kafka logging completion hook failed", t);
+        }
+    }
+    
+    /**
+     * Strip the wrappers a future adds around the exception the work failed with.
+     */
+    private static Throwable unwrap(Throwable error) {
+        Throwable cause = error;
+        while ((cause instanceof CompletionException || cause instanceof ExecutionException)
+                && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        return cause;
+    }
+    
+    /**
+     * Wrap a listener so that it runs with the Kafka record and trace context of the current thread.
+     */
+    private static CompletionListener bindRecord(CompletionListener listener) {
+        ConsumerRecord<?, ?> record = KafkaRecordContextHolder.getCurrentRecord();
+        TraceContext trace = TraceContextHolder.current();
+        if (record == null && trace == null) {
+            return listener;
+        }
+        return (value, error, cancelled, durationMs) -> {
+            ConsumerRecord<?, ?> previousRecord = KafkaRecordContextHolder.getCurrentRecord();
+            TraceContext previousTrace = TraceContextHolder.current();
+            if (previousRecord == record && previousTrace == trace) {
+                listener.completed(value, error, cancelled, durationMs);
+                return;
+            }
+            KafkaRecordContextHolder.setCurrentRecord(record);
+            TraceContextHolder.set(trace);
+            try {
+                listener.completed(value, error, cancelled, durationMs);
+            } finally {
+                if (previousRecord != null) {
+                    KafkaRecordContextHolder.setCurrentRecord(previousRecord);
+                } else {
+                    KafkaRecordContextHolder.clear();
+                }
+                if (previousTrace != null) {
+                    TraceContextHolder.set(previousTrace);
+                } else {
+                    TraceContextHolder.clear();
+                }
+            }
+        };
+    }
+}
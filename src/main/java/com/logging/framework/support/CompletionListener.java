@@ -0,0 +1,18 @@
+package com.logging.framework.support;
+
+/**
+ * Listener for the completion of an asynchronous method result.
+ */
+@FunctionalInterface
+public interface CompletionListener {
+    
+    /**
+     * Called once when the asynchronous result completes.
+     * 
+     * @param value The value the result completed with, null for a Flux or an empty result
+     * @param error The error the result failed with, or null
+     * @param cancelled Whether the result was cancelled before completion
+     * @param durationMs The time until completion in milliseconds
+     */
+    void completed(Object value, Throwable error, boolean cancelled, long durationMs);
+}
@@ -0,0 +1,119 @@
+package com.logging.framework.support;
+
+import org.reactivestreams.Subscription;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.CoreSubscriber;
+import reactor.core.Fuseable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Operators;
+import reactor.util.context.Context;
+
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+
+/**
+ * Subscriber that passes all signals through and reports the end of the subscription.
+ * Added as a single lifted operator, so a decorated publisher costs one subscriber per
+ * subscription. The subscriber does not take part in queue fusion, so a fuseable publisher is
+ * hidden first; downstream operators would otherwise expect a queue subscription from it.
+ * Only loaded when Reactor is on the classpath.
+ * 
+ * @param <T> The element type
+ */
+final class CompletionSubscriber<T> implements CoreSubscriber<T>, Subscription {
+    
+    private static final Logger log = LoggerFactory.getLogger(CompletionSubscriber.class);
+    
+    private static final AtomicIntegerFieldUpdater<CompletionSubscriber> DONE =
+            AtomicIntegerFieldUpdater.newUpdater(CompletionSubscriber.class, "done");
+    
+    private final CoreSubscriber<? super T> actual;
+    private final CompletionListener listener;
+    private final boolean keepValue;
+    
+    private Subscription subscription;
+    private long startTime;
+    private Object value;
+    private volatile int done;
+    
+    private CompletionSubscriber(CoreSubscriber<? super T> actual, CompletionListener listener,
+                                 boolean keepValue) {
+        this.actual = actual;
+        this.listener = listener;
+        this.keepValue = keepValue;
+    }
+    
+    @SuppressWarnings("unchecked")
+    static Object decorate(Object publisher, CompletionListener listener) {
+        boolean fuseable = publisher instanceof Fuseable;
+        if (publisher instanceof Mono) {
+            Mono<Object> mono = (Mono<Object>) publisher;
+            return (fuseable ? mono.hide() : mono).transform(Operators.lift(
+                    (scannable, actual) -> new CompletionSubscriber<>(actual, listener, true)));
+        }
+        if (publisher instanceof Flux) {
+            Flux<Object> flux = (Flux<Object>) publisher;
+            return (fuseable ? flux.hide() : flux).transform(Operators.lift(
+                    (scannable, actual) -> new CompletionSubscriber<>(actual, listener, false)));
+        }
+        return null;
+    }
+    
+    @Override
+    public void onSubscribe(Subscription s) {
+        if (Operators.validate(subscription, s)) {
+            subscription = s;
+            startTime = System.nanoTime();
+            actual.onSubscribe(this);
+        }
+    }
+    
+    @Override
+    public void onNext(T t) {
+        if (keepValue) {
+            value = t;
+        }
+        actual.onNext(t);
+    }
+    
+    @Override
+    public void onError(Throwable t) {
+        complete(null, t, false);
+        actual.onError(t);
+    }
+    
+    @Override
+    public void onComplete() {
+        complete(value, null, false);
+        actual.onComplete();
+    }
+    
+    @Override
+    public void request(long n) {
+        subscription.request(n);
+    }
+    
+    @Override
+    public void cancel() {
+        subscription.cancel();
+        complete(null, null, true);
+    }
+    
+    @Override
+    public Context currentContext() {
+        return actual.currentContext();
+    }
+    
+    private void complete(Object result, Throwable error, boolean cancelled) {
+        if (DONE.compareAndSet(this, 0, 1)) {
+            value = null;
+            // Logging must never break the pipeline it observes
+            try {
+                listener.completed(result, error, cancelled, (System.nanoTime() - startTime) / 1_000_000);
+            } catch (Throwable t) {
+                log.warn("Kafka logging completion hook failed", t);
+            }
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.logging.framework.support;
+
+import java.lang.ref.WeakReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Small lock-free table of values keyed by object identity, shared by all threads.
+ * Used instead of thread locals on virtual threads, where per-thread state would be
+ * allocated again for every task, and to hand values from one thread to another.
+ * A key only owns its slot until another key hashing to the same slot is stored, and
+ * keys are weakly referenced, so the table never grows and never keeps a key alive.
+ * 
+ * @param <V> The value type
+ */
+public final class IdentitySlots<V> {
+    
+    private final AtomicReferenceArray<Slot<V>> slots;
+    private final int mask;
+    
+    /**
+     * Create a new IdentitySlots.
+     * 
+     * @param size The number of slots, rounded up to a power of two
+     */
+    public IdentitySlots(int size) {
+        int capacity = Integer.highestOneBit(Math.max(2, size - 1)) << 1;
+        this.slots = new AtomicReferenceArray<>(capacity);
+        this.mask = capacity - 1;
+    }
+    
+    /**
+     * Get the value stored for a key.
+     * 
+     * @param key The key
+     * @return The value, or null if the key is not stored (anymore)
+     */
+    public V get(Object key) {
+        Slot<V> slot = slots.get(index(key));
+        return slot != null && slot.get() == key ? slot.value : null;
+    }
+    
+    /**
+     * Store a value for a key, replacing whatever occupied its slot.
+     * 
+     * @param key The key
+     * @param value The value
+     */
+    public void put(Object key, V value) {
+        slots.set(index(key), new Slot<>(key, value));
+    }
+    
+    private int index(Object key) {
+        int hash = System.identityHashCode(key);
+        return (hash ^ (hash >>> 16)) & mask;
+    }
+    
+    /**
+     * Weakly referenced key with its value.
+     */
+    private static final class Slot<V> extends WeakReference<Object> {
+        
+        private final V value;
+        
+        Slot(Object key, V value) {
+            super(key);
+            this.value = value;
+        }
+    }
+}
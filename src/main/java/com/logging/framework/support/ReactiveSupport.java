@@ -0,0 +1,54 @@
+package com.logging.framework.support;
+
+import org.springframework.util.ClassUtils;
+
+/**
+ * Completion hooks for methods returning a Reactive Streams publisher.
+ * A method returning a {@code Mono} or {@code Flux} has only assembled the pipeline when it
+ * returns; the work runs, and fails, once the publisher is subscribed. The hooks report the
+ * outcome of each subscription instead.
+ * Reactor is optional: without it on the classpath no return type is considered reactive.
+ */
+final class ReactiveSupport {
+    
+    private static final Class<?> PUBLISHER = resolve("org.reactivestreams.Publisher");
+    private static final boolean REACTOR_PRESENT = resolve("reactor.core.publisher.Flux") != null;
+    
+    private ReactiveSupport() {
+    }
+    
+    /**
+     * Check whether a method return type is a Reactive Streams publisher.
+     * 
+     * @param returnType The declared return type
+     * @return True if the type is a publisher and Reactor is available
+     */
+    static boolean isPublisherType(Class<?> returnType) {
+        return REACTOR_PRESENT && PUBLISHER.isAssignableFrom(returnType);
+    }
+    
+    /**
+     * Attach a completion listener to a publisher.
+     * The listener is called once per subscription, when it completes, fails or is cancelled.
+     * Only {@code Mono} and {@code Flux} are supported, since the decorated publisher must keep
+     * the type the caller expects.
+     * 
+     * @param publisher The publisher returned by the method
+     * @param listener The completion listener
+     * @return The decorated publisher, or null if the publisher is not a Mono or Flux
+     */
+    static Object onCompletion(Object publisher, CompletionListener listener) {
+        if (!REACTOR_PRESENT) {
+            return null;
+        }
+        return CompletionSubscriber.decorate(publisher, listener);
+    }
+    
+    private static Class<?> resolve(String className) {
+        ClassLoader classLoader = ReactiveSupport.class.getClassLoader();
+        if (!ClassUtils.isPresent(className, classLoader)) {
+            return null;
+        }
+        return ClassUtils.resolveClassName(className, classLoader);
+    }
+}
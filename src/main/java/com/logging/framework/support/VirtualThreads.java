@@ -0,0 +1,46 @@
+package com.logging.framework.support;
+
+/**
+ * Access to virtual threads from code compiled for Java 8.
+ * This is the implementation for Java 8 to 20, where virtual threads do not exist;
+ * the framework jar is a multi-release jar and replaces this class on Java 21 and later.
+ */
+public final class VirtualThreads {
+    
+    private VirtualThreads() {
+    }
+    
+    /**
+     * Check whether the running JVM supports virtual threads.
+     * 
+     * @return True on Java 21 and later
+     */
+    public static boolean isSupported() {
+        return false;
+    }
+    
+    /**
+     * Check whether the current thread is a virtual thread.
+     * State kept per thread is avoided on virtual threads, since there is one per task.
+     * 
+     * @return True if the current thread is virtual
+     */
+    public static boolean isCurrentThreadVirtual() {
+        return false;
+    }
+    
+    /**
+     * Create an unstarted thread.
+     * Platform threads are created as daemon threads.
+     * 
+     * @param name The thread name
+     * @param task The task to run
+     * @param virtual Whether to create a virtual thread; ignored when virtual threads are not supported
+     * @return The thread
+     */
+    public static Thread newThread(String name, Runnable task, boolean virtual) {
+        Thread thread = new Thread(task, name);
+        thread.setDaemon(true);
+        return thread;
+    }
+}
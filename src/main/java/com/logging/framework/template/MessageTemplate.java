@@ -0,0 +1,52 @@
+package com.logging.framework.template;
+
+import org.slf4j.helpers.MessageFormatter;
+
+/**
+ * A status message with at most one variable part, written {@code {}} as in SLF4J patterns.
+ * Templates are interned by {@link MessageTemplates} when the logging metadata of a method is built,
+ * so a call only passes the template and its argument; the text is rendered when the event is encoded.
+ */
+public final class MessageTemplate {
+    
+    private final int id;
+    private final String pattern;
+    
+    MessageTemplate(int id, String pattern) {
+        this.id = id;
+        this.pattern = pattern;
+    }
+    
+    /**
+     * Get the ID of the template, unique within the process.
+     * 
+     * @return The template ID
+     */
+    public int getId() {
+        return id;
+    }
+    
+    /**
+     * Get the pattern of the template.
+     * 
+     * @return The pattern, with {@code {}} for the variable part
+     */
+    public String getPattern() {
+        return pattern;
+    }
+    
+    /**
+     * Render the message.
+     * 
+     * @param argument The variable part, ignored if the pattern has none
+     * @return The message text
+     */
+    public String format(Object argument) {
+        return MessageFormatter.format(pattern, argument).getMessage();
+    }
+    
+    @Override
+    public String toString() {
+        return id + "=" + pattern;
+    }
+}
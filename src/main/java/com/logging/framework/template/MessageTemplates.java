@@ -0,0 +1,78 @@
+package com.logging.framework.template;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Process-wide dictionary of message templates.
+ * Each distinct pattern is interned once and numbered in the order it is first seen, so the
+ * log file can carry the small integer ID of a message instead of its text.
+ */
+public final class MessageTemplates {
+    
+    private static final ConcurrentMap<String, MessageTemplate> BY_PATTERN = new ConcurrentHashMap<>();
+    private static final List<MessageTemplate> BY_ID = new CopyOnWriteArrayList<>();
+    
+    private MessageTemplates() {
+    }
+    
+    /**
+     * Get the template of a pattern, creating it the first time the pattern is seen.
+     * 
+     * @param pattern The pattern, with {@code {}} for the variable part
+     * @return The template
+     */
+    public static MessageTemplate intern(String pattern) {
+        MessageTemplate template = BY_PATTERN.get(pattern);
+        if (template != null) {
+            return template;
+        }
+        synchronized (BY_ID) {
+            template = BY_PATTERN.get(pattern);
+            if (template == null) {
+                template = new MessageTemplate(BY_ID.size(), pattern);
+                BY_ID.add(template);
+                BY_PATTERN.put(pattern, template);
+            }
+            return template;
+        }
+    }
+    
+    /**
+     * Get a template by ID.
+     * 
+     * @param id The template ID
+     * @return The template, or null if no template has this ID
+     */
+    public static MessageTemplate get(int id) {
+        return id >= 0 && id < BY_ID.size() ? BY_ID.get(id) : null;
+    }
+    
+    /**
+     * Get all templates interned so far.
+     * 
+     * @return The patterns by template ID
+     */
+    public static Map<Integer, String> getDictionary() {
+        Map<Integer, String> dictionary = new LinkedHashMap<>();
+        for (MessageTemplate template : BY_ID) {
+            dictionary.put(template.getId(), template.getPattern());
+        }
+        return Collections.unmodifiableMap(dictionary);
+    }
+    
+    /**
+     * Escape literal text, such as a method description, for use in a pattern.
+     * 
+     * @param text The text
+     * @return The text with {@code {}} escaped
+     */
+    public static String escape(String text) {
+        return text.replace("{}", "\\{}");
+    }
+}
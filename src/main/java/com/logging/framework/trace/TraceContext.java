@@ -0,0 +1,271 @@
+package com.logging.framework.trace;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonSerializable;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.jsontype.TypeSerializer;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Trace identity of a message processing span.
+ * IDs are kept as longs (a 128-bit trace ID and 64-bit span IDs) and only hex encoded when written,
+ * directly into the log output or into an outgoing record header. Header values are parsed without
+ * creating strings.
+ * The wire format is the W3C trace context {@code traceparent} header:
+ * {@code 00-<32 hex trace-id>-<16 hex parent-id>-<2 hex flags>}.
+ */
+public final class TraceContext implements JsonSerializable {
+    
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+    private static final int TRACEPARENT_LENGTH = 55;
+    private static final byte SAMPLED = 0x01;
+    
+    private final long traceIdHigh;
+    private final long traceIdLow;
+    private final long spanId;
+    private final long parentSpanId;
+    private final byte flags;
+    
+    private TraceContext(long traceIdHigh, long traceIdLow, long spanId, long parentSpanId, byte flags) {
+        this.traceIdHigh = traceIdHigh;
+        this.traceIdLow = traceIdLow;
+        this.spanId = spanId;
+        this.parentSpanId = parentSpanId;
+        this.flags = flags;
+    }
+    
+    /**
+     * Start a new trace.
+     * 
+     * @return A root span with random trace and span IDs
+     */
+    public static TraceContext newRoot() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long low;
+        do {
+            low = random.nextLong();
+        } while (low == 0);
+        return new TraceContext(random.nextLong(), low, nonZeroId(random), 0, SAMPLED);
+    }
+    
+    /**
+     * Create a child span of this span, in the same trace.
+     * 
+     * @return A span with a new span ID whose parent is this span
+     */
+    public TraceContext newChild() {
+        return new TraceContext(traceIdHigh, traceIdLow, nonZeroId(ThreadLocalRandom.current()), spanId, flags);
+    }
+    
+    /**
+     * Parse a trace header value.
+     * Accepts a W3C {@code traceparent} value, whose parent-id becomes the span ID of the
+     * returned context, and a bare 16 or 32 digit hex trace ID as sent in single-ID headers.
+     * Hex digits must be lowercase, as both formats require.
+     * 
+     * @param value The raw header value
+     * @return The trace context, or null if the value is missing or malformed
+     */
+    public static TraceContext parse(byte[] value) {
+        if (value == null) {
+            return null;
+        }
+        if (value.length >= TRACEPARENT_LENGTH) {
+            return parseTraceparent(value);
+        }
+        if (value.length == 32 || value.length == 16) {
+            if (!isHex(value, 0, value.length)) {
+                return null;
+            }
+            long high = value.length == 32 ? parseHex(value, 0, 16) : 0;
+            long low = parseHex(value, value.length - 16, 16);
+            if (high == 0 && low == 0) {
+                return null;
+            }
+            return new TraceContext(high, low, 0, 0, SAMPLED);
+        }
+        return null;
+    }
+    
+    private static TraceContext parseTraceparent(byte[] value) {
+        // Version "ff" is invalid. Version 00 is exactly 55 bytes; later versions keep the layout
+        // of the first 55 bytes and may append fields after a dash, which are ignored
+        if (!isHex(value, 0, 2) || (value[0] == 'f' && value[1] == 'f')) {
+            return null;
+        }
+        if (value.length > TRACEPARENT_LENGTH
+                && ((value[0] == '0' && value[1] == '0') || value[TRACEPARENT_LENGTH] != '-')) {
+            return null;
+        }
+        if (value[2] != '-' || value[35] != '-' || value[52] != '-'
+                || !isHex(value, 3, 32) || !isHex(value, 36, 16) || !isHex(value, 53, 2)) {
+            return null;
+        }
+        long high = parseHex(value, 3, 16);
+        long low = parseHex(value, 19, 16);
+        long parent = parseHex(value, 36, 16);
+        if ((high == 0 && low == 0) || parent == 0) {
+            return null;
+        }
+        return new TraceContext(high, low, parent, 0, (byte) parseHex(value, 53, 2));
+    }
+    
+    /**
+     * Check that a range holds lowercase hex digits only.
+     */
+    private static boolean isHex(byte[] value, int offset, int length) {
+        for (int i = offset; i < offset + length; i++) {
+            byte b = value[i];
+            if ((b < '0' || b > '9') && (b < 'a' || b > 'f')) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    /**
+     * Parse hex digits into a long; the digits must have been checked with {@link #isHex}.
+     */
+    private static long parseHex(byte[] value, int offset, int length) {
+        long result = 0;
+        for (int i = offset; i < offset + length; i++) {
+            byte b = value[i];
+            result = (result << 4) | (b <= '9' ? b - '0' : b - 'a' + 10);
+        }
+        return result;
+    }
+    
+    private static long nonZeroId(ThreadLocalRandom random) {
+        long id;
+        do {
+            id = random.nextLong();
+        } while (id == 0);
+        return id;
+    }
+    
+    /**
+     * Encode this span as a W3C {@code traceparent} header value, with this span as the parent
+     * of the receiving side.
+     * 
+     * @return The header value
+     */
+    public byte[] toTraceparent() {
+        byte[] value = new byte[TRACEPARENT_LENGTH];
+        value[0] = '0';
+        value[1] = '0';
+        value[2] = '-';
+        writeHex(traceIdHigh, value, 3, 16);
+        writeHex(traceIdLow, value, 19, 16);
+        value[35] = '-';
+        writeHex(spanId, value, 36, 16);
+        value[52] = '-';
+        writeHex(flags, value, 53, 2);
+        return value;
+    }
+    
+    /**
+     * Encode the trace ID as a header value with 32 hex digits.
+     * 
+     * @return The header value
+     */
+    public byte[] toTraceIdBytes() {
+        byte[] value = new byte[32];
+        writeHex(traceIdHigh, value, 0, 16);
+        writeHex(traceIdLow, value, 16, 16);
+        return value;
+    }
+    
+    private static void writeHex(long value, byte[] target, int offset, int length) {
+        for (int i = offset + length - 1; i >= offset; i--) {
+            target[i] = (byte) HEX[(int) (value & 0xf)];
+            value >>>= 4;
+        }
+    }
+    
+    private static void writeHex(long value, char[] target, int offset, int length) {
+        for (int i = offset + length - 1; i >= offset; i--) {
+            target[i] = HEX[(int) (value & 0xf)];
+            value >>>= 4;
+        }
+    }
+    
+    /**
+     * Write the IDs as a JSON object, hex encoded straight into the generator.
+     */
+    @Override
+    public void serialize(JsonGenerator gen, SerializerProvider serializers) throws IOException {
+        char[] buffer = new char[32];
+        gen.writeStartObject();
+        writeHex(traceIdHigh, buffer, 0, 16);
+        writeHex(traceIdLow, buffer, 16, 16);
+        gen.writeFieldName("traceId");
+        gen.writeString(buffer, 0, 32);
+        writeHex(spanId, buffer, 0, 16);
+        gen.writeFieldName("spanId");
+        gen.writeString(buffer, 0, 16);
+        if (parentSpanId != 0) {
+            writeHex(parentSpanId, buffer, 0, 16);
+            gen.writeFieldName("parentSpanId");
+            gen.writeString(buffer, 0, 16);
+        }
+        gen.writeEndObject();
+    }
+    
+    @Override
+    public void serializeWithType(JsonGenerator gen, SerializerProvider serializers, TypeSerializer typeSer)
+            throws IOException {
+        serialize(gen, serializers);
+    }
+    
+    /**
+     * Get the trace ID as 32 hex digits.
+     * 
+     * @return The trace ID
+     */
+    public String getTraceId() {
+        return new String(toTraceIdBytes(), StandardCharsets.US_ASCII);
+    }
+    
+    public long getTraceIdHigh() {
+        return traceIdHigh;
+    }
+    
+    public long getTraceIdLow() {
+        return traceIdLow;
+    }
+    
+    /**
+     * Get the span ID, 0 when the context was read from a header that carries only a trace ID.
+     * 
+     * @return The span ID
+     */
+    public long getSpanId() {
+        return spanId;
+    }
+    
+    /**
+     * Get the ID of the parent span.
+     * 
+     * @return The parent span ID, or 0 for a root span
+     */
+    public long getParentSpanId() {
+        return parentSpanId;
+    }
+    
+    public boolean isSampled() {
+        return (flags & SAMPLED) != 0;
+    }
+    
+    @Override
+    public String toString() {
+        char[] buffer = new char[49];
+        writeHex(traceIdHigh, buffer, 0, 16);
+        writeHex(traceIdLow, buffer, 16, 16);
+        buffer[32] = '/';
+        writeHex(spanId, buffer, 33, 16);
+        return new String(buffer);
+    }
+}
@@ -0,0 +1,39 @@
+package com.logging.framework.trace;
+
+/**
+ * Holds the trace context of the message being processed on the current thread.
+ * Populated by the record interceptor; every {@link com.logging.framework.model.LoggingEvent}
+ * created on the thread carries it, and the producer interceptor propagates it to outgoing records.
+ */
+public final class TraceContextHolder {
+    
+    private static final ThreadLocal<TraceContext> CURRENT = new ThreadLocal<>();
+    
+    private TraceContextHolder() {
+    }
+    
+    /**
+     * Get the trace context of this thread.
+     * 
+     * @return The trace context, or null if none
+     */
+    public static TraceContext current() {
+        return CURRENT.get();
+    }
+    
+    /**
+     * Set the trace context of this thread.
+     * 
+     * @param context The trace context
+     */
+    public static void set(TraceContext context) {
+        CURRENT.set(context);
+    }
+    
+    /**
+     * Clear the trace context of this thread.
+     */
+    public static void clear() {
+        CURRENT.remove();
+    }
+}
@@ -0,0 +1,45 @@
+package com.logging.framework.support;
+
+/**
+ * Access to virtual threads, implementation for Java 21 and later.
+ * Must keep the public API of the Java 8 implementation.
+ */
+public final class VirtualThreads {
+    
+    private VirtualThreads() {
+    }
+    
+    /**
+     * Check whether the running JVM supports virtual threads.
+     * 
+     * @return True
+     */
+    public static boolean isSupported() {
+        return true;
+    }
+    
+    /**
+     * Check whether the current thread is a virtual thread.
+     * 
+     * @return True if the current thread is virtual
+     */
+    public static boolean isCurrentThreadVirtual() {
+        return Thread.currentThread().isVirtual();
+    }
+    
+    /**
+     * Create an unstarted thread.
+     * Platform threads are created as daemon threads; virtual threads always are.
+     * 
+     * @param name The thread name
+     * @param task The task to run
+     * @param virtual Whether to create a virtual thread
+     * @return The thread
+     */
+    public static Thread newThread(String name, Runnable task, boolean virtual) {
+        if (virtual) {
+            return Thread.ofVirtual().name(name).unstarted(task);
+        }
+        return Thread.ofPlatform().name(name).daemon(true).unstarted(task);
+    }
+}
@@ -0,0 +1,29 @@
+package com.example.orders;
+
+import com.logging.framework.annotation.LogMethod;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Application bean returning asynchronous results, used in the completion logging tests.
+ * Each method returns the result it is given, so the tests decide when and how it completes.
+ */
+public class FulfillmentService {
+    
+    @LogMethod(description = "Shipping order")
+    public CompletableFuture<String> ship(CompletableFuture<String> shipment) {
+        return shipment;
+    }
+    
+    @LogMethod(description = "Packing order")
+    public Mono<String> pack(Mono<String> parcel) {
+        return parcel;
+    }
+    
+    @LogMethod(description = "Picking order")
+    public Flux<String> pick(Flux<String> items) {
+        return items;
+    }
+}
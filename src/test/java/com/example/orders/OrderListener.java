@@ -0,0 +1,21 @@
+package com.example.orders;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.kafka.annotation.KafkaListener;
+
+/**
+ * Kafka listener delegating to an {@link OrderValidator}, used as the outer intercepted frame in the framework tests.
+ */
+public class OrderListener {
+    
+    private final OrderValidator validator;
+    
+    public OrderListener(OrderValidator validator) {
+        this.validator = validator;
+    }
+    
+    @KafkaListener(topics = "orders")
+    public void onOrder(ConsumerRecord<String, String> record) {
+        validator.validate(record.key());
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.orders;
+
+import com.logging.framework.annotation.LogMethod;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.kafka.annotation.KafkaListener;
+
+/**
+ * Application bean used as the target of intercepted invocations in the framework tests.
+ * It lives outside the framework packages, which the predefined method aspect never advises.
+ */
+public class OrderService {
+    
+    @LogMethod(description = "Handling order")
+    public String handle(String orderId) {
+        return orderId;
+    }
+    
+    @LogMethod(description = "Pricing order", sampling = "one-in-n:1000000")
+    public String price(String orderId) {
+        return orderId;
+    }
+    
+    @KafkaListener(topics = "orders")
+    public String consume(ConsumerRecord<String, String> record) {
+        return record.value();
+    }
+    
+    public String process(String orderId) {
+        return orderId;
+    }
+    
+    public String compute(String orderId) {
+        return orderId;
+    }
+}
@@ -0,0 +1,17 @@
+package com.example.orders;
+
+import com.logging.framework.annotation.LogMethod;
+
+/**
+ * Application bean failing with the same cached exception instance on every call, as validators
+ * that keep preallocated exceptions do.
+ */
+public class OrderValidator {
+    
+    static final IllegalArgumentException INVALID_ORDER = new IllegalArgumentException("Invalid order");
+    
+    @LogMethod(description = "Validating order")
+    public void validate(String orderId) {
+        throw INVALID_ORDER;
+    }
+}
@@ -0,0 +1,18 @@
+package com.example.orders;
+
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.messaging.handler.annotation.Headers;
+import org.springframework.messaging.handler.annotation.Payload;
+
+import java.util.Map;
+
+/**
+ * Kafka listener receiving the payload and headers as separate arguments, used in the topic policy tests.
+ */
+public class PaymentListener {
+    
+    @KafkaListener(topics = "payments")
+    public void onPayment(@Payload String payment, @Headers Map<String, Object> headers) {
+        // Nothing to do, the payment is only logged
+    }
+}
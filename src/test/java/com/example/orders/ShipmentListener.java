@@ -0,0 +1,19 @@
+package com.example.orders;
+
+import org.springframework.kafka.annotation.KafkaListener;
+
+/**
+ * Kafka listeners subscribing by placeholder and by topic pattern, used in the log level control tests.
+ */
+public class ShipmentListener {
+    
+    @KafkaListener(topics = "${orders.shipments.topic:shipments}")
+    public void onShipment(String shipment) {
+        // Nothing to do, the shipment is only logged
+    }
+    
+    @KafkaListener(topicPattern = "returns\\..*")
+    public void onReturn(String item) {
+        // Nothing to do, the return is only logged
+    }
+}
@@ -0,0 +1,319 @@
+package com.logging.framework;
+
+import com.example.orders.OrderService;
+import com.logging.framework.appender.KafkaLoggingFileAppender;
+import com.logging.framework.aspect.CustomMethodLoggingAspect;
+import com.logging.framework.aspect.KafkaConsumerLoggingAspect;
+import com.logging.framework.aspect.PredefinedMethodLoggingAspect;
+import com.logging.framework.config.KafkaLoggingProperties;
+import com.logging.framework.encoder.EncoderBuffer;
+import com.logging.framework.encoder.EventEncoder;
+import com.logging.framework.encoder.EventEncoders;
+import com.logging.framework.exception.StackTraceRenderer;
+import com.logging.framework.index.LoggingMethodIndex;
+import com.logging.framework.index.MethodMetadata;
+import com.logging.framework.index.MethodMetadataRegistry;
+import com.logging.framework.metrics.HotKeyDetector;
+import com.logging.framework.metrics.MethodRollup;
+import com.logging.framework.metrics.SlowMessageTracker;
+import com.logging.framework.metrics.TopicPartitionMetrics;
+import com.logging.framework.model.KafkaMessageContext;
+import com.logging.framework.model.LoggingEvent;
+import com.logging.framework.model.MethodExecutionStatus;
+import com.logging.framework.recorder.FlightRecorder;
+import com.logging.framework.sampling.MethodSampling;
+import com.logging.framework.service.LoggingService;
+import com.logging.framework.service.LoggingServiceImpl;
+import com.logging.framework.template.MessageTemplate;
+import com.logging.framework.template.MessageTemplates;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Properties;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Allocation regression gate for the logging hot path.
+ * Measures the bytes allocated on the calling thread per intercepted invocation for each aspect
+ * and per call for each {@link LoggingService} method, and fails when a measurement exceeds the
+ * budget checked in to {@code allocation-budget.properties}.
+ * 
+ * The dedicated log file is written synchronously, so JSON rendering of the {@link LoggingEvent}
+ * is part of the measurement. When a change reduces allocation, lower the budget in the same commit.
+ */
+public class AllocationBudgetTest {
+    
+    private static final Logger log = LoggerFactory.getLogger(AllocationBudgetTest.class);
+    
+    private static final int WARMUP_ITERATIONS = 5_000;
+    private static final int MEASURED_ITERATIONS = 2_000;
+    
+    private static com.sun.management.ThreadMXBean threadMXBean;
+    private static Properties budgets;
+    private static Path logDirectory;
+    private static AnnotationConfigApplicationContext context;
+    private static LoggingService loggingService;
+    private static OrderService customTarget;
+    private static OrderService consumerTarget;
+    private static OrderService predefinedTarget;
+    
+    @BeforeAll
+    public static void setUp() throws IOException {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        assumeTrue(bean instanceof com.sun.management.ThreadMXBean, "Thread allocation counters not available");
+        threadMXBean = (com.sun.management.ThreadMXBean) bean;
+        assumeTrue(threadMXBean.isThreadAllocatedMemorySupported(), "Thread allocation counters not supported");
+        threadMXBean.setThreadAllocatedMemoryEnabled(true);
+        
+        budgets = new Properties();
+        try (InputStream in = AllocationBudgetTest.class.getResourceAsStream("/allocation-budget.properties")) {
+            assertNotNull(in, "allocation-budget.properties should be on the test classpath");
+            budgets.load(in);
+        }
+        
+        logDirectory = Files.createTempDirectory("kafka-logging-allocation");
+        KafkaLoggingProperties properties = new KafkaLoggingProperties();
+        properties.setAsyncLogging(false);
+        properties.getLogFile().setPath(logDirectory.toString());
+        properties.getLogFile().setMaxSize("1GB");
+        properties.getMethodSelection().getIncludePatterns().add(OrderService.class.getName() + ".process");
+        KafkaLoggingProperties.ExceptionConfig exceptions = properties.getExceptions();
+        KafkaLoggingFileAppender fileAppender = new KafkaLoggingFileAppender(properties, new StackTraceRenderer(
+                exceptions.getFilteredFramePrefixes(), exceptions.getMaxStackFrames(), exceptions.getStackTraceCacheSize()));
+        
+        context = new AnnotationConfigApplicationContext();
+        context.registerBean(KafkaLoggingProperties.class, () -> properties);
+        context.registerBean(KafkaLoggingFileAppender.class, () -> fileAppender);
+        context.registerBean(TopicPartitionMetrics.class, () -> new TopicPartitionMetrics(null, null, 0));
+        MethodSampling sampling = new MethodSampling(Collections.emptyMap(), 1000);
+        context.registerBean(MethodSampling.class, () -> sampling);
+        context.registerBean(MethodMetadataRegistry.class,
+                () -> new MethodMetadataRegistry(LoggingMethodIndex.empty(), null, sampling));
+        context.registerBean(LoggingServiceImpl.class);
+        context.refresh();
+        
+        loggingService = context.getBean(LoggingService.class);
+        customTarget = advise(new CustomMethodLoggingAspect());
+        consumerTarget = advise(new KafkaConsumerLoggingAspect());
+        predefinedTarget = advise(new PredefinedMethodLoggingAspect());
+    }
+    
+    @AfterAll
+    public static void tearDown() throws IOException {
+        if (context != null) {
+            context.close();
+        }
+        if (logDirectory != null) {
+            try (Stream<Path> files = Files.walk(logDirectory)) {
+                files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+            }
+        }
+    }
+    
+    @Test
+    public void customMethodAspect() {
+        assertWithinBudget("aspect.custom-method", () -> customTarget.handle("order-42"));
+    }
+    
+    @Test
+    public void customMethodAspectSampledOut() {
+        assertWithinBudget("aspect.custom-method.sampled-out", () -> customTarget.price("order-42"));
+    }
+    
+    @Test
+    public void kafkaConsumerAspect() {
+        ConsumerRecord<String, String> record = consumerRecord();
+        assertWithinBudget("aspect.kafka-consumer", () -> consumerTarget.consume(record));
+    }
+    
+    @Test
+    public void predefinedMethodAspectSelected() {
+        assertWithinBudget("aspect.predefined-method.selected", () -> predefinedTarget.process("order-42"));
+    }
+    
+    @Test
+    public void predefinedMethodAspectNotSelected() {
+        assertWithinBudget("aspect.predefined-method.not-selected", () -> predefinedTarget.compute("order-42"));
+    }
+    
+    @Test
+    public void logMethodEntry() {
+        Object[] args = {"order-42", 42};
+        assertWithinBudget("service.log-method-entry",
+                () -> loggingService.logMethodEntry("OrderService", "process", args));
+    }
+    
+    @Test
+    public void logMethodExit() {
+        assertWithinBudget("service.log-method-exit",
+                () -> loggingService.logMethodExit("OrderService", "process", "accepted", 3, MethodExecutionStatus.PASSED));
+    }
+    
+    @Test
+    public void logMethodStatus() {
+        assertWithinBudget("service.log-method-status",
+                () -> loggingService.logMethodStatus("OrderService", "process", MethodExecutionStatus.PASSED, "Completed"));
+    }
+    
+    @Test
+    public void logMethodStatusTemplate() {
+        MessageTemplate template = MessageTemplates.intern("Order processed in {} ms");
+        assertWithinBudget("service.log-method-status.template",
+                () -> loggingService.logMethodStatus("OrderService", "process", MethodExecutionStatus.PASSED, template, 3L));
+    }
+    
+    @Test
+    public void logKafkaConsumerEvent() {
+        assertWithinBudget("service.log-kafka-consumer-event", () -> loggingService.logKafkaConsumerEvent(consumerEvent()));
+    }
+    
+    @Test
+    public void logEvent() {
+        assertWithinBudget("service.log-event", () -> loggingService.logEvent(consumerEvent()));
+    }
+    
+    @Test
+    public void logException() {
+        // Distinct instances, so every call is the first sighting of its exception on this thread
+        RuntimeException[] exceptions = new RuntimeException[64];
+        for (int i = 0; i < exceptions.length; i++) {
+            exceptions[i] = new IllegalStateException("Order rejected");
+        }
+        Object[] args = {"order-42"};
+        int[] next = {0};
+        assertWithinBudget("service.log-exception", () -> loggingService.logException("OrderService", "process",
+                exceptions[next[0]++ & (exceptions.length - 1)], args));
+    }
+    
+    @Test
+    public void loggingEventToJsonString() {
+        LoggingEvent event = consumerEvent();
+        assertWithinBudget("event.to-json-string", event::toJsonString);
+    }
+    
+    @Test
+    public void jsonEncoderEncode() {
+        assertEncoderWithinBudget(EventEncoders.JSON);
+    }
+    
+    @Test
+    public void ecsEncoderEncode() {
+        assertEncoderWithinBudget(EventEncoders.ECS);
+    }
+    
+    @Test
+    public void logfmtEncoderEncode() {
+        assertEncoderWithinBudget(EventEncoders.LOGFMT);
+    }
+    
+    @Test
+    public void flightRecorderRecord() throws NoSuchMethodException {
+        FlightRecorder recorder = new FlightRecorder(null, 256, true, 0, true, false);
+        MethodMetadata metadata = new MethodMetadataRegistry(LoggingMethodIndex.empty())
+                .get(OrderService.class.getMethod("process", String.class));
+        KafkaMessageContext messageContext = KafkaMessageContext.fromConsumerRecord(consumerRecord());
+        assertWithinBudget("recorder.record", () -> recorder.record(metadata, messageContext, 3, false));
+    }
+    
+    @Test
+    public void methodRollupRecord() throws NoSuchMethodException {
+        MethodRollup rollup = new MethodRollup(null, null, 0, true);
+        MethodMetadata metadata = new MethodMetadataRegistry(LoggingMethodIndex.empty())
+                .get(OrderService.class.getMethod("consume", ConsumerRecord.class));
+        assertWithinBudget("rollup.record", () -> rollup.record(metadata, "orders", 3, false));
+    }
+    
+    @Test
+    public void slowMessageTrackerRecord() throws NoSuchMethodException {
+        SlowMessageTracker tracker = new SlowMessageTracker(null, null, 10, 0, 0);
+        MethodMetadata metadata = new MethodMetadataRegistry(LoggingMethodIndex.empty())
+                .get(OrderService.class.getMethod("consume", ConsumerRecord.class));
+        KafkaMessageContext messageContext = KafkaMessageContext.fromConsumerRecord(consumerRecord());
+        for (int i = 0; i < 10; i++) {
+            tracker.record(metadata, messageContext, 1000, false);
+        }
+        // Below the slowest ten, so only the threshold is compared
+        assertWithinBudget("slow-messages.record", () -> tracker.record(metadata, messageContext, 3, false));
+    }
+    
+    @Test
+    public void hotKeyDetectorRecord() {
+        HotKeyDetector detector = new HotKeyDetector(null, null, 10, 2048, 4, 0);
+        KafkaMessageContext messageContext = KafkaMessageContext.fromConsumerRecord(consumerRecord());
+        // The key is already a heavy key candidate, so only its estimate is updated
+        detector.record(messageContext, 5);
+        assertWithinBudget("hot-keys.record", () -> detector.record(messageContext, 5));
+    }
+    
+    private static void assertEncoderWithinBudget(String format) {
+        EventEncoder encoder = EventEncoders.forFormat(format, false);
+        EncoderBuffer buffer = new EncoderBuffer(1024);
+        LoggingEvent event = consumerEvent();
+        assertWithinBudget("encoder." + format, () -> {
+            buffer.reset();
+            encoder.encode(event, buffer);
+        });
+    }
+    
+    private static void assertWithinBudget(String name, Runnable invocation) {
+        String budget = budgets.getProperty(name);
+        assertNotNull(budget, "No allocation budget for " + name);
+        long budgetBytes = Long.parseLong(budget.trim());
+        
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            invocation.run();
+        }
+        long threadId = Thread.currentThread().getId();
+        long before = threadMXBean.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+            invocation.run();
+        }
+        long bytesPerInvocation = (threadMXBean.getThreadAllocatedBytes(threadId) - before) / MEASURED_ITERATIONS;
+        
+        log.info("Allocation {}: {} bytes per invocation (budget {})", name, bytesPerInvocation, budgetBytes);
+        assertTrue(bytesPerInvocation <= budgetBytes, name + " allocated " + bytesPerInvocation 
+                + " bytes per invocation, budget is " + budgetBytes);
+    }
+    
+    private static OrderService advise(Object aspect) {
+        context.getAutowireCapableBeanFactory().autowireBean(aspect);
+        AspectJProxyFactory factory = new AspectJProxyFactory(new OrderService());
+        factory.setProxyTargetClass(true);
+        factory.addAspect(aspect);
+        return factory.getProxy();
+    }
+    
+    private static ConsumerRecord<String, String> consumerRecord() {
+        return new ConsumerRecord<>("orders", 3, 42L, "order-42", "{\"orderId\":42,\"amount\":19.99}");
+    }
+    
+    private static LoggingEvent consumerEvent() {
+        LoggingEvent event = new LoggingEvent();
+        event.setClassName("OrderListener");
+        event.setMethodName("onOrder");
+        event.setArguments(new Object[] {"order-42", 42});
+        event.setResult("accepted");
+        event.setExecutionTimeMs(3);
+        event.setLogLevel("INFO");
+        event.setStatus(MethodExecutionStatus.PASSED);
+        event.setKafkaMessageContext(KafkaMessageContext.fromConsumerRecord(consumerRecord()));
+        return event;
+    }
+}
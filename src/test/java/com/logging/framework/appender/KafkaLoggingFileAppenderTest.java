@@ -0,0 +1,240 @@
+package com.logging.framework.appender;
+
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.rolling.FixedWindowRollingPolicy;
+import ch.qos.logback.core.rolling.RollingFileAppender;
+import ch.qos.logback.core.rolling.TriggeringPolicyBase;
+import ch.qos.logback.core.util.FileSize;
+import com.logging.framework.config.KafkaLoggingProperties;
+import com.logging.framework.encoder.EncoderBuffer;
+import com.logging.framework.encoder.EventEncoder;
+import com.logging.framework.encoder.JsonLinesEncoder;
+import com.logging.framework.encoder.LogfmtEncoder;
+import com.logging.framework.model.LoggingEvent;
+import com.logging.framework.model.MethodExecutionStatus;
+import com.logging.framework.template.MessageTemplate;
+import com.logging.framework.template.MessageTemplates;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Template definitions written to the log file by the {@link KafkaLoggingFileAppender}.
+ */
+public class KafkaLoggingFileAppenderTest {
+    
+    private static final MessageTemplate STARTED = MessageTemplates.intern("KafkaLoggingFileAppenderTest - Started");
+    private static final MessageTemplate COMPLETED =
+            MessageTemplates.intern("KafkaLoggingFileAppenderTest - Completed in {} ms");
+    
+    private static final String WRITE_AHEAD_SIZE = "64KB";
+    
+    private Path logDirectory;
+    private KafkaLoggingFileAppender fileAppender;
+    
+    @BeforeEach
+    public void setUp() throws IOException {
+        logDirectory = Files.createTempDirectory("kafka-logging-appender");
+    }
+    
+    @AfterEach
+    public void tearDown() throws IOException {
+        if (fileAppender != null) {
+            fileAppender.destroy();
+        }
+        try (Stream<Path> paths = Files.walk(logDirectory)) {
+            paths.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        }
+    }
+    
+    @Test
+    public void definesTemplateOnceBeforeItsFirstUse() throws IOException {
+        fileAppender = newAppender("pattern");
+        fileAppender.log(event(STARTED, null));
+        fileAppender.log(event(COMPLETED, 12));
+        fileAppender.log(event(STARTED, null));
+        fileAppender.log(event(COMPLETED, 15));
+        
+        List<String> lines = readLogFile();
+        assertEquals(6, lines.size(), String.join("\n", lines));
+        assertDefinition(STARTED, lines.get(0));
+        assertUse(STARTED, lines.get(1));
+        assertDefinition(COMPLETED, lines.get(2));
+        assertUse(COMPLETED, lines.get(3));
+        assertUse(STARTED, lines.get(4));
+        assertUse(COMPLETED, lines.get(5));
+        assertTrue(lines.get(0).startsWith("["), "Definitions should be written with the log pattern");
+    }
+    
+    @Test
+    public void definesTemplateInFileRolledOverByItsUse() throws IOException {
+        fileAppender = newAppender("json");
+        RollingFileAppender<ILoggingEvent> appender = (RollingFileAppender<ILoggingEvent>)
+                ((Logger) LoggerFactory.getLogger("com.logging.framework.kafka")).getAppender("KAFKA_FILE");
+        FixedWindowRollingPolicy rollingPolicy = new FixedWindowRollingPolicy();
+        rollingPolicy.setContext(appender.getContext());
+        rollingPolicy.setParent(appender);
+        rollingPolicy.setFileNamePattern(logDirectory + "/kafka-logging.%i.log");
+        rollingPolicy.start();
+        RollOnDemand triggeringPolicy = new RollOnDemand();
+        triggeringPolicy.start();
+        appender.setRollingPolicy(rollingPolicy);
+        appender.setTriggeringPolicy(triggeringPolicy);
+        
+        fileAppender.log(event(STARTED, null));
+        assertEquals(2, readLogFile().size());
+        
+        // The event rolls the file over, the new file defines its template before it
+        triggeringPolicy.rollNext = true;
+        fileAppender.log(event(STARTED, null));
+        List<String> lines = readLogFile();
+        assertEquals(2, lines.size(), String.join("\n", lines));
+        assertDefinition(STARTED, lines.get(0));
+        assertUse(STARTED, lines.get(1));
+        assertTrue(lines.get(0).startsWith("{"), "Definitions should be written with the event encoder");
+        assertEquals(2, Files.readAllLines(logDirectory.resolve("kafka-logging.1.log")).size());
+    }
+    
+    @Test
+    public void writesWholeLinesOfConcurrentThreads() throws Exception {
+        fileAppender = newAppender("logfmt");
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            String method = "process" + t;
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < 500; i++) {
+                    LoggingEvent event = event(COMPLETED, i);
+                    event.setMethodName(method);
+                    fileAppender.log(event);
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        
+        // Each thread encodes into a buffer of its own, so no line mixes the events of two threads
+        List<String> lines = readLogFile();
+        assertEquals(2000, lines.size());
+        for (String line : lines) {
+            assertTrue(line.matches("ts=\\S+ level=INFO status=PASSED class=OrderService method=process[0-3] "
+                    + "msg=\"KafkaLoggingFileAppenderTest - Completed in \\d+ ms\""), line);
+        }
+    }
+    
+    @Test
+    public void writesRecoveredEventsWithTheEventEncoder() throws IOException {
+        spool(new LogfmtEncoder(), event(STARTED, null), event(COMPLETED, 12));
+        
+        fileAppender = new KafkaLoggingFileAppender(writeAheadProperties("logfmt"));
+        List<String> lines = readLogFile();
+        assertEquals(2, lines.size(), String.join("\n", lines));
+        assertTrue(lines.get(0).startsWith("ts="), lines.get(0));
+        assertTrue(lines.get(1).endsWith("msg=\"KafkaLoggingFileAppenderTest - Completed in 12 ms\""), lines.get(1));
+    }
+    
+    @Test
+    public void writesRecoveredEventsWithTheLogPattern() throws IOException {
+        LoggingEvent event = event(COMPLETED, 12);
+        event.setTimestamp(LocalDateTime.of(2024, 3, 1, 10, 15, 30));
+        event.setStatus(MethodExecutionStatus.FAILED);
+        event.setLogLevel("ERROR");
+        spool(new JsonLinesEncoder(true), event);
+        
+        fileAppender = new KafkaLoggingFileAppender(writeAheadProperties("pattern"));
+        List<String> lines = readLogFile();
+        assertEquals(1, lines.size(), String.join("\n", lines));
+        assertTrue(lines.get(0).startsWith("[2024-03-01 10:15:30] [ERROR] [FAILED] [OrderService#process] - {"),
+                lines.get(0));
+        assertUse(COMPLETED, lines.get(0));
+    }
+    
+    private KafkaLoggingFileAppender newAppender(String format) {
+        KafkaLoggingProperties properties = new KafkaLoggingProperties();
+        properties.setAsyncLogging(false);
+        properties.getLogFile().setPath(logDirectory.toString());
+        properties.getLogFile().setFormat(format);
+        properties.getLogFile().setTemplateIds(true);
+        return new KafkaLoggingFileAppender(properties);
+    }
+    
+    private KafkaLoggingProperties writeAheadProperties(String format) {
+        KafkaLoggingProperties properties = new KafkaLoggingProperties();
+        properties.setAsyncWriteAhead(true);
+        properties.setAsyncWriteAheadSize(WRITE_AHEAD_SIZE);
+        properties.getLogFile().setPath(logDirectory.toString());
+        properties.getLogFile().setFormat(format);
+        properties.getLogFile().setTemplateIds(true);
+        return properties;
+    }
+    
+    /**
+     * Leave encoded events uncommitted in the write-ahead spool, as a killed process does.
+     */
+    private void spool(EventEncoder encoder, LoggingEvent... events) throws IOException {
+        WriteAheadSpool spool = new WriteAheadSpool(logDirectory.resolve("kafka-logging.log.wal").toFile(),
+                FileSize.valueOf(WRITE_AHEAD_SIZE).getSize());
+        try {
+            for (LoggingEvent event : events) {
+                EncoderBuffer buffer = new EncoderBuffer(256);
+                encoder.encode(event, buffer);
+                assertTrue(spool.append(buffer.array(), 0, buffer.size()));
+            }
+        } finally {
+            spool.close();
+        }
+    }
+    
+    private static LoggingEvent event(MessageTemplate template, Object argument) {
+        LoggingEvent event = new LoggingEvent();
+        event.setClassName("OrderService");
+        event.setMethodName("process");
+        event.setStatus(MethodExecutionStatus.PASSED);
+        event.setLogLevel("INFO");
+        event.setMessage(template, argument);
+        return event;
+    }
+    
+    private static void assertDefinition(MessageTemplate template, String line) {
+        assertTrue(line.contains("\"messageId\":" + template.getId() + ",\"template\":"), line);
+    }
+    
+    private static void assertUse(MessageTemplate template, String line) {
+        assertTrue(line.contains("\"messageId\":" + template.getId()) && !line.contains("\"template\":"), line);
+    }
+    
+    private List<String> readLogFile() throws IOException {
+        return Files.readAllLines(logDirectory.resolve("kafka-logging.log"), StandardCharsets.UTF_8);
+    }
+    
+    /**
+     * Triggering policy rolling the file over on the next event.
+     */
+    private static class RollOnDemand extends TriggeringPolicyBase<ILoggingEvent> {
+        
+        private volatile boolean rollNext;
+        
+        @Override
+        public boolean isTriggeringEvent(File activeFile, ILoggingEvent event) {
+            boolean roll = rollNext;
+            rollNext = false;
+            return roll;
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package com.logging.framework.appender;
+
+import com.logging.framework.config.KafkaLoggingProperties;
+import com.logging.framework.service.LoggingScheduler;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+import org.springframework.kafka.test.utils.KafkaTestUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Publishing, spooling and replay of the {@link KafkaTopicSink} against an embedded broker.
+ */
+@EmbeddedKafka(partitions = 1, topics = {KafkaTopicSinkTest.PUBLISH_TOPIC, KafkaTopicSinkTest.REPLAY_TOPIC})
+public class KafkaTopicSinkTest {
+    
+    static final String PUBLISH_TOPIC = "kafka-logging-publish";
+    static final String REPLAY_TOPIC = "kafka-logging-replay";
+    
+    private Path spoolDirectory;
+    private LoggingScheduler scheduler;
+    
+    @BeforeEach
+    public void setUp() throws IOException {
+        spoolDirectory = Files.createTempDirectory("kafka-logging-spool");
+        scheduler = new LoggingScheduler();
+    }
+    
+    @AfterEach
+    public void tearDown() throws IOException {
+        scheduler.destroy();
+        try (Stream<Path> paths = Files.walk(spoolDirectory)) {
+            paths.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        }
+    }
+    
+    @Test
+    public void publishesEncodedEventsToTopic(EmbeddedKafkaBroker broker) throws Exception {
+        KafkaTopicSink sink = newSink(PUBLISH_TOPIC, broker.getBrokersAsString());
+        try {
+            sink.publish("{\"event\":1}");
+            sink.publish("{\"event\":2}");
+            sink.publish("{\"event\":3}");
+            
+            assertEquals(Arrays.asList("{\"event\":1}", "{\"event\":2}", "{\"event\":3}"),
+                    consume(broker, PUBLISH_TOPIC, 3));
+            assertTrue(await(() -> sink.getPublished() == 3), "Events should be acknowledged");
+            assertFalse(sink.isSpooling());
+            assertTrue(sink.getSpool().isEmpty());
+        } finally {
+            sink.destroy();
+        }
+    }
+    
+    @Test
+    public void spoolsWhileBrokerIsUnavailableAndReplaysLater(EmbeddedKafkaBroker broker) throws Exception {
+        // Nothing listens on this port, so the topic metadata never arrives
+        KafkaTopicSink unavailable = newSink(REPLAY_TOPIC, "localhost:1");
+        for (int i = 1; i <= 5; i++) {
+            unavailable.publish("{\"event\":" + i + "}");
+        }
+        assertTrue(await(() -> unavailable.getSpooled() == 5), "Events should be spooled");
+        assertTrue(unavailable.isSpooling());
+        unavailable.destroy();
+        
+        KafkaTopicSink sink = newSink(REPLAY_TOPIC, broker.getBrokersAsString());
+        try {
+            assertTrue(sink.isSpooling(), "Spool of the previous run should be replayed first");
+            sink.replay();
+            assertTrue(await(() -> !sink.isSpooling()), "Spool should be replayed");
+            assertEquals(5, sink.getReplayed());
+            assertTrue(sink.getSpool().isEmpty());
+            
+            sink.publish("{\"event\":6}");
+            List<String> expected = new ArrayList<>();
+            for (int i = 1; i <= 6; i++) {
+                expected.add("{\"event\":" + i + "}");
+            }
+            assertEquals(expected, consume(broker, REPLAY_TOPIC, 6));
+        } finally {
+            sink.destroy();
+        }
+    }
+    
+    private KafkaTopicSink newSink(String topic, String bootstrapServers) {
+        KafkaLoggingProperties.SinkConfig config = new KafkaLoggingProperties.SinkConfig();
+        config.setLingerMs(10);
+        config.setMaxBlockMs(500);
+        config.setDeliveryTimeoutMs(2000);
+        LogSpool spool = new LogSpool(spoolDirectory.toFile(), 1024, 1024 * 1024);
+        return new KafkaTopicSink(topic, KafkaTopicSink.producerConfig(config, bootstrapServers),
+                spool, scheduler, 0);
+    }
+    
+    private static List<String> consume(EmbeddedKafkaBroker broker, String topic, int count) {
+        Map<String, Object> props = KafkaTestUtils.consumerProps(topic + "-reader", "false", broker);
+        props.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+        List<String> values = new ArrayList<>();
+        try (Consumer<String, String> consumer =
+                     new KafkaConsumer<>(props, new StringDeserializer(), new StringDeserializer())) {
+            consumer.subscribe(Collections.singletonList(topic));
+            long deadline = System.currentTimeMillis() + 10_000;
+            while (values.size() < count && System.currentTimeMillis() < deadline) {
+                for (ConsumerRecord<String, String> record : consumer.poll(Duration.ofMillis(200))) {
+                    values.add(record.value());
+                }
+            }
+        }
+        return values;
+    }
+    
+    private static boolean await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > deadline) {
+                return false;
+            }
+            Thread.sleep(50);
+        }
+        return true;
+    }
+}
@@ -0,0 +1,110 @@
+package com.logging.framework.appender;
+
+import com.logging.framework.encoder.JsonLinesEncoder;
+import com.logging.framework.model.LoggingEvent;
+import com.logging.framework.model.MethodExecutionStatus;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Recovery and closing of the {@link WriteAheadSpool} of the {@link AsyncLogWriter}.
+ */
+public class WriteAheadSpoolTest {
+    
+    private Path directory;
+    private File file;
+    
+    @BeforeEach
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("kafka-logging-wal");
+        file = directory.resolve("kafka-logging.log.wal").toFile();
+    }
+    
+    @AfterEach
+    public void tearDown() throws IOException {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            paths.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        }
+    }
+    
+    @Test
+    public void recoversUncommittedRecordsAppendedFromSlices() throws IOException {
+        WriteAheadSpool spool = new WriteAheadSpool(file, 4096);
+        byte[] array = "--first--second--".getBytes(StandardCharsets.UTF_8);
+        assertTrue(spool.append(array, 2, 5));
+        assertTrue(spool.append(array, 9, 6));
+        assertTrue(spool.append("third".getBytes(StandardCharsets.UTF_8)));
+        spool.commit(1);
+        spool.close();
+        
+        WriteAheadSpool reopened = new WriteAheadSpool(file, 4096);
+        try {
+            assertEquals(asList("second", "third"), asStrings(reopened.recover()));
+            reopened.markRecovered();
+            assertTrue(reopened.recover().isEmpty());
+        } finally {
+            reopened.close();
+        }
+    }
+    
+    @Test
+    public void writerEncodesRecordsAndClosesSpoolOnShutdown() throws IOException {
+        WriteAheadSpool spool = new WriteAheadSpool(file, 4096);
+        List<LoggingEvent> written = Collections.synchronizedList(new ArrayList<>());
+        AsyncLogWriter writer = new AsyncLogWriter(16, false, spool, new JsonLinesEncoder(false), written::add);
+        for (int i = 0; i < 3; i++) {
+            writer.enqueue(event("process" + i));
+        }
+        writer.shutdown();
+        
+        assertEquals(3, written.size());
+        assertFalse(spool.append(new byte[] {1}), "A closed spool should refuse appends");
+        
+        // Everything written was committed, nothing is recovered on the next start
+        WriteAheadSpool reopened = new WriteAheadSpool(file, 4096);
+        try {
+            assertTrue(reopened.recover().isEmpty());
+        } finally {
+            reopened.close();
+        }
+    }
+    
+    private static LoggingEvent event(String method) {
+        LoggingEvent event = new LoggingEvent();
+        event.setClassName("OrderService");
+        event.setMethodName(method);
+        event.setStatus(MethodExecutionStatus.PASSED);
+        event.setLogLevel("INFO");
+        return event;
+    }
+    
+    private static List<String> asStrings(List<byte[]> records) {
+        List<String> strings = new ArrayList<>();
+        for (byte[] record : records) {
+            strings.add(new String(record, StandardCharsets.UTF_8));
+        }
+        return strings;
+    }
+    
+    private static List<String> asList(String... values) {
+        List<String> list = new ArrayList<>();
+        Collections.addAll(list, values);
+        return list;
+    }
+}
@@ -0,0 +1,122 @@
+package com.logging.framework.aspect;
+
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import com.example.orders.OrderService;
+import com.example.orders.OrderValidator;
+import com.logging.framework.appender.KafkaLoggingFileAppender;
+import com.logging.framework.config.KafkaLoggingProperties;
+import com.logging.framework.exception.ExceptionPropagationTracker;
+import com.logging.framework.exception.KafkaExceptionHandler;
+import com.logging.framework.service.LoggingServiceImpl;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+import org.springframework.aop.aspectj.AspectJExpressionPointcut;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.kafka.core.KafkaTemplate;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Methods matched by {@link ApplicationPointcuts#applicationMethod()}, and the advices using it
+ * on application classes.
+ */
+public class ApplicationPointcutsTest {
+    
+    private Path logDirectory;
+    private KafkaLoggingProperties properties;
+    private AnnotationConfigApplicationContext context;
+    
+    @BeforeEach
+    public void setUp() throws IOException {
+        logDirectory = Files.createTempDirectory("kafka-logging-pointcuts");
+        properties = new KafkaLoggingProperties();
+        properties.setAsyncLogging(false);
+        properties.getLogFile().setPath(logDirectory.toString());
+        properties.getMethodSelection().getIncludePatterns().add(OrderService.class.getName() + ".process");
+        KafkaLoggingFileAppender fileAppender = new KafkaLoggingFileAppender(properties);
+        
+        context = new AnnotationConfigApplicationContext();
+        context.registerBean(KafkaLoggingProperties.class, () -> properties);
+        context.registerBean(KafkaLoggingFileAppender.class, () -> fileAppender);
+        context.registerBean(LoggingServiceImpl.class);
+        context.refresh();
+        ExceptionPropagationTracker.reset();
+    }
+    
+    @AfterEach
+    public void tearDown() throws IOException {
+        context.close();
+        try (Stream<Path> files = Files.walk(logDirectory)) {
+            files.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        }
+    }
+    
+    @Test
+    public void matchesApplicationMethodsOnly() throws NoSuchMethodException {
+        AspectJExpressionPointcut pointcut = new AspectJExpressionPointcut();
+        pointcut.setExpression("com.logging.framework.aspect.ApplicationPointcuts.applicationMethod()");
+        
+        assertTrue(pointcut.matches(OrderService.class.getMethod("process", String.class), OrderService.class));
+        assertTrue(pointcut.matches(OrderValidator.class.getMethod("validate", String.class), OrderValidator.class));
+        assertFalse(pointcut.matches(Object.class.getMethod("toString"), OrderService.class));
+        assertFalse(pointcut.matches(KafkaLoggingProperties.class.getMethod("getLogLevel"),
+                KafkaLoggingProperties.class));
+        assertFalse(pointcut.matches(KafkaTemplate.class.getMethod("flush"), KafkaTemplate.class));
+        assertFalse(pointcut.matches(StringBuilder.class.getMethod("length"), StringBuilder.class));
+    }
+    
+    @Test
+    public void predefinedMethodAspectAdvisesApplicationClass() throws IOException {
+        OrderService orders = advise(new OrderService(), new PredefinedMethodLoggingAspect());
+        
+        assertEquals("order-42", orders.process("order-42"));
+        
+        String logFile = new String(Files.readAllBytes(logDirectory.resolve("kafka-logging.log")), StandardCharsets.UTF_8);
+        assertTrue(logFile.contains("\"class\":\"OrderService\",\"method\":\"process\""),
+                "The selected application method should be logged");
+    }
+    
+    @Test
+    public void exceptionHandlerAdvisesApplicationClass() {
+        Logger serviceLogger = (Logger) LoggerFactory.getLogger(LoggingServiceImpl.class);
+        ListAppender<ILoggingEvent> console = new ListAppender<>();
+        console.start();
+        serviceLogger.addAppender(console);
+        try {
+            OrderValidator validator = advise(new OrderValidator(), new KafkaExceptionHandler());
+            
+            assertThrows(IllegalArgumentException.class, () -> validator.validate("order-42"));
+            
+            assertTrue(console.list.stream()
+                    .anyMatch(event -> event.getFormattedMessage().startsWith("Exception in [OrderValidator#validate]")),
+                    "The exception of the application method should be logged");
+        } finally {
+            serviceLogger.detachAppender(console);
+        }
+    }
+    
+    @SuppressWarnings("unchecked")
+    private <T> T advise(T target, Object aspect) {
+        context.getAutowireCapableBeanFactory().autowireBean(aspect);
+        AspectJProxyFactory factory = new AspectJProxyFactory(target);
+        factory.setProxyTargetClass(true);
+        factory.addAspect(aspect);
+        return (T) factory.getProxy();
+    }
+}
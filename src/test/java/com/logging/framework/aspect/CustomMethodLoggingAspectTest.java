@@ -0,0 +1,212 @@
+package com.logging.framework.aspect;
+
+import com.example.orders.FulfillmentService;
+import com.example.orders.OrderService;
+import com.example.orders.OrderValidator;
+import com.logging.framework.index.LoggingMethodIndex;
+import com.logging.framework.index.MethodMetadataRegistry;
+import com.logging.framework.model.LoggingEvent;
+import com.logging.framework.model.MethodExecutionStatus;
+import com.logging.framework.sampling.MethodSampling;
+import com.logging.framework.service.LoggingService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Events logged by the {@link CustomMethodLoggingAspect} for sampled methods and for methods returning
+ * asynchronous results.
+ */
+public class CustomMethodLoggingAspectTest {
+    
+    private static final long SLOW_MS = 30;
+    
+    private final RecordingLoggingService loggingService = new RecordingLoggingService();
+    private AnnotationConfigApplicationContext context;
+    private CustomMethodLoggingAspect aspect;
+    private FulfillmentService service;
+    
+    @BeforeEach
+    public void setUp() {
+        Map<String, String> rules = new HashMap<>();
+        rules.put("com.example.orders.OrderService.handle", "one-in-n:3");
+        rules.put("com.example.orders.OrderValidator", "one-in-n:3");
+        rules.put("com.example.orders.FulfillmentService.ship", "one-in-n:3");
+        MethodSampling sampling = new MethodSampling(rules, SLOW_MS);
+        
+        context = new AnnotationConfigApplicationContext();
+        context.registerBean(LoggingService.class, () -> loggingService);
+        context.registerBean(MethodSampling.class, () -> sampling);
+        context.registerBean(MethodMetadataRegistry.class,
+                () -> new MethodMetadataRegistry(LoggingMethodIndex.empty(), null, sampling));
+        context.refresh();
+        
+        aspect = new CustomMethodLoggingAspect();
+        context.getAutowireCapableBeanFactory().autowireBean(aspect);
+        service = proxy(new FulfillmentService());
+    }
+    
+    @AfterEach
+    public void tearDown() {
+        context.close();
+    }
+    
+    @Test
+    public void logsFutureWhenItCompletes() throws InterruptedException {
+        CompletableFuture<String> shipment = new CompletableFuture<>();
+        assertSame(shipment, service.ship(shipment));
+        assertTrue(loggingService.events.isEmpty(), "Nothing should be logged before the future completes");
+        
+        Thread.sleep(40);
+        IllegalStateException rejected = new IllegalStateException("Carrier unavailable");
+        shipment.completeExceptionally(rejected);
+        
+        LoggingEvent event = singleEvent();
+        assertEquals(MethodExecutionStatus.FAILED, event.getStatus());
+        assertSame(rejected, event.getException());
+        assertTrue(event.getExecutionTimeMs() >= 40, "The execution time should run until completion");
+        assertEquals(Arrays.asList(MethodExecutionStatus.IN_PROGRESS, MethodExecutionStatus.FAILED),
+                loggingService.statuses);
+    }
+    
+    @Test
+    public void logsMonoWhenSubscriptionCompletes() {
+        Mono<String> parcel = service.pack(Mono.just("parcel-1").delayElement(Duration.ofMillis(40)));
+        assertTrue(loggingService.events.isEmpty(), "Nothing should be logged before the subscription");
+        // Mono.block() returns on the element, the subscription completes right after it
+        assertEquals("parcel-1", parcel.flux().blockLast());
+        
+        LoggingEvent event = singleEvent();
+        assertEquals(MethodExecutionStatus.PASSED, event.getStatus());
+        assertEquals("parcel-1", event.getResult());
+        assertTrue(event.getExecutionTimeMs() >= 40, "The execution time should run until completion");
+    }
+    
+    @Test
+    public void logsFluxErrorOnce() {
+        IllegalStateException missing = new IllegalStateException("Item missing");
+        Flux<String> items = service.pick(Flux.concat(Flux.just("item-1"), Flux.error(missing)));
+        assertThrows(IllegalStateException.class, items::blockLast);
+        
+        LoggingEvent event = singleEvent();
+        assertEquals(MethodExecutionStatus.FAILED, event.getStatus());
+        assertSame(missing, event.getException());
+    }
+    
+    @Test
+    public void reportsSkippedInvocationsInSampleCount() {
+        OrderService orders = proxy(new OrderService());
+        for (int i = 0; i < 7; i++) {
+            orders.handle("order-" + i);
+        }
+        
+        // The first, fourth and seventh invocations are logged
+        assertEquals(Arrays.asList(1L, 3L, 3L), sampleCounts());
+    }
+    
+    @Test
+    public void logsSampledOutFailures() {
+        OrderValidator validator = proxy(new OrderValidator());
+        for (int i = 0; i < 3; i++) {
+            assertThrows(IllegalArgumentException.class, () -> validator.validate("order-1"));
+        }
+        
+        assertEquals(Arrays.asList(1L, 1L, 1L), sampleCounts());
+        for (LoggingEvent event : loggingService.events) {
+            assertEquals(MethodExecutionStatus.FAILED, event.getStatus());
+        }
+    }
+    
+    @Test
+    public void logsSampledOutSlowInvocations() throws InterruptedException {
+        service.ship(CompletableFuture.completedFuture("shipment-1"));
+        service.ship(CompletableFuture.completedFuture("shipment-2"));
+        CompletableFuture<String> slow = new CompletableFuture<>();
+        service.ship(slow);
+        Thread.sleep(SLOW_MS + 10);
+        slow.complete("shipment-3");
+        
+        // The second invocation was sampled out and fast, the slow third one reports it
+        assertEquals(Arrays.asList(1L, 2L), sampleCounts());
+        assertEquals("shipment-3", loggingService.events.get(1).getResult());
+    }
+    
+    private <T> T proxy(T target) {
+        AspectJProxyFactory factory = new AspectJProxyFactory(target);
+        factory.setProxyTargetClass(true);
+        factory.addAspect(aspect);
+        return factory.getProxy();
+    }
+    
+    private List<Object> sampleCounts() {
+        List<Object> counts = new ArrayList<>();
+        for (LoggingEvent event : loggingService.events) {
+            counts.add(event.getAdditionalContext().get("sampleCount"));
+        }
+        return counts;
+    }
+    
+    private LoggingEvent singleEvent() {
+        assertEquals(1, loggingService.events.size(), loggingService.events.toString());
+        return loggingService.events.get(0);
+    }
+    
+    /**
+     * Logging service keeping the logged events and statuses.
+     */
+    private static class RecordingLoggingService implements LoggingService {
+        
+        private final List<LoggingEvent> events = new CopyOnWriteArrayList<>();
+        private final List<MethodExecutionStatus> statuses = new CopyOnWriteArrayList<>();
+        
+        @Override
+        public void logMethodEntry(String className, String methodName, Object[] args) {
+        }
+        
+        @Override
+        public void logMethodExit(String className, String methodName, Object result, long executionTimeMs,
+                                  MethodExecutionStatus status) {
+        }
+        
+        @Override
+        public void logMethodExit(String className, String methodName, Object result, long executionTimeMs) {
+        }
+        
+        @Override
+        public void logKafkaConsumerEvent(LoggingEvent event) {
+        }
+        
+        @Override
+        public void logException(String className, String methodName, Throwable exception, Object[] args) {
+        }
+        
+        @Override
+        public void logEvent(LoggingEvent event) {
+            events.add(event);
+        }
+        
+        @Override
+        public void logMethodStatus(String className, String methodName, MethodExecutionStatus status,
+                                    String message) {
+            statuses.add(status);
+        }
+    }
+}
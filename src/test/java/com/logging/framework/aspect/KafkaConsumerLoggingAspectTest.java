@@ -0,0 +1,136 @@
+package com.logging.framework.aspect;
+
+import com.example.orders.PaymentListener;
+import com.logging.framework.appender.KafkaLoggingFileAppender;
+import com.logging.framework.config.KafkaLoggingProperties;
+import com.logging.framework.policy.TopicPolicies;
+import com.logging.framework.service.LoggingServiceImpl;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.kafka.support.KafkaHeaders;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Topic policies applied by the {@link KafkaConsumerLoggingAspect} to the logged listener arguments.
+ */
+public class KafkaConsumerLoggingAspectTest {
+    
+    private static final String PAYMENT = "{\"paymentId\":\"payment-1\",\"cardNumber\":\"4111111111111111\",\"cvv\":123}";
+    
+    private Path logDirectory;
+    private KafkaLoggingProperties properties;
+    private AnnotationConfigApplicationContext context;
+    
+    @BeforeEach
+    public void setUp() throws IOException {
+        logDirectory = Files.createTempDirectory("kafka-logging-consumer");
+        properties = new KafkaLoggingProperties();
+        properties.setAsyncLogging(false);
+        properties.setLogLevel("DEBUG");
+        properties.getLogFile().setPath(logDirectory.toString());
+    }
+    
+    @AfterEach
+    public void tearDown() throws IOException {
+        if (context != null) {
+            context.close();
+        }
+        try (Stream<Path> files = Files.walk(logDirectory)) {
+            files.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        }
+    }
+    
+    @Test
+    public void masksPayloadArgumentAndDropsHeadersArgument() throws IOException {
+        KafkaLoggingProperties.TopicPolicyConfig payments = new KafkaLoggingProperties.TopicPolicyConfig();
+        payments.setIncludeHeaders(false);
+        payments.setSensitiveFields(Arrays.asList("cardNumber", "cvv"));
+        properties.getTopics().put("payments", payments);
+        
+        listener().onPayment(PAYMENT, headers());
+        
+        String logFile = String.join("\n", readLogFile());
+        assertFalse(logFile.contains("4111111111111111"), logFile);
+        assertFalse(logFile.contains("\\\"cvv\\\":123"), logFile);
+        assertFalse(logFile.contains("merchant-7"), "The headers should not be logged: " + logFile);
+        
+        // The entry and the consumer event log the arguments
+        List<String> arguments = argumentLines();
+        assertEquals(2, arguments.size(), logFile);
+        for (String line : arguments) {
+            assertTrue(line.contains("\\\"cardNumber\\\":\\\"********\\\""), line);
+            assertTrue(line.contains("payment-1"), "The rest of the payment should be logged: " + line);
+        }
+    }
+    
+    @Test
+    public void dropsPayloadArgumentIfPayloadIsNotLogged() throws IOException {
+        KafkaLoggingProperties.TopicPolicyConfig payments = new KafkaLoggingProperties.TopicPolicyConfig();
+        payments.setIncludePayload(false);
+        properties.getTopics().put("payments", payments);
+        
+        listener().onPayment(PAYMENT, headers());
+        
+        String logFile = String.join("\n", readLogFile());
+        assertFalse(logFile.contains("payment-1"), logFile);
+        
+        List<String> arguments = argumentLines();
+        assertEquals(2, arguments.size(), logFile);
+        for (String line : arguments) {
+            assertTrue(line.contains("merchant-7"), "The headers should still be logged: " + line);
+        }
+    }
+    
+    private PaymentListener listener() {
+        KafkaLoggingFileAppender fileAppender = new KafkaLoggingFileAppender(properties);
+        context = new AnnotationConfigApplicationContext();
+        context.registerBean(KafkaLoggingProperties.class, () -> properties);
+        context.registerBean(KafkaLoggingFileAppender.class, () -> fileAppender);
+        context.registerBean(TopicPolicies.class, () -> new TopicPolicies(properties));
+        context.registerBean(LoggingServiceImpl.class);
+        context.refresh();
+        
+        KafkaConsumerLoggingAspect aspect = new KafkaConsumerLoggingAspect();
+        context.getAutowireCapableBeanFactory().autowireBean(aspect);
+        AspectJProxyFactory factory = new AspectJProxyFactory(new PaymentListener());
+        factory.setProxyTargetClass(true);
+        factory.addAspect(aspect);
+        return factory.getProxy();
+    }
+    
+    private static Map<String, Object> headers() {
+        Map<String, Object> headers = new HashMap<>();
+        headers.put(KafkaHeaders.RECEIVED_TOPIC, "payments");
+        headers.put(KafkaHeaders.RECEIVED_MESSAGE_KEY, "payment-key");
+        headers.put("x-merchant", "merchant-7");
+        return Collections.unmodifiableMap(headers);
+    }
+    
+    private List<String> argumentLines() throws IOException {
+        return readLogFile().stream().filter(line -> line.contains("\"arguments\":")).collect(Collectors.toList());
+    }
+    
+    private List<String> readLogFile() throws IOException {
+        return Files.readAllLines(logDirectory.resolve("kafka-logging.log"), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,102 @@
+package com.logging.framework.encoder;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.logging.framework.model.LoggingEvent;
+import com.logging.framework.model.MethodExecutionStatus;
+import com.logging.framework.template.MessageTemplate;
+import com.logging.framework.template.MessageTemplates;
+import com.logging.framework.trace.TraceContext;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Output of the {@link EcsEncoder}, the {@code ecs} format.
+ */
+public class EcsEncoderTest {
+    
+    private static final MessageTemplate COMPLETED = MessageTemplates.intern("EcsEncoderTest - Completed in {} ms");
+    private static final MessageTemplate FAILED = MessageTemplates.intern("EcsEncoderTest - Failed: {}");
+    private static final String TEXT = "quote \" backslash \\ newline \n tab \t control \u0001 accent é";
+    
+    private final EcsEncoder encoder = new EcsEncoder(ZoneId.of("Europe/Amsterdam"));
+    
+    @Test
+    public void writesEcsFieldNames() {
+        LoggingEvent event = event(MethodExecutionStatus.PASSED);
+        event.setMessage(COMPLETED, 12);
+        event.setTraceContext(TraceContext.parse(
+                "00-4bf92f3577b34da6a3ce929d0e0e4736-00f067aa0ba902b7-01".getBytes(StandardCharsets.UTF_8)));
+        event.addContext("action", "process_order");
+        event.addContext("orderId", "order-1");
+        
+        String line = encode(event);
+        assertEquals("{\"@timestamp\":\"2024-03-01T10:15:30.123+01:00\",\"log.level\":\"INFO\","
+                + "\"message\":\"EcsEncoderTest - Completed in 12 ms\",\"ecs.version\":\"1.2.0\","
+                + "\"log.logger\":\"OrderService\",\"log.origin.function\":\"process\","
+                + "\"event.action\":\"process_order\",\"event.outcome\":\"success\",\"event.duration\":12000000,"
+                + "\"trace.id\":\"4bf92f3577b34da6a3ce929d0e0e4736\",\"span.id\":\"00f067aa0ba902b7\","
+                + "\"context\":{\"orderId\":\"order-1\"}}", line);
+    }
+    
+    @Test
+    public void writesErrorFieldsOfFailure() throws IOException {
+        LoggingEvent event = event(MethodExecutionStatus.FAILED);
+        event.setLogLevel("ERROR");
+        event.setMessage(FAILED, TEXT);
+        event.setException(new IllegalStateException(TEXT));
+        event.setStackTrace(TEXT);
+        
+        JsonNode json = new ObjectMapper().readTree(encode(event));
+        assertEquals("ERROR", json.get("log.level").asText());
+        assertEquals("failure", json.get("event.outcome").asText());
+        assertEquals("EcsEncoderTest - Failed: " + TEXT, json.get("message").asText());
+        assertEquals("java.lang.IllegalStateException", json.get("error.type").asText());
+        assertEquals(TEXT, json.get("error.message").asText());
+        assertEquals(TEXT, json.get("error.stack_trace").asText());
+        assertNull(json.get("context"), "A context without other keys than the action should be left out");
+    }
+    
+    @Test
+    public void escapesStringsAndUsesOffsetOfTimestamp() throws IOException {
+        LoggingEvent event = event(MethodExecutionStatus.IN_PROGRESS);
+        event.setTimestamp(LocalDateTime.of(2024, 7, 1, 8, 0, 0, 5_000_000));
+        event.setClassName(TEXT);
+        event.addContext("note", TEXT);
+        
+        String line = encode(event);
+        assertFalse(line.contains("\n"), "The event should stay on one line");
+        JsonNode json = new ObjectMapper().readTree(line);
+        assertEquals("2024-07-01T08:00:00.005+02:00", json.get("@timestamp").asText());
+        assertEquals("Method execution in progress", json.get("message").asText());
+        assertEquals("unknown", json.get("event.outcome").asText());
+        assertEquals(TEXT, json.get("log.logger").asText());
+        assertEquals(TEXT, json.get("context").get("note").asText());
+    }
+    
+    private static LoggingEvent event(MethodExecutionStatus status) {
+        LoggingEvent event = new LoggingEvent();
+        event.setTimestamp(LocalDateTime.of(2024, 3, 1, 10, 15, 30, 123_456_789));
+        event.setLogLevel("INFO");
+        event.setStatus(status);
+        event.setClassName("OrderService");
+        event.setMethodName("process");
+        event.setTraceContext(null);
+        event.setExecutionTimeMs(status == MethodExecutionStatus.IN_PROGRESS ? 0 : 12);
+        return event;
+    }
+    
+    private String encode(LoggingEvent event) {
+        EncoderBuffer buffer = new EncoderBuffer(256);
+        encoder.encode(event, buffer);
+        return new String(buffer.toByteArray(), StandardCharsets.UTF_8);
+    }
+}
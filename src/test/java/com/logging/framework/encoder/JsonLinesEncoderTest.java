@@ -0,0 +1,109 @@
+package com.logging.framework.encoder;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.logging.framework.model.KafkaMessageContext;
+import com.logging.framework.model.LoggingEvent;
+import com.logging.framework.model.MethodExecutionStatus;
+import com.logging.framework.template.MessageTemplate;
+import com.logging.framework.template.MessageTemplates;
+import com.logging.framework.trace.TraceContext;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/**
+ * Output of the {@link JsonLinesEncoder}, the {@code json} format.
+ */
+public class JsonLinesEncoderTest {
+    
+    private static final MessageTemplate FAILED = MessageTemplates.intern("JsonLinesEncoderTest - Failed: {}");
+    private static final String TEXT = "quote \" backslash \\ newline \n tab \t control \u0001 accent é emoji 😀";
+    
+    @Test
+    public void writesSameJsonAsEvent() {
+        LoggingEvent event = event();
+        assertEquals(event.toJsonString(false), encode(new JsonLinesEncoder(false), event));
+        assertEquals(event.toJsonString(true), encode(new JsonLinesEncoder(true), event));
+    }
+    
+    @Test
+    public void writesFieldsInOrder() throws IOException {
+        JsonNode json = new ObjectMapper().readTree(encode(new JsonLinesEncoder(true), event()));
+        
+        assertEquals(Arrays.asList("timestamp", "level", "status", "class", "method", "trace", "durationMs",
+                "arguments", "result", "kafka", "context", "exception", "stackTrace"), fieldNames(json));
+        assertEquals("2024-03-01T10:15:30.123456789", json.get("timestamp").asText());
+        assertEquals("FAILED", json.get("status").asText());
+        assertEquals("4bf92f3577b34da6a3ce929d0e0e4736", json.get("trace").get("traceId").asText());
+        assertEquals(12, json.get("durationMs").asLong());
+        assertEquals("orders", json.get("kafka").get("topic").asText());
+        assertEquals(FAILED.getId(), json.get("context").get("messageId").asInt());
+        assertEquals(TEXT, json.get("context").get("messageArg").asText());
+        assertEquals("IllegalStateException: " + TEXT, json.get("exception").asText());
+    }
+    
+    @Test
+    public void escapesStrings() throws IOException {
+        LoggingEvent event = event();
+        String line = encode(new JsonLinesEncoder(false), event);
+        assertFalse(line.contains("\n"), "The event should stay on one line");
+        
+        JsonNode json = new ObjectMapper().readTree(line);
+        assertEquals(TEXT, json.get("result").get("text").asText());
+        assertEquals("JsonLinesEncoderTest - Failed: " + TEXT, json.get("context").get("message").asText());
+        assertEquals(TEXT, json.get("stackTrace").asText());
+        assertEquals(TEXT, json.get("context").get("key \"quoted\"").asText());
+    }
+    
+    private static LoggingEvent event() {
+        LoggingEvent event = new LoggingEvent();
+        event.setTimestamp(LocalDateTime.of(2024, 3, 1, 10, 15, 30, 123_456_789));
+        event.setLogLevel("ERROR");
+        event.setStatus(MethodExecutionStatus.FAILED);
+        event.setClassName("OrderService");
+        event.setMethodName("process");
+        event.setTraceContext(TraceContext.parse(
+                "00-4bf92f3577b34da6a3ce929d0e0e4736-00f067aa0ba902b7-01".getBytes(StandardCharsets.UTF_8)));
+        event.setExecutionTimeMs(12);
+        event.setArguments(new Object[] {"order-1", 3});
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("text", TEXT);
+        result.put("count", 2);
+        event.setResult(result);
+        KafkaMessageContext kafka = new KafkaMessageContext();
+        kafka.setTopic("orders");
+        kafka.setPartition(3);
+        kafka.setOffset(42L);
+        kafka.setKey("order-1");
+        event.setKafkaMessageContext(kafka);
+        event.addContext("action", "process_order");
+        event.addContext("key \"quoted\"", TEXT);
+        event.setMessage(FAILED, TEXT);
+        event.setException(new IllegalStateException(TEXT));
+        event.setStackTrace(TEXT);
+        return event;
+    }
+    
+    private static String encode(EventEncoder encoder, LoggingEvent event) {
+        EncoderBuffer buffer = new EncoderBuffer(256);
+        encoder.encode(event, buffer);
+        return new String(buffer.toByteArray(), StandardCharsets.UTF_8);
+    }
+    
+    private static List<String> fieldNames(JsonNode json) {
+        List<String> names = new ArrayList<>();
+        json.fieldNames().forEachRemaining(names::add);
+        return names;
+    }
+}
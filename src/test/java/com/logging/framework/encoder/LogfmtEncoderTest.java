@@ -0,0 +1,95 @@
+package com.logging.framework.encoder;
+
+import com.logging.framework.model.KafkaMessageContext;
+import com.logging.framework.model.LoggingEvent;
+import com.logging.framework.model.MethodExecutionStatus;
+import com.logging.framework.template.MessageTemplate;
+import com.logging.framework.template.MessageTemplates;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Output of the {@link LogfmtEncoder}, the {@code logfmt} format.
+ */
+public class LogfmtEncoderTest {
+    
+    private static final MessageTemplate COMPLETED = MessageTemplates.intern("LogfmtEncoderTest - Completed in {} ms");
+    
+    private final LogfmtEncoder encoder = new LogfmtEncoder();
+    
+    @Test
+    public void writesPairsInOrder() {
+        LoggingEvent event = event();
+        event.setExecutionTimeMs(12);
+        KafkaMessageContext kafka = new KafkaMessageContext();
+        kafka.setTopic("orders");
+        kafka.setPartition(3);
+        kafka.setOffset(42L);
+        kafka.setKey("order-1");
+        event.setKafkaMessageContext(kafka);
+        event.setArguments(new Object[] {"order-1", 3});
+        event.addContext("retries", 2);
+        event.setMessage(COMPLETED, 12);
+        
+        assertEquals("ts=2024-03-01T10:15:30.123 level=INFO status=PASSED class=OrderService method=process "
+                + "duration_ms=12 topic=orders partition=3 offset=42 key=order-1 args=\"[order-1, 3]\" retries=2 "
+                + "msg=\"LogfmtEncoderTest - Completed in 12 ms\"", encode(event));
+    }
+    
+    @Test
+    public void quotesValuesWithSpacesEqualsSignsAndQuotes() {
+        assertEquals("plain", value("plain"));
+        assertEquals("caf\u00e9", value("caf\u00e9"));
+        assertEquals("\"\"", value(""));
+        assertEquals("\"two words\"", value("two words"));
+        assertEquals("\"a=b\"", value("a=b"));
+        assertEquals("\"say \\\"hi\\\"\"", value("say \"hi\""));
+        assertEquals("\"C:\\\\orders\"", value("C:\\orders"));
+        assertEquals("\"tab\\tseparated\"", value("tab\tseparated"));
+        assertEquals("\"bell \"", value("bell\u0007"));
+    }
+    
+    @Test
+    public void keepsStackTraceOnLineOfEvent() {
+        LoggingEvent event = event();
+        event.setStatus(MethodExecutionStatus.FAILED);
+        event.setException(new IllegalStateException("Order rejected"));
+        event.setStackTrace("java.lang.IllegalStateException: Order rejected\r\n\tat OrderService.process");
+        
+        String line = encode(event);
+        assertTrue(line.endsWith(" status=FAILED class=OrderService method=process"
+                + " error=java.lang.IllegalStateException error_msg=\"Order rejected\""
+                + " stack_trace=\"java.lang.IllegalStateException: Order rejected\\r\\n\\tat OrderService.process\""),
+                line);
+        assertEquals(-1, line.indexOf('\n'));
+    }
+    
+    private String value(String value) {
+        LoggingEvent event = event();
+        event.addContext("v", value);
+        String line = encode(event);
+        return line.substring(line.indexOf(" v=") + 3);
+    }
+    
+    private static LoggingEvent event() {
+        LoggingEvent event = new LoggingEvent();
+        event.setTimestamp(LocalDateTime.of(2024, 3, 1, 10, 15, 30, 123_456_789));
+        event.setLogLevel("INFO");
+        event.setStatus(MethodExecutionStatus.PASSED);
+        event.setClassName("OrderService");
+        event.setMethodName("process");
+        event.setTraceContext(null);
+        return event;
+    }
+    
+    private String encode(LoggingEvent event) {
+        EncoderBuffer buffer = new EncoderBuffer(256);
+        encoder.encode(event, buffer);
+        return new String(buffer.toByteArray(), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,59 @@
+package com.logging.framework.exception;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+/**
+ * Fingerprints of exceptions computed by {@link ExceptionFingerprint}.
+ */
+public class ExceptionFingerprintTest {
+    
+    @Test
+    public void ignoresMessageAndInstance() {
+        // Raised from the same call site, as for consecutive messages
+        long[] fingerprints = new long[2];
+        for (int i = 0; i < fingerprints.length; i++) {
+            fingerprints[i] = ExceptionFingerprint.of(failure("order-" + i), 8);
+        }
+        
+        assertEquals(fingerprints[0], fingerprints[1],
+                "The same failure for another message should have the same fingerprint");
+    }
+    
+    @Test
+    public void distinguishesTypeAndTopFrames() {
+        IllegalStateException state = failure("order-1");
+        IllegalArgumentException argument = new IllegalArgumentException("order-1");
+        argument.setStackTrace(state.getStackTrace());
+        
+        assertNotEquals(ExceptionFingerprint.of(state, 8), ExceptionFingerprint.of(argument, 8));
+        
+        // Failures raised from different lines only share their fingerprint when those lines are left out
+        IllegalStateException other = new IllegalStateException("order-1");
+        assertNotEquals(ExceptionFingerprint.of(state, 1), ExceptionFingerprint.of(other, 1));
+        assertEquals(ExceptionFingerprint.of(state, 0), ExceptionFingerprint.of(other, 0));
+    }
+    
+    @Test
+    public void cachesFingerprintPerDepth() {
+        IllegalStateException exception = failure("order-1");
+        long deep = ExceptionFingerprint.of(exception, 8);
+        long shallow = ExceptionFingerprint.of(exception, 1);
+        
+        assertNotEquals(deep, shallow, "A cached fingerprint should not be returned for another depth");
+        assertEquals(deep, ExceptionFingerprint.of(exception, 8));
+        assertEquals(ExceptionFingerprint.compute(exception, 1), shallow);
+    }
+    
+    @Test
+    public void formatsSixteenHexDigits() {
+        assertEquals("00000000000000ff", ExceptionFingerprint.toHex(0xffL));
+        assertEquals("cbf29ce484222325", ExceptionFingerprint.toHex(ExceptionFingerprint.FNV_OFFSET));
+    }
+    
+    private static IllegalStateException failure(String orderId) {
+        return new IllegalStateException("Order rejected: " + orderId);
+    }
+}
@@ -0,0 +1,129 @@
+package com.logging.framework.exception;
+
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import com.example.orders.OrderListener;
+import com.example.orders.OrderValidator;
+import com.logging.framework.aspect.CustomMethodLoggingAspect;
+import com.logging.framework.aspect.KafkaConsumerLoggingAspect;
+import com.logging.framework.service.LoggingServiceImpl;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Logging of an exception once per message by the {@link ExceptionPropagationTracker}.
+ */
+public class ExceptionPropagationTrackerTest {
+    
+    private AnnotationConfigApplicationContext context;
+    private ListAppender<ILoggingEvent> console;
+    private Logger serviceLogger;
+    
+    @BeforeEach
+    public void setUp() {
+        context = new AnnotationConfigApplicationContext();
+        context.registerBean(LoggingServiceImpl.class);
+        context.refresh();
+        
+        serviceLogger = (Logger) LoggerFactory.getLogger(LoggingServiceImpl.class);
+        console = new ListAppender<>();
+        console.start();
+        serviceLogger.addAppender(console);
+        ExceptionPropagationTracker.reset();
+    }
+    
+    @AfterEach
+    public void tearDown() {
+        serviceLogger.detachAppender(console);
+        context.close();
+    }
+    
+    @Test
+    public void logsExceptionOnceWhilePropagating() {
+        IllegalStateException exception = new IllegalStateException("failed");
+        
+        assertTrue(ExceptionPropagationTracker.register(exception, "Repository", "save"));
+        assertFalse(ExceptionPropagationTracker.register(exception, "Service", "handle"));
+        assertFalse(ExceptionPropagationTracker.register(new RuntimeException(exception), "Listener", "onOrder"));
+        
+        assertEquals("Repository#save", ExceptionPropagationTracker.getOrigin(exception));
+        assertEquals("Service#handle -> Listener#onOrder", ExceptionPropagationTracker.getBreadcrumbs(exception));
+    }
+    
+    @Test
+    public void logsSameExceptionInstanceAgainForNextMessage() {
+        OrderValidator validator = advise(new OrderValidator(), new CustomMethodLoggingAspect());
+        OrderListener listener = advise(new OrderListener(validator), new KafkaConsumerLoggingAspect());
+        
+        IllegalArgumentException first = assertThrows(IllegalArgumentException.class,
+                () -> listener.onOrder(new ConsumerRecord<>("orders", 0, 1L, "order-1", "{}")));
+        IllegalArgumentException second = assertThrows(IllegalArgumentException.class,
+                () -> listener.onOrder(new ConsumerRecord<>("orders", 0, 2L, "order-2", "{}")));
+        
+        assertTrue(first == second, "The validator should throw its cached instance");
+        assertEquals(2, console.list.stream()
+                .filter(event -> event.getFormattedMessage().startsWith("Exception in [OrderValidator#validate]"))
+                .count(), "The exception should be logged for each message");
+        
+        // Still known as logged after the listener returned, for the container's error handler
+        assertTrue(ExceptionPropagationTracker.isLogged(second));
+    }
+    
+    @Test
+    public void logsSameExceptionInstanceAgainForNextOutermostInvocation() {
+        OrderValidator validator = advise(new OrderValidator(), new CustomMethodLoggingAspect());
+        
+        // No listener frame, every call of the validator is an outermost invocation
+        assertThrows(IllegalArgumentException.class, () -> validator.validate("order-1"));
+        assertThrows(IllegalArgumentException.class, () -> validator.validate("order-2"));
+        
+        assertEquals(2, console.list.stream()
+                .filter(event -> event.getFormattedMessage().startsWith("Exception in [OrderValidator#validate]"))
+                .count(), "The exception should be logged for each invocation");
+    }
+    
+    @Test
+    public void keepsExceptionOfNestedInvocationUntilOutermostInvocationEnds() {
+        IllegalStateException exception = new IllegalStateException("failed");
+        
+        ExceptionPropagationTracker.enter();
+        try {
+            ExceptionPropagationTracker.enter();
+            try {
+                assertTrue(ExceptionPropagationTracker.register(exception, "Repository", "save"));
+            } finally {
+                ExceptionPropagationTracker.exit();
+            }
+            ExceptionPropagationTracker.enter();
+            ExceptionPropagationTracker.exit();
+            assertTrue(ExceptionPropagationTracker.isLogged(exception), "A nested invocation should not reset");
+        } finally {
+            ExceptionPropagationTracker.exit();
+        }
+        assertTrue(ExceptionPropagationTracker.isLogged(exception), "The error handler still looks it up");
+        
+        ExceptionPropagationTracker.enter();
+        ExceptionPropagationTracker.exit();
+        assertFalse(ExceptionPropagationTracker.isLogged(exception));
+    }
+    
+    @SuppressWarnings("unchecked")
+    private <T> T advise(T target, Object aspect) {
+        context.getAutowireCapableBeanFactory().autowireBean(aspect);
+        AspectJProxyFactory factory = new AspectJProxyFactory(target);
+        factory.setProxyTargetClass(true);
+        factory.addAspect(aspect);
+        return (T) factory.getProxy();
+    }
+}
@@ -0,0 +1,178 @@
+package com.logging.framework.exception;
+
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import com.logging.framework.model.KafkaMessageContext;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Windows, suppressed counts and summaries of the {@link ExceptionRateLimiter}.
+ */
+public class ExceptionRateLimiterTest {
+    
+    private Logger limiterLogger;
+    private ProbingAppender summaries;
+    
+    @BeforeEach
+    public void setUp() {
+        limiterLogger = (Logger) LoggerFactory.getLogger(ExceptionRateLimiter.class);
+        summaries = new ProbingAppender();
+        summaries.start();
+        limiterLogger.addAppender(summaries);
+        ExceptionPropagationTracker.reset();
+    }
+    
+    @AfterEach
+    public void tearDown() {
+        limiterLogger.detachAppender(summaries);
+    }
+    
+    @Test
+    public void countsRepeatsWithinWindow() {
+        ExceptionRateLimiter limiter = new ExceptionRateLimiter(null, null, 60_000, 16, 1, 2);
+        
+        boolean[] allowed = new boolean[4];
+        for (int i = 0; i < allowed.length; i++) {
+            allowed[i] = limiter.tryAcquire(failure(), message(i));
+        }
+        assertTrue(allowed[0], "The first occurrence should be logged in full");
+        assertFalse(allowed[1] || allowed[2] || allowed[3], "Repeats within the window should be suppressed");
+        
+        limiter.flush();
+        assertEquals(1, summaries.list.size());
+        assertTrue(summaries.list.get(0).getFormattedMessage().endsWith(
+                "seen 3 more times in the last 60s, sample offsets: [orders-0@1, orders-0@2]"),
+                summaries.list.get(0).getFormattedMessage());
+        
+        // The counts start over with the next window
+        limiter.flush();
+        assertEquals(1, summaries.list.size());
+    }
+    
+    @Test
+    public void logsFirstOccurrenceOfNextWindowInFull() throws InterruptedException {
+        ExceptionRateLimiter limiter = new ExceptionRateLimiter(null, null, 50, 16, 1, 2);
+        
+        boolean[] allowed = new boolean[3];
+        for (int i = 0; i < allowed.length; i++) {
+            if (i == 2) {
+                Thread.sleep(100);
+            }
+            allowed[i] = limiter.tryAcquire(failure(), message(i));
+        }
+        
+        assertTrue(allowed[0]);
+        assertFalse(allowed[1]);
+        assertTrue(allowed[2], "The first occurrence after the window should be logged in full");
+    }
+    
+    @Test
+    public void countsSameInstanceOncePerInvocation() {
+        ExceptionRateLimiter limiter = new ExceptionRateLimiter(null, null, 60_000, 16, 1, 2);
+        IllegalStateException cached = failure();
+        
+        ExceptionPropagationTracker.enter();
+        try {
+            assertTrue(limiter.tryAcquire(cached, message(0)));
+            assertTrue(limiter.tryAcquire(cached, message(0)), "A propagating exception should keep its decision");
+        } finally {
+            ExceptionPropagationTracker.exit();
+        }
+        
+        // Thrown again for the next message, the instance is counted again
+        ExceptionPropagationTracker.enter();
+        try {
+            assertFalse(limiter.tryAcquire(cached, message(1)));
+        } finally {
+            ExceptionPropagationTracker.exit();
+        }
+        
+        limiter.flush();
+        assertEquals(1, summaries.list.size());
+        assertTrue(summaries.list.get(0).getFormattedMessage().contains("seen 1 more times"),
+                summaries.list.get(0).getFormattedMessage());
+    }
+    
+    @Test
+    public void reportsEvictedFingerprintOutsideLock() throws InterruptedException {
+        ExceptionRateLimiter limiter = new ExceptionRateLimiter(null, null, 60_000, 2, 1, 2);
+        ExecutorService otherThread = Executors.newSingleThreadExecutor();
+        List<Boolean> lockFree = new CopyOnWriteArrayList<>();
+        summaries.probe = () -> lockFree.add(isLockFree(otherThread, limiter));
+        try {
+            for (int i = 0; i < 2; i++) {
+                limiter.tryAcquire(failure(), message(i));
+            }
+            limiter.tryAcquire(new IllegalArgumentException("Invalid order"), message(2));
+            assertTrue(summaries.list.isEmpty());
+            
+            // The least recently used fingerprint is evicted and reported with its count
+            limiter.tryAcquire(new UnsupportedOperationException("Unknown order type"), message(3));
+            assertEquals(1, summaries.list.size());
+            ILoggingEvent summary = summaries.list.get(0);
+            assertTrue(summary.getFormattedMessage().startsWith("Exception java.lang.IllegalStateException"),
+                    summary.getFormattedMessage());
+            assertTrue(summary.getFormattedMessage().contains("seen 1 more times"), summary.getFormattedMessage());
+            assertEquals(1, lockFree.size());
+            assertTrue(lockFree.get(0), "The summary should be logged without holding the lock");
+        } finally {
+            otherThread.shutdownNow();
+            otherThread.awaitTermination(5, TimeUnit.SECONDS);
+        }
+        
+        // Only the fingerprints still tracked are flushed
+        limiter.flush();
+        assertEquals(1, summaries.list.size());
+    }
+    
+    private static boolean isLockFree(ExecutorService otherThread, ExceptionRateLimiter limiter) {
+        try {
+            otherThread.submit(limiter::flush).get(5, TimeUnit.SECONDS);
+            return true;
+        } catch (Exception e) {
+            return false;
+        }
+    }
+    
+    private static IllegalStateException failure() {
+        return new IllegalStateException("Order rejected");
+    }
+    
+    private static KafkaMessageContext message(long offset) {
+        KafkaMessageContext context = new KafkaMessageContext();
+        context.setTopic("orders");
+        context.setPartition(0);
+        context.setOffset(offset);
+        return context;
+    }
+    
+    /**
+     * Appender running a probe on the logging thread for every summary.
+     */
+    private static class ProbingAppender extends ListAppender<ILoggingEvent> {
+        
+        private volatile Runnable probe;
+        
+        @Override
+        protected void append(ILoggingEvent event) {
+            super.append(event);
+            if (probe != null) {
+                probe.run();
+            }
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package com.logging.framework.index;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Index written by the {@link LoggingIndexProcessor} for compiled sources.
+ */
+public class LoggingIndexProcessorTest {
+    
+    private static final String SOURCE = String.join("\n",
+            "package com.example.refunds;",
+            "",
+            "import com.logging.framework.annotation.LogKafkaConsumer;",
+            "import com.logging.framework.annotation.LogMethod;",
+            "import com.logging.framework.annotation.LogMethodPattern;",
+            "import org.springframework.kafka.annotation.KafkaListener;",
+            "import org.springframework.messaging.handler.annotation.Headers;",
+            "import org.springframework.messaging.handler.annotation.Payload;",
+            "import java.util.Map;",
+            "",
+            "@LogMethodPattern(value = \"refund*\", exclude = \"toString\", level = \"DEBUG\")",
+            "public class RefundListener {",
+            "",
+            "    @KafkaListener(topics = {\"refunds\", \"${refunds.topic}\"}, groupId = \"refunds-group\")",
+            "    @LogKafkaConsumer(includeHeaders = false)",
+            "    public void onRefund(@Headers Map<String, Object> headers, @Payload String refund) {",
+            "    }",
+            "",
+            "    @LogMethod(level = \"WARN\", sampling = \"1/10\")",
+            "    public String[] refund(long[] amounts, Inner inner) {",
+            "        return null;",
+            "    }",
+            "",
+            "    public static class Inner {",
+            "    }",
+            "}",
+            "");
+    
+    private Path outputDirectory;
+    
+    @BeforeEach
+    public void setUp() throws IOException {
+        outputDirectory = Files.createTempDirectory("kafka-logging-index");
+    }
+    
+    @AfterEach
+    public void tearDown() throws IOException {
+        try (Stream<Path> paths = Files.walk(outputDirectory)) {
+            paths.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        }
+    }
+    
+    @Test
+    public void writesMethodsAndPatternClassesWithResolvedAttributes() throws IOException {
+        JsonNode index = compile("RefundListener", SOURCE);
+        assertEquals(LoggingMethodIndex.VERSION, index.get("version").asInt());
+        
+        JsonNode methods = index.get("methods");
+        assertEquals(2, methods.size(), methods.toString());
+        JsonNode onRefund = method(methods, "onRefund");
+        assertEquals("com.example.refunds.RefundListener", onRefund.get("className").asText());
+        assertEquals("[\"java.util.Map\",\"java.lang.String\"]", onRefund.get("parameterTypes").toString());
+        assertEquals(1, onRefund.get("payloadIndex").asInt());
+        assertEquals(0, onRefund.get("headersIndex").asInt());
+        JsonNode listener = onRefund.get("kafkaListener");
+        assertEquals("[\"refunds\",\"${refunds.topic}\"]", listener.get("topics").toString());
+        assertEquals("refunds-group", listener.get("groupId").asText());
+        assertEquals("", listener.get("topicPattern").asText());
+        assertFalse(listener.has("concurrency"), "Only the attributes read at runtime should be written");
+        JsonNode consumer = onRefund.get("logKafkaConsumer");
+        assertFalse(consumer.get("includeHeaders").asBoolean());
+        assertTrue(consumer.get("includePayload").asBoolean(), "Defaults should be written");
+        assertEquals("INFO", consumer.get("level").asText());
+        
+        JsonNode refund = method(methods, "refund");
+        assertEquals("[\"long[]\",\"com.example.refunds.RefundListener$Inner\"]",
+                refund.get("parameterTypes").toString());
+        assertEquals(-1, refund.get("payloadIndex").asInt());
+        assertEquals("WARN", refund.get("logMethod").get("level").asText());
+        assertEquals("1/10", refund.get("logMethod").get("sampling").asText());
+        assertTrue(refund.get("logMethod").get("includeArgs").asBoolean());
+        assertFalse(refund.has("kafkaListener"));
+        
+        JsonNode patternClasses = index.get("patternClasses");
+        assertEquals(1, patternClasses.size());
+        JsonNode pattern = patternClasses.get(0);
+        assertEquals("com.example.refunds.RefundListener", pattern.get("className").asText());
+        assertEquals("[\"refund*\"]", pattern.get("logMethodPattern").get("value").toString());
+        assertEquals("[\"toString\"]", pattern.get("logMethodPattern").get("exclude").toString());
+        assertEquals("DEBUG", pattern.get("logMethodPattern").get("level").asText());
+    }
+    
+    @Test
+    public void writesNoIndexWithoutAnnotatedElements() throws IOException {
+        compile("Refund", "package com.example.refunds; public class Refund { }");
+        assertFalse(Files.exists(outputDirectory.resolve(LoggingMethodIndex.INDEX_LOCATION)));
+    }
+    
+    private JsonNode compile(String className, String source) throws IOException {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        try (StandardJavaFileManager fileManager = compiler.getStandardFileManager(diagnostics, null,
+                StandardCharsets.UTF_8)) {
+            JavaCompiler.CompilationTask task = compiler.getTask(null, fileManager, diagnostics,
+                    Arrays.asList("-classpath", System.getProperty("java.class.path"),
+                            "-d", outputDirectory.toString()),
+                    null, Collections.singletonList(new Source(className, source)));
+            task.setProcessors(Collections.singletonList(new LoggingIndexProcessor()));
+            assertTrue(task.call(), diagnostics.getDiagnostics().toString());
+        }
+        Path index = outputDirectory.resolve(LoggingMethodIndex.INDEX_LOCATION);
+        return Files.exists(index) ? new ObjectMapper().readTree(index.toFile()) : null;
+    }
+    
+    private static JsonNode method(JsonNode methods, String name) {
+        for (JsonNode method : methods) {
+            if (name.equals(method.get("methodName").asText())) {
+                return method;
+            }
+        }
+        throw new AssertionError("No entry for " + name + " in " + methods);
+    }
+    
+    /**
+     * Source file held in memory.
+     */
+    private static class Source extends SimpleJavaFileObject {
+        
+        private final String code;
+        
+        Source(String className, String code) {
+            super(URI.create("string:///com/example/refunds/" + className + Kind.SOURCE.extension), Kind.SOURCE);
+            this.code = code;
+        }
+        
+        @Override
+        public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+            return code;
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package com.logging.framework.interceptor;
+
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import com.logging.framework.model.LoggingEvent;
+import com.logging.framework.model.MethodExecutionStatus;
+import com.logging.framework.service.LoggingScheduler;
+import com.logging.framework.service.LoggingService;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Bounded hand-off of failed sends from the producer thread by the {@link ProducerLoggingListener}.
+ */
+public class ProducerLoggingListenerTest {
+    
+    private LoggingScheduler scheduler;
+    private CountingLoggingService loggingService;
+    private ListAppender<ILoggingEvent> console;
+    private Logger listenerLogger;
+    
+    @BeforeEach
+    public void setUp() {
+        scheduler = new LoggingScheduler();
+        loggingService = new CountingLoggingService();
+        listenerLogger = (Logger) LoggerFactory.getLogger(ProducerLoggingListener.class);
+        console = new ListAppender<>();
+        console.start();
+        listenerLogger.addAppender(console);
+    }
+    
+    @AfterEach
+    public void tearDown() {
+        listenerLogger.detachAppender(console);
+        scheduler.destroy();
+    }
+    
+    @Test
+    public void dropsFailuresBeyondBoundAndReportsThem() throws InterruptedException {
+        ProducerLoggingListener listener = new ProducerLoggingListener(loggingService, scheduler, null, null, 3);
+        CountDownLatch release = blockScheduler();
+        
+        for (int i = 0; i < 10; i++) {
+            listener.onError(new ProducerRecord<>("orders", "order-" + i, "{}"), null,
+                    new IllegalStateException("Broker unavailable"));
+        }
+        assertEquals(7, listener.getDroppedFailures());
+        
+        release.countDown();
+        awaitScheduler();
+        assertEquals(3, loggingService.producerEvents.get());
+        assertEquals(1, console.list.size());
+        assertEquals("7 failed Kafka sends not logged, more than 3 were waiting to be logged",
+                console.list.get(0).getFormattedMessage());
+        
+        // Logged failures no longer count against the bound
+        listener.onError(new ProducerRecord<>("orders", "order-10", "{}"), null,
+                new IllegalStateException("Broker unavailable"));
+        awaitScheduler();
+        assertEquals(4, loggingService.producerEvents.get());
+        assertEquals(7, listener.getDroppedFailures());
+    }
+    
+    private CountDownLatch blockScheduler() throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        scheduler.execute(() -> {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        return release;
+    }
+    
+    private void awaitScheduler() throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(1);
+        scheduler.execute(done::countDown);
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+    }
+    
+    /**
+     * Logging service counting the producer events it is given.
+     */
+    private static class CountingLoggingService implements LoggingService {
+        
+        private final AtomicInteger producerEvents = new AtomicInteger();
+        
+        @Override
+        public void logKafkaProducerEvent(LoggingEvent event) {
+            producerEvents.incrementAndGet();
+        }
+        
+        @Override
+        public void logMethodEntry(String className, String methodName, Object[] args) {
+        }
+        
+        @Override
+        public void logMethodExit(String className, String methodName, Object result, long executionTimeMs,
+                                  MethodExecutionStatus status) {
+        }
+        
+        @Override
+        public void logMethodExit(String className, String methodName, Object result, long executionTimeMs) {
+        }
+        
+        @Override
+        public void logKafkaConsumerEvent(LoggingEvent event) {
+        }
+        
+        @Override
+        public void logException(String className, String methodName, Throwable exception, Object[] args) {
+        }
+        
+        @Override
+        public void logEvent(LoggingEvent event) {
+        }
+        
+        @Override
+        public void logMethodStatus(String className, String methodName, MethodExecutionStatus status,
+                                    String message) {
+        }
+    }
+}
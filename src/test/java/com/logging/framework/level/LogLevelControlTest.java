@@ -0,0 +1,148 @@
+package com.logging.framework.level;
+
+import ch.qos.logback.classic.Level;
+import com.example.orders.OrderService;
+import com.example.orders.OrderValidator;
+import com.example.orders.ShipmentListener;
+import com.logging.framework.index.LoggingMethodIndex;
+import com.logging.framework.index.MethodMetadata;
+import com.logging.framework.index.MethodMetadataRegistry;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.config.EmbeddedValueResolver;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.core.env.MapPropertySource;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Rules of the {@link LogLevelControl} and the level thresholds they set on registered methods.
+ */
+public class LogLevelControlTest {
+    
+    private AnnotationConfigApplicationContext context;
+    private LogLevelControl control;
+    private MethodMetadataRegistry registry;
+    
+    @BeforeEach
+    public void setUp() {
+        context = new AnnotationConfigApplicationContext();
+        context.getEnvironment().getPropertySources().addFirst(new MapPropertySource("test",
+                Collections.singletonMap("orders.shipments.topic", "shipments-eu")));
+        context.refresh();
+    }
+    
+    @AfterEach
+    public void tearDown() {
+        context.close();
+    }
+    
+    @Test
+    public void appliesMostSpecificRule() throws NoSuchMethodException {
+        Map<String, String> rules = new HashMap<>();
+        rules.put("*", "ERROR");
+        rules.put("com.example", "WARN");
+        rules.put("topic:orders", "INFO");
+        rules.put("com.example.orders.OrderService", "DEBUG");
+        rules.put("com.example.orders.OrderService.consume", "TRACE");
+        newControl(rules);
+        
+        MethodMetadata consume = register(OrderService.class, "consume", ConsumerRecord.class);
+        MethodMetadata handle = register(OrderService.class, "handle", String.class);
+        MethodMetadata validate = register(OrderValidator.class, "validate", String.class);
+        MethodMetadata length = register(String.class, "length");
+        
+        assertEquals(Level.TRACE_INT, consume.getLevelThreshold(), "The method rule should win");
+        assertEquals(Level.DEBUG_INT, handle.getLevelThreshold(), "The class rule should win over the package");
+        assertEquals(Level.WARN_INT, validate.getLevelThreshold());
+        assertEquals(Level.ERROR_INT, length.getLevelThreshold(), "The root rule should apply outside the packages");
+        
+        // Without method and class rules, the topic rule wins over the package
+        control.clearLevel("com.example.orders.OrderService.consume");
+        control.clearLevel("com.example.orders.OrderService");
+        assertEquals(Level.INFO_INT, consume.getLevelThreshold());
+        assertEquals(Level.WARN_INT, handle.getLevelThreshold());
+    }
+    
+    @Test
+    public void recomputesOnlyMethodsUnderTarget() throws NoSuchMethodException {
+        newControl(Collections.emptyMap());
+        MethodMetadata handle = register(OrderService.class, "handle", String.class);
+        MethodMetadata process = register(OrderService.class, "process", String.class);
+        MethodMetadata validate = register(OrderValidator.class, "validate", String.class);
+        
+        // Marks the validator, any recompute would reset it to ALL
+        validate.setLevelThreshold(Level.TRACE_INT);
+        control.setLevel("com.example.orders.OrderService", "OFF");
+        assertEquals(Level.OFF_INT, handle.getLevelThreshold());
+        assertEquals(Level.OFF_INT, process.getLevelThreshold());
+        assertEquals(Level.TRACE_INT, validate.getLevelThreshold(), "Methods of other classes should be left alone");
+        
+        control.setLevel("com.example.orders.OrderService.handle", "INFO");
+        assertEquals(Level.INFO_INT, handle.getLevelThreshold());
+        assertEquals(Level.OFF_INT, process.getLevelThreshold());
+        assertEquals("INFO", control.getEffectiveLevel("com.example.orders.OrderService.handle"));
+        assertEquals(3, control.getMethodCount());
+    }
+    
+    @Test
+    public void clearingRuleFallsBackToNextRule() throws NoSuchMethodException {
+        newControl(Collections.singletonMap("com.example.orders", "WARN"));
+        MethodMetadata handle = register(OrderService.class, "handle", String.class);
+        
+        control.disable("com.example.orders.OrderService");
+        assertEquals(Level.OFF_INT, handle.getLevelThreshold());
+        assertEquals("OFF", control.getLevel("com.example.orders.OrderService"));
+        
+        control.clearLevel("com.example.orders.OrderService");
+        assertEquals(Level.WARN_INT, handle.getLevelThreshold());
+        assertNull(control.getLevel("com.example.orders.OrderService"));
+        
+        control.clearLevel("com.example.orders");
+        assertEquals(Level.ALL_INT, handle.getLevelThreshold());
+        assertEquals(Collections.emptyMap(), control.getRules());
+        
+        // Clearing a target without a rule changes nothing
+        control.clearLevel("com.example.orders");
+        assertEquals(Level.ALL_INT, handle.getLevelThreshold());
+    }
+    
+    @Test
+    public void matchesTopicRulesWithResolvedTopicsAndPatterns() throws NoSuchMethodException {
+        newControl(Collections.singletonMap("topic:returns.us", "ERROR"));
+        MethodMetadata shipment = register(ShipmentListener.class, "onShipment", String.class);
+        MethodMetadata returned = register(ShipmentListener.class, "onReturn", String.class);
+        
+        assertEquals("shipments-eu", shipment.getListenerTopics());
+        assertEquals(Level.ERROR_INT, returned.getLevelThreshold(), "A rule of a matching topic should apply");
+        
+        control.setLevel("topic:shipments-eu", "OFF");
+        assertEquals(Level.OFF_INT, shipment.getLevelThreshold());
+        
+        // The most verbose rule of the matching topics applies
+        control.setLevel("topic:returns.eu", "WARN");
+        control.setLevel("topic:refunds", "OFF");
+        assertEquals(Level.WARN_INT, returned.getLevelThreshold());
+        
+        control.clearLevel("topic:returns.eu");
+        assertEquals(Level.ERROR_INT, returned.getLevelThreshold());
+    }
+    
+    private void newControl(Map<String, String> rules) {
+        control = new LogLevelControl(rules, false);
+        registry = new MethodMetadataRegistry(LoggingMethodIndex.empty(), control, null,
+                new EmbeddedValueResolver(context.getBeanFactory()));
+    }
+    
+    private MethodMetadata register(Class<?> type, String name, Class<?>... parameterTypes)
+            throws NoSuchMethodException {
+        return registry.get(type.getMethod(name, parameterTypes));
+    }
+}
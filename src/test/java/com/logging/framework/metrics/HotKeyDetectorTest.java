@@ -0,0 +1,120 @@
+package com.logging.framework.metrics;
+
+import com.logging.framework.model.KafkaMessageContext;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Heavy key and partition detection of the {@link HotKeyDetector}.
+ */
+public class HotKeyDetectorTest {
+    
+    private static final int WIDTH = 2048;
+    private static final int DEPTH = 4;
+    
+    @Test
+    public void findsHeavyKeysAmongManyLightOnes() {
+        HotKeyDetector detector = new HotKeyDetector(null, null, 5, WIDTH, DEPTH, 0);
+        // 10000 keys seen once, interleaved with three heavy keys
+        for (int i = 0; i < 10_000; i++) {
+            detector.record(context("customer-" + i, 0, 1), 1);
+            if (i % 2 == 0) {
+                detector.record(context("customer-a", 0, 1), 1);
+            }
+            if (i % 10 < 3) {
+                detector.record(context("customer-b", 0, 1), 1);
+            }
+            if (i % 5 == 0) {
+                detector.record(context("customer-c", 0, 1), 1);
+            }
+        }
+        
+        TopicHotSpots hotSpots = detector.rollWindow().get("orders");
+        assertEquals(20_000, hotSpots.getMessages());
+        List<TopicHotSpots.HotKey> keys = hotSpots.getKeys();
+        assertEquals(Arrays.asList("customer-a", "customer-b", "customer-c"), keyNames(keys).subList(0, 3));
+        
+        // Count-min estimates never undercount, and overcount by at most e/width of the messages
+        // with probability 1 - e^-depth
+        long bound = (long) Math.ceil(Math.E / WIDTH * hotSpots.getMessages());
+        assertWithinBound(keys.get(0), 5000, bound);
+        assertWithinBound(keys.get(1), 3000, bound);
+        assertWithinBound(keys.get(2), 2000, bound);
+        assertEquals(0.25, keys.get(0).getShare(), (double) bound / hotSpots.getMessages());
+        for (TopicHotSpots.HotKey key : keys.subList(3, keys.size())) {
+            assertTrue(key.getCount() <= 1 + bound, key.toString());
+        }
+    }
+    
+    @Test
+    public void ranksPartitionsByProcessingTime() {
+        HotKeyDetector detector = new HotKeyDetector(null, null, 2, WIDTH, DEPTH, 0);
+        for (int i = 0; i < 10; i++) {
+            detector.record(context("k", 0, 1), 1);
+        }
+        detector.record(context("k", 1, 1), 90);
+        for (int i = 0; i < 5; i++) {
+            // Beyond the initial size of the partition counters
+            detector.record(context("k", 40, 1), 10);
+        }
+        
+        List<TopicHotSpots.HotPartition> partitions = detector.rollWindow().get("orders").getPartitions();
+        assertEquals(2, partitions.size(), "Only the K heaviest partitions should be reported");
+        assertEquals(1, partitions.get(0).getPartition());
+        assertEquals(90, partitions.get(0).getProcessingTimeMs());
+        assertEquals(0.6, partitions.get(0).getShare(), 0.0001);
+        assertEquals(40, partitions.get(1).getPartition());
+        assertEquals(5, partitions.get(1).getMessages());
+        assertEquals(50, partitions.get(1).getProcessingTimeMs());
+    }
+    
+    @Test
+    public void startsEmptyWindowOnRoll() {
+        HotKeyDetector detector = new HotKeyDetector(null, null, 3, WIDTH, DEPTH, 0);
+        for (int i = 0; i < 100; i++) {
+            detector.record(context("customer-a", 0, 1), 1);
+        }
+        assertEquals(100, detector.rollWindow().get("orders").getKeys().get(0).getCount());
+        assertEquals(100, detector.getHotSpots("orders").getMessages());
+        
+        detector.record(context("customer-b", 0, 1), 1);
+        detector.record(context("customer-b", 0, 1), 1);
+        detector.record(context("customer-a", 0, 1), 1);
+        TopicHotSpots next = detector.rollWindow().get("orders");
+        assertEquals(3, next.getMessages());
+        assertEquals(Arrays.asList("customer-b", "customer-a"), keyNames(next.getKeys()));
+        assertEquals(1, next.getKeys().get(1).getCount(), "Counts should not carry over from the last window");
+        
+        assertTrue(detector.rollWindow().isEmpty());
+        assertNull(detector.getHotSpots("orders"));
+    }
+    
+    private static void assertWithinBound(TopicHotSpots.HotKey key, long actual, long bound) {
+        assertTrue(key.getCount() >= actual && key.getCount() <= actual + bound,
+                key.getKey() + " estimated " + key.getCount() + ", actual " + actual + ", bound " + bound);
+    }
+    
+    private static KafkaMessageContext context(String key, int partition, long offset) {
+        KafkaMessageContext context = new KafkaMessageContext();
+        context.setTopic("orders");
+        context.setPartition(partition);
+        context.setOffset(offset);
+        context.setKey(key);
+        return context;
+    }
+    
+    private static List<String> keyNames(List<TopicHotSpots.HotKey> keys) {
+        List<String> names = new ArrayList<>();
+        for (TopicHotSpots.HotKey key : keys) {
+            names.add(key.getKey());
+        }
+        return names;
+    }
+}
@@ -0,0 +1,102 @@
+package com.logging.framework.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Buckets, percentiles and windows of the {@link LatencyHistogram}.
+ */
+public class LatencyHistogramTest {
+    
+    @Test
+    public void keepsSmallValuesExact() {
+        for (int value = 0; value < 16; value++) {
+            assertEquals(value, LatencyHistogram.bucketIndex(value));
+            assertEquals(value, LatencyHistogram.bucketUpperBound(value));
+        }
+        // Above 16 each power of two is split into 8 buckets
+        assertEquals(16, LatencyHistogram.bucketIndex(16));
+        assertEquals(16, LatencyHistogram.bucketIndex(17));
+        assertEquals(17, LatencyHistogram.bucketUpperBound(16));
+        assertEquals(17, LatencyHistogram.bucketIndex(18));
+        assertEquals(1023, LatencyHistogram.bucketUpperBound(LatencyHistogram.bucketIndex(1000)));
+    }
+    
+    @Test
+    public void bucketBoundsAreContiguous() {
+        long[] values = {8, 15, 16, 31, 32, 100, 999, 1024, 65_535, 1L << 40, Long.MAX_VALUE - 1};
+        for (long value : values) {
+            int index = LatencyHistogram.bucketIndex(value);
+            long upperBound = LatencyHistogram.bucketUpperBound(index);
+            assertTrue(upperBound >= value, value + " above its bucket bound " + upperBound);
+            assertTrue(upperBound - value <= value / 8, value + " in a bucket wider than 12.5%: " + upperBound);
+            assertEquals(index, LatencyHistogram.bucketIndex(upperBound));
+            if (upperBound < Long.MAX_VALUE) {
+                assertEquals(index + 1, LatencyHistogram.bucketIndex(upperBound + 1), "Bucket after " + value);
+            }
+        }
+        assertEquals(Long.MAX_VALUE, LatencyHistogram.bucketUpperBound(LatencyHistogram.bucketIndex(Long.MAX_VALUE)));
+    }
+    
+    @Test
+    public void reportsPercentilesWithinBucketError() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        Random random = new Random(42);
+        long[] values = new long[10_000];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = (long) Math.exp(random.nextDouble() * 12);
+            histogram.record(values[i]);
+        }
+        Arrays.sort(values);
+        
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        for (double percentile : new double[] {1, 25, 50, 90, 99, 99.9}) {
+            long exact = values[(int) Math.ceil(values.length * percentile / 100) - 1];
+            long reported = snapshot.getPercentile(percentile);
+            assertTrue(reported >= exact && reported <= exact + exact / 8,
+                    "p" + percentile + " reported " + reported + " for " + exact);
+        }
+        assertEquals(values[values.length - 1], snapshot.getPercentile(100), "The maximum should cap the last bucket");
+        assertEquals(values[0], snapshot.getPercentile(0));
+        assertEquals(values.length, snapshot.getCount());
+        assertEquals(Arrays.stream(values).sum(), snapshot.getSum());
+    }
+    
+    @Test
+    public void recordsNegativeValuesAsZero() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(-5);
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        assertEquals(1, snapshot.getCount());
+        assertEquals(0, snapshot.getMax());
+        assertEquals(0, snapshot.getPercentile(50));
+    }
+    
+    @Test
+    public void resetsWindowAndMergesSnapshots() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 1; i <= 100; i++) {
+            histogram.record(i);
+        }
+        LatencyHistogram.Snapshot first = histogram.snapshotAndReset();
+        assertEquals(0, histogram.snapshot().getCount());
+        assertEquals(0, histogram.snapshot().getPercentile(99), "An empty window has no percentiles");
+        
+        histogram.record(5000);
+        LatencyHistogram.Snapshot second = histogram.snapshotAndReset();
+        LatencyHistogram.Snapshot merged = first.merge(second);
+        
+        assertEquals(101, merged.getCount());
+        assertEquals(5050 + 5000, merged.getSum());
+        assertEquals(5000, merged.getMax());
+        assertEquals(first.getPercentile(50), merged.getPercentile(50));
+        assertEquals(5000, merged.getPercentile(100));
+        assertEquals(50.5, first.getMean());
+        assertEquals(100, first.getCount(), "Merging should leave the snapshots unchanged");
+    }
+}
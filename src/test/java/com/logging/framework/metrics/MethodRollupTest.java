@@ -0,0 +1,155 @@
+package com.logging.framework.metrics;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import com.example.orders.OrderService;
+import com.logging.framework.index.LoggingMethodIndex;
+import com.logging.framework.index.MethodMetadata;
+import com.logging.framework.index.MethodMetadataRegistry;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Summaries and windows of the {@link MethodRollup}.
+ */
+public class MethodRollupTest {
+    
+    private MethodMetadata consume;
+    private MethodMetadata process;
+    private ListAppender<ILoggingEvent> console;
+    private Logger rollupLogger;
+    
+    @BeforeEach
+    public void setUp() throws NoSuchMethodException {
+        MethodMetadataRegistry registry = new MethodMetadataRegistry(LoggingMethodIndex.empty());
+        consume = registry.get(OrderService.class.getMethod("consume", ConsumerRecord.class));
+        process = registry.get(OrderService.class.getMethod("process", String.class));
+        rollupLogger = (Logger) LoggerFactory.getLogger(MethodRollup.class);
+        console = new ListAppender<>();
+        console.start();
+        rollupLogger.addAppender(console);
+        // Summaries without a log file are written at INFO
+        rollupLogger.setLevel(Level.INFO);
+    }
+    
+    @AfterEach
+    public void tearDown() {
+        rollupLogger.detachAppender(console);
+        rollupLogger.setLevel(null);
+    }
+    
+    @Test
+    public void summarizesInvocationsPerMethodAndTopic() {
+        MethodRollup rollup = new MethodRollup(null, null, 0, true);
+        for (long ms = 1; ms <= 100; ms++) {
+            boolean failed = ms % 10 == 0;
+            assertEquals(!failed, rollup.record(consume, "orders", ms, failed),
+                    "Only failures should be logged individually");
+        }
+        rollup.record(process, null, 7, false);
+        
+        List<RollupSummary> summaries = rollup.rollWindow();
+        assertEquals(3, summaries.size());
+        RollupSummary method = find(summaries, "method", consume.getQualifiedMethodName());
+        assertEquals(100, method.getCount());
+        assertEquals(10, method.getFailures());
+        assertEquals(5050, method.getSumMs());
+        assertEquals(50.5, method.getMeanMs(), 0.001);
+        assertEquals(1, method.getMinMs());
+        assertEquals(100, method.getMaxMs());
+        // Upper bounds of the power-of-two buckets, capped at the maximum
+        assertEquals(63, method.getP50Ms());
+        assertEquals(100, method.getP90Ms());
+        assertEquals(100, method.getP99Ms());
+        
+        RollupSummary topic = find(summaries, "topic", "orders");
+        assertEquals(100, topic.getCount());
+        assertEquals(5050, topic.getSumMs());
+        RollupSummary other = find(summaries, "method", process.getQualifiedMethodName());
+        assertEquals(1, other.getCount());
+        assertEquals(7, other.getMinMs());
+        assertEquals(7, other.getP99Ms());
+    }
+    
+    @Test
+    public void startsNewWindowOnRoll() throws InterruptedException {
+        MethodRollup rollup = new MethodRollup(null, null, 0, false);
+        rollup.record(consume, "orders", 5, true);
+        Thread.sleep(20);
+        List<RollupSummary> first = rollup.rollWindow();
+        assertEquals(2, first.size());
+        assertTrue(first.get(0).getWindowMs() >= 20, "The window should span the time since the last roll");
+        assertEquals(first, rollup.getSummaries());
+        
+        // Keys without invocations in a window are left out of its summaries
+        rollup.record(process, null, 3, false);
+        rollup.record(process, null, 9, false);
+        List<RollupSummary> second = rollup.rollWindow();
+        assertEquals(1, second.size());
+        assertEquals(2, second.get(0).getCount());
+        assertEquals(3, second.get(0).getMinMs());
+        assertEquals(9, second.get(0).getMaxMs());
+        assertEquals(0, second.get(0).getFailures());
+        
+        assertTrue(rollup.rollWindow().isEmpty());
+        assertTrue(rollup.getSummaries().isEmpty());
+    }
+    
+    @Test
+    public void summarizesInvocationsOfAllThreads() throws InterruptedException {
+        MethodRollup rollup = new MethodRollup(null, null, 0, true);
+        Thread[] threads = new Thread[4];
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = new Thread(() -> {
+                for (int n = 0; n < 1000; n++) {
+                    rollup.record(consume, "orders", 2, false);
+                }
+            });
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        
+        RollupSummary summary = find(rollup.rollWindow(), "topic", "orders");
+        assertEquals(4000, summary.getCount());
+        assertEquals(8000, summary.getSumMs());
+    }
+    
+    @Test
+    public void writesPartialWindowOnDestroy() {
+        MethodRollup rollup = new MethodRollup(null, null, 0, true);
+        rollup.record(process, null, 4, false);
+        
+        rollup.destroy();
+        
+        assertEquals(1, console.list.size());
+        String line = console.list.get(0).getFormattedMessage();
+        assertTrue(line.startsWith("Kafka logging rollup: method=" + process.getQualifiedMethodName()
+                + " count=1 failures=0 mean=4.0ms min=4ms max=4ms"), line);
+        assertFalse(rollup.getSummaries().isEmpty());
+    }
+    
+    private static RollupSummary find(List<RollupSummary> summaries, String kind, String key) {
+        RollupSummary found = null;
+        for (RollupSummary summary : summaries) {
+            if (summary.getKind().equals(kind) && summary.getKey().equals(key)) {
+                found = summary;
+            }
+        }
+        assertNotNull(found, "No summary for " + kind + " " + key);
+        return found;
+    }
+}
@@ -0,0 +1,111 @@
+package com.logging.framework.metrics;
+
+import com.example.orders.OrderService;
+import com.logging.framework.index.LoggingMethodIndex;
+import com.logging.framework.index.MethodMetadata;
+import com.logging.framework.index.MethodMetadataRegistry;
+import com.logging.framework.model.KafkaMessageContext;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Ordering and windows of the slowest messages kept by the {@link SlowMessageTracker}.
+ */
+public class SlowMessageTrackerTest {
+    
+    private MethodMetadata consume;
+    private MethodMetadata process;
+    
+    @BeforeEach
+    public void setUp() throws NoSuchMethodException {
+        MethodMetadataRegistry registry = new MethodMetadataRegistry(LoggingMethodIndex.empty());
+        consume = registry.get(OrderService.class.getMethod("consume", ConsumerRecord.class));
+        process = registry.get(OrderService.class.getMethod("process", String.class));
+    }
+    
+    @Test
+    public void keepsSlowestMessagesSlowestFirst() {
+        SlowMessageTracker tracker = new SlowMessageTracker(null, null, 3, 0, 0);
+        List<Long> times = new ArrayList<>();
+        for (long ms = 1; ms <= 50; ms++) {
+            times.add(ms);
+        }
+        Collections.shuffle(times, new Random(42));
+        for (long ms : times) {
+            // The offset identifies the message, the processing time is ten times the offset
+            tracker.record(consume, context(ms, "order-" + ms), ms * 10, ms == 49);
+        }
+        
+        List<SlowMessage> slowest = tracker.rollWindow().get(consume.getQualifiedMethodName());
+        assertEquals(Arrays.asList(500L, 490L, 480L), processingTimes(slowest));
+        SlowMessage first = slowest.get(0);
+        assertEquals("orders", first.getTopic());
+        assertEquals(3, first.getPartition());
+        assertEquals(50L, first.getOffset());
+        assertEquals("order-50", first.getKey());
+        assertEquals(consume.getQualifiedMethodName(), first.getListener());
+        assertTrue(slowest.get(1).isFailed());
+    }
+    
+    @Test
+    public void keepsListenersApartAndIgnoresFastMessages() {
+        SlowMessageTracker tracker = new SlowMessageTracker(null, null, 2, 0, 100);
+        tracker.record(consume, context(1, "a"), 99, false);
+        tracker.record(consume, context(2, "b"), 100, false);
+        tracker.record(process, context(3, "c"), 300, false);
+        
+        Map<String, List<SlowMessage>> window = tracker.rollWindow();
+        assertEquals(Collections.singletonList(100L), processingTimes(window.get(consume.getQualifiedMethodName())));
+        assertEquals(Collections.singletonList(300L), processingTimes(window.get(process.getQualifiedMethodName())));
+    }
+    
+    @Test
+    public void startsEmptyWindowOnRoll() {
+        SlowMessageTracker tracker = new SlowMessageTracker(null, null, 2, 0, 0);
+        tracker.record(consume, context(1, "a"), 900, false);
+        tracker.record(consume, context(2, "b"), 800, false);
+        assertEquals(Arrays.asList(900L, 800L),
+                processingTimes(tracker.getCurrentSlowest().get(consume.getQualifiedMethodName())));
+        assertTrue(tracker.getSlowest().isEmpty(), "No window was closed yet");
+        
+        tracker.rollWindow();
+        assertEquals(Arrays.asList(900L, 800L), processingTimes(tracker.getSlowest(consume.getQualifiedMethodName())));
+        
+        // The threshold of the full heap is reset, so faster messages enter the next window
+        tracker.record(consume, context(3, "c"), 5, false);
+        List<SlowMessage> next = tracker.rollWindow().get(consume.getQualifiedMethodName());
+        assertEquals(Collections.singletonList(5L), processingTimes(next));
+        assertEquals(3L, next.get(0).getOffset());
+        
+        assertTrue(tracker.rollWindow().isEmpty());
+        assertTrue(tracker.getSlowest(consume.getQualifiedMethodName()).isEmpty());
+    }
+    
+    private static KafkaMessageContext context(long offset, String key) {
+        KafkaMessageContext context = new KafkaMessageContext();
+        context.setTopic("orders");
+        context.setPartition(3);
+        context.setOffset(offset);
+        context.setKey(key);
+        return context;
+    }
+    
+    private static List<Long> processingTimes(List<SlowMessage> messages) {
+        List<Long> times = new ArrayList<>();
+        for (SlowMessage message : messages) {
+            times.add(message.getProcessingTimeMs());
+        }
+        return times;
+    }
+}
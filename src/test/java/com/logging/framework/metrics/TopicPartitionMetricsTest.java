@@ -0,0 +1,80 @@
+package com.logging.framework.metrics;
+
+import com.logging.framework.model.KafkaMessageContext;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Windows of per-partition statistics kept by the {@link TopicPartitionMetrics}.
+ */
+public class TopicPartitionMetricsTest {
+    
+    private final TopicPartitionMetrics metrics = new TopicPartitionMetrics(null, null, 0);
+    
+    @Test
+    public void keepsStatisticsPerPartition() {
+        long now = System.currentTimeMillis();
+        for (int i = 1; i <= 100; i++) {
+            metrics.record(context("orders", 0, now - 200), i, false);
+        }
+        metrics.record(context("orders", 40, null), 7, true);
+        metrics.record(context("orders", null, null), 3, false);
+        metrics.record(context("payments", 1, null), 12, false);
+        metrics.record(context(null, 1, null), 12, false);
+        
+        List<TopicPartitionStats> stats = metrics.rollWindow();
+        assertEquals(stats, metrics.getStats());
+        assertEquals(4, stats.size(), stats.toString());
+        
+        List<TopicPartitionStats> orders = metrics.getStats("orders");
+        assertEquals(3, orders.size());
+        TopicPartitionStats first = orders.get(0);
+        assertEquals(0, first.getPartition());
+        assertEquals(100, first.getMessages());
+        assertEquals(0, first.getFailures());
+        assertTrue(first.getProcessingP50Ms() >= 50 && first.getProcessingP50Ms() <= 56, first.toString());
+        assertEquals(100, first.getProcessingMaxMs());
+        assertTrue(first.getEndToEndP50Ms() >= 200, "The end-to-end latency runs from the record timestamp");
+        
+        // Partitions beyond the initial array are kept, unknown partitions come last
+        TopicPartitionStats grown = orders.get(1);
+        assertEquals(40, grown.getPartition());
+        assertEquals(1, grown.getFailures());
+        assertEquals(0, grown.getEndToEndMaxMs(), "Records without timestamp have no end-to-end latency");
+        assertEquals(-1, orders.get(2).getPartition());
+        assertEquals(3, orders.get(2).getProcessingMaxMs());
+    }
+    
+    @Test
+    public void resetsWindowAndKeepsTotals() {
+        metrics.record(context("orders", 2, null), 10, true);
+        metrics.record(context("orders", 2, null), 20, false);
+        metrics.rollWindow();
+        metrics.record(context("orders", 2, null), 30, false);
+        
+        TopicPartitionStats second = metrics.rollWindow().get(0);
+        assertEquals(1, second.getMessages());
+        assertEquals(0, second.getFailures());
+        assertEquals(3, second.getTotalMessages());
+        assertEquals(1, second.getTotalFailures());
+        assertEquals(30, second.getProcessingP50Ms(), "The window should not keep earlier latencies");
+        
+        TopicPartitionStats idle = metrics.rollWindow().get(0);
+        assertEquals(0, idle.getMessages());
+        assertEquals(0, idle.getProcessingMaxMs());
+        assertEquals(0.0, idle.getMessagesPerSecond());
+        assertEquals(3, idle.getTotalMessages());
+    }
+    
+    private static KafkaMessageContext context(String topic, Integer partition, Long timestamp) {
+        KafkaMessageContext context = new KafkaMessageContext();
+        context.setTopic(topic);
+        context.setPartition(partition);
+        context.setTimestamp(timestamp);
+        return context;
+    }
+}
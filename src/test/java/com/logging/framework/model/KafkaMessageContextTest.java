@@ -0,0 +1,32 @@
+package com.logging.framework.model;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.record.TimestampType;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.kafka.support.converter.MessagingMessageConverter;
+import org.springframework.messaging.Message;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Kafka message contexts built from consumed records and from listener message headers.
+ */
+public class KafkaMessageContextTest {
+    
+    @Test
+    public void writesSameTimestampTypeForRecordsAndHeaders() {
+        ConsumerRecord<String, String> record = new ConsumerRecord<>("orders", 3, 42L, 1_700_000_000_000L,
+                TimestampType.LOG_APPEND_TIME, 0L, 0, 0, "order-1", "{}");
+        Message<?> message = new MessagingMessageConverter().toMessage(record, null, null, String.class);
+        
+        KafkaMessageContext fromRecord = KafkaMessageContext.fromConsumerRecord(record);
+        KafkaMessageContext fromHeaders = KafkaMessageContext.fromMessageHeaders(message.getHeaders(), "{}");
+        
+        assertEquals("LOG_APPEND_TIME", fromRecord.getTimestampType());
+        assertEquals(fromRecord.getTimestampType(), fromHeaders.getTimestampType());
+        assertEquals(fromRecord.getTimestamp(), fromHeaders.getTimestamp());
+        assertEquals(fromRecord.getOffset(), fromHeaders.getOffset());
+        assertEquals("LOG_APPEND_TIME", message.getHeaders().get(KafkaHeaders.TIMESTAMP_TYPE));
+    }
+}
@@ -0,0 +1,127 @@
+package com.logging.framework.recorder;
+
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import com.example.orders.OrderService;
+import com.logging.framework.index.LoggingMethodIndex;
+import com.logging.framework.index.MethodMetadata;
+import com.logging.framework.index.MethodMetadataRegistry;
+import com.logging.framework.model.KafkaMessageContext;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Recording and dumping of invocations by the {@link FlightRecorder}.
+ */
+public class FlightRecorderTest {
+    
+    private MethodMetadata metadata;
+    private ListAppender<ILoggingEvent> console;
+    private Logger recorderLogger;
+    
+    @BeforeEach
+    public void setUp() throws NoSuchMethodException {
+        metadata = new MethodMetadataRegistry(LoggingMethodIndex.empty())
+                .get(OrderService.class.getMethod("consume", ConsumerRecord.class));
+        recorderLogger = (Logger) LoggerFactory.getLogger(FlightRecorder.class);
+        console = new ListAppender<>();
+        console.start();
+        recorderLogger.addAppender(console);
+    }
+    
+    @AfterEach
+    public void tearDown() {
+        recorderLogger.detachAppender(console);
+    }
+    
+    @Test
+    public void dumpsRecordsNotDumpedBeforeOnFailure() {
+        FlightRecorder recorder = new FlightRecorder(null, 16, true, 0, true, false);
+        for (long offset = 1; offset <= 3; offset++) {
+            assertTrue(recorder.record(metadata, context(3, offset), 2, false),
+                    "A successful invocation should only be recorded");
+        }
+        assertTrue(console.list.isEmpty());
+        
+        assertFalse(recorder.record(metadata, context(3, 4), 2, true), "A failed invocation should be logged");
+        assertEquals(1, console.list.size());
+        String dump = console.list.get(0).getFormattedMessage();
+        assertTrue(dump.startsWith("Flight recorder dump (failure of OrderService#consume), 4 records of thread "
+                + Thread.currentThread().getName()), dump);
+        assertTrue(dump.contains("OrderService#consume orders-3@1 2ms PASSED"), dump);
+        assertTrue(dump.contains("OrderService#consume orders-3@4 2ms FAILED"), dump);
+        
+        // The next failure only dumps what happened since
+        recorder.record(metadata, context(3, 5), 2, false);
+        recorder.record(metadata, context(3, 6), 2, true);
+        assertEquals(2, console.list.size());
+        String next = console.list.get(1).getFormattedMessage();
+        assertTrue(next.contains(", 2 records of thread "), next);
+        assertFalse(next.contains("orders-3@4 "), next);
+        assertEquals(2, recorder.getDumpCount());
+    }
+    
+    @Test
+    public void dumpsSlowInvocationsAndKeepsLatestRecords() {
+        FlightRecorder recorder = new FlightRecorder(null, 3, false, 100, true, false);
+        assertEquals(4, recorder.getCapacity(), "The capacity should be rounded up to a power of two");
+        for (long offset = 1; offset <= 10; offset++) {
+            recorder.record(metadata, context(3, offset), 2, true);
+        }
+        assertTrue(console.list.isEmpty(), "Failures should not dump without dump-on-failure");
+        assertEquals(Arrays.asList(7L, 8L, 9L, 10L), offsets(recorder.getRecords("orders", 3)));
+        
+        assertFalse(recorder.record(metadata, context(3, 11), 150, false), "A slow invocation should be logged");
+        assertEquals(1, console.list.size());
+        assertTrue(console.list.get(0).getFormattedMessage()
+                .startsWith("Flight recorder dump (latency of OrderService#consume 150 ms exceeds 100 ms), 4 records"));
+    }
+    
+    @Test
+    public void collectsRecordsOfPartitionAcrossThreads() throws InterruptedException {
+        FlightRecorder recorder = new FlightRecorder(null, 16, true, 0, false, false);
+        recorder.record(metadata, context(3, 1), 2, false);
+        Thread other = new Thread(() -> {
+            recorder.record(metadata, context(3, 2), 2, false);
+            recorder.record(metadata, context(5, 3), 2, false);
+        }, "other-consumer");
+        other.start();
+        other.join();
+        recorder.record(metadata, context(5, 4), 2, false);
+        
+        List<FlightRecord> records = recorder.getRecords("orders", 3);
+        assertEquals(Arrays.asList(1L, 2L), offsets(records));
+        assertEquals(2, recorder.dumpPartition("orders", 5));
+        assertEquals(1, console.list.size());
+        assertTrue(console.list.get(0).getFormattedMessage().contains("orders-5@3"));
+        assertTrue(console.list.get(0).getFormattedMessage().contains("orders-5@4"));
+    }
+    
+    private static KafkaMessageContext context(int partition, long offset) {
+        KafkaMessageContext context = new KafkaMessageContext();
+        context.setTopic("orders");
+        context.setPartition(partition);
+        context.setOffset(offset);
+        return context;
+    }
+    
+    private static List<Long> offsets(List<FlightRecord> records) {
+        List<Long> offsets = new ArrayList<>();
+        for (FlightRecord record : records) {
+            offsets.add(record.getOffset());
+        }
+        return offsets;
+    }
+}
@@ -0,0 +1,72 @@
+package com.logging.framework.sampling;
+
+import com.example.orders.OrderService;
+import com.example.orders.OrderValidator;
+import com.logging.framework.index.LoggingMethodIndex;
+import com.logging.framework.index.MethodMetadataRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Samplers assigned by the {@link MethodSampling} rules, and the invocations it always logs.
+ */
+public class MethodSamplingTest {
+    
+    @Test
+    public void appliesAnnotationThenMostSpecificRule() throws NoSuchMethodException {
+        Map<String, String> rules = new HashMap<>();
+        rules.put(MethodSampling.ROOT, "one-in-n:1000");
+        rules.put("com.example", "one-in-n:100");
+        rules.put("com.example.orders.OrderService", "probabilistic:0.5");
+        rules.put("com.example.orders.OrderService.process", "token-bucket:10");
+        MethodMetadataRegistry registry = registry(new MethodSampling(rules, 0));
+        
+        assertEquals("one-in-n:1000000", sampler(registry, OrderService.class, "price", String.class).getSpec(),
+                "The annotation should win over the rules");
+        assertEquals("token-bucket:10", sampler(registry, OrderService.class, "process", String.class).getSpec());
+        assertEquals("probabilistic:0.5", sampler(registry, OrderService.class, "compute", String.class).getSpec());
+        assertEquals("one-in-n:100", sampler(registry, OrderValidator.class, "validate", String.class).getSpec());
+        assertEquals("one-in-n:1000", sampler(registry, String.class, "valueOf", Object.class).getSpec());
+    }
+    
+    @Test
+    public void rejectsInvalidRulesOnStartup() throws NoSuchMethodException {
+        assertThrows(IllegalArgumentException.class,
+                () -> new MethodSampling(Collections.singletonMap("com.example", "one-in-n:0"), 0));
+        
+        // Without rules nothing is sampled
+        MethodMetadataRegistry registry = registry(new MethodSampling(Collections.emptyMap(), 0));
+        assertNull(sampler(registry, OrderService.class, "process", String.class));
+    }
+    
+    @Test
+    public void alwaysLogsFailuresAndSlowInvocations() {
+        MethodSampling sampling = new MethodSampling(Collections.emptyMap(), 100);
+        assertTrue(sampling.isAlwaysLogged(true, 0));
+        assertTrue(sampling.isAlwaysLogged(false, 100));
+        assertFalse(sampling.isAlwaysLogged(false, 99));
+        
+        // Without a latency threshold only failures are
+        MethodSampling failuresOnly = new MethodSampling(Collections.emptyMap(), 0);
+        assertTrue(failuresOnly.isAlwaysLogged(true, 0));
+        assertFalse(failuresOnly.isAlwaysLogged(false, Long.MAX_VALUE));
+    }
+    
+    private static MethodMetadataRegistry registry(MethodSampling sampling) {
+        return new MethodMetadataRegistry(LoggingMethodIndex.empty(), null, sampling);
+    }
+    
+    private static Sampler sampler(MethodMetadataRegistry registry, Class<?> type, String name,
+                                   Class<?>... parameterTypes) throws NoSuchMethodException {
+        return registry.get(type.getMethod(name, parameterTypes)).getSampler();
+    }
+}
@@ -0,0 +1,123 @@
+package com.logging.framework.sampling;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.DoubleSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Decisions of the {@link Sampler} modes, driven by a fixed clock and fixed random values.
+ */
+public class SamplerTest {
+    
+    private static final long MILLIS = TimeUnit.MILLISECONDS.toNanos(1);
+    
+    private long now = 1_000 * MILLIS;
+    
+    @Test
+    public void parsesSpecifications() {
+        assertNull(Sampler.parse(null));
+        assertNull(Sampler.parse(" "));
+        assertNull(Sampler.parse("None"));
+        assertTrue(Sampler.parse(" One-In-N : 10 ") instanceof Sampler.OneInN);
+        assertEquals("one-in-n : 10", Sampler.parse(" One-In-N : 10 ").getSpec());
+        assertTrue(Sampler.parse("probabilistic:0.5") instanceof Sampler.Probabilistic);
+        assertTrue(Sampler.parse("token-bucket:50") instanceof Sampler.TokenBucket);
+        assertTrue(Sampler.parse("adaptive:200") instanceof Sampler.Adaptive);
+        
+        for (String invalid : Arrays.asList("one-in-n", "every:10", "one-in-n:ten", "one-in-n:0",
+                "probabilistic:1.5", "probabilistic:NaN", "token-bucket:0", "adaptive:-1")) {
+            assertThrows(IllegalArgumentException.class, () -> Sampler.parse(invalid), invalid);
+        }
+    }
+    
+    @Test
+    public void logsEveryNthInvocationStartingWithFirst() {
+        assertEquals(Arrays.asList(true, false, false, true, false, false, true),
+                decisions(Sampler.parse("one-in-n:3"), 7));
+        assertEquals(Arrays.asList(true, true, true), decisions(Sampler.parse("one-in-n:1"), 3));
+    }
+    
+    @Test
+    public void logsInvocationsBelowProbability() {
+        Sampler sampler = new Sampler.Probabilistic("probabilistic:0.25", 0.25, randoms(0.1, 0.3, 0.2499, 0.25, 0.0));
+        assertEquals(Arrays.asList(true, false, true, false, true), decisions(sampler, 5));
+        
+        Sampler never = new Sampler.Probabilistic("probabilistic:0", 0.0, randoms(0.0));
+        assertEquals(Arrays.asList(false), decisions(never, 1));
+        
+        // A probability of 1 logs everything without drawing random values
+        Sampler always = new Sampler.Probabilistic("probabilistic:1", 1.0, randoms());
+        assertEquals(Arrays.asList(true, true), decisions(always, 2));
+    }
+    
+    @Test
+    public void limitsRateWithBurstOfOneSecond() {
+        Sampler sampler = new Sampler.TokenBucket("token-bucket:4", 4, () -> now);
+        
+        // A full bucket allows a burst of one second's worth
+        assertEquals(Arrays.asList(true, true, true, true, false), decisions(sampler, 5));
+        
+        // A token arrives every 250 ms
+        now += 200 * MILLIS;
+        assertEquals(Arrays.asList(false), decisions(sampler, 1));
+        now += 50 * MILLIS;
+        assertEquals(Arrays.asList(true, false), decisions(sampler, 2));
+        
+        // An idle period refills the bucket, but never beyond the burst
+        now += 10_000 * MILLIS;
+        assertEquals(Arrays.asList(true, true, true, true, false), decisions(sampler, 5));
+    }
+    
+    @Test
+    public void adaptsProbabilityToRateOfPreviousSecond() {
+        Sampler sampler = new Sampler.Adaptive("adaptive:10", 10, () -> now, randoms(0.09, 0.11));
+        
+        // Everything is logged until the first second has been measured
+        assertEquals(100, decisions(sampler, 100).stream().filter(Boolean::booleanValue).count());
+        
+        // 100 invocations in the first second and this one: the probability becomes 10 / 101
+        now += 1_000 * MILLIS;
+        assertEquals(Arrays.asList(true, false), decisions(sampler, 2));
+        
+        // A quiet second brings the probability back to 1, without drawing random values
+        now += 2_000 * MILLIS;
+        assertEquals(Arrays.asList(true, true, true), decisions(sampler, 3));
+    }
+    
+    @Test
+    public void drainsSkippedInvocationsIntoNextEvent() {
+        Sampler sampler = Sampler.parse("one-in-n:10");
+        assertEquals(1, sampler.drainSampleCount());
+        sampler.skip();
+        sampler.skip();
+        sampler.skip();
+        assertEquals(4, sampler.drainSampleCount(), "The event stands for the skipped invocations and itself");
+        assertEquals(1, sampler.drainSampleCount());
+    }
+    
+    private static List<Boolean> decisions(Sampler sampler, int invocations) {
+        List<Boolean> decisions = new ArrayList<>();
+        for (int i = 0; i < invocations; i++) {
+            decisions.add(sampler.sample());
+        }
+        return decisions;
+    }
+    
+    /**
+     * Random source returning the given values in order, and failing when it runs out.
+     */
+    private static DoubleSupplier randoms(Double... values) {
+        Iterator<Double> iterator = Arrays.asList(values).iterator();
+        return iterator::next;
+    }
+}
@@ -0,0 +1,138 @@
+package com.logging.framework.service;
+
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import com.logging.framework.appender.KafkaLoggingFileAppender;
+import com.logging.framework.config.KafkaLoggingProperties;
+import com.logging.framework.exception.ExceptionPropagationTracker;
+import com.logging.framework.exception.StackTraceRenderer;
+import com.logging.framework.model.KafkaMessageContext;
+import com.logging.framework.model.LoggingEvent;
+import com.logging.framework.model.MethodExecutionStatus;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Console output of {@link LoggingServiceImpl} when stack traces are rendered into the dedicated log file.
+ */
+public class LoggingServiceImplTest {
+    
+    private Path logDirectory;
+    private AnnotationConfigApplicationContext context;
+    private LoggingService loggingService;
+    private ListAppender<ILoggingEvent> console;
+    private Logger serviceLogger;
+    
+    @BeforeEach
+    public void setUp() throws IOException {
+        logDirectory = Files.createTempDirectory("kafka-logging-service");
+        KafkaLoggingProperties properties = new KafkaLoggingProperties();
+        properties.setAsyncLogging(false);
+        properties.getLogFile().setPath(logDirectory.toString());
+        KafkaLoggingProperties.ExceptionConfig exceptions = properties.getExceptions();
+        KafkaLoggingFileAppender fileAppender = new KafkaLoggingFileAppender(properties, new StackTraceRenderer(
+                exceptions.getFilteredFramePrefixes(), exceptions.getMaxStackFrames(), exceptions.getStackTraceCacheSize()));
+        
+        context = new AnnotationConfigApplicationContext();
+        context.registerBean(KafkaLoggingFileAppender.class, () -> fileAppender);
+        context.registerBean(LoggingServiceImpl.class);
+        context.refresh();
+        loggingService = context.getBean(LoggingService.class);
+        
+        serviceLogger = (Logger) LoggerFactory.getLogger(LoggingServiceImpl.class);
+        console = new ListAppender<>();
+        console.start();
+        serviceLogger.addAppender(console);
+        ExceptionPropagationTracker.reset();
+    }
+    
+    @AfterEach
+    public void tearDown() throws IOException {
+        serviceLogger.detachAppender(console);
+        context.close();
+        try (Stream<Path> files = Files.walk(logDirectory)) {
+            files.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        }
+    }
+    
+    @Test
+    public void logEventWritesStackTraceOnlyToFile() throws IOException {
+        LoggingEvent event = new LoggingEvent();
+        event.setClassName("OrderService");
+        event.setMethodName("handle");
+        event.setStatus(MethodExecutionStatus.FAILED);
+        event.setLogLevel("ERROR");
+        event.setException(new IllegalStateException("Order rejected"));
+        
+        loggingService.logEvent(event);
+        
+        ILoggingEvent line = findConsoleLine("Exception in [OrderService#handle]");
+        assertEquals("Exception in [OrderService#handle] - java.lang.IllegalStateException: Order rejected",
+                line.getFormattedMessage());
+        assertNull(line.getThrowableProxy(), "The stack trace should not be printed on the calling thread");
+        assertTrue(readLogFile().contains("\"stackTrace\":\"java.lang.IllegalStateException: Order rejected"),
+                "The stack trace should be written to the log file");
+    }
+    
+    @Test
+    public void logExceptionWritesStackTraceOnlyToFile() throws IOException {
+        loggingService.logException("OrderService", "handle", new IllegalStateException("Order rejected"),
+                new Object[] {"order-42"});
+        
+        ILoggingEvent line = findConsoleLine("Exception in [OrderService#handle]");
+        assertTrue(line.getFormattedMessage().contains("java.lang.IllegalStateException: Order rejected"));
+        assertNull(line.getThrowableProxy(), "The stack trace should not be printed on the calling thread");
+        assertTrue(readLogFile().contains("\"stackTrace\":\"java.lang.IllegalStateException: Order rejected"),
+                "The stack trace should be written to the log file");
+    }
+    
+    @Test
+    public void logKafkaProducerEventWritesStackTraceOnlyToFile() throws IOException {
+        KafkaMessageContext context = new KafkaMessageContext();
+        context.setTopic("orders");
+        context.setKey("order-42");
+        LoggingEvent event = new LoggingEvent();
+        event.setClassName("KafkaProducer");
+        event.setMethodName("send");
+        event.setStatus(MethodExecutionStatus.FAILED);
+        event.setLogLevel("ERROR");
+        event.setKafkaMessageContext(context);
+        event.setExecutionTimeMs(12);
+        event.setException(new IllegalStateException("Broker unavailable"));
+        
+        loggingService.logKafkaProducerEvent(event);
+        
+        ILoggingEvent line = findConsoleLine("Kafka send failed");
+        assertTrue(line.getFormattedMessage().endsWith("after 12ms - java.lang.IllegalStateException: Broker unavailable"));
+        assertNull(line.getThrowableProxy(), "The stack trace should not be printed on the calling thread");
+        assertTrue(readLogFile().contains("\"stackTrace\":\"java.lang.IllegalStateException: Broker unavailable"),
+                "The stack trace should be written to the log file");
+    }
+    
+    private ILoggingEvent findConsoleLine(String prefix) {
+        return console.list.stream()
+                .filter(event -> event.getFormattedMessage().startsWith(prefix))
+                .findFirst()
+                .orElseThrow(() -> new AssertionError("No console line starting with " + prefix));
+    }
+    
+    private String readLogFile() throws IOException {
+        return new String(Files.readAllBytes(logDirectory.resolve("kafka-logging.log")), StandardCharsets.UTF_8);
+    }
+}
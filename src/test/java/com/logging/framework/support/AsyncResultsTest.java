@@ -0,0 +1,161 @@
+package com.logging.framework.support;
+
+import com.logging.framework.interceptor.KafkaRecordContextHolder;
+import com.logging.framework.trace.TraceContext;
+import com.logging.framework.trace.TraceContextHolder;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.concurrent.SettableListenableFuture;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Completion callbacks registered by {@link AsyncResults} on futures.
+ */
+public class AsyncResultsTest {
+    
+    private final List<Completion> completions = new ArrayList<>();
+    
+    @AfterEach
+    public void tearDown() {
+        KafkaRecordContextHolder.clear();
+        TraceContextHolder.clear();
+    }
+    
+    @Test
+    public void reportsCompletableFutureOutcomes() {
+        CompletableFuture<String> shipped = new CompletableFuture<>();
+        assertSame(shipped, AsyncResults.onCompletion(shipped, System.currentTimeMillis() - 40, this::record));
+        assertTrue(completions.isEmpty(), "Nothing should be reported before the future completes");
+        shipped.complete("shipped");
+        
+        // The failure is reported without the wrapper of the dependent stage
+        IllegalStateException rejected = new IllegalStateException("Order rejected");
+        CompletableFuture<String> failed = new CompletableFuture<>();
+        AsyncResults.onCompletion(failed.thenApply(value -> value), System.currentTimeMillis(), this::record);
+        failed.completeExceptionally(rejected);
+        
+        CompletableFuture<String> cancelled = new CompletableFuture<>();
+        AsyncResults.onCompletion(cancelled, System.currentTimeMillis(), this::record);
+        cancelled.cancel(false);
+        
+        assertEquals(3, completions.size());
+        assertCompletion(completions.get(0), "shipped", null, false);
+        assertTrue(completions.get(0).durationMs >= 40, "The duration should run from the invocation");
+        assertCompletion(completions.get(1), null, rejected, false);
+        assertCompletion(completions.get(2), null, null, true);
+    }
+    
+    @Test
+    public void unwrapsNestedCompletionExceptions() {
+        IllegalStateException rejected = new IllegalStateException("Order rejected");
+        CompletableFuture<String> failed = new CompletableFuture<>();
+        AsyncResults.onCompletion(failed, System.currentTimeMillis(), this::record);
+        failed.completeExceptionally(new CompletionException(new CompletionException(rejected)));
+        
+        assertEquals(1, completions.size());
+        assertSame(rejected, completions.get(0).error);
+    }
+    
+    @Test
+    public void reportsListenableFutureOutcomes() {
+        SettableListenableFuture<String> shipped = new SettableListenableFuture<>();
+        assertSame(shipped, AsyncResults.onCompletion(shipped, System.currentTimeMillis(), this::record));
+        shipped.set("shipped");
+        
+        IllegalStateException rejected = new IllegalStateException("Order rejected");
+        SettableListenableFuture<String> failed = new SettableListenableFuture<>();
+        AsyncResults.onCompletion(failed, System.currentTimeMillis(), this::record);
+        failed.setException(rejected);
+        
+        SettableListenableFuture<String> cancelled = new SettableListenableFuture<>();
+        AsyncResults.onCompletion(cancelled, System.currentTimeMillis(), this::record);
+        cancelled.cancel(false);
+        
+        assertEquals(3, completions.size());
+        assertCompletion(completions.get(0), "shipped", null, false);
+        assertCompletion(completions.get(1), null, rejected, false);
+        assertCompletion(completions.get(2), null, null, true);
+    }
+    
+    @Test
+    public void restoresRecordAndTraceOnCompletingThread() throws InterruptedException {
+        ConsumerRecord<String, String> record = new ConsumerRecord<>("orders", 3, 42L, "order-1", "{}");
+        TraceContext trace = TraceContext.newRoot();
+        KafkaRecordContextHolder.setCurrentRecord(record);
+        TraceContextHolder.set(trace);
+        
+        AtomicReference<ConsumerRecord<?, ?>> completedRecord = new AtomicReference<>();
+        AtomicReference<TraceContext> completedTrace = new AtomicReference<>();
+        CompletableFuture<String> shipped = new CompletableFuture<>();
+        AsyncResults.onCompletion(shipped, System.currentTimeMillis(), (value, error, cancelled, durationMs) -> {
+            completedRecord.set(KafkaRecordContextHolder.getCurrentRecord());
+            completedTrace.set(TraceContextHolder.current());
+        });
+        
+        AtomicReference<ConsumerRecord<?, ?>> recordAfter = new AtomicReference<>();
+        AtomicReference<TraceContext> traceAfter = new AtomicReference<>();
+        Thread completing = new Thread(() -> {
+            shipped.complete("shipped");
+            recordAfter.set(KafkaRecordContextHolder.getCurrentRecord());
+            traceAfter.set(TraceContextHolder.current());
+        });
+        completing.start();
+        completing.join();
+        
+        assertSame(record, completedRecord.get());
+        assertSame(trace, completedTrace.get());
+        assertNull(recordAfter.get(), "The completing thread should get its own context back");
+        assertNull(traceAfter.get());
+    }
+    
+    @Test
+    public void keepsCompletingThreadRunningIfListenerFails() {
+        CompletableFuture<String> shipped = new CompletableFuture<>();
+        AsyncResults.onCompletion(shipped, System.currentTimeMillis(), (value, error, cancelled, durationMs) -> {
+            throw new IllegalStateException("Logging failed");
+        });
+        assertTrue(shipped.complete("shipped"));
+        assertEquals("shipped", shipped.join());
+    }
+    
+    private void record(Object value, Throwable error, boolean cancelled, long durationMs) {
+        completions.add(new Completion(value, error, cancelled, durationMs));
+    }
+    
+    private static void assertCompletion(Completion completion, Object value, Throwable error, boolean cancelled) {
+        assertEquals(value, completion.value);
+        assertSame(error, completion.error);
+        assertEquals(cancelled, completion.cancelled);
+        assertFalse(completion.durationMs < 0);
+    }
+    
+    /**
+     * Arguments of one listener call.
+     */
+    static class Completion {
+        
+        final Object value;
+        final Throwable error;
+        final boolean cancelled;
+        final long durationMs;
+        
+        Completion(Object value, Throwable error, boolean cancelled, long durationMs) {
+            this.value = value;
+            this.error = error;
+            this.cancelled = cancelled;
+            this.durationMs = durationMs;
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package com.logging.framework.support;
+
+import org.junit.jupiter.api.Test;
+import org.reactivestreams.Subscription;
+import reactor.core.CoreSubscriber;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Completion of Mono and Flux subscriptions reported by the {@link CompletionSubscriber}.
+ */
+public class CompletionSubscriberTest {
+    
+    private final List<AsyncResultsTest.Completion> completions = new ArrayList<>();
+    
+    @Test
+    public void decoratesOnlyMonoAndFlux() {
+        assertTrue(ReactiveSupport.isPublisherType(Mono.class));
+        assertTrue(ReactiveSupport.isPublisherType(Flux.class));
+        assertFalse(ReactiveSupport.isPublisherType(String.class));
+        assertTrue(AsyncResults.isAsyncType(Flux.class));
+        assertNull(ReactiveSupport.onCompletion("shipped", this::record));
+        assertNull(AsyncResults.onCompletion("shipped", System.currentTimeMillis(), this::record));
+    }
+    
+    @Test
+    public void reportsMonoOutcomesPerSubscription() {
+        Mono<String> packed = decorate(Mono.just("packed").delayElement(Duration.ofMillis(40)));
+        assertTrue(completions.isEmpty(), "Nothing should be reported before the subscription");
+        // Mono.block() returns on the element, the subscription completes right after it
+        assertEquals("packed", packed.flux().blockLast());
+        assertEquals("packed", packed.flux().blockLast());
+        
+        IllegalStateException rejected = new IllegalStateException("Order rejected");
+        Mono<String> failed = decorate(Mono.error(rejected));
+        assertSame(rejected, assertThrows(IllegalStateException.class, failed::block));
+        
+        Disposable subscription = decorate(Mono.never()).subscribe();
+        subscription.dispose();
+        
+        assertEquals(4, completions.size());
+        for (int i = 0; i < 2; i++) {
+            assertCompletion(completions.get(i), "packed", null, false);
+            assertTrue(completions.get(i).durationMs >= 40, "The duration should run from the subscription");
+        }
+        assertCompletion(completions.get(2), null, rejected, false);
+        assertCompletion(completions.get(3), null, null, true);
+    }
+    
+    @Test
+    public void reportsFluxOutcomesWithoutKeepingElements() {
+        Flux<String> picked = decorate(Flux.just("item-1", "item-2"));
+        assertEquals(2, picked.collectList().block().size());
+        
+        IllegalStateException rejected = new IllegalStateException("Item missing");
+        Flux<String> failed = decorate(Flux.concat(Flux.just("item-1"), Flux.error(rejected)));
+        assertThrows(IllegalStateException.class, failed::blockLast);
+        
+        // Taking the first element cancels the rest of the subscription
+        assertEquals("item-1", decorate(Flux.just("item-1", "item-2")).take(1).blockLast());
+        
+        assertEquals(3, completions.size());
+        assertCompletion(completions.get(0), null, null, false);
+        assertCompletion(completions.get(1), null, rejected, false);
+        assertCompletion(completions.get(2), null, null, true);
+    }
+    
+    @Test
+    public void reportsEachSubscriptionOnce() {
+        // A subscriber cancelling after the terminal signal must not report the subscription again
+        Sinks.Many<String> sink = Sinks.many().unicast().onBackpressureBuffer();
+        CancellingSubscriber completing = new CancellingSubscriber();
+        decorate(sink.asFlux()).subscribe(completing);
+        sink.tryEmitNext("item-1");
+        sink.tryEmitComplete();
+        completing.subscription.cancel();
+        
+        CancellingSubscriber failing = new CancellingSubscriber();
+        IllegalStateException rejected = new IllegalStateException("Order rejected");
+        decorate(Mono.<String>error(rejected)).subscribe(failing);
+        
+        // Cancelling twice reports the cancellation once
+        CancellingSubscriber cancelling = new CancellingSubscriber();
+        decorate(Mono.<String>never()).subscribe(cancelling);
+        cancelling.subscription.cancel();
+        cancelling.subscription.cancel();
+        
+        assertEquals(3, completions.size());
+        assertCompletion(completions.get(0), null, null, false);
+        assertCompletion(completions.get(1), null, rejected, false);
+        assertCompletion(completions.get(2), null, null, true);
+        assertEquals(1, completing.elements);
+    }
+    
+    @Test
+    @SuppressWarnings("unchecked")
+    public void keepsPipelineRunningIfListenerFails() {
+        Mono<String> packed = (Mono<String>) ReactiveSupport.onCompletion(Mono.just("packed"),
+                (value, error, cancelled, durationMs) -> {
+                    throw new IllegalStateException("Logging failed");
+                });
+        assertEquals("packed", packed.block());
+    }
+    
+    @SuppressWarnings("unchecked")
+    private <P> P decorate(P publisher) {
+        return (P) ReactiveSupport.onCompletion(publisher, this::record);
+    }
+    
+    private void record(Object value, Throwable error, boolean cancelled, long durationMs) {
+        completions.add(new AsyncResultsTest.Completion(value, error, cancelled, durationMs));
+    }
+    
+    private static void assertCompletion(AsyncResultsTest.Completion completion, Object value, Throwable error,
+                                         boolean cancelled) {
+        assertEquals(value, completion.value);
+        assertSame(error, completion.error);
+        assertEquals(cancelled, completion.cancelled);
+    }
+    
+    /**
+     * Subscriber requesting everything and cancelling its subscription on the terminal signal.
+     */
+    private static class CancellingSubscriber implements CoreSubscriber<String> {
+        
+        private Subscription subscription;
+        private int elements;
+        
+        @Override
+        public void onSubscribe(Subscription s) {
+            subscription = s;
+            s.request(Long.MAX_VALUE);
+        }
+        
+        @Override
+        public void onNext(String element) {
+            elements++;
+        }
+        
+        @Override
+        public void onError(Throwable t) {
+            subscription.cancel();
+        }
+        
+        @Override
+        public void onComplete() {
+            subscription.cancel();
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.logging.framework.template;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Interning and numbering of templates by the {@link MessageTemplates} dictionary.
+ */
+public class MessageTemplatesTest {
+    
+    @Test
+    public void internsEachPatternOnce() {
+        MessageTemplate completed = MessageTemplates.intern("MessageTemplatesTest - Completed in {} ms");
+        MessageTemplate failed = MessageTemplates.intern("MessageTemplatesTest - Failed: {}");
+        
+        assertSame(completed, MessageTemplates.intern(new String("MessageTemplatesTest - Completed in {} ms")));
+        assertNotEquals(completed.getId(), failed.getId());
+        assertTrue(failed.getId() > completed.getId(), "IDs should be numbered in the order patterns are first seen");
+        assertSame(completed, MessageTemplates.get(completed.getId()));
+        assertNull(MessageTemplates.get(-1));
+        assertNull(MessageTemplates.get(Integer.MAX_VALUE));
+        assertEquals("MessageTemplatesTest - Completed in 12 ms", completed.format(12));
+    }
+    
+    @Test
+    public void assignsOneIdPerPatternAcrossThreads() throws InterruptedException {
+        Set<MessageTemplate> templates = ConcurrentHashMap.newKeySet();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            Thread thread = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                templates.add(MessageTemplates.intern("MessageTemplatesTest - Raced"));
+            });
+            thread.start();
+            threads.add(thread);
+        }
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        
+        assertEquals(1, templates.size());
+        MessageTemplate template = templates.iterator().next();
+        assertSame(template, MessageTemplates.get(template.getId()));
+    }
+    
+    @Test
+    public void listsDictionaryInIdOrder() {
+        MessageTemplate first = MessageTemplates.intern("MessageTemplatesTest - Dictionary {}");
+        MessageTemplate second = MessageTemplates.intern("MessageTemplatesTest - Dictionary again {}");
+        
+        Map<Integer, String> dictionary = MessageTemplates.getDictionary();
+        assertEquals(first.getPattern(), dictionary.get(first.getId()));
+        assertEquals(second.getPattern(), dictionary.get(second.getId()));
+        int expected = 0;
+        for (Integer id : dictionary.keySet()) {
+            assertEquals(expected++, id.intValue(), "IDs should be dense and listed in order");
+        }
+        assertThrows(UnsupportedOperationException.class, () -> dictionary.put(-1, "changed"));
+        
+        // Escaped text is kept literally and not filled in
+        MessageTemplate escaped = MessageTemplates.intern(MessageTemplates.escape("Map {}") + " - Failed: {}");
+        assertEquals("Map {} - Failed: boom", escaped.format("boom"));
+    }
+}
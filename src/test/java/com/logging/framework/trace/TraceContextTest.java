@@ -0,0 +1,87 @@
+package com.logging.framework.trace;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Parsing and encoding of trace header values by the {@link TraceContext}.
+ */
+public class TraceContextTest {
+    
+    private static final String TRACE_ID = "4bf92f3577b34da6a3ce929d0e0e4736";
+    private static final String PARENT_ID = "00f067aa0ba902b7";
+    
+    @Test
+    public void parsesTraceparent() {
+        TraceContext context = parse("00-" + TRACE_ID + "-" + PARENT_ID + "-01");
+        
+        assertNotNull(context);
+        assertEquals(TRACE_ID, context.getTraceId());
+        assertEquals(0x00f067aa0ba902b7L, context.getSpanId());
+        assertTrue(context.isSampled());
+        assertFalse(parse("00-" + TRACE_ID + "-" + PARENT_ID + "-00").isSampled());
+    }
+    
+    @Test
+    public void roundTripsTraceparent() {
+        TraceContext root = TraceContext.newRoot();
+        TraceContext parsed = TraceContext.parse(root.toTraceparent());
+        
+        assertEquals(root.getTraceId(), parsed.getTraceId());
+        assertEquals(root.getSpanId(), parsed.getSpanId());
+    }
+    
+    @Test
+    public void acceptsIdsWithAllBitsSet() {
+        TraceContext context = parse("00-ffffffffffffffffffffffffffffffff-ffffffffffffffff-01");
+        
+        assertNotNull(context);
+        assertEquals("ffffffffffffffffffffffffffffffff", context.getTraceId());
+        assertEquals(-1L, context.getSpanId());
+        assertEquals("ffffffffffffffff", parse("ffffffffffffffff").getTraceId().substring(16));
+    }
+    
+    @Test
+    public void parsesPrefixOfLaterVersions() {
+        TraceContext context = parse("cc-" + TRACE_ID + "-" + PARENT_ID + "-01-future");
+        
+        assertNotNull(context);
+        assertEquals(TRACE_ID, context.getTraceId());
+        assertNotNull(parse("cc-" + TRACE_ID + "-" + PARENT_ID + "-01"));
+        assertNull(parse("cc-" + TRACE_ID + "-" + PARENT_ID + "-01future"));
+        // Version 00 has no further fields
+        assertNull(parse("00-" + TRACE_ID + "-" + PARENT_ID + "-01-future"));
+    }
+    
+    @Test
+    public void rejectsMalformedTraceparent() {
+        assertNull(parse("ff-" + TRACE_ID + "-" + PARENT_ID + "-01"));
+        assertNull(parse("00-" + TRACE_ID.toUpperCase() + "-" + PARENT_ID + "-01"));
+        assertNull(parse("00-" + TRACE_ID + "-00F067AA0BA902B7-01"));
+        assertNull(parse("0A-" + TRACE_ID + "-" + PARENT_ID + "-01"));
+        assertNull(parse("00-00000000000000000000000000000000-" + PARENT_ID + "-01"));
+        assertNull(parse("00-" + TRACE_ID + "-0000000000000000-01"));
+        assertNull(parse("00-" + TRACE_ID + "-" + PARENT_ID + "-0g"));
+        assertNull(parse("00_" + TRACE_ID + "-" + PARENT_ID + "-01"));
+    }
+    
+    @Test
+    public void parsesBareTraceIds() {
+        assertEquals(TRACE_ID, parse(TRACE_ID).getTraceId());
+        assertEquals("0000000000000000a3ce929d0e0e4736", parse("a3ce929d0e0e4736").getTraceId());
+        assertNull(parse(TRACE_ID.toUpperCase()));
+        assertNull(parse("0000000000000000"));
+        assertNull(parse("a3ce929d0e0e473"));
+    }
+    
+    private static TraceContext parse(String value) {
+        return TraceContext.parse(value.getBytes(StandardCharsets.US_ASCII));
+    }
+}